@@ -86,8 +86,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 
 @Transactional
@@ -103,6 +105,12 @@ public class AuditLogInitializerIntegrationTest {
   @Autowired
   private ApplicationContext applicationContext;
 
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
   @PersistenceContext
   private EntityManager entityManager;
 
@@ -375,7 +383,8 @@ public class AuditLogInitializerIntegrationTest {
 
     assertThat(snapshots, hasSize(0));
 
-    AuditLogInitializer auditLogInitializer = new AuditLogInitializer(applicationContext, javers);
+    AuditLogInitializer auditLogInitializer = new AuditLogInitializer(applicationContext, javers,
+        jdbcTemplate, transactionManager, 10, 1);
     auditLogInitializer.run();
 
     snapshots = javers.findSnapshots(jqlQuery.build());
@@ -0,0 +1,109 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.fhir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openlmis.referencedata.fhir.FhirSyncEvent.ResourceType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class FhirSyncOutboxIntegrationTest {
+
+  private static final int LIMIT = 10;
+  private static final long LEASE_SECONDS = 300;
+
+  @Autowired
+  private JdbcTemplate template;
+
+  private FhirSyncOutbox outbox;
+  private UUID facilityId = UUID.randomUUID();
+
+  @Before
+  public void setUp() {
+    outbox = new FhirSyncOutbox(template);
+  }
+
+  @Test
+  public void shouldCoalesceEventsOfTheSameLocation() {
+    outbox.enqueue(ResourceType.FACILITY, facilityId);
+    outbox.enqueue(ResourceType.FACILITY, facilityId);
+    outbox.enqueue(ResourceType.GEOGRAPHIC_ZONE, facilityId);
+
+    List<FhirSyncEvent> events = outbox.claim(LIMIT, LEASE_SECONDS);
+
+    assertThat(events).containsExactlyInAnyOrder(
+        new FhirSyncEvent(ResourceType.FACILITY, facilityId, 2, 0),
+        new FhirSyncEvent(ResourceType.GEOGRAPHIC_ZONE, facilityId, 1, 0));
+    assertThat(outbox.getStatistics().getDepth()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldNotClaimLeasedEvents() {
+    outbox.enqueue(ResourceType.FACILITY, facilityId);
+
+    assertThat(outbox.claim(LIMIT, LEASE_SECONDS)).hasSize(1);
+    assertThat(outbox.claim(LIMIT, LEASE_SECONDS)).isEmpty();
+  }
+
+  @Test
+  public void shouldRemoveCompletedEvent() {
+    outbox.enqueue(ResourceType.FACILITY, facilityId);
+    FhirSyncEvent event = outbox.claim(LIMIT, LEASE_SECONDS).get(0);
+
+    outbox.complete(event);
+
+    assertThat(outbox.getStatistics().getDepth()).isZero();
+  }
+
+  @Test
+  public void shouldReleaseCompletedEventIfLocationChangedSinceClaim() {
+    outbox.enqueue(ResourceType.FACILITY, facilityId);
+    FhirSyncEvent event = outbox.claim(LIMIT, LEASE_SECONDS).get(0);
+    outbox.enqueue(ResourceType.FACILITY, facilityId);
+
+    outbox.complete(event);
+
+    assertThat(outbox.claim(LIMIT, LEASE_SECONDS))
+        .containsExactly(new FhirSyncEvent(ResourceType.FACILITY, facilityId, 2, 0));
+  }
+
+  @Test
+  public void shouldPostponeFailedEvent() {
+    outbox.enqueue(ResourceType.FACILITY, facilityId);
+    FhirSyncEvent event = outbox.claim(LIMIT, LEASE_SECONDS).get(0);
+
+    outbox.fail(event, 60000, "timeout");
+
+    assertThat(outbox.claim(LIMIT, LEASE_SECONDS)).isEmpty();
+    assertThat(template.queryForObject("SELECT attempts FROM referencedata.fhir_sync_events"
+        + " WHERE resourceid = ?", Integer.class, facilityId)).isEqualTo(1);
+  }
+
+}
@@ -21,7 +21,6 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.openlmis.referencedata.domain.Identifiable;
 import org.openlmis.referencedata.repository.custom.CrudRedisRepository;
-import org.openlmis.referencedata.repository.custom.impl.ProgramRedisRepository;
 import org.openlmis.referencedata.repository.custom.impl.SupervisoryNodeDtoRedisRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -48,9 +47,6 @@ public abstract class CrudRedisRepositoryIntegrationTest<T extends Identifiable>
   @Autowired
   protected ProgramRepository programRepository;
 
-  @Autowired
-  protected ProgramRedisRepository programRedisRepository;
-
   @Autowired
   protected FacilityRepository facilityRepository;
 
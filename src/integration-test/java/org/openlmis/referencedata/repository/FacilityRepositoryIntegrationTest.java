@@ -307,6 +307,39 @@ public class FacilityRepositoryIntegrationTest extends BaseCrudRepositoryIntegra
     assertEquals(facility.getId(), foundFacilties.get(0).getId());
   }
 
+  @Test
+  public void shouldFindFacilitiesFromDescendantZonesIfSearchIsRecursive() {
+    // given
+    GeographicZone childZone = new GeographicZoneDataBuilder()
+        .withLevel(geographicLevel)
+        .withParent(geographicZone)
+        .buildAsNew();
+    geographicZoneRepository.save(childZone);
+
+    GeographicZone grandchildZone = new GeographicZoneDataBuilder()
+        .withLevel(geographicLevel)
+        .withParent(childZone)
+        .buildAsNew();
+    geographicZoneRepository.save(grandchildZone);
+
+    facility1.setGeographicZone(grandchildZone);
+    repository.save(facility1);
+
+    FacilityRepositoryCustom.SearchParams searchParams =
+        new TestSearchParams(null, null, null, Sets.newHashSet(), true);
+
+    // when
+    List<Facility> foundFacilties = repository
+        .search(searchParams, ImmutableSet.of(geographicZone.getId()), null, pageable).getContent();
+    List<Facility> foundInChildZone = repository
+        .search(searchParams, ImmutableSet.of(childZone.getId()), null, pageable).getContent();
+
+    // then
+    assertThat(foundFacilties, hasSize(2));
+    assertThat(foundInChildZone, hasSize(1));
+    assertEquals(facility1.getId(), foundInChildZone.get(0).getId());
+  }
+
   @Test
   public void shouldFindFacilitiesUsingExtraData() throws JsonProcessingException {
     // given
@@ -498,18 +531,30 @@ public class FacilityRepositoryIntegrationTest extends BaseCrudRepositoryIntegra
     private String name;
     private String facilityTypeCode;
     private Set<UUID> ids;
+    private Boolean recurse;
 
     TestSearchParams() {
       this(null, null, null, Collections.emptySet());
     }
 
     TestSearchParams(String code, String name, String facilityTypeCode, Set<UUID> ids) {
+      this(code, name, facilityTypeCode, ids, false);
+    }
+
+    TestSearchParams(String code, String name, String facilityTypeCode, Set<UUID> ids,
+        Boolean recurse) {
       this.code = code;
       this.name = name;
       this.facilityTypeCode = facilityTypeCode;
       this.ids = Optional
           .ofNullable(ids)
           .orElse(Collections.emptySet());
+      this.recurse = recurse;
+    }
+
+    @Override
+    public Boolean isRecurse() {
+      return recurse;
     }
   }
 }
@@ -610,6 +610,23 @@ public class FacilityTypeApprovedProductRepositoryIntegrationTest {
             hasProperty("code", isOneOf(FACILITY_TYPE_CODE, FACILITY_TYPE2_CODE)))));
   }
 
+  @Test
+  public void searchShouldOnlyFindLatestVersions() {
+    // given
+    FacilityTypeApprovedProduct ftap = saveAndGetProduct(facilityType1, true);
+
+    // when
+    Page<FacilityTypeApprovedProduct> actual = ftapRepository.searchProducts(
+        new FacilityTypeApprovedProductSearchParamsDataBuilder()
+            .withFacilityTypeCode(FACILITY_TYPE_CODE)
+            .build(),
+        pageable);
+
+    // then
+    assertThat(actual.getNumberOfElements(), is(1));
+    assertThat(actual.getContent().get(0).getVersionIdentity(), is(ftap.getVersionIdentity()));
+  }
+
   @Test
   public void shouldFindResourcesByIdVersionNumberPairs() {
     FacilityTypeApprovedProduct ftap1 = saveAndGetProduct(facilityType1, true);
@@ -15,6 +15,8 @@
 
 package org.openlmis.referencedata.repository;
 
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasProperty;
@@ -34,6 +36,7 @@ import com.vividsolutions.jts.geom.Polygon;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import javax.persistence.EntityManager;
 import org.junit.Before;
 import org.junit.Test;
 import org.openlmis.referencedata.domain.GeographicLevel;
@@ -57,6 +60,9 @@ public class GeographicZoneRepositoryIntegrationTest
   @Autowired
   private GeographicZoneRepository repository;
 
+  @Autowired
+  private EntityManager entityManager;
+
   private GeographicLevel countryLevel = new GeographicLevelDataBuilder()
       .withLevelNumber(1)
       .buildAsNew();
@@ -152,6 +158,44 @@ public class GeographicZoneRepositoryIntegrationTest
     assertEquals(regionZone.getId(), zones.iterator().next());
   }
 
+  @Test
+  public void shouldFindIdsOfDescendants() {
+    // given
+    repository.save(districtZone);
+    entityManager.flush();
+
+    // when
+    Set<UUID> zones = repository.findIdsOfDescendants(countryZone.getId());
+
+    // then
+    assertThat(zones, containsInAnyOrder(regionZone.getId(), districtZone.getId()));
+    assertThat(repository.findIdsOfDescendants(districtZone.getId()), is(empty()));
+  }
+
+  @Test
+  public void shouldFindIdsOfDescendantsAfterZoneIsMoved() {
+    // given
+    GeographicZone anotherRegionZone = new GeographicZoneDataBuilder()
+        .withLevel(regionLevel)
+        .withParent(countryZone)
+        .buildAsNew();
+    repository.save(anotherRegionZone);
+    repository.save(districtZone);
+    entityManager.flush();
+
+    // when
+    districtZone.setParent(anotherRegionZone);
+    repository.save(districtZone);
+    entityManager.flush();
+
+    // then
+    assertThat(repository.findIdsOfDescendants(regionZone.getId()), is(empty()));
+    assertThat(repository.findIdsOfDescendants(anotherRegionZone.getId()),
+        containsInAnyOrder(districtZone.getId()));
+    assertThat(repository.findIdsOfDescendants(countryZone.getId()),
+        containsInAnyOrder(regionZone.getId(), anotherRegionZone.getId(), districtZone.getId()));
+  }
+
   @Test
   public void shouldFindByLevel() {
     // when
@@ -21,8 +21,11 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import javax.persistence.EntityManager;
 import org.assertj.core.util.Lists;
 import org.junit.Before;
 import org.junit.Test;
@@ -34,6 +37,7 @@ import org.openlmis.referencedata.domain.GeographicZone;
 import org.openlmis.referencedata.domain.IdealStockAmount;
 import org.openlmis.referencedata.domain.ProcessingPeriod;
 import org.openlmis.referencedata.domain.ProcessingSchedule;
+import org.openlmis.referencedata.dto.IdealStockAmountCsvModel;
 import org.openlmis.referencedata.testbuilder.CommodityTypeDataBuilder;
 import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
 import org.openlmis.referencedata.testbuilder.FacilityTypeDataBuilder;
@@ -65,6 +69,9 @@ public class IdealStockAmountRepositoryIntegrationTest extends
   @Autowired
   private CommodityTypeRepository commodityTypeRepository;
 
+  @Autowired
+  private EntityManager entityManager;
+
   @Autowired
   private ProcessingScheduleRepository processingScheduleRepository;
 
@@ -156,13 +163,67 @@ public class IdealStockAmountRepositoryIntegrationTest extends
     assertTrue(list.contains(isa2.getId()));
   }
 
+  @Test
+  public void shouldGetIdsOfIdealStockAmountsWithSpecialCharactersInCodes() {
+    facility.setCode("code with \"quotes\", commas and {braces}");
+    facilityRepository.save(facility);
+    IdealStockAmount isa = isaRepository.save(generateInstance());
+
+    List<UUID> list = isaRepository.search(Lists.newArrayList(isa));
+
+    assertEquals(Collections.singletonList(isa.getId()), list);
+  }
+
+  @Test
+  public void shouldInsertOrUpdateIdealStockAmounts() {
+    final IdealStockAmount existing = isaRepository.save(generateInstance());
+    entityManager.flush();
+    entityManager.clear();
+
+    IdealStockAmount update = generateInstance();
+    update.setAmount(500);
+    IdealStockAmount created = generateInstance();
+    created.setProcessingPeriod(period2);
+
+    isaRepository.upsert(Lists.newArrayList(update, created));
+
+    List<IdealStockAmount> result = Lists.newArrayList(isaRepository.findAll());
+    assertEquals(2, result.size());
+    assertTrue(result.stream().anyMatch(isa -> existing.getId().equals(isa.getId())
+        && Integer.valueOf(500).equals(isa.getAmount())));
+    assertTrue(result.stream().anyMatch(isa -> period2.getId().equals(
+        isa.getProcessingPeriod().getId())));
+  }
+
+  @Test
+  public void shouldExportIdealStockAmountsToCsvRows() {
+    final IdealStockAmount isa = isaRepository.save(generateInstance());
+    List<IdealStockAmountCsvModel> rows = new ArrayList<>();
+
+    isaRepository.exportToCsv(rows::add);
+
+    assertEquals(1, rows.size());
+    IdealStockAmountCsvModel row = rows.get(0);
+    assertEquals(facility.getCode(), row.getFacility().getCode());
+    assertEquals(commodityType.getClassificationSystem(),
+        row.getCommodityType().getClassificationSystem());
+    assertEquals(commodityType.getClassificationId(),
+        row.getCommodityType().getClassificationId());
+    assertEquals(period.getName(), row.getProcessingPeriod().getName());
+    assertEquals(period.getProcessingSchedule().getCode().toString(),
+        row.getProcessingPeriod().getProcessingSchedule().getCode());
+    assertEquals(isa.getAmount(), row.getAmount());
+  }
+
   @Test
   public void shouldGetPageOfIdealStockAmounts() {
-    isaRepository.save(generateInstance());
+    IdealStockAmount first = generateInstance();
+    first.setProcessingPeriod(period2);
+    isaRepository.save(first);
     IdealStockAmount isa = isaRepository.save(generateInstance());
 
     Page<IdealStockAmount> page = isaRepository
-        .search(facilityId, commodityTypeId, processingPeriodId, PageRequest.of(1, 1));
+        .search(facilityId, commodityTypeId, null, PageRequest.of(1, 1));
 
     checkPageProperties(page);
     checkIsaProperties(isa, page);
@@ -211,8 +272,13 @@ public class IdealStockAmountRepositoryIntegrationTest extends
   @Test
   public void shouldGetAllIdealStockAmountsIfNoParamsProvided() {
     isaRepository.save(generateInstance());
-    isaRepository.save(generateInstance());
-    isaRepository.save(generateInstance());
+    IdealStockAmount second = generateInstance();
+    second.setProcessingPeriod(period2);
+    isaRepository.save(second);
+    IdealStockAmount third = generateInstance();
+    third.setCommodityType(commodityTypeRepository.save(new CommodityTypeDataBuilder()
+        .buildAsNew()));
+    isaRepository.save(third);
 
     Page<IdealStockAmount> page = isaRepository
         .search(null, null, null, PageRequest.of(0, 10));
@@ -559,6 +559,21 @@ public class OrderableRepositoryIntegrationTest {
     checkSingleResultOrderableVersion(actual.getContent(), orderable.getVersionNumber());
   }
 
+  @Test
+  public void searchShouldFindPreviousVersionIfLatestVersionWasDeleted() {
+    // given
+    Orderable orderable = saveAndGetOrderable(Code.code(SOME_CODE));
+    repository.delete(orderable);
+    repository.flush();
+
+    // when
+    Page<Orderable> actual = repository
+        .search(new TestSearchParams(SOME_CODE, null, null, null), pageable);
+
+    // then
+    checkSingleResultOrderableVersion(actual.getContent(), orderable.getVersionNumber() - 1);
+  }
+
   @Test
   public void shouldFindResourcesByIdVersionNumberPairs() {
     Orderable orderable1 = saveAndGetOrderable();
@@ -586,6 +601,22 @@ public class OrderableRepositoryIntegrationTest {
         not(hasItems(orderable3.getVersionIdentity(), orderable4.getVersionIdentity())));
   }
 
+  @Test
+  public void searchShouldPaginateResourcesFoundByIdVersionNumberPairs() {
+    Set<Pair<UUID, Long>> identityPairs = Sets.newHashSet();
+    for (int i = 0; i < 5; ++i) {
+      Orderable orderable = saveAndGetOrderable();
+      identityPairs.add(Pair.of(orderable.getId(), orderable.getVersionNumber()));
+    }
+    saveAndGetOrderable();
+
+    Page<Orderable> actual = repository.search(
+        new TestSearchParams(null, null, null, identityPairs), PageRequest.of(2, 2));
+
+    assertThat(actual.getTotalElements(), is(5L));
+    assertThat(actual.getNumberOfElements(), is(1));
+  }
+
   @Test
   public void shouldFindPreviousVersions() {
     Orderable orderable = saveAndGetOrderable();
@@ -16,6 +16,8 @@
 package org.openlmis.referencedata.repository;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -435,6 +437,39 @@ public class SupervisoryNodeRepositoryIntegrationTest extends
     assertEquals(supervisoryNode, result.getContent().get(0));
   }
 
+  @Test
+  public void shouldFindSupervisedFacilityIdsOfNodeAndChildNodes() {
+    Program program = programRepository.save(new ProgramDataBuilder().withoutId().build());
+    ProcessingSchedule schedule = scheduleRepository
+        .save(new ProcessingScheduleDataBuilder().buildWithoutId());
+
+    SupervisoryNode parentNode = supervisoryNodeRepository.save(generateInstance());
+    SupervisoryNode childNode = supervisoryNodeRepository.save(generateInstance());
+    parentNode.assignChildNodes(Sets.newHashSet(childNode));
+    supervisoryNodeRepository.saveAndFlush(parentNode);
+
+    Facility parentMember = saveFacility(program);
+    Facility childMember = saveFacility(program);
+    Facility childMemberWithoutProgram = saveFacility(null);
+
+    saveRequisitionGroup(parentNode, program, schedule, parentMember);
+    saveRequisitionGroup(childNode, program, schedule, childMember, childMemberWithoutProgram);
+    supervisoryNodeRepository.flush();
+
+    assertThat(supervisoryNodeRepository
+            .findSupervisedFacilityIds(parentNode.getId(), program.getId()),
+        containsInAnyOrder(parentMember.getId(), childMember.getId()));
+    assertThat(supervisoryNodeRepository.findSupervisedFacilityIds(parentNode.getId(), null),
+        containsInAnyOrder(parentMember.getId(), childMember.getId(),
+            childMemberWithoutProgram.getId()));
+    assertThat(supervisoryNodeRepository
+            .findSupervisedFacilityIds(childNode.getId(), program.getId()),
+        containsInAnyOrder(childMember.getId()));
+    assertThat(supervisoryNodeRepository
+            .findSupervisedFacilityIds(parentNode.getId(), UUID.randomUUID()),
+        is(empty()));
+  }
+
   @Test
   public void shouldAssignChildNodes() {
     // given
@@ -552,4 +587,36 @@ public class SupervisoryNodeRepositoryIntegrationTest extends
     assertThat(supervisoryNode2.getPartnerNodeOf(), is(nullValue()));
     assertThat(supervisoryNode3.getPartnerNodeOf(), is(nullValue()));
   }
+
+  private Facility saveFacility(Program program) {
+    FacilityDataBuilder builder = new FacilityDataBuilder()
+        .withType(facilityType)
+        .withGeographicZone(geographicZone)
+        .withoutOperator();
+
+    if (null != program) {
+      builder.withSupportedProgram(program);
+    }
+
+    return facilityRepository.save(builder.buildAsNew());
+  }
+
+  private void saveRequisitionGroup(SupervisoryNode supervisoryNode, Program program,
+      ProcessingSchedule schedule, Facility... members) {
+    RequisitionGroupDataBuilder builder = new RequisitionGroupDataBuilder()
+        .withSupervisoryNode(supervisoryNode);
+
+    for (Facility member : members) {
+      builder.withMemberFacility(member);
+    }
+
+    RequisitionGroup requisitionGroup = requisitionGroupRepository.save(builder.buildAsNew());
+
+    requisitionGroupProgramScheduleRepository.save(new RequisitionGroupProgramScheduleDataBuilder()
+        .withProgram(program)
+        .withRequisitionGroup(requisitionGroup)
+        .withSchedule(schedule)
+        .withDropOffFacility(facility)
+        .buildAsNew());
+  }
 }
@@ -19,6 +19,7 @@ import static java.util.Collections.singleton;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.javers.common.collections.Sets.asSet;
 import static org.springframework.data.domain.Sort.Direction.DESC;
@@ -26,6 +27,7 @@ import static org.springframework.data.domain.Sort.Direction.DESC;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import javax.persistence.EntityManager;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Before;
@@ -35,6 +37,7 @@ import org.openlmis.referencedata.domain.FacilityType;
 import org.openlmis.referencedata.domain.GeographicLevel;
 import org.openlmis.referencedata.domain.GeographicZone;
 import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.domain.RequisitionGroup;
 import org.openlmis.referencedata.domain.SupervisoryNode;
 import org.openlmis.referencedata.domain.SupplyLine;
 import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
@@ -42,6 +45,7 @@ import org.openlmis.referencedata.testbuilder.FacilityTypeDataBuilder;
 import org.openlmis.referencedata.testbuilder.GeographicLevelDataBuilder;
 import org.openlmis.referencedata.testbuilder.GeographicZoneDataBuilder;
 import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
+import org.openlmis.referencedata.testbuilder.RequisitionGroupDataBuilder;
 import org.openlmis.referencedata.testbuilder.SupervisoryNodeDataBuilder;
 import org.openlmis.referencedata.testbuilder.SupplyLineDataBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -77,6 +81,12 @@ public class SupplyLineRepositoryIntegrationTest
   @Autowired
   private ProgramRepository programRepository;
 
+  @Autowired
+  private RequisitionGroupRepository requisitionGroupRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
   private List<SupplyLine> supplyLines;
   private Pageable pageable = PageRequest.of(0, 10);
 
@@ -157,6 +167,34 @@ public class SupplyLineRepositoryIntegrationTest
     assertThat(result.getContent(), hasItems(supplyLines.get(0), supplyLines.get(1)));
   }
 
+  @Test
+  public void shouldSearchPageOfSupplyLinesWithRequisitionGroupMembers() {
+    for (SupplyLine supplyLine : supplyLines) {
+      RequisitionGroupDataBuilder builder = new RequisitionGroupDataBuilder()
+          .withSupervisoryNode(supplyLine.getSupervisoryNode());
+      for (int i = 0; i < 3; i++) {
+        builder.withMemberFacility(generateFacility());
+      }
+      requisitionGroupRepository.save(builder.buildAsNew());
+    }
+    entityManager.flush();
+    entityManager.clear();
+
+    Pageable pageable = PageRequest.of(1, 2, Sort.by("id"));
+    Page<SupplyLine> result = repository.search(null, null, null, pageable);
+
+    assertThat(result.getTotalElements(), equalTo(5L));
+    assertThat(result.getContent(), hasSize(2));
+    for (SupplyLine supplyLine : result.getContent()) {
+      RequisitionGroup requisitionGroup = supplyLine.getSupervisoryNode().getRequisitionGroup();
+      assertThat(requisitionGroup.getMemberFacilities(), hasSize(3));
+    }
+
+    Page<SupplyLine> all = repository
+        .search(null, null, null, PageRequest.of(0, 5, Sort.by("id")));
+    assertThat(result.getContent(), contains(all.getContent().get(2), all.getContent().get(3)));
+  }
+
   @Test(expected = DataIntegrityViolationException.class)
   public void shouldThrowExceptionWhenProgramAndSupervisoryNodeAreDuplicated() {
     SupplyLine supplyLine = cloneSupplyLine(supplyLines.get(0));
@@ -0,0 +1,173 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.FacilityType;
+import org.openlmis.referencedata.domain.GeographicLevel;
+import org.openlmis.referencedata.domain.GeographicZone;
+import org.openlmis.referencedata.domain.User;
+import org.openlmis.referencedata.testbuilder.FacilityTypeDataBuilder;
+import org.openlmis.referencedata.testbuilder.GeographicLevelDataBuilder;
+import org.openlmis.referencedata.testbuilder.GeographicZoneDataBuilder;
+import org.openlmis.referencedata.web.FacilitySearchParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Checks that substring searches can use the trigram indexes, and logs how long it takes to
+ * search users and facilities. The number of generated rows can be changed with the
+ * {@code benchmark.users} and {@code benchmark.facilities} system properties, for example
+ * to 1000000 and 100000.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class TrigramSearchIndexIntegrationTest {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(TrigramSearchIndexIntegrationTest.class);
+
+  private static final int USERS = Integer.getInteger("benchmark.users", 10000);
+  private static final int FACILITIES = Integer.getInteger("benchmark.facilities", 1000);
+  private static final PageRequest PAGEABLE = PageRequest.of(0, 10);
+
+  private static final String INSERT_USERS = "INSERT INTO referencedata.users"
+      + " (id, username, firstname, lastname, active)"
+      + " SELECT md5('trigram-user-' || i)::uuid, 'trigram-user-' || i, 'First' || i,"
+      + " 'Last' || i, true"
+      + " FROM generate_series(1, ?) i";
+
+  private static final String INSERT_FACILITIES = "INSERT INTO referencedata.facilities"
+      + " (id, code, name, active, enabled, geographiczoneid, typeid)"
+      + " SELECT md5('trigram-facility-' || i)::uuid, 'TRIGRAM-' || i,"
+      + " 'Trigram Facility ' || i, true, true, ?, ?"
+      + " FROM generate_series(1, ?) i";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private FacilityRepository facilityRepository;
+
+  @Autowired
+  private FacilityTypeRepository facilityTypeRepository;
+
+  @Autowired
+  private GeographicLevelRepository geographicLevelRepository;
+
+  @Autowired
+  private GeographicZoneRepository geographicZoneRepository;
+
+  @Before
+  public void setUp() {
+    FacilityType type = facilityTypeRepository.save(new FacilityTypeDataBuilder().buildAsNew());
+    GeographicLevel level = geographicLevelRepository
+        .save(new GeographicLevelDataBuilder().buildAsNew());
+    GeographicZone zone = geographicZoneRepository
+        .save(new GeographicZoneDataBuilder().withLevel(level).buildAsNew());
+    entityManager.flush();
+
+    jdbcTemplate.update(INSERT_USERS, USERS);
+    jdbcTemplate.update(INSERT_FACILITIES, zone.getId(), type.getId(), FACILITIES);
+    jdbcTemplate.execute("ANALYZE referencedata.users");
+    jdbcTemplate.execute("ANALYZE referencedata.facilities");
+  }
+
+  @Test
+  public void shouldUseTrigramIndexesForSubstringSearch() {
+    jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+
+    assertThat(explain("users", "UPPER(username) LIKE '%USER-12%'"))
+        .contains("users_username_trgm_idx");
+    assertThat(explain("users", "UPPER(firstname) LIKE '%IRST12%'"))
+        .contains("users_firstname_trgm_idx");
+    assertThat(explain("users", "UPPER(lastname) LIKE '%AST12%'"))
+        .contains("users_lastname_trgm_idx");
+    assertThat(explain("facilities", "UPPER(code) LIKE '%GRAM-12%'"))
+        .contains("facilities_code_trgm_idx");
+    assertThat(explain("facilities", "UPPER(name) LIKE '%FACILITY 12%'"))
+        .contains("facilities_name_trgm_idx");
+    assertThat(explain("geographic_zones", "UPPER(code) LIKE '%ZONE%'"))
+        .contains("geographic_zones_code_trgm_idx");
+    assertThat(explain("geographic_zones", "UPPER(name) LIKE '%ZONE%'"))
+        .contains("geographic_zones_name_trgm_idx");
+    assertThat(explain("orderables", "LOWER(code) LIKE '%code%'"))
+        .contains("orderables_code_trgm_idx");
+    assertThat(explain("orderables", "LOWER(fullproductname) LIKE '%name%'"))
+        .contains("orderables_fullproductname_trgm_idx");
+  }
+
+  @Test
+  public void shouldSearchUsersBySubstring() {
+    UserSearchParams params = new UserSearchParams();
+    params.setUsername("USER-" + USERS / 2);
+
+    long start = System.currentTimeMillis();
+    Page<User> users = userRepository.searchUsers(params, null, PAGEABLE);
+    long time = System.currentTimeMillis() - start;
+
+    LOGGER.info("Searched {} users by a part of the username in {} ms", USERS, time);
+    assertThat(users.getContent()).isNotEmpty();
+    assertThat(users.getContent())
+        .allMatch(user -> user.getUsername().contains("user-" + USERS / 2));
+  }
+
+  @Test
+  public void shouldSearchFacilitiesBySubstring() {
+    MultiValueMap<String, Object> queryMap = new LinkedMultiValueMap<>();
+    queryMap.add("name", "facility " + FACILITIES / 2);
+
+    long start = System.currentTimeMillis();
+    Page<Facility> facilities = facilityRepository
+        .search(new FacilitySearchParams(queryMap), null, null, PAGEABLE);
+    long time = System.currentTimeMillis() - start;
+
+    LOGGER.info("Searched {} facilities by a part of the name in {} ms", FACILITIES, time);
+    assertThat(facilities.getContent()).isNotEmpty();
+    assertThat(facilities.getContent())
+        .allMatch(facility -> facility.getName().contains("Facility " + FACILITIES / 2));
+  }
+
+  private String explain(String table, String condition) {
+    List<String> plan = jdbcTemplate.queryForList(
+        "EXPLAIN SELECT id FROM referencedata." + table + " WHERE " + condition, String.class);
+    return String.join("\n", plan);
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.service.AuditLogService.AuditLogPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Checks the audit log queries against an entity with a long history, and logs how long it
+ * takes to read its first and last page by the page number and with the cursor.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class AuditLogServiceIntegrationTest {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(AuditLogServiceIntegrationTest.class);
+
+  private static final int SNAPSHOTS = 5000;
+  private static final int PAGE_SIZE = 100;
+  private static final String AUTHOR = "benchmark";
+
+  private static final String INSERT_GLOBAL_ID = "INSERT INTO referencedata.jv_global_id"
+      + " (global_id_pk, local_id, type_name)"
+      + " SELECT COALESCE(max(global_id_pk), 0) + 1, ?, 'Facility'"
+      + " FROM referencedata.jv_global_id"
+      + " RETURNING global_id_pk";
+
+  private static final String INSERT_COMMITS = "INSERT INTO referencedata.jv_commit"
+      + " (commit_pk, author, commit_date, commit_id)"
+      + " SELECT ? + i, CASE WHEN i % 2 = 0 THEN ? ELSE 'other' END,"
+      + " TIMESTAMP '2020-01-01' + i * INTERVAL '1 minute', ? + i"
+      + " FROM generate_series(1, ?) i";
+
+  private static final String INSERT_SNAPSHOTS = "INSERT INTO referencedata.jv_snapshot"
+      + " (snapshot_pk, type, version, state, changed_properties, managed_type,"
+      + " global_id_fk, commit_fk)"
+      + " SELECT ? + i, CASE WHEN i = 1 THEN 'INITIAL' ELSE 'UPDATE' END, i,"
+      + " '{\"name\":\"name-' || i || '\",\"code\":\"code-' || (i / 2) || '\"}',"
+      + " CASE WHEN i = 1 THEN NULL WHEN i % 2 = 0 THEN '[\"name\",\"code\"]'"
+      + " ELSE '[\"name\"]' END,"
+      + " 'org.openlmis.referencedata.domain.Facility', ?, ? + i"
+      + " FROM generate_series(1, ?) i";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private AuditLogService auditLogService;
+
+  private ObjectMapper objectMapper = new ObjectMapper();
+  private UUID facilityId = UUID.randomUUID();
+
+  @Before
+  public void setUp() {
+    Long globalId = jdbcTemplate.queryForObject(INSERT_GLOBAL_ID, Long.class,
+        "\"" + facilityId + "\"");
+    Long commitBase = jdbcTemplate.queryForObject(
+        "SELECT COALESCE(max(commit_pk), 0) FROM referencedata.jv_commit", Long.class);
+    Long snapshotBase = jdbcTemplate.queryForObject(
+        "SELECT COALESCE(max(snapshot_pk), 0) FROM referencedata.jv_snapshot", Long.class);
+
+    jdbcTemplate.update(INSERT_COMMITS, commitBase, AUTHOR, commitBase, SNAPSHOTS);
+    jdbcTemplate.update(INSERT_SNAPSHOTS, snapshotBase, globalId, commitBase, SNAPSHOTS);
+  }
+
+  @Test
+  public void shouldReturnSameChangesByPageNumberAndByCursor() throws IOException {
+    List<BigDecimal> byPageNumber = new ArrayList<>();
+    List<BigDecimal> byCursor = new ArrayList<>();
+
+    long start = System.currentTimeMillis();
+    for (int page = 0; page < SNAPSHOTS / PAGE_SIZE; ++page) {
+      byPageNumber.addAll(getCommitIds(getChanges(null, page)));
+    }
+    long pageNumberTime = System.currentTimeMillis() - start;
+
+    start = System.currentTimeMillis();
+    Long cursor = null;
+    do {
+      AuditLogPage page = getChanges(cursor, 0);
+      byCursor.addAll(getCommitIds(page));
+      cursor = page.getNextCursor();
+    } while (null != cursor);
+    long cursorTime = System.currentTimeMillis() - start;
+
+    LOGGER.info("Read {} snapshots in pages of {}: {} ms by page number, {} ms by cursor",
+        SNAPSHOTS, PAGE_SIZE, pageNumberTime, cursorTime);
+
+    assertThat(byCursor).isEqualTo(byPageNumber);
+    for (int i = 1; i < byCursor.size(); ++i) {
+      assertThat(byCursor.get(i)).isLessThanOrEqualTo(byCursor.get(i - 1));
+    }
+    // every update changes the name, and the initial snapshot adds the object
+    assertThat(byCursor.stream().distinct().count()).isEqualTo(SNAPSHOTS);
+  }
+
+  @Test
+  public void shouldFilterChangesByAuthorAndProperty() throws IOException {
+    JsonNode changes = objectMapper.readTree(auditLogService.getChanges(Facility.class,
+        facilityId, AUTHOR, "code", null, 0, PAGE_SIZE).getChanges());
+
+    assertThat(changes).hasSize(PAGE_SIZE);
+    for (JsonNode change : changes) {
+      assertThat(change.get("commitMetadata").get("author").asText()).isEqualTo(AUTHOR);
+      assertThat(change.get("property").asText()).isEqualTo("code");
+    }
+    assertThat(changes.get(0).get("left").asText()).isEqualTo("code-" + (SNAPSHOTS / 2 - 1));
+    assertThat(changes.get(0).get("right").asText()).isEqualTo("code-" + SNAPSHOTS / 2);
+  }
+
+  private AuditLogPage getChanges(Long cursor, int page) {
+    return auditLogService.getChanges(Facility.class, facilityId, null, null, cursor, page,
+        PAGE_SIZE);
+  }
+
+  private List<BigDecimal> getCommitIds(AuditLogPage page) throws IOException {
+    List<BigDecimal> commitIds = new ArrayList<>();
+    for (JsonNode change : objectMapper.readTree(page.getChanges())) {
+      commitIds.add(change.get("commitMetadata").get("id").decimalValue());
+    }
+    return commitIds;
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openlmis.referencedata.domain.FacilityType;
+import org.openlmis.referencedata.domain.GeographicLevel;
+import org.openlmis.referencedata.domain.ProcessingSchedule;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.domain.Right;
+import org.openlmis.referencedata.dto.ProcessingPeriodDto;
+import org.openlmis.referencedata.dto.RightDto;
+import org.openlmis.referencedata.dto.RoleDto;
+import org.openlmis.referencedata.testbuilder.FacilityTypeDataBuilder;
+import org.openlmis.referencedata.testbuilder.GeographicLevelDataBuilder;
+import org.openlmis.referencedata.testbuilder.ProcessingPeriodDataBuilder;
+import org.openlmis.referencedata.testbuilder.ProcessingScheduleDataBuilder;
+import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
+import org.openlmis.referencedata.testbuilder.RightDataBuilder;
+import org.openlmis.referencedata.testbuilder.RoleDataBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Checks that values of every entity cache can be stored in and read back from Redis without
+ * losing any field, and that invalidations reach Redis.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class EntityCacheManagerIntegrationTest {
+
+  @Autowired
+  private EntityCacheManager entityCacheManager;
+
+  @Autowired
+  private RedisConnectionFactory connectionFactory;
+
+  private AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  public void shouldReadProgramsFromRedis() {
+    Program program = new ProgramDataBuilder().build();
+    program.setDescription("cached program");
+    program.setActive(false);
+    program.setPeriodsSkippable(false);
+    program.setSkipAuthorization(true);
+    program.setShowNonFullSupplyTab(false);
+    program.setEnableDatePhysicalStockCountCompleted(true);
+
+    assertReadFromRedis(EntityCacheManager.PROGRAMS, program.getId(), program, Program.class);
+  }
+
+  @Test
+  public void shouldReadFacilityTypesFromRedis() {
+    FacilityType facilityType = new FacilityTypeDataBuilder().deactivated().build();
+    facilityType.setDescription("cached facility type");
+    facilityType.setDisplayOrder(7);
+
+    assertReadFromRedis(EntityCacheManager.FACILITY_TYPES, facilityType.getId(), facilityType,
+        FacilityType.class);
+  }
+
+  @Test
+  public void shouldReadProcessingSchedulesFromRedis() {
+    ProcessingSchedule schedule = new ProcessingScheduleDataBuilder().build();
+    schedule.setDescription("cached schedule");
+    // not the time zone of the service, so changing dates to it would be noticed
+    schedule.setModifiedDate(
+        ZonedDateTime.of(2021, 3, 14, 15, 9, 26, 535_000_000, ZoneOffset.ofHours(5)));
+
+    assertReadFromRedis(EntityCacheManager.PROCESSING_SCHEDULES, schedule.getId(), schedule,
+        ProcessingSchedule.class);
+  }
+
+  @Test
+  public void shouldReadProcessingPeriodsFromRedis() {
+    ProcessingPeriodDto period = new ProcessingPeriodDto();
+    new ProcessingPeriodDataBuilder()
+        .withPeriod(LocalDate.of(2021, 2, 1), LocalDate.of(2021, 4, 30))
+        .build()
+        .export(period);
+    period.setExtraData(Collections.singletonMap("reportOnly", true));
+
+    assertReadFromRedis(EntityCacheManager.PROCESSING_PERIODS, period.getId(), period,
+        ProcessingPeriodDto.class);
+  }
+
+  @Test
+  public void shouldReadGeographicLevelsFromRedis() {
+    GeographicLevel level = new GeographicLevelDataBuilder()
+        .withName("cached level")
+        .withLevelNumber(4)
+        .build();
+
+    assertReadFromRedis(EntityCacheManager.GEOGRAPHIC_LEVELS, level.getId(), level,
+        GeographicLevel.class);
+  }
+
+  @Test
+  public void shouldReadRightsAndRolesFromRedis() {
+    Right right = new RightDataBuilder().build();
+    Right attachment = new RightDataBuilder().build();
+    right.attach(attachment);
+
+    RightDto rightDto = new RightDto();
+    right.export(rightDto);
+    RoleDto roleDto = new RoleDto();
+    new RoleDataBuilder().withRights(right, attachment).build().export(roleDto);
+
+    assertReadFromRedis(EntityCacheManager.RIGHTS, rightDto.getId(), rightDto, RightDto.class);
+    assertReadFromRedis(EntityCacheManager.ROLES, roleDto.getId(), roleDto, RoleDto.class);
+  }
+
+  @Test
+  public void shouldEvictValueFromRedis() {
+    GeographicLevel level = new GeographicLevelDataBuilder().build();
+    entityCacheManager.get(EntityCacheManager.GEOGRAPHIC_LEVELS, level.getId(),
+        GeographicLevel.class, loader(level));
+
+    entityCacheManager.evict(EntityCacheManager.GEOGRAPHIC_LEVELS, level.getId());
+
+    assertThat(new StringRedisTemplate(connectionFactory).opsForHash()
+        .hasKey(EntityCacheManager.REDIS_KEY_PREFIX + EntityCacheManager.GEOGRAPHIC_LEVELS,
+            level.getId().toString()))
+        .isFalse();
+    entityCacheManager.get(EntityCacheManager.GEOGRAPHIC_LEVELS, level.getId(),
+        GeographicLevel.class, loader(level));
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldNotWriteValueLoadedBeforeOtherInstanceEvictedIt() {
+    GeographicLevel level = new GeographicLevelDataBuilder().build();
+    StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+    String redisKey = EntityCacheManager.REDIS_KEY_PREFIX + EntityCacheManager.GEOGRAPHIC_LEVELS;
+
+    // another instance of the service, which does not receive the invalidation in time
+    EntityCache<GeographicLevel> otherInstance = new EntityCache<>(
+        EntityCacheManager.GEOGRAPHIC_LEVELS, GeographicLevel.class, redisKey,
+        redisKey + EntityCacheManager.GENERATION_SUFFIX, 3600, 100, 60, redisTemplate,
+        new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry());
+
+    otherInstance.get(level.getId(), () -> {
+      entityCacheManager.evict(EntityCacheManager.GEOGRAPHIC_LEVELS, level.getId());
+      return level;
+    });
+
+    assertThat(redisTemplate.opsForHash().hasKey(redisKey, level.getId().toString())).isFalse();
+    otherInstance.get(level.getId(), loader(level));
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  private <T> void assertReadFromRedis(String cacheName, UUID id, T value, Class<T> type) {
+    loads.set(0);
+    entityCacheManager.get(cacheName, id, type, loader(value));
+
+    // simulates an invalidation of the local cache sent by another instance of the service
+    entityCacheManager.onMessage(new DefaultMessage(
+        EntityCacheManager.INVALIDATION_CHANNEL.getBytes(UTF_8),
+        (cacheName + "/" + id).getBytes(UTF_8)), null);
+
+    // equals of most entities only compares codes
+    assertThat(entityCacheManager.get(cacheName, id, type, loader(value)))
+        .isNotSameAs(value)
+        .usingRecursiveComparison()
+        .ignoringAllOverriddenEquals()
+        .ignoringCollectionOrder()
+        .isEqualTo(value);
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  private <T> Supplier<T> loader(T value) {
+    return () -> {
+      loads.incrementAndGet();
+      return value;
+    };
+  }
+}
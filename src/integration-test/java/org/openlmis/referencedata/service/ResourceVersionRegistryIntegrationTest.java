@@ -0,0 +1,83 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.FACILITY_TYPE_APPROVED_PRODUCTS;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.ORDERABLES;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openlmis.referencedata.domain.Code;
+import org.openlmis.referencedata.domain.FacilityType;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.repository.FacilityTypeRepository;
+import org.openlmis.referencedata.repository.ProgramRepository;
+import org.openlmis.referencedata.testbuilder.FacilityTypeDataBuilder;
+import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Checks that versions of resources are changed by the triggers on the tables the resources are
+ * built from.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class ResourceVersionRegistryIntegrationTest {
+
+  @Autowired
+  private ResourceVersionRegistry resourceVersionRegistry;
+
+  @Autowired
+  private FacilityTypeRepository facilityTypeRepository;
+
+  @Autowired
+  private ProgramRepository programRepository;
+
+  @Test
+  public void shouldChangeFtapsVersionWhenFacilityTypeCodeIsChanged() {
+    FacilityType facilityType = facilityTypeRepository
+        .saveAndFlush(new FacilityTypeDataBuilder().buildAsNew());
+    ResourceVersion version = getFtapsVersion();
+
+    facilityType.setCode(facilityType.getCode() + "-renamed");
+    facilityTypeRepository.saveAndFlush(facilityType);
+
+    assertThat(getFtapsVersion().getEtag()).isNotEqualTo(version.getEtag());
+  }
+
+  @Test
+  public void shouldChangeFtapsVersionWhenProgramCodeIsChanged() {
+    Program program = programRepository
+        .saveAndFlush(new ProgramDataBuilder().withoutId().build());
+    ResourceVersion version = getFtapsVersion();
+
+    program.setCode(Code.code(program.getCode().toString() + "-renamed"));
+    programRepository.saveAndFlush(program);
+
+    assertThat(getFtapsVersion().getEtag()).isNotEqualTo(version.getEtag());
+  }
+
+  private ResourceVersion getFtapsVersion() {
+    return resourceVersionRegistry.getVersion(FACILITY_TYPE_APPROVED_PRODUCTS, ORDERABLES);
+  }
+}
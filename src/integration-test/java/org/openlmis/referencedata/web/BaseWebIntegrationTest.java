@@ -49,6 +49,7 @@ import guru.nidi.ramltester.RamlLoaders;
 import guru.nidi.ramltester.restassured.RestAssuredClient;
 import java.io.IOException;
 import java.util.UUID;
+import java.util.function.Supplier;
 import javax.annotation.PostConstruct;
 import org.assertj.core.api.Assertions;
 import org.hamcrest.BaseMatcher;
@@ -89,16 +90,18 @@ import org.openlmis.referencedata.repository.SupplyPartnerRepository;
 import org.openlmis.referencedata.repository.SystemNotificationRepository;
 import org.openlmis.referencedata.repository.TradeItemRepository;
 import org.openlmis.referencedata.repository.UserRepository;
-import org.openlmis.referencedata.repository.custom.impl.ProgramRedisRepository;
 import org.openlmis.referencedata.repository.custom.impl.SupervisoryNodeDtoRedisRepository;
 import org.openlmis.referencedata.service.AuthenticationHelper;
+import org.openlmis.referencedata.service.EntityCacheManager;
 import org.openlmis.referencedata.service.FacilityService;
 import org.openlmis.referencedata.service.FacilityTypeService;
 import org.openlmis.referencedata.service.GeographicZoneService;
 import org.openlmis.referencedata.service.IdealStockAmountService;
 import org.openlmis.referencedata.service.OrderableService;
+import org.openlmis.referencedata.service.PermissionIndex;
 import org.openlmis.referencedata.service.RequisitionGroupProgramScheduleService;
 import org.openlmis.referencedata.service.RequisitionGroupService;
+import org.openlmis.referencedata.service.ResourceVersionRegistry;
 import org.openlmis.referencedata.service.RightService;
 import org.openlmis.referencedata.service.SupplyPartnerBuilder;
 import org.openlmis.referencedata.service.UserService;
@@ -217,7 +220,7 @@ public abstract class BaseWebIntegrationTest {
   protected ProgramRepository programRepository;
 
   @MockBean
-  protected ProgramRedisRepository programRedisRepository;
+  protected EntityCacheManager entityCacheManager;
 
   @MockBean
   protected FacilityTypeApprovedProductRepository facilityTypeApprovedProductRepository;
@@ -293,6 +296,12 @@ public abstract class BaseWebIntegrationTest {
   
   @MockBean
   protected RightAssignmentRepository rightAssignmentRepository;
+
+  @MockBean
+  protected PermissionIndex permissionIndex;
+
+  @MockBean
+  protected ResourceVersionRegistry resourceVersionRegistry;
   
   @MockBean
   protected RoleAssignmentRepository roleAssignmentRepository;
@@ -310,7 +319,10 @@ public abstract class BaseWebIntegrationTest {
   protected IdealStockAmountService idealStockAmountService;
 
   @MockBean
-  protected OrderableFulfillFactory factory;
+  protected OrderableFulfillGraph orderableFulfillGraph;
+
+  @MockBean
+  protected DisplayedSystemNotifications displayedSystemNotifications;
 
   @MockBean
   protected FacilityTypeService facilityTypeService;
@@ -378,6 +390,11 @@ public abstract class BaseWebIntegrationTest {
         .willReturn(false);
 
     mockUserAuthenticated();
+
+    // by default values are always loaded from repositories
+    given(entityCacheManager.get(anyString(), any(UUID.class), any(Class.class),
+        any(Supplier.class)))
+        .willAnswer(invocation -> ((Supplier<?>) invocation.getArgument(3)).get());
   }
 
   /**
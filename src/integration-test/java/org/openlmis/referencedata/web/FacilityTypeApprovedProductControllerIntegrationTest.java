@@ -23,7 +23,11 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.openlmis.referencedata.domain.RightName.FACILITY_APPROVED_ORDERABLES_MANAGE;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.FACILITY_TYPE_APPROVED_PRODUCTS;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.ORDERABLES;
 
 import com.google.common.collect.Lists;
 import guru.nidi.ramltester.junit.RamlMatchers;
@@ -42,6 +46,7 @@ import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.dto.ApprovedProductDto;
 import org.openlmis.referencedata.exception.UnauthorizedException;
 import org.openlmis.referencedata.service.PageDto;
+import org.openlmis.referencedata.service.ResourceVersion;
 import org.openlmis.referencedata.testbuilder.FacilityTypeApprovedProductSearchParamsDataBuilder;
 import org.openlmis.referencedata.testbuilder.FacilityTypeApprovedProductsDataBuilder;
 import org.openlmis.referencedata.testbuilder.FacilityTypeDataBuilder;
@@ -440,6 +445,58 @@ public class FacilityTypeApprovedProductControllerIntegrationTest extends BaseWe
         ((java.util.LinkedHashMap) response.getContent().get(0)).get("id"));
   }
 
+  @Test
+  public void shouldReturnNotModifiedWithoutSearchingIfFtapsVersionMatches() {
+    ResourceVersion version = new ResourceVersion("W/\"3-12\"", System.currentTimeMillis());
+    given(resourceVersionRegistry.getVersion(FACILITY_TYPE_APPROVED_PRODUCTS, ORDERABLES))
+        .willReturn(version);
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, version.getEtag())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .queryParam(FACILITY_TYPE_PARAM, facilityType1.getCode())
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(HttpStatus.SC_NOT_MODIFIED)
+        .header(HttpHeaders.ETAG, version.getEtag());
+
+    verify(facilityTypeApprovedProductRepository, never())
+        .searchProducts(any(QueryFacilityTypeApprovedProductSearchParams.class),
+            any(Pageable.class));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldSearchFtapsIfFtapsVersionChangedAfterFacilityTypeWasRenamed() {
+    // the version of approved products is incremented when a facility type code is changed
+    ResourceVersion previousVersion = new ResourceVersion("W/\"3-12\"", 0);
+    ResourceVersion version = new ResourceVersion("W/\"4-12\"", System.currentTimeMillis());
+    given(resourceVersionRegistry.getVersion(FACILITY_TYPE_APPROVED_PRODUCTS, ORDERABLES))
+        .willReturn(version);
+    given(facilityTypeApprovedProductRepository
+        .searchProducts(any(QueryFacilityTypeApprovedProductSearchParams.class),
+            any(Pageable.class)))
+        .willReturn(Pagination.getPage(Lists.newArrayList(facilityTypeAppProd),
+            PageRequest.of(0, 10)));
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, previousVersion.getEtag())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .queryParam(FACILITY_TYPE_PARAM, facilityType1.getCode())
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(HttpStatus.SC_OK)
+        .header(HttpHeaders.ETAG, version.getEtag());
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   @Test
   public void shouldReturnUnauthorizedIfTokenWasNotProvidedInSearchEndpoint() {
     restAssured.given()
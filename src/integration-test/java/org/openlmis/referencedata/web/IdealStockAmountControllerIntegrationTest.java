@@ -20,9 +20,11 @@ import static org.apache.commons.lang3.StringUtils.joinWith;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.refEq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -37,9 +39,8 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.apache.commons.lang3.StringUtils;
 import org.hamcrest.Matchers;
 import org.junit.Before;
@@ -51,6 +52,7 @@ import org.openlmis.referencedata.domain.IdealStockAmount;
 import org.openlmis.referencedata.domain.ProcessingPeriod;
 import org.openlmis.referencedata.domain.ProcessingSchedule;
 import org.openlmis.referencedata.domain.RightName;
+import org.openlmis.referencedata.dto.IdealStockAmountCsvModel;
 import org.openlmis.referencedata.dto.UploadResultDto;
 import org.openlmis.referencedata.service.IdealStockAmountSearchParams;
 import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
@@ -97,14 +99,6 @@ public class IdealStockAmountControllerIntegrationTest extends BaseWebIntegratio
     when(idealStockAmountRepository.save(any(IdealStockAmount.class)))
         .thenAnswer(new SaveAnswer<IdealStockAmount>());
 
-    when(facilityRepository.findByCode(any(String.class))).thenReturn(Optional.of(facility));
-    when(periodRepository.findOneByNameAndProcessingSchedule(any(String.class),
-        any(ProcessingSchedule.class)))
-        .thenReturn(Optional.of(period));
-    when(scheduleRepository.findOneByCode(any(Code.class))).thenReturn(Optional.of(schedule));
-    when(commodityTypeRepository.findByClassificationIdAndClassificationSystem(any(String.class),
-        any(String.class))).thenReturn(Optional.of(commodityType));
-
     mockUserHasRight(RightName.SYSTEM_IDEAL_STOCK_AMOUNTS_MANAGE);
   }
 
@@ -134,14 +128,19 @@ public class IdealStockAmountControllerIntegrationTest extends BaseWebIntegratio
   @Test
   public void shouldDownloadCsvWithAllPossibleFields() {
 
-    when(idealStockAmountService.search()).thenReturn(singletonList(isa));
+    IdealStockAmountCsvModel row = new IdealStockAmountCsvModel();
+    isa.export(row);
+    doAnswer(invocation -> {
+      invocation.<Consumer<IdealStockAmountCsvModel>>getArgument(0).accept(row);
+      return null;
+    }).when(idealStockAmountService).exportToCsv(any());
 
     String csvContent = download()
         .then()
         .statusCode(200)
         .extract().body().asString();
 
-    verify(idealStockAmountService).search();
+    verify(idealStockAmountService).exportToCsv(any());
     assertEquals("Facility Code,Commodity Type,Period,Ideal Stock Amount\r\n"
         + joinWith(",", facility.getCode(),
         StringUtils.joinWith("|", commodityType.getClassificationSystem(),
@@ -154,15 +153,12 @@ public class IdealStockAmountControllerIntegrationTest extends BaseWebIntegratio
   @Test
   public void shouldDownloadCsvWithHeadersOnly() {
 
-    when(idealStockAmountService.search())
-        .thenReturn(Collections.emptyList());
-
     String csvContent = download()
         .then()
         .statusCode(200)
         .extract().body().asString();
 
-    verify(idealStockAmountService).search();
+    verify(idealStockAmountService).exportToCsv(any());
     assertEquals("Facility Code,Commodity Type,Period,Ideal Stock Amount\r\n",
         csvContent);
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
@@ -186,6 +182,24 @@ public class IdealStockAmountControllerIntegrationTest extends BaseWebIntegratio
 
   @Test
   public void shouldUploadCsvWithAllFields() throws IOException {
+    // dimensions are matched by the values in the file
+    Facility uploadFacility = new FacilityDataBuilder().withCode("facility-code").build();
+    ProcessingSchedule uploadSchedule = new ProcessingSchedule(Code.code("schedule"), "name");
+    ProcessingPeriod uploadPeriod = new ProcessingPeriod();
+    uploadPeriod.setName("period");
+    uploadPeriod.setProcessingSchedule(uploadSchedule);
+    CommodityType uploadCommodityType =
+        new CommodityType("Name", "system", "id", null, new ArrayList<>());
+
+    when(facilityRepository.findByCodeIn(anyCollection()))
+        .thenReturn(singletonList(uploadFacility));
+    when(scheduleRepository.findByCodeIn(anyCollection()))
+        .thenReturn(singletonList(uploadSchedule));
+    when(periodRepository.findByNameInAndProcessingScheduleIn(anyCollection(), anyCollection()))
+        .thenReturn(singletonList(uploadPeriod));
+    when(commodityTypeRepository.findByClassificationIdInAndClassificationSystemIn(
+        anyCollection(), anyCollection())).thenReturn(singletonList(uploadCommodityType));
+
     ClassPathResource fullCsvToUpload =
         new ClassPathResource("csv/idealStockAmounts/csvWithAllColumns.csv");
 
@@ -194,8 +208,9 @@ public class IdealStockAmountControllerIntegrationTest extends BaseWebIntegratio
         .statusCode(200)
         .extract().as(UploadResultDto.class);
 
-    verify(idealStockAmountRepository).saveAll(anyList());
+    verify(idealStockAmountRepository).upsert(anyList());
     assertEquals(1, result.getAmount().intValue());
+    assertEquals(1, result.getDimensions().get("facilities").getQueries());
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.responseChecks());
   }
 
@@ -211,7 +226,7 @@ public class IdealStockAmountControllerIntegrationTest extends BaseWebIntegratio
         .path(MESSAGE_KEY);
 
     assertThat(messageKey, Matchers.is(equalTo(ERROR_UPLOAD_MISSING_MANDATORY_COLUMNS)));
-    verify(idealStockAmountRepository, never()).save(any(IdealStockAmount.class));
+    verify(idealStockAmountRepository, never()).upsert(anyList());
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.responseChecks());
   }
 
@@ -227,7 +242,7 @@ public class IdealStockAmountControllerIntegrationTest extends BaseWebIntegratio
         .path(MESSAGE_KEY);
 
     assertThat(messageKey, Matchers.is(equalTo(ERROR_UPLOAD_RECORD_INVALID)));
-    verify(idealStockAmountRepository, never()).save(any(IdealStockAmount.class));
+    verify(idealStockAmountRepository, never()).upsert(anyList());
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.responseChecks());
   }
 
@@ -22,11 +22,14 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.openlmis.referencedata.domain.RightName.ORDERABLES_MANAGE;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.ORDERABLES;
 import static org.openlmis.referencedata.util.messagekeys.OrderableMessageKeys.ERROR_ID_MISMATCH;
 import static org.openlmis.referencedata.util.messagekeys.OrderableMessageKeys.ERROR_NET_CONTENT_REQUIRED;
 import static org.openlmis.referencedata.util.messagekeys.OrderableMessageKeys.ERROR_PACK_ROUNDING_THRESHOLD_REQUIRED;
@@ -39,6 +42,9 @@ import com.google.common.collect.Lists;
 
 import com.jayway.restassured.response.Response;
 import guru.nidi.ramltester.junit.RamlMatchers;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
@@ -78,6 +84,7 @@ import org.openlmis.referencedata.dto.ProgramOrderableDto;
 import org.openlmis.referencedata.dto.VersionIdentityDto;
 import org.openlmis.referencedata.exception.UnauthorizedException;
 import org.openlmis.referencedata.service.PageDto;
+import org.openlmis.referencedata.service.ResourceVersion;
 import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.Pagination;
@@ -96,6 +103,7 @@ public class OrderableControllerIntegrationTest extends BaseWebIntegrationTest {
   private static final String RESOURCE_URL = "/api/orderables";
   private static final String ID_URL = RESOURCE_URL + "/{id}";
   private static final String SEARCH_URL = RESOURCE_URL + "/search";
+  private static final String EXPORT_URL = RESOURCE_URL + "/export";
 
   private static final String UNIT = "unit";
   private static final String NAME = "name";
@@ -540,6 +548,58 @@ public class OrderableControllerIntegrationTest extends BaseWebIntegrationTest {
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void shouldReturnNotModifiedWithoutSearchingIfOrderablesVersionMatches() {
+    ResourceVersion version = new ResourceVersion("W/\"12\"",
+        modifiedDate.toInstant().toEpochMilli());
+    given(resourceVersionRegistry.getVersion(ORDERABLES)).willReturn(version);
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, version.getEtag())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(HttpStatus.SC_NOT_MODIFIED)
+        .header(HttpHeaders.ETAG, version.getEtag());
+
+    verify(orderableService, never())
+        .getLatestLastUpdatedDate(any(QueryOrderableSearchParams.class), any(Profiler.class));
+    verify(orderableService, never())
+        .searchOrderables(any(QueryOrderableSearchParams.class), any(Pageable.class));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnOrderablesWithVersionIfOrderablesVersionDoesNotMatch() {
+    ResourceVersion version = new ResourceVersion("W/\"12\"",
+        modifiedDate.toInstant().toEpochMilli());
+    given(resourceVersionRegistry.getVersion(ORDERABLES)).willReturn(version);
+
+    when(orderableService
+        .searchOrderables(any(QueryOrderableSearchParams.class), any(Pageable.class)))
+        .thenReturn(Pagination.getPage(Collections.singletonList(orderable),
+            PageRequest.of(0, 10)));
+    when(orderableService
+        .getLatestLastUpdatedDate(any(QueryOrderableSearchParams.class), any(Profiler.class)))
+        .thenReturn(modifiedDate);
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, "W/\"11\"")
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(HttpStatus.SC_OK)
+        .header(HttpHeaders.ETAG, version.getEtag());
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   @Test
   public void shouldSearchOrderables() {
     final String code = "some-code";
@@ -587,6 +647,38 @@ public class OrderableControllerIntegrationTest extends BaseWebIntegrationTest {
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void shouldExportOrderables() throws IOException {
+    final String code = "some-code";
+    final String line = "{\"id\":\"" + orderableId + "\"}\n";
+
+    doAnswer(invocation -> {
+      OutputStream outputStream = invocation.getArgument(1);
+      outputStream.write(line.getBytes(StandardCharsets.UTF_8));
+      return null;
+    }).when(orderableService)
+        .exportOrderables(any(QueryOrderableSearchParams.class), any(OutputStream.class));
+
+    String response = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .parameter(CODE, code)
+        .when()
+        .get(EXPORT_URL)
+        .then()
+        .statusCode(200)
+        .contentType(OrderableController.NDJSON)
+        .extract().asString();
+
+    assertEquals(line, response);
+
+    verify(orderableService)
+        .exportOrderables(searchParamsArgumentCaptor.capture(), any(OutputStream.class));
+    assertEquals(code, searchParamsArgumentCaptor.getValue().getCode());
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   @Test
   public void shouldPaginateSearchOrderables() {
     final List<Orderable> items = Collections.singletonList(orderable);
@@ -21,36 +21,30 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
-import static org.mockito.Mockito.times;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyZeroInteractions;
 
 import guru.nidi.ramltester.junit.RamlMatchers;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 import org.hamcrest.Matchers;
-import org.junit.Rule;
 import org.junit.Test;
-import org.openlmis.referencedata.AvailableFeatures;
 import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.dto.ProgramDto;
+import org.openlmis.referencedata.service.EntityCacheManager;
 import org.openlmis.referencedata.utils.AuditLogHelper;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.togglz.junit.TogglzRule;
 
 @SuppressWarnings({"PMD.TooManyMethods"})
 public class ProgramControllerIntegrationTest extends BaseWebIntegrationTest {
 
-  @Rule
-  public TogglzRule togglzRule = TogglzRule.builder(AvailableFeatures.class)
-      .disable(AvailableFeatures.REDIS_CACHING)
-      .build();
-
   private static final String RESOURCE_URL = "/api/programs";
   private static final String ID_URL = RESOURCE_URL + "/{id}";
   private static final String FIND_BY_NAME_URL = RESOURCE_URL + "/search";
@@ -92,13 +86,10 @@ public class ProgramControllerIntegrationTest extends BaseWebIntegrationTest {
   }
 
   @Test
-  public void shouldDeleteProgramFromCache() {
-    togglzRule.enable(AvailableFeatures.REDIS_CACHING);
+  public void shouldEvictProgramFromCacheAfterDelete() {
     mockUserHasRight(RightName.PROGRAMS_MANAGE);
 
     given(programRepository.findById(programId)).willReturn(Optional.of(program));
-    given(programRedisRepository.exists(programId)).willReturn(true);
-    given(programRedisRepository.findById(programId)).willReturn(program);
 
     restAssured
         .given()
@@ -110,7 +101,7 @@ public class ProgramControllerIntegrationTest extends BaseWebIntegrationTest {
         .then()
         .statusCode(204);
 
-    verify(programRedisRepository, times(1)).delete(program);
+    verify(entityCacheManager).evict(EntityCacheManager.PROGRAMS, programId);
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
@@ -216,14 +207,11 @@ public class ProgramControllerIntegrationTest extends BaseWebIntegrationTest {
   }
 
   @Test
-  public void shouldDeleteProgramFromCacheAfterUpdate() {
-    togglzRule.enable(AvailableFeatures.REDIS_CACHING);
+  public void shouldEvictProgramFromCacheAfterUpdate() {
     mockUserHasRight(RightName.PROGRAMS_MANAGE);
 
     programDto.setDescription(DESCRIPTION);
     given(programRepository.findById(programId)).willReturn(Optional.of(program));
-    given(programRedisRepository.findById(programId)).willReturn(program);
-    given(programRedisRepository.exists(programId)).willReturn(true);
 
     Program response = restAssured
         .given()
@@ -239,7 +227,7 @@ public class ProgramControllerIntegrationTest extends BaseWebIntegrationTest {
 
     assertEquals(program, response);
     assertEquals("OpenLMIS", response.getDescription());
-    verify(programRedisRepository, times(1)).delete(program);
+    verify(entityCacheManager).evict(EntityCacheManager.PROGRAMS, programId);
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
@@ -381,10 +369,6 @@ public class ProgramControllerIntegrationTest extends BaseWebIntegrationTest {
 
   @Test
   public void shouldGetProgramFromDatabaseWhenNotInCache() {
-
-    togglzRule.enable(AvailableFeatures.REDIS_CACHING);
-    given(programRepository.existsById(programId)).willReturn(true);
-    given(programRedisRepository.exists(programId)).willReturn(false);
     given(programRepository.findById(programId)).willReturn(Optional.of(program));
 
     Program response = restAssured
@@ -399,7 +383,9 @@ public class ProgramControllerIntegrationTest extends BaseWebIntegrationTest {
         .extract().as(Program.class);
 
     assertEquals(program, response);
-    verify(programRedisRepository, times(1)).save(program);
+    verify(entityCacheManager).get(eq(EntityCacheManager.PROGRAMS), eq(programId),
+        eq(Program.class), any(Supplier.class));
+    verify(programRepository).findById(programId);
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
@@ -420,17 +406,13 @@ public class ProgramControllerIntegrationTest extends BaseWebIntegrationTest {
         .extract().as(Program.class);
 
     assertEquals(program, response);
-    verifyZeroInteractions(programRedisRepository);
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
   @Test
   public void shouldGetProgramFromCache() {
-
-    togglzRule.enable(AvailableFeatures.REDIS_CACHING);
-    given(programRepository.existsById(programId)).willReturn(true);
-    given(programRedisRepository.exists(programId)).willReturn(true);
-    given(programRedisRepository.findById(programId)).willReturn(program);
+    given(entityCacheManager.get(eq(EntityCacheManager.PROGRAMS), eq(programId),
+        eq(Program.class), any(Supplier.class))).willReturn(program);
 
     Program response = restAssured
         .given()
@@ -443,16 +425,14 @@ public class ProgramControllerIntegrationTest extends BaseWebIntegrationTest {
         .statusCode(200)
         .extract().as(Program.class);
 
-    verify(programRedisRepository, times(1)).findById(programId);
+    verify(programRepository, never()).findById(programId);
     assertEquals(program, response);
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
   @Test
   public void shouldThrowErrorNotFoundWhenNeitherInDatabaseNorInCache() {
-    togglzRule.enable(AvailableFeatures.REDIS_CACHING);
-    given(supervisoryNodeRepository.existsById(programId)).willReturn(false);
-    given(supervisoryNodeDtoRedisRepository.exists(programId)).willReturn(false);
+    given(programRepository.findById(programId)).willReturn(Optional.empty());
 
     restAssured
         .given()
@@ -481,7 +461,6 @@ public class ProgramControllerIntegrationTest extends BaseWebIntegrationTest {
         .then()
         .statusCode(404);
 
-    verifyZeroInteractions(programRedisRepository);
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
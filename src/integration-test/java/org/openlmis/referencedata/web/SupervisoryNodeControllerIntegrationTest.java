@@ -31,7 +31,6 @@ import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
-import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -1107,11 +1106,12 @@ public class SupervisoryNodeControllerIntegrationTest extends BaseWebIntegration
 
   @Test
   public void shouldReturnSupervisingFacilities() {
-    SupervisoryNode spy = spy(supervisoryNode);
-    given(spy.getAllSupervisedFacilities(program)).willReturn(Sets.newHashSet(facility));
-
     given(supervisoryNodeRepository.findById(supervisoryNodeId))
-        .willReturn(Optional.of(spy));
+        .willReturn(Optional.of(supervisoryNode));
+    given(supervisoryNodeRepository.findSupervisedFacilityIds(supervisoryNode.getId(), programId))
+        .willReturn(Sets.newHashSet(facility.getId()));
+    given(facilityRepository.findAllById(Collections.singletonList(facility.getId())))
+        .willReturn(Collections.singletonList(facility));
     given(programRepository.findById(programId)).willReturn(Optional.of(program));
     mockUserHasRight(RightName.SUPERVISORY_NODES_MANAGE);
 
@@ -22,11 +22,14 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 import com.jayway.restassured.response.ValidatableResponse;
 import guru.nidi.ramltester.junit.RamlMatchers;
 import java.time.ZonedDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -48,6 +51,7 @@ import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.messagekeys.SystemNotificationMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.ValidationMessageKeys;
 import org.openlmis.referencedata.utils.AuditLogHelper;
+import org.openlmis.referencedata.web.DisplayedSystemNotifications.Notifications;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
@@ -58,6 +62,8 @@ public class SystemNotificationControllerIntegrationTest extends BaseWebIntegrat
 
   private static final String AUTHOR_ID = "authorId";
   private static final String IS_DISPLAYED = "isDisplayed";
+  private static final String CONTENT = "content";
+  private static final String ETAG = "\"6d1e1c2a\"";
 
   private static final String RESOURCE_PATH = SystemNotificationController.RESOURCE_PATH;
   private static final String ID_URL = RESOURCE_PATH + SystemNotificationController.ID_URL;
@@ -132,7 +138,7 @@ public class SystemNotificationControllerIntegrationTest extends BaseWebIntegrat
         .get(RESOURCE_PATH)
         .then()
         .statusCode(HttpStatus.SC_OK)
-        .body("content", hasSize(2));
+        .body(CONTENT, hasSize(2));
 
     assertResponseBody(response, "content[0]", is(notification.getId().toString()));
 
@@ -157,7 +163,7 @@ public class SystemNotificationControllerIntegrationTest extends BaseWebIntegrat
         .get(RESOURCE_PATH)
         .then()
         .statusCode(HttpStatus.SC_OK)
-        .body("content", hasSize(2));
+        .body(CONTENT, hasSize(2));
 
     assertResponseBody(response, "content[0]", is(notification.getId().toString()));
 
@@ -188,7 +194,7 @@ public class SystemNotificationControllerIntegrationTest extends BaseWebIntegrat
         .get(RESOURCE_PATH)
         .then()
         .statusCode(HttpStatus.SC_OK)
-        .body("content", hasSize(1));
+        .body(CONTENT, hasSize(1));
 
     assertResponseBodyWithExpand(response, "content[0]", Arrays.asList(
         is(notification.getAuthor().getFirstName()),
@@ -197,6 +203,50 @@ public class SystemNotificationControllerIntegrationTest extends BaseWebIntegrat
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void shouldGetDisplayedSystemNotificationsWithEtag() {
+    SystemNotificationDto dto = SystemNotificationDto.newInstance(notification, baseUri, true);
+    given(displayedSystemNotifications.getNotifications(false))
+        .willReturn(new Notifications(Collections.singletonList(dto), ETAG));
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam(IS_DISPLAYED, true)
+        .when()
+        .get(RESOURCE_PATH)
+        .then()
+        .statusCode(HttpStatus.SC_OK)
+        .header(HttpHeaders.ETAG, ETAG)
+        .body(CONTENT, hasSize(1))
+        .body("content[0].id", is(notification.getId().toString()))
+        .body("content[0].isDisplayed", is(true));
+
+    verify(systemNotificationRepository, never())
+        .search(any(SystemNotificationRepositoryCustom.SearchParams.class), any(Pageable.class));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnNotModifiedIfDisplayedSystemNotificationsHaveNotChanged() {
+    given(displayedSystemNotifications.getNotifications(true))
+        .willReturn(new Notifications(Collections.emptyList(), ETAG));
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, ETAG)
+        .queryParam(IS_DISPLAYED, true)
+        .queryParam("expand", "author")
+        .when()
+        .get(RESOURCE_PATH)
+        .then()
+        .statusCode(HttpStatus.SC_NOT_MODIFIED)
+        .header(HttpHeaders.ETAG, ETAG);
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   @Test
   public void shouldGetSystemNotification() {
     given(systemNotificationRepository.findById(any(UUID.class)))
@@ -280,6 +330,7 @@ public class SystemNotificationControllerIntegrationTest extends BaseWebIntegrat
         .statusCode(HttpStatus.SC_CREATED);
 
     assertResponseBody(response, "", is(notNullValue(String.class)));
+    verify(displayedSystemNotifications).refreshAfterTransaction();
 
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
@@ -33,9 +33,12 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.FACILITIES;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.RIGHT_ASSIGNMENTS;
 import static org.openlmis.referencedata.util.messagekeys.UserMessageKeys.ERROR_FIRSTNAME_REQUIRED;
 import static org.openlmis.referencedata.util.messagekeys.UserMessageKeys.ERROR_LASTNAME_REQUIRED;
 import static org.openlmis.referencedata.util.messagekeys.UserMessageKeys.ERROR_USERNAME_DUPLICATED;
@@ -84,6 +87,7 @@ import org.openlmis.referencedata.exception.UnauthorizedException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.UserSearchParams;
 import org.openlmis.referencedata.service.PageDto;
+import org.openlmis.referencedata.service.ResourceVersion;
 import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
 import org.openlmis.referencedata.testbuilder.GeographicZoneDataBuilder;
 import org.openlmis.referencedata.testbuilder.SupervisoryNodeDataBuilder;
@@ -1002,7 +1006,7 @@ public class UserControllerIntegrationTest extends BaseWebIntegrationTest {
 
     given(userRepository.existsById(userId)).willReturn(true);
     given(userRepository.findById(userId)).willReturn(Optional.of(user1));
-    given(rightAssignmentRepository.findByUser(userId))
+    given(permissionIndex.getPermissionStrings(userId))
         .willReturn(Sets.newHashSet(ADMIN_RIGHT_NAME));
 
     String[] response = getUsersPermissionStrings()
@@ -1023,7 +1027,7 @@ public class UserControllerIntegrationTest extends BaseWebIntegrationTest {
 
     given(userRepository.existsById(userId)).willReturn(true);
     given(userRepository.findById(userId)).willReturn(Optional.of(user1));
-    given(rightAssignmentRepository.findByUser(userId))
+    given(permissionIndex.getPermissionStrings(userId))
         .willReturn(Sets.newHashSet(ADMIN_RIGHT_NAME));
 
     String[] response = getUsersPermissionStrings()
@@ -1065,6 +1069,52 @@ public class UserControllerIntegrationTest extends BaseWebIntegrationTest {
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void getPermissionStringsShouldReturnNotModifiedIfETagMatches() {
+    mockUserHasRight(RightName.USERS_MANAGE_RIGHT);
+
+    given(userRepository.existsById(userId)).willReturn(true);
+    given(userRepository.findById(userId)).willReturn(Optional.of(user1));
+    given(permissionIndex.getPermissionStringsETag(userId)).willReturn("\"12345\"");
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, "\"12345\"")
+        .pathParam("id", userId)
+        .when()
+        .get(PERMISSION_STRINGS_URL)
+        .then()
+        .statusCode(304)
+        .header(HttpHeaders.ETAG, "\"12345\"");
+
+    verify(permissionIndex, never()).getPermissionStrings(userId);
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void getFacilitiesShouldReturnNotModifiedIfVersionMatches() {
+    mockUserHasRight(RightName.USERS_MANAGE_RIGHT);
+
+    ResourceVersion version = new ResourceVersion("W/\"5-7\"", System.currentTimeMillis());
+    given(userRepository.existsById(userId)).willReturn(true);
+    given(resourceVersionRegistry.getVersion(RIGHT_ASSIGNMENTS, FACILITIES)).willReturn(version);
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, version.getEtag())
+        .pathParam("id", userId)
+        .when()
+        .get(FACILITIES_URL)
+        .then()
+        .statusCode(304)
+        .header(HttpHeaders.ETAG, version.getEtag());
+
+    verify(facilityRepository, never()).findSupervisionFacilitiesByUser(userId);
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   @Test
   public void getFacilitiesShouldReturnOkIfServiceToken() {
     mockUserHasRight(RightName.USERS_MANAGE_RIGHT);
@@ -1217,8 +1267,8 @@ public class UserControllerIntegrationTest extends BaseWebIntegrationTest {
     given(rightRepository.findById(supervisionRightId)).willReturn(Optional.of(supervisionRight));
     given(programRepository.existsById(program1Id)).willReturn(true);
     given(programRepository.existsById(program2Id)).willReturn(true);
-    given(rightAssignmentRepository.existsByUserIdAndAndRightNameAndFacilityIdAndProgramId(
-        userId, supervisionRight.getName(), homeFacilityId, program1Id)).willReturn(true);
+    given(permissionIndex.hasRight(userId, supervisionRight.getName(), homeFacilityId,
+        program1Id)).willReturn(true);
 
     return restAssured
         .given()
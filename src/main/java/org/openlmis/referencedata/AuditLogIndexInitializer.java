@@ -0,0 +1,125 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+/**
+ * AuditLogIndexInitializer creates the indexes used by the audit log queries. The JaVers tables
+ * are created by JaVers itself when the application starts (and are not managed by Flyway), so
+ * the indexes are added here, once the tables exist. Indexes are built concurrently, so the
+ * tables stay writable while it happens.
+ *
+ * <p>An interrupted concurrent build leaves an invalid index behind, which IF NOT EXISTS would
+ * keep forever, so invalid indexes are dropped and built again. Only one instance builds the
+ * indexes at a time (guarded by an advisory lock), so an index which is still being built by
+ * another instance is never mistaken for an interrupted one.
+ */
+@Component
+@Order(15)
+public class AuditLogIndexInitializer implements CommandLineRunner {
+  private static final XLogger LOGGER = XLoggerFactory.getXLogger(AuditLogIndexInitializer.class);
+
+  static final Map<String, String> INDEXES = ImmutableMap.of(
+      "jv_global_id_type_name_local_id_idx",
+      "referencedata.jv_global_id (type_name, local_id)",
+      "jv_snapshot_global_id_fk_snapshot_pk_idx",
+      "referencedata.jv_snapshot (global_id_fk, snapshot_pk DESC)",
+      "jv_snapshot_global_id_fk_version_idx",
+      "referencedata.jv_snapshot (global_id_fk, version)",
+      "jv_snapshot_changed_properties_idx",
+      "referencedata.jv_snapshot USING gin ((changed_properties::jsonb))",
+      "jv_commit_author_idx",
+      "referencedata.jv_commit (author)");
+
+  static final String TRY_LOCK_SQL =
+      "SELECT pg_try_advisory_lock(hashtext('referencedata.audit_log_indexes'))";
+  static final String UNLOCK_SQL =
+      "SELECT pg_advisory_unlock(hashtext('referencedata.audit_log_indexes'))";
+  static final String IS_VALID_SQL = "SELECT i.indisvalid"
+      + " FROM pg_index i"
+      + " JOIN pg_class c ON c.oid = i.indexrelid"
+      + " JOIN pg_namespace n ON n.oid = c.relnamespace"
+      + " WHERE n.nspname = 'referencedata' AND c.relname = ?";
+  static final String DROP_SQL = "DROP INDEX CONCURRENTLY IF EXISTS referencedata.%s";
+  static final String CREATE_SQL = "CREATE INDEX CONCURRENTLY IF NOT EXISTS %s ON %s";
+
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public AuditLogIndexInitializer(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * This method is part of CommandLineRunner and is called automatically by Spring.
+   * @param args Main method arguments.
+   */
+  public void run(String... args) {
+    LOGGER.entry();
+
+    // the advisory lock is held by the session, so all statements must use the same connection
+    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      createIndexes(new JdbcTemplate(new SingleConnectionDataSource(connection, true)));
+      return null;
+    });
+
+    LOGGER.exit();
+  }
+
+  void createIndexes(JdbcTemplate template) {
+    if (!Boolean.TRUE.equals(template.queryForObject(TRY_LOCK_SQL, Boolean.class))) {
+      LOGGER.info("Audit log indexes are being created by another instance");
+      return;
+    }
+
+    try {
+      for (Map.Entry<String, String> index : INDEXES.entrySet()) {
+        createIndex(template, index.getKey(), index.getValue());
+      }
+    } finally {
+      template.queryForObject(UNLOCK_SQL, Boolean.class);
+    }
+  }
+
+  private void createIndex(JdbcTemplate template, String name, String definition) {
+    try {
+      List<Boolean> valid = template.queryForList(IS_VALID_SQL, Boolean.class, name);
+
+      if (valid.contains(Boolean.FALSE)) {
+        LOGGER.warn("Audit log index {} is invalid, it will be built again", name);
+        template.execute(String.format(DROP_SQL, name));
+      }
+
+      template.execute(String.format(CREATE_SQL, name, definition));
+    } catch (DataAccessException ex) {
+      // the audit log still works without the index, only slower
+      LOGGER.warn("Unable to create audit log index: " + name, ex);
+    }
+  }
+}
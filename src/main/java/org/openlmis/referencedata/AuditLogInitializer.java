@@ -15,49 +15,91 @@
 
 package org.openlmis.referencedata;
 
-import static org.openlmis.referencedata.util.Pagination.handlePage;
-
+import com.google.common.util.concurrent.MoreExecutors;
+import java.io.Serializable;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
 import org.javers.core.Javers;
-import org.javers.core.metamodel.object.CdoSnapshot;
-import org.javers.repository.jql.QueryBuilder;
 import org.javers.spring.annotation.JaversSpringDataAuditable;
-import org.openlmis.referencedata.domain.Identifiable;
+import org.openlmis.referencedata.domain.VersionIdentity;
 import org.openlmis.referencedata.domain.Versionable;
 import org.openlmis.referencedata.repository.BaseAuditableRepository;
-import org.openlmis.referencedata.util.messagekeys.MessageKeys;
+import org.openlmis.referencedata.service.AuditLogService;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * AuditLogInitializer runs after its associated Spring application has loaded.
  * It examines each domain object in the database and registers them with JaVers
  * if they haven't already been so. This is, in part, a fix for
  * <a href="https://github.com/javers/javers/issues/214">this issue</a>.
+ *
+ * <p>Objects without snapshots are found with an anti-join on the type name and local id of the
+ * JaVers global ids, which is served by the index created by {@link AuditLogIndexInitializer}.
+ * They are read in batches ordered by id, and the snapshots of each batch are committed in one
+ * transaction. Repositories are processed in parallel, unless the parallelism is set to 1, in
+ * which case they are processed one by one in the calling thread.
  */
 @Component
 @Profile("init-audit-log")
 @Order(20)
-@Transactional
 public class AuditLogInitializer implements CommandLineRunner {
   private static final XLogger LOGGER = XLoggerFactory.getXLogger(AuditLogInitializer.class);
 
+  static final String AUTHOR = "System: AuditLogInitializer";
+
   private ApplicationContext applicationContext;
   private Javers javers;
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate transactionTemplate;
+  private int batchSize;
+  private int parallelism;
 
+  /**
+   * Creates the initializer.
+   *
+   * @param batchSize the number of objects committed in one transaction
+   * @param parallelism the number of repositories processed at the same time
+   */
   @Autowired
-  public AuditLogInitializer(ApplicationContext applicationContext, Javers javers) {
+  public AuditLogInitializer(ApplicationContext applicationContext, Javers javers,
+      JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      @Value("${auditLogInitializer.batchSize}") int batchSize,
+      @Value("${auditLogInitializer.parallelism}") int parallelism) {
     this.applicationContext = applicationContext;
     this.javers = javers;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.parallelism = parallelism;
   }
 
   /**
@@ -74,55 +116,171 @@ public class AuditLogInitializer implements CommandLineRunner {
     Map<String,Object> repositoryMap =
         applicationContext.getBeansWithAnnotation(JaversSpringDataAuditable.class);
 
-    //For each one...
+    List<Callable<Long>> tasks = new ArrayList<>();
     for (Map.Entry<String, Object> entry : repositoryMap.entrySet()) {
-      String beanName = entry.getKey();
-      Object bean = entry.getValue();
-      profiler.start("CREATE_SNAPSHOTS_OF_" + beanName);
-      createSnapshots(bean);
+      if (entry.getValue() instanceof BaseAuditableRepository) {
+        AuditedType type = AuditedType.of((BaseAuditableRepository<?, ?>) entry.getValue());
+        tasks.add(() -> createSnapshots(type));
+      } else {
+        LOGGER.warn("The repository {} should extend BaseAuditableRepository", entry.getKey());
+      }
+    }
+
+    profiler.start("CREATE_SNAPSHOTS");
+    ExecutorService executor = parallelism > 1
+        ? Executors.newFixedThreadPool(parallelism)
+        : MoreExecutors.newDirectExecutorService();
+    try {
+      long created = 0;
+      for (Future<Long> result : executor.invokeAll(tasks)) {
+        created += getResult(result);
+      }
+      LOGGER.info("Created {} snapshots", created);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Audit log initialization was interrupted", ex);
+    } finally {
+      executor.shutdownNow();
     }
 
     profiler.stop().log();
     LOGGER.exit();
   }
 
-  private void createSnapshots(Object bean) {
-    if (bean instanceof BaseAuditableRepository) {
-      createSnapshots((BaseAuditableRepository<?, ?>) bean);
-    } else {
-      LOGGER.warn("The repository should implement findAllWithoutSnapshots method"
-          + "from BaseAuditableRepository with appropriate query");
+  private long createSnapshots(AuditedType type) {
+    Long total = jdbcTemplate.queryForObject(type.getCountSql(), Long.class,
+        type.getTypeName());
+    if (null == total || 0 == total) {
+      LOGGER.info("All objects of {} have snapshots", type.getTypeName());
+      return 0;
     }
+
+    LOGGER.info("Creating snapshots of {} objects of {}", total, type.getTypeName());
+    long start = System.currentTimeMillis();
+    AtomicLong created = new AtomicLong();
+    Serializable lastId = null;
+
+    while (true) {
+      List<Serializable> ids = jdbcTemplate.query(type.getSelectSql(null != lastId),
+          type.getParameters(lastId, batchSize), type::toId);
+      if (ids.isEmpty()) {
+        break;
+      }
+
+      transactionTemplate.execute(status -> {
+        for (Object object : type.getRepository().findAllById(ids)) {
+          javers.commit(AUTHOR, object);
+          created.incrementAndGet();
+        }
+        return null;
+      });
+
+      logProgress(type, created.get(), total, start);
+      lastId = ids.get(ids.size() - 1);
+
+      if (ids.size() < batchSize) {
+        break;
+      }
+    }
+
+    return created.get();
+  }
+
+  private void logProgress(AuditedType type, long created, long total, long start) {
+    long elapsed = System.currentTimeMillis() - start;
+    long remaining = Math.max(total - created, 0);
+    long eta = 0 == created ? 0 : elapsed * remaining / created;
+
+    LOGGER.info("Created snapshots of {}/{} objects of {} ({}%), ETA {} s", created, total,
+        type.getTypeName(), created * 100 / total, TimeUnit.MILLISECONDS.toSeconds(eta));
   }
 
-  private void createSnapshots(BaseAuditableRepository<?, ?> repository) {
-    handlePage(
-        repository::findAllWithoutSnapshots,
-        this::createSnapshot
-    );
+  private long getResult(Future<Long> result) throws InterruptedException {
+    try {
+      return result.get();
+    } catch (ExecutionException ex) {
+      throw new IllegalStateException("Could not create audit log snapshots", ex);
+    }
   }
 
-  private void createSnapshot(Object object) {
-    //...check whether there exists a snapshot for it in the audit log.
-    // Note that we don't care about checking for logged changes, per se,
-    // and thus use findSnapshots() rather than findChanges()
-    Identifiable identifiable = (Identifiable) object;
-    Object localId = identifiable.getId();
+  /**
+   * An audited domain type with the queries used to find its objects which have no snapshots.
+   * JaVers stores the id of an object as JSON: a quoted string for UUIDs, and an object with
+   * the id and the version number for versioned objects.
+   */
+  @Getter
+  @AllArgsConstructor(access = AccessLevel.PRIVATE)
+  static final class AuditedType {
+    private static final String DEFAULT_SCHEMA = "referencedata";
+
+    private static final String WITHOUT_SNAPSHOTS = " FROM %s e"
+        + " WHERE NOT EXISTS (SELECT 1 FROM referencedata.jv_global_id g"
+        + "   INNER JOIN referencedata.jv_snapshot s ON s.global_id_fk = g.global_id_pk"
+        + "   WHERE g.type_name = ? AND g.local_id = %s)";
+
+    private static final String SELECT_ID = "SELECT e.id";
+    private static final String SELECT_VERSIONED_ID = "SELECT e.id, e.versionnumber";
 
-    if (identifiable instanceof Versionable) {
-      Versionable versionable = (Versionable) identifiable;
-      localId = versionable.getVersionIdentity();
+    private static final String LOCAL_ID = "'\"' || e.id || '\"'";
+    private static final String VERSIONED_LOCAL_ID =
+        "'{\"id\":\"' || e.id || '\",\"versionNumber\":' || e.versionnumber || '}'";
+
+    private final BaseAuditableRepository<Object, Serializable> repository;
+    private final String typeName;
+    private final String table;
+    private final boolean versioned;
+
+    @SuppressWarnings("unchecked")
+    static AuditedType of(BaseAuditableRepository<?, ?> repository) {
+      Class<?> domainType = ResolvableType.forClass(repository.getClass())
+          .as(BaseAuditableRepository.class)
+          .resolveGeneric(0);
+      Table table = domainType.getAnnotation(Table.class);
+      String schema = null == table || StringUtils.isBlank(table.schema())
+          ? DEFAULT_SCHEMA
+          : table.schema();
+
+      return new AuditedType((BaseAuditableRepository<Object, Serializable>) repository,
+          AuditLogService.getTypeName(domainType), schema + '.' + table.name(),
+          Versionable.class.isAssignableFrom(domainType));
     }
 
-    QueryBuilder jqlQuery = QueryBuilder.byInstanceId(localId, object.getClass());
-    List<CdoSnapshot> snapshots = javers.findSnapshots(jqlQuery.build());
+    String getCountSql() {
+      return "SELECT count(*)" + getWithoutSnapshots();
+    }
+
+    String getSelectSql(boolean afterLastId) {
+      StringBuilder sql = new StringBuilder(versioned ? SELECT_VERSIONED_ID : SELECT_ID)
+          .append(getWithoutSnapshots());
+
+      if (afterLastId) {
+        sql.append(versioned ? " AND (e.id, e.versionnumber) > (?, ?)" : " AND e.id > ?");
+      }
+
+      return sql
+          .append(versioned ? " ORDER BY e.id, e.versionnumber" : " ORDER BY e.id")
+          .append(" LIMIT ?")
+          .toString();
+    }
+
+    Object[] getParameters(Serializable lastId, int limit) {
+      if (null == lastId) {
+        return new Object[]{typeName, limit};
+      }
+      if (lastId instanceof VersionIdentity) {
+        VersionIdentity identity = (VersionIdentity) lastId;
+        return new Object[]{typeName, identity.getId(), identity.getVersionNumber(), limit};
+      }
+      return new Object[]{typeName, lastId, limit};
+    }
+
+    Serializable toId(ResultSet rs, int rowNum) throws SQLException {
+      UUID id = (UUID) rs.getObject("id");
+      return versioned ? new VersionIdentity(id, rs.getLong("versionnumber")) : id;
+    }
 
-    //If there are no snapshots of the domain object, then take one
-    if (snapshots.isEmpty()) {
-      javers.commit("System: AuditLogInitializer", identifiable);
-    } else {
-      LOGGER.info(MessageKeys.ERROR_JAVERS_EXISTING_ENTRY,
-          identifiable.getClass(), localId);
+    private String getWithoutSnapshots() {
+      return String.format(WITHOUT_SNAPSHOTS, table, versioned ? VERSIONED_LOCAL_ID : LOCAL_ID);
     }
   }
 }
@@ -158,49 +158,49 @@ public class TestDataInitializer implements CommandLineRunner {
   public void run(String... args) throws IOException {
     XLOGGER.entry();
 
-    loader.insertToDbFromCsv("referencedata.geographic_levels", geographicLevelsResource);
-    loader.insertToDbFromCsv("referencedata.geographic_zones", geographicZonesResource);
-    loader.insertToDbFromCsv("referencedata.facility_operators", facilityOperatorsResource);
-    loader.insertToDbFromCsv("referencedata.facility_types", facilityTypesResource);
-    loader.insertToDbFromCsv("referencedata.facilities", facilitiesResource);
-    loader.insertToDbFromCsv("referencedata.supervisory_nodes", supervisoryNodesResource);
-    loader.insertToDbFromCsv("referencedata.processing_schedules", processingSchedulesResource);
-    loader.insertToDbFromCsv("referencedata.processing_periods", processingPeriodsResource);
-    loader.insertToDbFromCsv("referencedata.commodity_types", commodityTypesResource);
-    loader.insertToDbFromCsv("referencedata.orderable_display_categories",
+    loader.copyToDbFromCsv("referencedata.geographic_levels", geographicLevelsResource);
+    loader.copyToDbFromCsv("referencedata.geographic_zones", geographicZonesResource);
+    loader.copyToDbFromCsv("referencedata.facility_operators", facilityOperatorsResource);
+    loader.copyToDbFromCsv("referencedata.facility_types", facilityTypesResource);
+    loader.copyToDbFromCsv("referencedata.facilities", facilitiesResource);
+    loader.copyToDbFromCsv("referencedata.supervisory_nodes", supervisoryNodesResource);
+    loader.copyToDbFromCsv("referencedata.processing_schedules", processingSchedulesResource);
+    loader.copyToDbFromCsv("referencedata.processing_periods", processingPeriodsResource);
+    loader.copyToDbFromCsv("referencedata.commodity_types", commodityTypesResource);
+    loader.copyToDbFromCsv("referencedata.orderable_display_categories",
         orderableDisplayCategoriesResource);
-    loader.insertToDbFromCsv("referencedata.dispensables", dispensablesResource);
-    loader.insertToDbFromCsv("referencedata.dispensable_attributes", dispensableAttributesResource);
-    loader.insertToDbFromCsv("referencedata.orderables", orderablesResource);
-    loader.insertToDbFromCsv("referencedata.orderable_identifiers", orderableIdentifiersResource);
-    loader.insertToDbFromCsv("referencedata.programs", programsResource);
-    loader.insertToDbFromCsv("referencedata.program_orderables", programOrderablesResource);
-    loader.insertToDbFromCsv("referencedata.supply_lines", supplyLinesResource);
-    loader.insertToDbFromCsv("referencedata.users", usersResource);
-    loader.insertToDbFromCsv("referencedata.roles", rolesResource);
-    loader.insertToDbFromCsv("referencedata.role_rights", roleRightsResource);
-    loader.insertToDbFromCsv("referencedata.role_assignments", roleAssignmentsResource);
-    loader.insertToDbFromCsv("referencedata.requisition_groups", requisitionGroupsResource);
-    loader.insertToDbFromCsv("referencedata.requisition_group_program_schedules",
+    loader.copyToDbFromCsv("referencedata.dispensables", dispensablesResource);
+    loader.copyToDbFromCsv("referencedata.dispensable_attributes", dispensableAttributesResource);
+    loader.copyToDbFromCsv("referencedata.orderables", orderablesResource);
+    loader.copyToDbFromCsv("referencedata.orderable_identifiers", orderableIdentifiersResource);
+    loader.copyToDbFromCsv("referencedata.programs", programsResource);
+    loader.copyToDbFromCsv("referencedata.program_orderables", programOrderablesResource);
+    loader.copyToDbFromCsv("referencedata.supply_lines", supplyLinesResource);
+    loader.copyToDbFromCsv("referencedata.users", usersResource);
+    loader.copyToDbFromCsv("referencedata.roles", rolesResource);
+    loader.copyToDbFromCsv("referencedata.role_rights", roleRightsResource);
+    loader.copyToDbFromCsv("referencedata.role_assignments", roleAssignmentsResource);
+    loader.copyToDbFromCsv("referencedata.requisition_groups", requisitionGroupsResource);
+    loader.copyToDbFromCsv("referencedata.requisition_group_program_schedules",
         requisitionGroupProgramSchedulesResource);
-    loader.insertToDbFromCsv("referencedata.requisition_group_members",
+    loader.copyToDbFromCsv("referencedata.requisition_group_members",
         requisitionGroupMembersResource);
-    loader.insertToDbFromCsv("referencedata.supported_programs", supportedProgramsResource);
-    loader.insertToDbFromCsv("referencedata.trade_items", tradeItemsResource);
-    loader.insertToDbFromCsv("referencedata.trade_item_classifications",
+    loader.copyToDbFromCsv("referencedata.supported_programs", supportedProgramsResource);
+    loader.copyToDbFromCsv("referencedata.trade_items", tradeItemsResource);
+    loader.copyToDbFromCsv("referencedata.trade_item_classifications",
         tradeItemClassificationsResource);
-    loader.insertToDbFromCsv("referencedata.ideal_stock_amounts", idealStockAmountsResource);
-    loader.insertToDbFromCsv("referencedata.lots", lotsResource);
-    loader.insertToDbFromCsv("referencedata.service_accounts", serviceAccountsResource);
-    loader.insertToDbFromCsv("referencedata.facility_type_approved_products",
+    loader.copyToDbFromCsv("referencedata.ideal_stock_amounts", idealStockAmountsResource);
+    loader.copyToDbFromCsv("referencedata.lots", lotsResource);
+    loader.copyToDbFromCsv("referencedata.service_accounts", serviceAccountsResource);
+    loader.copyToDbFromCsv("referencedata.facility_type_approved_products",
         facilityTypeApprovedProductsResource);
 
-    loader.insertToDbFromCsv("referencedata.supply_partners", supplyPartnersResource);
-    loader.insertToDbFromCsv("referencedata.supply_partner_associations",
+    loader.copyToDbFromCsv("referencedata.supply_partners", supplyPartnersResource);
+    loader.copyToDbFromCsv("referencedata.supply_partner_associations",
         supplyPartnerAssociationsResource);
-    loader.insertToDbFromCsv("referencedata.supply_partner_association_facilities",
+    loader.copyToDbFromCsv("referencedata.supply_partner_association_facilities",
         supplyPartnerAssociationFacilitiesResource);
-    loader.insertToDbFromCsv("referencedata.supply_partner_association_orderables",
+    loader.copyToDbFromCsv("referencedata.supply_partner_association_orderables",
         supplyPartnerAssociationOrderablesResource);
 
     XLOGGER.exit();
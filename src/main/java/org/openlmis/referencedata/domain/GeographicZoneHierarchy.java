@@ -0,0 +1,65 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.domain;
+
+import static org.openlmis.referencedata.domain.BaseEntity.UUID_TYPE;
+
+import java.io.Serializable;
+import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Type;
+
+/**
+ * An ancestor/descendant pair of the geographic zone hierarchy, each zone is also paired with
+ * itself at depth 0. Rows are maintained by a database trigger whenever a zone is inserted or
+ * its parent changes, so all descendants of a zone can be found with a single indexed lookup.
+ */
+@Entity
+@Immutable
+@Table(name = "geographic_zone_hierarchy", schema = "referencedata")
+@NoArgsConstructor
+@Getter
+public class GeographicZoneHierarchy {
+
+  @EmbeddedId
+  private Key id;
+
+  @Column(nullable = false)
+  private Integer depth;
+
+  @Embeddable
+  @NoArgsConstructor
+  @EqualsAndHashCode
+  @Getter
+  public static class Key implements Serializable {
+
+    @Type(type = UUID_TYPE)
+    @Column(nullable = false)
+    private UUID ancestorId;
+
+    @Type(type = UUID_TYPE)
+    @Column(nullable = false)
+    private UUID descendantId;
+  }
+}
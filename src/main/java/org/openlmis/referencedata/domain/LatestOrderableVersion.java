@@ -0,0 +1,48 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.domain;
+
+import static org.openlmis.referencedata.domain.BaseEntity.UUID_TYPE;
+
+import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Type;
+
+/**
+ * The latest version number of each orderable. Rows are maintained by a database trigger
+ * whenever a version is inserted or deleted, so searches can use this instead of calculating
+ * the maximum version number of every orderable.
+ */
+@Entity
+@Immutable
+@Table(name = "latest_orderable_versions", schema = "referencedata")
+@NoArgsConstructor
+@Getter
+public class LatestOrderableVersion {
+
+  @Id
+  @Type(type = UUID_TYPE)
+  private UUID id;
+
+  @Column(nullable = false)
+  private Long versionNumber;
+}
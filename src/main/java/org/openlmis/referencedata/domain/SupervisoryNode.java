@@ -15,7 +15,9 @@
 
 package org.openlmis.referencedata.domain;
 
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
@@ -243,24 +245,22 @@ public class SupervisoryNode extends BaseEntity {
     profiler.setLogger(LOGGER);
 
     Set<Facility> supervisedFacilities = new HashSet<>();
+    Set<SupervisoryNode> visitedNodes = new HashSet<>();
+    Deque<SupervisoryNode> nodesToVisit = new ArrayDeque<>();
+    nodesToVisit.add(this);
 
-    profiler.start("CHECK_IF_REQ_GROUP_SUPPORTS_PROGRAM");
+    profiler.start("GET_FACILITIES_FROM_NODES");
+    while (!nodesToVisit.isEmpty()) {
+      SupervisoryNode node = nodesToVisit.poll();
 
-    if (requisitionGroup != null && (null == program || requisitionGroup.supports(program))) {
-      profiler.start("REQ_GROUP_GET_MEMBER_FACILITIES");
-      Set<Facility> facilities = requisitionGroup
-          .getMemberFacilities()
-          .stream()
-          .filter(member -> null == program || member.supports(program))
-          .collect(Collectors.toSet());
-      supervisedFacilities.addAll(facilities);
-    }
+      if (!visitedNodes.add(node)) {
+        continue;
+      }
 
-    profiler.start("GET_FACILITIES_FROM_CHILD_NODES");
-    if (childNodes != null) {
-      for (SupervisoryNode childNode : childNodes) {
-        profiler.start("GET_SUPERVISED_FACILITIES_FROM_NODE");
-        supervisedFacilities.addAll(childNode.getAllSupervisedFacilities(program));
+      supervisedFacilities.addAll(node.getSupervisedFacilities(program));
+
+      if (node.childNodes != null) {
+        nodesToVisit.addAll(node.childNodes);
       }
     }
 
@@ -276,6 +276,18 @@ public class SupervisoryNode extends BaseEntity {
     return getAllSupervisedFacilities(program).contains(facility);
   }
 
+  private Set<Facility> getSupervisedFacilities(Program program) {
+    if (requisitionGroup == null || null != program && !requisitionGroup.supports(program)) {
+      return Collections.emptySet();
+    }
+
+    return requisitionGroup
+        .getMemberFacilities()
+        .stream()
+        .filter(member -> null == program || member.supports(program))
+        .collect(Collectors.toSet());
+  }
+
   /**
    * Copy values of attributes into new or updated SupervisoryNode.
    *
@@ -15,6 +15,8 @@
 
 package org.openlmis.referencedata.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.Map;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -26,7 +28,17 @@ public class UploadResultDto {
   @Setter
   private Integer amount;
 
+  @Getter
+  @Setter
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Map<String, DimensionStatisticsDto> dimensions;
+
   public UploadResultDto(int amount) {
     this.amount = amount;
   }
+
+  public UploadResultDto(int amount, Map<String, DimensionStatisticsDto> dimensions) {
+    this.amount = amount;
+    this.dimensions = dimensions;
+  }
 }
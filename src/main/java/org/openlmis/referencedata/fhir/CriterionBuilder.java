@@ -17,7 +17,9 @@ package org.openlmis.referencedata.fhir;
 
 import ca.uhn.fhir.rest.gclient.ICriterion;
 import ca.uhn.fhir.rest.gclient.TokenClientParam;
+import java.util.Collection;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
 
 @AllArgsConstructor
@@ -33,4 +35,16 @@ class CriterionBuilder {
         .systemAndValues(serviceUrl, id.toString());
   }
 
+  /**
+   * Creates identifier criterion which matches any of the given ids.
+   */
+  ICriterion buildIdentifierCriterion(Collection<UUID> ids) {
+    return new TokenClientParam("identifier")
+        .exactly()
+        .systemAndValues(serviceUrl, ids
+            .stream()
+            .map(UUID::toString)
+            .collect(Collectors.toList()));
+  }
+
 }
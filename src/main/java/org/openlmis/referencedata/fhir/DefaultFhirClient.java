@@ -17,16 +17,24 @@ package org.openlmis.referencedata.fhir;
 
 import static org.apache.commons.lang3.StringUtils.startsWith;
 
+import java.util.UUID;
 import lombok.Setter;
-import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.openlmis.referencedata.domain.Facility;
 import org.openlmis.referencedata.domain.GeographicZone;
+import org.openlmis.referencedata.fhir.FhirSyncEvent.ResourceType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+/**
+ * Queues facilities and geographic zones for synchronization with the FHIR server in
+ * the {@link FhirSyncOutbox}, as part of the transaction which changes them. The locations are
+ * delivered by the {@link FhirSyncDispatcher} once the transaction commits.
+ */
 @Setter
 class DefaultFhirClient implements FhirClient {
 
@@ -35,34 +43,32 @@ class DefaultFhirClient implements FhirClient {
   private static final String SKIPPING_SYNC_PROCESS_MSG =
       "Request came from FHIR service. Skipping synchronization process.";
 
-  private LocationFactory locationFactory;
-  private LocationConverter locationConvert;
-  private LocationSynchronizer locationSynchronizer;
+  private FhirSyncOutbox outbox;
+  private FhirSyncDispatcher dispatcher;
 
   private String apiKeyPrefix;
 
   @Override
   public void synchronizeFacility(Facility facility) {
-    LOGGER.info("Synchronizing facility with id: {}", facility.getId());
+    LOGGER.info("Queueing synchronization of facility with id: {}", facility.getId());
     if (shouldIgnore()) {
       LOGGER.info(SKIPPING_SYNC_PROCESS_MSG);
       return;
 
     }
-    synchronize(locationFactory.createFor(facility));
-    LOGGER.info("Synchronized facility with id: {}", facility.getId());
+    enqueue(ResourceType.FACILITY, facility.getId());
   }
 
   @Override
   public void synchronizeGeographicZone(GeographicZone geographicZone) {
-    LOGGER.info("Synchronizing geographic zone with id: {}", geographicZone.getId());
+    LOGGER.info("Queueing synchronization of geographic zone with id: {}",
+        geographicZone.getId());
     if (shouldIgnore()) {
       LOGGER.info(SKIPPING_SYNC_PROCESS_MSG);
       return;
     }
 
-    synchronize(locationFactory.createFor(geographicZone));
-    LOGGER.info("Synchronized geographic zone with id: {}", geographicZone.getId());
+    enqueue(ResourceType.GEOGRAPHIC_ZONE, geographicZone.getId());
   }
 
   private boolean shouldIgnore() {
@@ -80,9 +86,21 @@ class DefaultFhirClient implements FhirClient {
     return true;
   }
 
-  private void synchronize(FhirLocation location) {
-    IBaseResource resource = locationConvert.convert(location);
-    locationSynchronizer.synchronize(location, resource);
+  private void enqueue(ResourceType resourceType, UUID resourceId) {
+    outbox.enqueue(resourceType, resourceId);
+
+    // the event is not visible to the dispatcher before the transaction commits
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+              dispatcher.wakeUp();
+            }
+          });
+    } else {
+      dispatcher.wakeUp();
+    }
   }
 
 }
@@ -0,0 +1,259 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.fhir;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import lombok.Setter;
+import org.openlmis.referencedata.fhir.FhirSyncEvent.ResourceType;
+import org.openlmis.referencedata.repository.FacilityRepository;
+import org.openlmis.referencedata.repository.GeographicZoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Synchronizes all geographic zones and facilities with the FHIR server, in bundles of
+ * the configured size, several bundles at a time. Geographic zones are synchronized level by
+ * level, starting from the top one, and facilities last, so parents of the locations in
+ * a bundle always exist on the FHIR server already.
+ *
+ * <p>Locations of a level are processed in order of their ids. After every group of bundles,
+ * the id of the last location is stored as a checkpoint, so a synchronization which was
+ * interrupted is resumed from there the next time it is started. A synchronization which has
+ * completed is not repeated until its checkpoints are removed.
+ */
+@Setter
+@SuppressWarnings("PMD.TooManyMethods")
+class FhirBulkSynchronizer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FhirBulkSynchronizer.class);
+
+  static final UUID FIRST_ID = new UUID(0, 0);
+  static final int FACILITY_LEVEL_NUMBER = 0;
+
+  static final String SELECT_LEVEL_NUMBERS_SQL = "SELECT levelnumber"
+      + " FROM referencedata.geographic_levels"
+      + " ORDER BY levelnumber";
+
+  static final String SELECT_GEOGRAPHIC_ZONE_IDS_SQL = "SELECT z.id"
+      + " FROM referencedata.geographic_zones z"
+      + " JOIN referencedata.geographic_levels l ON l.id = z.levelid"
+      + " WHERE l.levelnumber = ? AND z.id > ?"
+      + " ORDER BY z.id"
+      + " LIMIT ?";
+
+  static final String SELECT_FACILITY_IDS_SQL = "SELECT id"
+      + " FROM referencedata.facilities"
+      + " WHERE id > ?"
+      + " ORDER BY id"
+      + " LIMIT ?";
+
+  static final String SELECT_CHECKPOINT_SQL = "SELECT lastid, completed"
+      + " FROM referencedata.fhir_bulk_sync_checkpoints"
+      + " WHERE resourcetype = ? AND levelnumber = ?";
+
+  static final String SAVE_CHECKPOINT_SQL = "INSERT INTO referencedata.fhir_bulk_sync_checkpoints"
+      + " (resourcetype, levelnumber, lastid, completed, modifieddate)"
+      + " VALUES (?, ?, ?, ?, now())"
+      + " ON CONFLICT (resourcetype, levelnumber) DO UPDATE"
+      + " SET lastid = EXCLUDED.lastid, completed = EXCLUDED.completed,"
+      + " modifieddate = EXCLUDED.modifieddate";
+
+  private JdbcTemplate template;
+  private TransactionOperations transactionOperations;
+  private FacilityRepository facilityRepository;
+  private GeographicZoneRepository geographicZoneRepository;
+  private LocationFactory locationFactory;
+  private LocationBundleSynchronizer bundleSynchronizer;
+
+  private int bundleSize;
+  private int parallelism;
+
+  private ExecutorService runner;
+  private ExecutorService workers;
+
+  /**
+   * Starts the synchronization in the background.
+   */
+  void start() {
+    workers = Executors.newFixedThreadPool(parallelism);
+    runner = Executors.newSingleThreadExecutor();
+    runner.execute(this::synchronizeAll);
+  }
+
+  /**
+   * Stops the synchronization. It is resumed from the last checkpoint when it is started again.
+   */
+  void stop() {
+    runner.shutdownNow();
+    workers.shutdownNow();
+  }
+
+  /**
+   * Synchronizes all locations which have not been synchronized yet, see the class description.
+   */
+  void synchronizeAll() {
+    LOGGER.info("Starting bulk synchronization of locations with the FHIR server");
+
+    try {
+      for (Integer levelNumber : template.queryForList(SELECT_LEVEL_NUMBERS_SQL, Integer.class)) {
+        synchronize(ResourceType.GEOGRAPHIC_ZONE, levelNumber);
+      }
+
+      synchronize(ResourceType.FACILITY, FACILITY_LEVEL_NUMBER);
+      LOGGER.info("Bulk synchronization of locations with the FHIR server completed");
+    } catch (InterruptedException ex) {
+      LOGGER.info("Bulk synchronization of locations with the FHIR server interrupted");
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException ex) {
+      LOGGER.error("Bulk synchronization of locations with the FHIR server failed."
+          + " It will be resumed from the last checkpoint when it is started again.", ex);
+    }
+  }
+
+  private void synchronize(ResourceType resourceType, int levelNumber)
+      throws InterruptedException {
+    Checkpoint checkpoint = findCheckpoint(resourceType, levelNumber);
+
+    if (checkpoint.completed) {
+      LOGGER.info("Locations {} of level {} have already been synchronized",
+          resourceType, levelNumber);
+      return;
+    }
+
+    UUID lastId = checkpoint.lastId;
+    long synchronizedLocations = 0;
+
+    while (true) {
+      List<List<UUID>> bundles = new ArrayList<>(parallelism);
+
+      while (bundles.size() < parallelism) {
+        List<UUID> ids = findIds(resourceType, levelNumber, lastId);
+
+        if (ids.isEmpty()) {
+          break;
+        }
+
+        bundles.add(ids);
+        lastId = ids.get(ids.size() - 1);
+      }
+
+      if (bundles.isEmpty()) {
+        saveCheckpoint(resourceType, levelNumber, lastId, true);
+        LOGGER.info("Synchronized {} locations {} of level {}",
+            synchronizedLocations, resourceType, levelNumber);
+        return;
+      }
+
+      synchronizedLocations += synchronize(resourceType, bundles);
+      saveCheckpoint(resourceType, levelNumber, lastId, false);
+      LOGGER.debug("Synchronized {} locations {} of level {} so far",
+          synchronizedLocations, resourceType, levelNumber);
+    }
+  }
+
+  private int synchronize(ResourceType resourceType, List<List<UUID>> bundles)
+      throws InterruptedException {
+    List<Callable<Integer>> tasks = new ArrayList<>(bundles.size());
+
+    for (List<UUID> ids : bundles) {
+      tasks.add(() -> {
+        List<FhirLocation> locations =
+            transactionOperations.execute(status -> createLocations(resourceType, ids));
+        bundleSynchronizer.synchronize(locations);
+        return locations.size();
+      });
+    }
+
+    int synchronizedLocations = 0;
+
+    for (Future<Integer> result : workers.invokeAll(tasks)) {
+      try {
+        synchronizedLocations += result.get();
+      } catch (ExecutionException ex) {
+        throw new IllegalStateException("Could not synchronize a bundle of locations", ex);
+      }
+    }
+
+    return synchronizedLocations;
+  }
+
+  private List<FhirLocation> createLocations(ResourceType resourceType, List<UUID> ids) {
+    if (ResourceType.FACILITY == resourceType) {
+      return StreamSupport
+          .stream(facilityRepository.findAllById(ids).spliterator(), false)
+          .map(locationFactory::createFor)
+          .collect(Collectors.toList());
+    }
+
+    return StreamSupport
+        .stream(geographicZoneRepository.findAllById(ids).spliterator(), false)
+        .map(locationFactory::createFor)
+        .collect(Collectors.toList());
+  }
+
+  private List<UUID> findIds(ResourceType resourceType, int levelNumber, UUID lastId) {
+    RowMapper<UUID> mapper = (ResultSet rs, int rowNum) -> UUID.fromString(rs.getString(1));
+
+    if (ResourceType.FACILITY == resourceType) {
+      return template.query(SELECT_FACILITY_IDS_SQL, mapper, lastId, bundleSize);
+    }
+
+    return template.query(SELECT_GEOGRAPHIC_ZONE_IDS_SQL, mapper, levelNumber, lastId,
+        bundleSize);
+  }
+
+  private Checkpoint findCheckpoint(ResourceType resourceType, int levelNumber) {
+    List<Checkpoint> checkpoints = template.query(SELECT_CHECKPOINT_SQL,
+        (ResultSet rs, int rowNum) -> new Checkpoint(
+            UUID.fromString(rs.getString("lastid")), rs.getBoolean("completed")),
+        resourceType.name(), levelNumber);
+
+    if (checkpoints.isEmpty()) {
+      return new Checkpoint(FIRST_ID, false);
+    }
+
+    return checkpoints.get(0);
+  }
+
+  private void saveCheckpoint(ResourceType resourceType, int levelNumber, UUID lastId,
+      boolean completed) {
+    template.update(SAVE_CHECKPOINT_SQL, resourceType.name(), levelNumber, lastId, completed);
+  }
+
+  private static final class Checkpoint {
+    private final UUID lastId;
+    private final boolean completed;
+
+    Checkpoint(UUID lastId, boolean completed) {
+      this.lastId = lastId;
+      this.completed = completed;
+    }
+  }
+
+}
@@ -20,19 +20,27 @@ import ca.uhn.fhir.context.FhirVersionEnum;
 import ca.uhn.fhir.rest.api.CacheControlDirective;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
 import ca.uhn.fhir.rest.client.interceptor.LoggingInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openlmis.referencedata.repository.FacilityRepository;
+import org.openlmis.referencedata.repository.GeographicZoneRepository;
 import org.openlmis.referencedata.service.AuthService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Lazy
 @Configuration
+@SuppressWarnings("PMD.TooManyMethods")
 public class FhirClientConfiguration {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(FhirClientConfiguration.class);
@@ -49,6 +57,30 @@ public class FhirClientConfiguration {
   @Value("${auth.server.clientId.apiKey.prefix}")
   private String apiKeyPrefix;
 
+  @Value("${fhirClient.sync.concurrency}")
+  private int syncConcurrency;
+
+  @Value("${fhirClient.sync.batchSize}")
+  private int syncBatchSize;
+
+  @Value("${fhirClient.sync.pollIntervalMillis}")
+  private long syncPollIntervalMillis;
+
+  @Value("${fhirClient.sync.leaseSeconds}")
+  private long syncLeaseSeconds;
+
+  @Value("${fhirClient.sync.initialBackoffMillis}")
+  private long syncInitialBackoffMillis;
+
+  @Value("${fhirClient.sync.maxBackoffMillis}")
+  private long syncMaxBackoffMillis;
+
+  @Value("${fhirClient.bulkSync.bundleSize}")
+  private int bulkSyncBundleSize;
+
+  @Value("${fhirClient.bulkSync.parallelism}")
+  private int bulkSyncParallelism;
+
   @Bean
   public FhirContext fhirContext() {
     return FhirContext.forR4();
@@ -107,6 +139,26 @@ public class FhirClientConfiguration {
     return synchronizer;
   }
 
+  /**
+   * Creates location bundle synchronizer based on fhir context version.
+   */
+  @Bean
+  public LocationBundleSynchronizer locationBundleSynchronizer() {
+    FhirVersionEnum version = fhirContext().getVersion().getVersion();
+
+    if (version != FhirVersionEnum.R4) {
+      throw new IllegalStateException("Unsupported FHIR version: " + version.name());
+    }
+
+    // unlike the default directive, it does not limit the number of search results
+    CacheControlDirective cacheControl = new CacheControlDirective();
+    cacheControl.setNoCache(true);
+    cacheControl.setNoStore(true);
+
+    return new R4LocationBundleSynchronizer(client(), cacheControl, criterionBuilder(),
+        locationConverter(), serviceUrl);
+  }
+
   /**
    * Creates location converter strategy based on fhir context version.
    */
@@ -139,19 +191,85 @@ public class FhirClientConfiguration {
     return converter;
   }
 
+  /**
+   * Creates the outbox of locations to synchronize when the feature is enabled.
+   */
+  @Bean
+  @ConditionalOnProperty(prefix = "fhirClient", name = "enabled", havingValue = "true")
+  FhirSyncOutbox fhirSyncOutbox(JdbcTemplate jdbcTemplate) {
+    return new FhirSyncOutbox(jdbcTemplate);
+  }
+
+  /**
+   * Creates the dispatcher which delivers locations from the outbox to the FHIR server when
+   * the feature is enabled.
+   */
+  @Bean(initMethod = "start", destroyMethod = "stop")
+  @ConditionalOnProperty(prefix = "fhirClient", name = "enabled", havingValue = "true")
+  FhirSyncDispatcher fhirSyncDispatcher(FhirSyncOutbox outbox, LocationFactory locationFactory,
+      FacilityRepository facilityRepository, GeographicZoneRepository geographicZoneRepository,
+      PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setReadOnly(true);
+
+    FhirSyncDispatcher dispatcher = new FhirSyncDispatcher();
+    dispatcher.setOutbox(outbox);
+    dispatcher.setLocationFactory(locationFactory);
+    dispatcher.setLocationConverter(locationConverter());
+    dispatcher.setLocationSynchronizer(locationSynchronizer());
+    dispatcher.setFacilityRepository(facilityRepository);
+    dispatcher.setGeographicZoneRepository(geographicZoneRepository);
+    dispatcher.setTransactionOperations(transactionTemplate);
+    dispatcher.setMeterRegistry(meterRegistry);
+    dispatcher.setConcurrency(syncConcurrency);
+    dispatcher.setBatchSize(syncBatchSize);
+    dispatcher.setPollIntervalMillis(syncPollIntervalMillis);
+    dispatcher.setLeaseSeconds(syncLeaseSeconds);
+    dispatcher.setInitialBackoffMillis(syncInitialBackoffMillis);
+    dispatcher.setMaxBackoffMillis(syncMaxBackoffMillis);
+
+    return dispatcher;
+  }
+
+  /**
+   * Creates the bulk synchronizer of locations when both the feature and the bulk
+   * synchronization are enabled. It is started right away.
+   */
+  @Bean(initMethod = "start", destroyMethod = "stop")
+  @Lazy(false)
+  @ConditionalOnExpression("${fhirClient.enabled:false} && ${fhirClient.bulkSync.enabled:false}")
+  FhirBulkSynchronizer fhirBulkSynchronizer(JdbcTemplate jdbcTemplate,
+      LocationFactory locationFactory, FacilityRepository facilityRepository,
+      GeographicZoneRepository geographicZoneRepository,
+      PlatformTransactionManager transactionManager) {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setReadOnly(true);
+
+    FhirBulkSynchronizer synchronizer = new FhirBulkSynchronizer();
+    synchronizer.setTemplate(jdbcTemplate);
+    synchronizer.setTransactionOperations(transactionTemplate);
+    synchronizer.setFacilityRepository(facilityRepository);
+    synchronizer.setGeographicZoneRepository(geographicZoneRepository);
+    synchronizer.setLocationFactory(locationFactory);
+    synchronizer.setBundleSynchronizer(locationBundleSynchronizer());
+    synchronizer.setBundleSize(bulkSyncBundleSize);
+    synchronizer.setParallelism(bulkSyncParallelism);
+
+    return synchronizer;
+  }
+
   /**
    * Creates a default instance of {@link FhirClient} when the feature is enabled.
    */
   @Bean
   @ConditionalOnProperty(prefix = "fhirClient", name = "enabled", havingValue = "true")
-  public FhirClient defaultFhirClient(LocationFactory locationFactory) {
+  public FhirClient defaultFhirClient(FhirSyncOutbox outbox, FhirSyncDispatcher dispatcher) {
     LOGGER.info("The FHIR feature is enabled");
 
     DefaultFhirClient client = new DefaultFhirClient();
     client.setApiKeyPrefix(apiKeyPrefix);
-    client.setLocationConvert(locationConverter());
-    client.setLocationFactory(locationFactory);
-    client.setLocationSynchronizer(locationSynchronizer());
+    client.setOutbox(outbox);
+    client.setDispatcher(dispatcher);
 
     return client;
   }
@@ -0,0 +1,208 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.fhir;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Setter;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.openlmis.referencedata.fhir.FhirSyncEvent.ResourceType;
+import org.openlmis.referencedata.fhir.FhirSyncOutbox.Statistics;
+import org.openlmis.referencedata.repository.FacilityRepository;
+import org.openlmis.referencedata.repository.GeographicZoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Delivers locations from the {@link FhirSyncOutbox} to the FHIR server in the background.
+ * The outbox is polled periodically and right after a transaction which added an event commits.
+ * Claimed events are delivered concurrently by a fixed number of workers. The location is built
+ * from the current state of the facility or geographic zone, so coalesced changes are delivered
+ * with a single request.
+ *
+ * <p>An event which could not be delivered is retried after a delay, which doubles with every
+ * failed attempt up to the configured maximum.
+ */
+@Setter
+@SuppressWarnings("PMD.TooManyMethods")
+class FhirSyncDispatcher {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FhirSyncDispatcher.class);
+
+  private FhirSyncOutbox outbox;
+  private LocationFactory locationFactory;
+  private LocationConverter locationConverter;
+  private LocationSynchronizer locationSynchronizer;
+  private FacilityRepository facilityRepository;
+  private GeographicZoneRepository geographicZoneRepository;
+  private TransactionOperations transactionOperations;
+  private MeterRegistry meterRegistry;
+
+  private int concurrency;
+  private int batchSize;
+  private long pollIntervalMillis;
+  private long leaseSeconds;
+  private long initialBackoffMillis;
+  private long maxBackoffMillis;
+
+  private final AtomicBoolean wakeUpScheduled = new AtomicBoolean();
+  private final AtomicLong queueDepth = new AtomicLong();
+  private final AtomicLong lagSeconds = new AtomicLong();
+
+  private ScheduledExecutorService poller;
+  private ExecutorService workers;
+
+  private Counter delivered;
+  private Counter failed;
+  private Timer deliveries;
+
+  /**
+   * Registers metrics and starts polling the outbox.
+   */
+  void start() {
+    delivered = meterRegistry.counter("referencedata.fhirSync.delivered");
+    failed = meterRegistry.counter("referencedata.fhirSync.failed");
+    deliveries = meterRegistry.timer("referencedata.fhirSync.delivery");
+    Gauge.builder("referencedata.fhirSync.queueDepth", queueDepth, AtomicLong::get)
+        .register(meterRegistry);
+    Gauge.builder("referencedata.fhirSync.lagSeconds", lagSeconds, AtomicLong::get)
+        .register(meterRegistry);
+
+    workers = Executors.newFixedThreadPool(concurrency);
+    poller = Executors.newSingleThreadScheduledExecutor();
+    poller.scheduleWithFixedDelay(this::dispatch, pollIntervalMillis, pollIntervalMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops polling the outbox. Events which are being delivered are claimed again by the next
+   * poll once their lease passes.
+   */
+  void stop() {
+    poller.shutdownNow();
+    workers.shutdownNow();
+  }
+
+  /**
+   * Polls the outbox without waiting for the next scheduled poll. Wake ups which come while
+   * a poll is already waiting to run are coalesced.
+   */
+  void wakeUp() {
+    if (null != poller && wakeUpScheduled.compareAndSet(false, true)) {
+      poller.execute(() -> {
+        wakeUpScheduled.set(false);
+        dispatch();
+      });
+    }
+  }
+
+  /**
+   * Delivers all events which are due, a batch at a time.
+   */
+  void dispatch() {
+    try {
+      List<FhirSyncEvent> events;
+
+      do {
+        events = outbox.claim(batchSize, leaseSeconds);
+        deliver(events);
+      } while (events.size() >= batchSize);
+
+      Statistics statistics = outbox.getStatistics();
+      queueDepth.set(statistics.getDepth());
+      lagSeconds.set(statistics.getLagSeconds());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException ex) {
+      LOGGER.error("Could not dispatch FHIR synchronization events", ex);
+    }
+  }
+
+  long getBackoffMillis(int attempts) {
+    return Math.min(initialBackoffMillis << Math.min(attempts, 30), maxBackoffMillis);
+  }
+
+  private void deliver(List<FhirSyncEvent> events) throws InterruptedException {
+    List<Callable<Void>> tasks = new ArrayList<>(events.size());
+
+    for (FhirSyncEvent event : events) {
+      tasks.add(() -> {
+        deliveries.record(() -> deliver(event));
+        return null;
+      });
+    }
+
+    workers.invokeAll(tasks);
+  }
+
+  private void deliver(FhirSyncEvent event) {
+    LOGGER.info("Synchronizing {}", event);
+
+    try {
+      FhirLocation location = transactionOperations.execute(status -> createLocation(event));
+
+      if (null == location) {
+        LOGGER.warn("Location {} with id {} does not exist. Skipping synchronization process.",
+            event.getResourceType(), event.getResourceId());
+      } else {
+        synchronize(location);
+      }
+
+      outbox.complete(event);
+      delivered.increment();
+      LOGGER.info("Synchronized {}", event);
+    } catch (RuntimeException ex) {
+      long delayMillis = getBackoffMillis(event.getAttempts());
+      LOGGER.warn("Could not synchronize {}, next attempt in {} ms", event, delayMillis, ex);
+
+      outbox.fail(event, delayMillis, ex.getMessage());
+      failed.increment();
+    }
+  }
+
+  private FhirLocation createLocation(FhirSyncEvent event) {
+    if (ResourceType.FACILITY == event.getResourceType()) {
+      return facilityRepository
+          .findById(event.getResourceId())
+          .map(locationFactory::createFor)
+          .orElse(null);
+    }
+
+    return geographicZoneRepository
+        .findById(event.getResourceId())
+        .map(locationFactory::createFor)
+        .orElse(null);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void synchronize(FhirLocation location) {
+    IBaseResource resource = locationConverter.convert(location);
+    locationSynchronizer.synchronize(location, resource);
+  }
+
+}
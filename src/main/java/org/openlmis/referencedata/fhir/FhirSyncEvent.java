@@ -0,0 +1,43 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.fhir;
+
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A location claimed from the FHIR synchronization outbox. The revision is increased every time
+ * the location changes again, so delivery of an outdated revision does not remove the event.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+final class FhirSyncEvent {
+
+  enum ResourceType {
+    FACILITY, GEOGRAPHIC_ZONE
+  }
+
+  private final ResourceType resourceType;
+  private final UUID resourceId;
+  private final long revision;
+  private final int attempts;
+
+}
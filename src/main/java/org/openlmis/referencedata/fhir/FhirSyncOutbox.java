@@ -0,0 +1,135 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.fhir;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.openlmis.referencedata.fhir.FhirSyncEvent.ResourceType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Transactional outbox of locations which have to be synchronized with the FHIR server. Events
+ * are written with the template of the caller, so they are committed or rolled back together
+ * with the change of the location. There is at most one event per location: a location which
+ * changes again before it is delivered only gets its revision increased.
+ *
+ * <p>Events are claimed with a lease, so several instances of the service can dispatch them
+ * without delivering the same location twice at the same time. An event whose lease has passed
+ * (for example because the instance which claimed it was stopped) can be claimed again.
+ */
+@AllArgsConstructor
+class FhirSyncOutbox {
+
+  static final String ENQUEUE_SQL = "INSERT INTO referencedata.fhir_sync_events"
+      + " (resourcetype, resourceid, revision, attempts, createddate, nextattemptdate)"
+      + " VALUES (?, ?, 1, 0, now(), now())"
+      + " ON CONFLICT (resourcetype, resourceid) DO UPDATE"
+      + " SET revision = fhir_sync_events.revision + 1, attempts = 0,"
+      + " nextattemptdate = now(), lasterror = NULL";
+
+  static final String CLAIM_SQL = "UPDATE referencedata.fhir_sync_events e"
+      + " SET lockeduntil = now() + ? * INTERVAL '1 second'"
+      + " FROM (SELECT resourcetype, resourceid FROM referencedata.fhir_sync_events"
+      + "   WHERE nextattemptdate <= now() AND (lockeduntil IS NULL OR lockeduntil < now())"
+      + "   ORDER BY nextattemptdate"
+      + "   LIMIT ?"
+      + "   FOR UPDATE SKIP LOCKED) claimed"
+      + " WHERE e.resourcetype = claimed.resourcetype AND e.resourceid = claimed.resourceid"
+      + " RETURNING e.resourcetype, e.resourceid, e.revision, e.attempts";
+
+  static final String COMPLETE_SQL = "DELETE FROM referencedata.fhir_sync_events"
+      + " WHERE resourcetype = ? AND resourceid = ? AND revision = ?";
+
+  static final String FAIL_SQL = "UPDATE referencedata.fhir_sync_events"
+      + " SET attempts = attempts + 1, nextattemptdate = now() + ? * INTERVAL '1 millisecond',"
+      + " lockeduntil = NULL, lasterror = ?"
+      + " WHERE resourcetype = ? AND resourceid = ? AND revision = ?";
+
+  static final String RELEASE_SQL = "UPDATE referencedata.fhir_sync_events"
+      + " SET lockeduntil = NULL"
+      + " WHERE resourcetype = ? AND resourceid = ?";
+
+  static final String STATISTICS_SQL = "SELECT count(*) AS depth,"
+      + " COALESCE(EXTRACT(EPOCH FROM now() - min(createddate)), 0) AS lag"
+      + " FROM referencedata.fhir_sync_events";
+
+  private final JdbcTemplate template;
+
+  /**
+   * Adds the location to the outbox, or marks its pending event as changed again.
+   */
+  void enqueue(ResourceType resourceType, UUID resourceId) {
+    template.update(ENQUEUE_SQL, resourceType.name(), resourceId);
+  }
+
+  /**
+   * Claims at most the given number of events which are due, oldest first.
+   */
+  List<FhirSyncEvent> claim(int limit, long leaseSeconds) {
+    return template.query(CLAIM_SQL,
+        (ResultSet rs, int rowNum) -> new FhirSyncEvent(
+            ResourceType.valueOf(rs.getString("resourcetype")),
+            UUID.fromString(rs.getString("resourceid")),
+            rs.getLong("revision"), rs.getInt("attempts")),
+        leaseSeconds, limit);
+  }
+
+  /**
+   * Removes the delivered event. If the location has changed since the event was claimed,
+   * the event is kept and released, so the newer revision is delivered too.
+   */
+  void complete(FhirSyncEvent event) {
+    int deleted = template.update(COMPLETE_SQL, event.getResourceType().name(),
+        event.getResourceId(), event.getRevision());
+
+    if (0 == deleted) {
+      release(event);
+    }
+  }
+
+  /**
+   * Schedules the next attempt to deliver the event after the given delay. If the location has
+   * changed since the event was claimed, the event is released to be delivered right away.
+   */
+  void fail(FhirSyncEvent event, long delayMillis, String error) {
+    int updated = template.update(FAIL_SQL, delayMillis, error,
+        event.getResourceType().name(), event.getResourceId(), event.getRevision());
+
+    if (0 == updated) {
+      release(event);
+    }
+  }
+
+  Statistics getStatistics() {
+    return template.queryForObject(STATISTICS_SQL,
+        (ResultSet rs, int rowNum) -> new Statistics(rs.getLong("depth"), rs.getLong("lag")));
+  }
+
+  private void release(FhirSyncEvent event) {
+    template.update(RELEASE_SQL, event.getResourceType().name(), event.getResourceId());
+  }
+
+  @Getter
+  @AllArgsConstructor
+  static final class Statistics {
+    private final long depth;
+    private final long lagSeconds;
+  }
+
+}
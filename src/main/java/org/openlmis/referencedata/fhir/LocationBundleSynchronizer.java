@@ -13,25 +13,20 @@
  * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
  */
 
-package org.openlmis.referencedata.repository.custom.impl;
+package org.openlmis.referencedata.fhir;
 
-import org.openlmis.referencedata.domain.Program;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.stereotype.Repository;
+import java.util.List;
 
-@Repository
-public class ProgramRedisRepository extends BaseRedisRepository<Program> {
-
-  private static final String HASH_KEY = "PROGRAM";
+/**
+ * Synchronizes many locations with the FHIR server at once, with a single search for the ones
+ * which already exist and a single transaction which creates or updates all of them.
+ */
+interface LocationBundleSynchronizer {
 
-  @Autowired
-  ProgramRedisRepository(RedisTemplate redisTemplate) {
-    super(redisTemplate, Program.class);
-  }
+  /**
+   * Creates or updates the given locations. Parents of the locations have to exist on the FHIR
+   * server already.
+   */
+  void synchronize(List<FhirLocation> locations);
 
-  @Override
-  protected String getHashKey() {
-    return HASH_KEY;
-  }
 }
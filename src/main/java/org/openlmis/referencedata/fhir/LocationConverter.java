@@ -15,6 +15,8 @@
 
 package org.openlmis.referencedata.fhir;
 
+import java.util.UUID;
+import java.util.function.Function;
 import lombok.Setter;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
@@ -30,14 +32,32 @@ class LocationConverter<T extends IBaseResource> implements Converter<FhirLocati
     strategy.setName(resource, input);
     strategy.setPhysicalType(resource, input);
     strategy.setPartOf(resource, input);
+    setOtherFields(resource, input);
+
+    return resource;
+  }
+
+  /**
+   * Converts the location, finding the URL of its parent with the given function instead of
+   * searching for it on the FHIR server.
+   */
+  public T convert(FhirLocation input, Function<UUID, String> locationUrls) {
+    T resource = strategy.initiateResource();
+    strategy.setName(resource, input);
+    strategy.setPhysicalType(resource, input);
+    strategy.setPartOf(resource, input, locationUrls);
+    setOtherFields(resource, input);
+
+    return resource;
+  }
+
+  private void setOtherFields(T resource, FhirLocation input) {
     strategy.setIdentifier(resource, input);
     strategy.addSystemIdentifier(resource, serviceUrl, input.getId());
     strategy.setAlias(resource, input);
     strategy.setPosition(resource, input);
     strategy.setDescription(resource, input);
     strategy.setStatus(resource, input);
-
-    return resource;
   }
 
 }
@@ -16,6 +16,7 @@
 package org.openlmis.referencedata.fhir;
 
 import java.util.UUID;
+import java.util.function.Function;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
 public interface LocationConverterStrategy<T extends IBaseResource> {
@@ -28,6 +29,12 @@ public interface LocationConverterStrategy<T extends IBaseResource> {
 
   void setPartOf(T resource, FhirLocation input);
 
+  /**
+   * Sets the reference to the parent location, using the given function to find the URL of
+   * the parent on the FHIR server. The function returns null if the parent does not exist there.
+   */
+  void setPartOf(T resource, FhirLocation input, Function<UUID, String> locationUrls);
+
   void setIdentifier(T resource, FhirLocation input);
 
   void addSystemIdentifier(T resource, String system, UUID value);
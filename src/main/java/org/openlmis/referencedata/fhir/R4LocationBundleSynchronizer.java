@@ -0,0 +1,136 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.fhir;
+
+import ca.uhn.fhir.rest.api.CacheControlDirective;
+import ca.uhn.fhir.rest.api.SearchStyleEnum;
+import ca.uhn.fhir.rest.client.api.IGenericClient;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.Bundle.BundleType;
+import org.hl7.fhir.r4.model.Bundle.HTTPVerb;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.Location;
+
+@AllArgsConstructor
+class R4LocationBundleSynchronizer implements LocationBundleSynchronizer {
+
+  private final IGenericClient client;
+  private final CacheControlDirective cacheControlDirective;
+  private final CriterionBuilder criterionBuilder;
+  private final LocationConverter<Location> converter;
+  private final String serviceUrl;
+
+  @Override
+  public void synchronize(List<FhirLocation> locations) {
+    Set<UUID> ids = new LinkedHashSet<>();
+    for (FhirLocation location : locations) {
+      ids.add(location.getId());
+
+      if (null != location.getPartOf()) {
+        ids.add(location.getPartOf().getResourceId());
+      }
+    }
+
+    Map<UUID, BundleEntryComponent> existing = findExisting(ids);
+
+    Bundle transaction = new Bundle();
+    transaction.setType(BundleType.TRANSACTION);
+
+    for (FhirLocation location : locations) {
+      Location resource = converter.convert(location, id -> getFullUrl(existing.get(id)));
+      BundleEntryComponent current = existing.get(location.getId());
+      BundleEntryComponent entry = transaction.addEntry().setResource(resource);
+
+      if (null == current) {
+        // the condition keeps a retried bundle from creating the location twice
+        resource.setId((IIdType) null);
+        entry.getRequest()
+            .setMethod(HTTPVerb.POST)
+            .setUrl(FhirLocation.RESOURCE_TYPE_NAME)
+            .setIfNoneExist("identifier=" + serviceUrl + '|' + location.getId());
+      } else {
+        IIdType idType = current.getResource().getIdElement().toUnqualifiedVersionless();
+        resource.setId(idType);
+        entry.getRequest()
+            .setMethod(HTTPVerb.PUT)
+            .setUrl(idType.getValue());
+      }
+    }
+
+    client
+        .transaction()
+        .withBundle(transaction)
+        .encodedJson()
+        .execute();
+  }
+
+  private Map<UUID, BundleEntryComponent> findExisting(Set<UUID> ids) {
+    Map<UUID, BundleEntryComponent> existing = new HashMap<>();
+    Bundle bundle = client
+        .search()
+        .forResource(Location.class)
+        .cacheControl(cacheControlDirective)
+        .where(criterionBuilder.buildIdentifierCriterion(ids))
+        .count(ids.size())
+        .usingStyle(SearchStyleEnum.POST)
+        .returnBundle(Bundle.class)
+        .execute();
+
+    while (true) {
+      for (BundleEntryComponent entry : bundle.getEntry()) {
+        UUID id = getOpenLmisId((Location) entry.getResource());
+
+        if (null != id) {
+          existing.put(id, entry);
+        }
+      }
+
+      if (null == bundle.getLink(Bundle.LINK_NEXT)) {
+        return existing;
+      }
+
+      bundle = client
+          .loadPage()
+          .next(bundle)
+          .execute();
+    }
+  }
+
+  private UUID getOpenLmisId(Location location) {
+    return location
+        .getIdentifier()
+        .stream()
+        .filter(identifier -> serviceUrl.equals(identifier.getSystem()))
+        .map(Identifier::getValue)
+        .map(UUID::fromString)
+        .findFirst()
+        .orElse(null);
+  }
+
+  private String getFullUrl(BundleEntryComponent entry) {
+    return null == entry ? null : entry.getFullUrl();
+  }
+
+}
@@ -21,6 +21,7 @@ import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import lombok.AllArgsConstructor;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -77,6 +78,12 @@ class R4LocationConverterStrategy implements LocationConverterStrategy<Location>
 
   @Override
   public void setPartOf(Location resource, FhirLocation input) {
+    setPartOf(resource, input, this::findLocationUrl);
+  }
+
+  @Override
+  public void setPartOf(Location resource, FhirLocation input,
+      Function<UUID, String> locationUrls) {
     FhirReference reference = input.getPartOf();
 
     if (null == reference) {
@@ -84,17 +91,7 @@ class R4LocationConverterStrategy implements LocationConverterStrategy<Location>
     }
 
     UUID resourceId = reference.getResourceId();
-
-    Bundle bundle = client
-        .search()
-        .forResource(Location.class)
-        .cacheControl(cacheControlDirective)
-        .where(criterionBuilder.buildIdentifierCriterion(resourceId))
-        .returnBundle(Bundle.class)
-        .execute();
-
-    List<BundleEntryComponent> entries = bundle.getEntry();
-    String url = CollectionUtils.isEmpty(entries) ? null : entries.get(0).getFullUrl();
+    String url = locationUrls.apply(resourceId);
 
     if (StringUtils.isBlank(url)) {
       throw new ValidationMessageException(
@@ -166,4 +163,17 @@ class R4LocationConverterStrategy implements LocationConverterStrategy<Location>
         });
   }
 
+  private String findLocationUrl(UUID resourceId) {
+    Bundle bundle = client
+        .search()
+        .forResource(Location.class)
+        .cacheControl(cacheControlDirective)
+        .where(criterionBuilder.buildIdentifierCriterion(resourceId))
+        .returnBundle(Bundle.class)
+        .execute();
+
+    List<BundleEntryComponent> entries = bundle.getEntry();
+    return CollectionUtils.isEmpty(entries) ? null : entries.get(0).getFullUrl();
+  }
+
 }
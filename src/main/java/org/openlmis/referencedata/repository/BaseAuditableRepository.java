@@ -17,8 +17,6 @@ package org.openlmis.referencedata.repository;
 
 import java.io.Serializable;
 import org.javers.spring.annotation.JaversSpringDataAuditable;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
@@ -31,9 +29,4 @@ import org.springframework.data.repository.PagingAndSortingRepository;
 @JaversSpringDataAuditable
 public interface BaseAuditableRepository<T, I extends Serializable>
     extends PagingAndSortingRepository<T, I> {
-
-  /**
-   * Returns a {@link Page} of entities which there are no Javers logs created for.
-   */
-  Page<T> findAllWithoutSnapshots(Pageable pageable);
 }
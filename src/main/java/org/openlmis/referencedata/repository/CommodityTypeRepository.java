@@ -15,12 +15,11 @@
 
 package org.openlmis.referencedata.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.openlmis.referencedata.domain.CommodityType;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
 public interface CommodityTypeRepository
@@ -30,21 +29,7 @@ public interface CommodityTypeRepository
   Optional<CommodityType> findByClassificationIdAndClassificationSystem(
       String classificationId, String classificationSystem);
 
-  @Query(value = "SELECT\n"
-      + "    ct.*\n"
-      + "FROM\n"
-      + "    referencedata.commodity_types ct\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.commodity_types ct\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(ct.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + " ",
-      nativeQuery = true)
-  Page<CommodityType> findAllWithoutSnapshots(Pageable pageable);
+  List<CommodityType> findByClassificationIdInAndClassificationSystemIn(
+      Collection<String> classificationIds, Collection<String> classificationSystems);
+
 }
@@ -16,6 +16,7 @@
 package org.openlmis.referencedata.repository;
 
 import com.vividsolutions.jts.geom.Polygon;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -44,6 +45,8 @@ public interface FacilityRepository
 
   Optional<Facility> findByCode(String code);
 
+  List<Facility> findByCodeIn(Collection<String> codes);
+
   @Query(name = "Facility.findSupervisionFacilitiesByUser",
       nativeQuery = true)
   Set<NamedResource> findSupervisionFacilitiesByUser(@Param("userId") UUID userId);
@@ -52,21 +55,4 @@ public interface FacilityRepository
 
   Page<Facility> findByActive(Boolean active, Pageable pageable);
 
-  @Query(value = "SELECT\n"
-      + "    f.*\n"
-      + "FROM\n"
-      + "    referencedata.facilities f\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.facilities f\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(f.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + " ",
-      nativeQuery = true)
-  Page<Facility> findAllWithoutSnapshots(Pageable pageable);
 }
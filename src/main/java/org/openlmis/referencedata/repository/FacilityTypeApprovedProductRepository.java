@@ -20,8 +20,6 @@ import java.util.UUID;
 import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
 import org.openlmis.referencedata.domain.VersionIdentity;
 import org.openlmis.referencedata.repository.custom.FacilityTypeApprovedProductRepositoryCustom;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -40,23 +38,4 @@ public interface FacilityTypeApprovedProductRepository extends
   @Modifying(flushAutomatically = true, clearAutomatically = true)
   void deactivatePreviousVersions(@Param("id") UUID id);
 
-  @Query(value = "SELECT"
-      + "   ftap.*"
-      + " FROM"
-      + "   referencedata.facility_type_approved_products ftap"
-      + " WHERE"
-      + "   id NOT IN ("
-      + "     SELECT"
-      + "       id"
-      + "     FROM"
-      + "       referencedata.facility_type_approved_products ftap"
-      + "       INNER JOIN referencedata.jv_global_id g"
-      + "         ON (CAST(ftap.id AS varchar) = SUBSTRING("
-      + "           CAST(CAST(g.local_id AS json)->'id' AS varchar), 2, 36))"
-      + "         AND (CAST(ftap.versionNumber AS varchar) ="
-      + "           CAST(CAST(g.local_id AS json)->'versionNumber' AS varchar))"
-      + "       INNER JOIN referencedata.jv_snapshot s ON g.global_id_pk = s.global_id_fk)"
-      + " ",
-      nativeQuery = true)
-  Page<FacilityTypeApprovedProduct> findAllWithoutSnapshots(Pageable pageable);
 }
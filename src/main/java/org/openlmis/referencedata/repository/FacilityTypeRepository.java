@@ -21,7 +21,6 @@ import org.openlmis.referencedata.domain.FacilityType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 public interface FacilityTypeRepository extends JpaRepository<FacilityType, UUID>,
@@ -40,21 +39,4 @@ public interface FacilityTypeRepository extends JpaRepository<FacilityType, UUID
 
   boolean existsByCode(@Param("code") String code);
 
-  @Query(value = "SELECT\n"
-      + "    ft.*\n"
-      + "FROM\n"
-      + "    referencedata.facility_types ft\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.facility_types ft\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(ft.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + " ",
-      nativeQuery = true)
-  Page<FacilityType> findAllWithoutSnapshots(Pageable pageable);
 }
@@ -17,30 +17,10 @@ package org.openlmis.referencedata.repository;
 
 import java.util.UUID;
 import org.openlmis.referencedata.domain.GeographicLevel;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.Query;
 
 public interface GeographicLevelRepository
     extends BaseAuditableRepository<GeographicLevel, UUID> {
 
   GeographicLevel findByLevelNumber(Integer levelNumber);
 
-  @Query(value = "SELECT\n"
-      + "    gl.*\n"
-      + "FROM\n"
-      + "    referencedata.geographic_levels gl\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.geographic_levels gl\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(gl.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + " ",
-      nativeQuery = true)
-  Page<GeographicLevel> findAllWithoutSnapshots(Pageable pageable);
 }
@@ -22,8 +22,6 @@ import java.util.UUID;
 import org.openlmis.referencedata.domain.GeographicLevel;
 import org.openlmis.referencedata.domain.GeographicZone;
 import org.openlmis.referencedata.repository.custom.GeographicZoneRepositoryCustom;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
@@ -37,6 +35,11 @@ public interface GeographicZoneRepository extends PagingAndSortingRepository<Geo
   @Query(name = "GeographicZone.findIdsByParent")
   Set<UUID> findIdsByParent(@Param("parentId") UUID parentId);
 
+  @Query("SELECT h.id.descendantId"
+      + " FROM GeographicZoneHierarchy AS h"
+      + " WHERE h.id.ancestorId = :rootId AND h.depth > 0")
+  Set<UUID> findIdsOfDescendants(@Param("rootId") UUID rootId);
+
   List<GeographicZone> findByLevel(GeographicLevel level);
 
   <S extends GeographicZone> S findByCode(String code);
@@ -48,21 +51,4 @@ public interface GeographicZoneRepository extends PagingAndSortingRepository<Geo
   )
   List<GeographicZone> findByLocation(@Param("location") Point location);
 
-  @Query(value = "SELECT\n"
-      + "    gz.*\n"
-      + "FROM\n"
-      + "    referencedata.geographic_zones gz\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.geographic_zones gz\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(gz.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + " ",
-      nativeQuery = true)
-  Page<GeographicZone> findAllWithoutSnapshots(Pageable pageable);
 }
@@ -18,9 +18,6 @@ package org.openlmis.referencedata.repository;
 import java.util.UUID;
 import org.openlmis.referencedata.domain.Lot;
 import org.openlmis.referencedata.repository.custom.LotRepositoryCustom;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
 public interface LotRepository
@@ -31,21 +28,4 @@ public interface LotRepository
 
   boolean existsByLotCodeIgnoreCaseAndTradeItemIdAndIdIsNot(String code, UUID tradeItemId, UUID id);
 
-  @Query(value = "SELECT\n"
-      + "    l.*\n"
-      + "FROM\n"
-      + "    referencedata.lots l\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.lots l\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(l.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + " ",
-      nativeQuery = true)
-  Page<Lot> findAllWithoutSnapshots(Pageable pageable);
 }
@@ -125,23 +125,6 @@ public interface OrderableRepository extends
   )
   Page<Orderable> findAllLatest(Pageable pageable);
 
-  @Query(value = "SELECT\n"
-      + "    o.*\n"
-      + "FROM\n"
-      + "    referencedata.orderables o\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.orderables o\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(o.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + ORDER_BY_PAGEABLE,
-      nativeQuery = true)
-  Page<Orderable> findAllWithoutSnapshots(Pageable pageable);
 
   @Query(value = SELECT_LAST_UPDATED
       + FROM_REFERENCEDATA_ORDERABLES_CLAUSE
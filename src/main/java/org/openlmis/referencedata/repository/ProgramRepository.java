@@ -22,8 +22,6 @@ import java.util.UUID;
 import org.openlmis.referencedata.domain.Code;
 import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.repository.custom.ProgramRepositoryCustom;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -63,21 +61,4 @@ public interface ProgramRepository
 
   List<Program> findByIdInAndNameIgnoreCaseContaining(Collection<UUID> ids, String name);
 
-  @Query(value = "SELECT\n"
-      + "    p.*\n"
-      + "FROM\n"
-      + "    referencedata.programs p\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.programs p\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(p.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + " ",
-      nativeQuery = true)
-  Page<Program> findAllWithoutSnapshots(Pageable pageable);
 }
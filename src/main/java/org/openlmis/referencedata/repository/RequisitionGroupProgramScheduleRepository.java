@@ -18,9 +18,6 @@ package org.openlmis.referencedata.repository;
 import java.util.UUID;
 import org.openlmis.referencedata.domain.RequisitionGroupProgramSchedule;
 import org.openlmis.referencedata.repository.custom.RequisitionGroupProgramScheduleRepositoryCustom;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
 public interface RequisitionGroupProgramScheduleRepository extends
@@ -28,21 +25,4 @@ public interface RequisitionGroupProgramScheduleRepository extends
       RequisitionGroupProgramScheduleRepositoryCustom,
       BaseAuditableRepository<RequisitionGroupProgramSchedule, UUID> {
 
-  @Query(value = "SELECT\n"
-      + "    r.*\n"
-      + "FROM\n"
-      + "    referencedata.requisition_group_program_schedules r\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.requisition_group_program_schedules r\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(r.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + " ",
-      nativeQuery = true)
-  Page<RequisitionGroupProgramSchedule> findAllWithoutSnapshots(Pageable pageable);
 }
@@ -18,10 +18,7 @@ package org.openlmis.referencedata.repository;
 import java.util.UUID;
 import org.openlmis.referencedata.domain.RequisitionGroup;
 import org.openlmis.referencedata.repository.custom.RequisitionGroupRepositoryCustom;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
 
 public interface RequisitionGroupRepository
     extends JpaRepository<RequisitionGroup, UUID>, RequisitionGroupRepositoryCustom,
@@ -29,21 +26,4 @@ public interface RequisitionGroupRepository
 
   <S extends RequisitionGroup> S findByCode(String code);
 
-  @Query(value = "SELECT\n"
-      + "    r.*\n"
-      + "FROM\n"
-      + "    referencedata.requisition_groups r\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.requisition_groups r\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(r.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + " ",
-      nativeQuery = true)
-  Page<RequisitionGroup> findAllWithoutSnapshots(Pageable pageable);
 }
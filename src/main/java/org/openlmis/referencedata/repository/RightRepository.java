@@ -18,9 +18,6 @@ package org.openlmis.referencedata.repository;
 import java.util.UUID;
 import org.openlmis.referencedata.domain.Right;
 import org.openlmis.referencedata.repository.custom.RightRepositoryCustom;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
 public interface RightRepository extends PagingAndSortingRepository<Right, UUID>,
@@ -28,21 +25,4 @@ public interface RightRepository extends PagingAndSortingRepository<Right, UUID>
         BaseAuditableRepository<Right, UUID> {
   Right findFirstByName(String name);
 
-  @Query(value = "SELECT\n"
-      + "    r.*\n"
-      + "FROM\n"
-      + "    referencedata.rights r\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.rights r\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(r.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + " ",
-      nativeQuery = true)
-  Page<Right> findAllWithoutSnapshots(Pageable pageable);
 }
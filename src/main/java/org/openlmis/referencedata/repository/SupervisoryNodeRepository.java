@@ -19,8 +19,6 @@ import java.util.Set;
 import java.util.UUID;
 import org.openlmis.referencedata.domain.SupervisoryNode;
 import org.openlmis.referencedata.repository.custom.SupervisoryNodeRepositoryCustom;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -33,23 +31,6 @@ public interface SupervisoryNodeRepository
 
   boolean existsByCode(String code);
 
-  @Query(value = "SELECT\n"
-      + "    sn.*\n"
-      + "FROM\n"
-      + "    referencedata.supervisory_nodes sn\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.supervisory_nodes sn\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(sn.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + " ",
-      nativeQuery = true)
-  Page<SupervisoryNode> findAllWithoutSnapshots(Pageable pageable);
 
   @Query(value = "SELECT\n"
           + "    sn\n"
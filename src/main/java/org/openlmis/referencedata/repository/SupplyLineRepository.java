@@ -20,8 +20,6 @@ import java.util.UUID;
 import org.openlmis.referencedata.domain.Facility;
 import org.openlmis.referencedata.domain.SupplyLine;
 import org.openlmis.referencedata.repository.custom.SupplyLineRepositoryCustom;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -34,21 +32,4 @@ public interface SupplyLineRepository extends JpaRepository<SupplyLine, UUID>,
   List<Facility> findSupplyingFacilities(@Param("programId") UUID programId,
                                          @Param("supervisoryNodeId") UUID supervisoryNodeId);
 
-  @Query(value = "SELECT\n"
-      + "    sln.*\n"
-      + "FROM\n"
-      + "    referencedata.supply_lines sln\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.supply_lines sln\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(sln.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + " ",
-      nativeQuery = true)
-  Page<SupplyLine> findAllWithoutSnapshots(Pageable pageable);
 }
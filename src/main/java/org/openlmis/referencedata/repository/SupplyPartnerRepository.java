@@ -18,32 +18,10 @@ package org.openlmis.referencedata.repository;
 import java.util.UUID;
 import org.openlmis.referencedata.domain.SupplyPartner;
 import org.openlmis.referencedata.repository.custom.SupplyPartnerRepositoryCustom;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
 
 public interface SupplyPartnerRepository
     extends JpaRepository<SupplyPartner, UUID>,
     SupplyPartnerRepositoryCustom,
     BaseAuditableRepository<SupplyPartner, UUID> {
-
-  @Query(value = "SELECT\n"
-      + "    sp.*\n"
-      + "FROM\n"
-      + "    referencedata.supply_partners sp\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.supply_partners sp\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(sp.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + " ",
-      nativeQuery = true)
-  Page<SupplyPartner> findAllWithoutSnapshots(Pageable pageable);
-
 }
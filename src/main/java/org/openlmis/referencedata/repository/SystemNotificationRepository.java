@@ -15,33 +15,22 @@
 
 package org.openlmis.referencedata.repository;
 
+import java.time.ZonedDateTime;
 import java.util.UUID;
 import org.openlmis.referencedata.domain.SystemNotification;
 import org.openlmis.referencedata.repository.custom.SystemNotificationRepositoryCustom;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface SystemNotificationRepository extends JpaRepository<SystemNotification, UUID>,
     BaseAuditableRepository<SystemNotification, UUID>, SystemNotificationRepositoryCustom {
 
-  @Query(value = "SELECT\n"
-      + "    sp.*\n"
-      + "FROM\n"
-      + "    referencedata.system_notifications sp\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.system_notifications sp\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(sp.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + " ",
-      nativeQuery = true)
-  Page<SystemNotification> findAllWithoutSnapshots(Pageable pageable);
+  @Query("SELECT MIN(sn.startDate) FROM SystemNotification AS sn"
+      + " WHERE sn.active = true AND sn.startDate > :date")
+  ZonedDateTime findNextStartDate(@Param("date") ZonedDateTime date);
 
+  @Query("SELECT MIN(sn.expiryDate) FROM SystemNotification AS sn"
+      + " WHERE sn.active = true AND sn.expiryDate >= :date")
+  ZonedDateTime findNextExpiryDate(@Param("date") ZonedDateTime date);
 }
@@ -22,8 +22,6 @@ import org.openlmis.referencedata.domain.Facility;
 import org.openlmis.referencedata.domain.Right;
 import org.openlmis.referencedata.domain.User;
 import org.openlmis.referencedata.repository.custom.UserRepositoryCustom;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -88,21 +86,4 @@ public interface UserRepository extends
       nativeQuery = true)
   Set<User> findUsersByDirectRight(@Param("right") Right right);
 
-  @Query(value = "SELECT\n"
-      + "    u.*\n"
-      + "FROM\n"
-      + "    referencedata.users u\n"
-      + "WHERE\n"
-      + "    id NOT IN (\n"
-      + "        SELECT\n"
-      + "            id\n"
-      + "        FROM\n"
-      + "            referencedata.users u\n"
-      + "            INNER JOIN referencedata.jv_global_id g "
-      + "ON CAST(u.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN referencedata.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
-      + "    )\n"
-      + " ",
-      nativeQuery = true)
-  Page<User> findAllWithoutSnapshots(Pageable pageable);
 }
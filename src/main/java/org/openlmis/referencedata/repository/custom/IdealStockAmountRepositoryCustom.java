@@ -17,7 +17,9 @@ package org.openlmis.referencedata.repository.custom;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.openlmis.referencedata.domain.IdealStockAmount;
+import org.openlmis.referencedata.dto.IdealStockAmountCsvModel;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -27,4 +29,8 @@ public interface IdealStockAmountRepositoryCustom {
 
   Page<IdealStockAmount> search(UUID facilityId, UUID commodityTypeId, UUID processingPeriodId,
                                 Pageable pageable);
+
+  void upsert(List<IdealStockAmount> idealStockAmounts);
+
+  void exportToCsv(Consumer<IdealStockAmountCsvModel> consumer);
 }
@@ -15,6 +15,8 @@
 
 package org.openlmis.referencedata.repository.custom;
 
+import java.util.Set;
+import java.util.UUID;
 import org.openlmis.referencedata.domain.SupervisoryNode;
 import org.openlmis.referencedata.web.SupervisoryNodeSearchParams;
 import org.springframework.data.domain.Page;
@@ -22,4 +24,6 @@ import org.springframework.data.domain.Pageable;
 
 public interface SupervisoryNodeRepositoryCustom {
   Page<SupervisoryNode> search(SupervisoryNodeSearchParams searchParams, Pageable pageable);
+
+  Set<UUID> findSupervisedFacilityIds(UUID supervisoryNodeId, UUID programId);
 }
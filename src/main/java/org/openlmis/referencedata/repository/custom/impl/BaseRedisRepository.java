@@ -54,12 +54,12 @@ public abstract class BaseRedisRepository<T extends Identifiable>
   @Override
   public T findById(UUID id) {
     return mapper.convertValue(this.redisTemplate.opsForHash()
-        .get(getHashKey(), id), clazz);
+        .get(getHashKey(), id.toString()), clazz);
   }
 
   @Override
   public void save(T entity) {
-    hashOperations.put(getHashKey(), entity.getId(), entity);
+    hashOperations.put(getHashKey(), entity.getId().toString(), entity);
   }
 
   @Override
@@ -60,9 +60,16 @@ public class FacilityRepositoryImpl implements FacilityRepositoryCustom {
   private static final String DEFAULT_SORT = "f.name ASC";
   private static final String ORDER_BY = "ORDER BY";
 
+  // backed by trigram indexes on the same expressions, keep them in sync
   private static final String WITH_CODE = "UPPER(f.code) LIKE :code";
   private static final String WITH_NAME = "UPPER(f.name) LIKE :name";
   private static final String WITH_ZONE = "g.id IN (:zones)";
+  private static final String WITH_ZONE_HIERARCHY = "g.id IN ("
+      + "SELECT h.id.descendantId FROM GeographicZoneHierarchy AS h"
+      + " WHERE h.id.ancestorId IN (:zones))";
+  private static final String NATIVE_WITH_ZONE_HIERARCHY = "g.id IN ("
+      + "SELECT h.descendantid FROM referencedata.geographic_zone_hierarchy AS h"
+      + " WHERE h.ancestorid IN (:zones))";
   private static final String WITH_IDS = "f.id IN (:ids)";
   private static final String WITH_TYPE = "t.code = :typeCode";
   private static final String WITH_EXTRA_DATA = "f.extradata @> (:extraData)\\:\\:jsonb";
@@ -75,7 +82,8 @@ public class FacilityRepositoryImpl implements FacilityRepositoryCustom {
    * Method is ignoring case for facility code and name.
    *
    * @param searchParams      Params to search facilities by.
-   * @param geographicZoneIds Geographic zone IDs.
+   * @param geographicZoneIds Geographic zone IDs. If the search is recursive, facilities from
+   *                          descendants of these zones are also returned.
    * @param extraData         extra data
    * @param pageable object used to encapsulate the pagination related values: page, size and sort.
    * @return Page of Facilities matching the parameters.
@@ -92,8 +100,8 @@ public class FacilityRepositoryImpl implements FacilityRepositoryCustom {
       Set<UUID> geographicZoneIds, String extraData, Pageable pageable) {
 
     Map<String, Object> params = Maps.newHashMap();
-    String query =
-        prepareQuery(NATIVE_SELECT_BY_PARAMS, searchParams, geographicZoneIds, extraData, params);
+    String query = prepareQuery(NATIVE_SELECT_BY_PARAMS, NATIVE_WITH_ZONE_HIERARCHY,
+        searchParams, geographicZoneIds, extraData, params);
 
     Query nativeQuery = entityManager.createNativeQuery(query);
     params.forEach(nativeQuery::setParameter);
@@ -126,8 +134,8 @@ public class FacilityRepositoryImpl implements FacilityRepositoryCustom {
       Set<UUID> geographicZoneIds, Pageable pageable) {
 
     Map<String, Object> params = Maps.newHashMap();
-    Query countQuery = entityManager.createQuery(prepareQuery(
-        HQL_COUNT, searchParams, geographicZoneIds, null, params), Long.class);
+    Query countQuery = entityManager.createQuery(prepareQuery(HQL_COUNT, WITH_ZONE_HIERARCHY,
+        searchParams, geographicZoneIds, null, params), Long.class);
     params.forEach(countQuery::setParameter);
     Long count = (Long) countQuery.getSingleResult();
 
@@ -137,7 +145,8 @@ public class FacilityRepositoryImpl implements FacilityRepositoryCustom {
 
     params = Maps.newHashMap();
     String hqlWithSort = Joiner.on(' ').join(Lists.newArrayList(
-        prepareQuery(HQL_SELECT, searchParams, geographicZoneIds, null, params),
+        prepareQuery(HQL_SELECT, WITH_ZONE_HIERARCHY, searchParams, geographicZoneIds, null,
+            params),
         ORDER_BY, PageableUtil.getOrderPredicate(pageable, "f.", DEFAULT_SORT)));
 
     Query searchQuery = entityManager.createQuery(hqlWithSort, Facility.class);
@@ -150,8 +159,9 @@ public class FacilityRepositoryImpl implements FacilityRepositoryCustom {
     return Pagination.getPage(facilities, pageable, count);
   }
 
-  private String prepareQuery(String baseSql, FacilityRepositoryCustom.SearchParams searchParams,
-      Set<UUID> geographicZoneIds, String extraData, Map<String, Object> params) {
+  private String prepareQuery(String baseSql, String zoneHierarchyCondition,
+      FacilityRepositoryCustom.SearchParams searchParams, Set<UUID> geographicZoneIds,
+      String extraData, Map<String, Object> params) {
 
     List<String> sql = Lists.newArrayList(baseSql);
     List<String> where = Lists.newArrayList();
@@ -172,7 +182,9 @@ public class FacilityRepositoryImpl implements FacilityRepositoryCustom {
     }
 
     if (isNotEmpty(geographicZoneIds)) {
-      where.add(WITH_ZONE);
+      where.add(Boolean.TRUE.equals(searchParams.isRecurse())
+          ? zoneHierarchyCondition
+          : WITH_ZONE);
       params.put("zones", geographicZoneIds);
     }
 
@@ -38,7 +38,6 @@ import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Subquery;
-import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.hibernate.query.NativeQuery;
 import org.hibernate.transform.DistinctRootEntityResultTransformer;
@@ -47,6 +46,7 @@ import org.hibernate.type.PostgresUUIDType;
 import org.openlmis.referencedata.domain.Code;
 import org.openlmis.referencedata.domain.FacilityType;
 import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
+import org.openlmis.referencedata.domain.LatestFacilityTypeApprovedProductVersion;
 import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.VersionIdentity;
 import org.openlmis.referencedata.exception.ValidationMessageException;
@@ -84,8 +84,11 @@ public class FacilityTypeApprovedProductRepositoryImpl
   private static final String NATIVE_PROGRAM_INNER_JOIN =
       " INNER JOIN referencedata.programs AS p ON p.id = ftap.programId";
   private static final String NATIVE_ORDERABLE_INNER_JOIN_TEMPLATE =
-      " INNER JOIN (SELECT id, MAX(versionNumber) AS versionNumber"
-          + "   FROM referencedata.orderables o WHERE (%s) GROUP BY id) AS o"
+      " INNER JOIN (SELECT o.id, o.versionNumber"
+          + "   FROM referencedata.orderables o"
+          + "   INNER JOIN referencedata.latest_orderable_versions AS latest"
+          + "   ON o.id = latest.id AND o.versionNumber = latest.versionNumber"
+          + "   WHERE (%s)) AS o"
           + "   ON o.id = ftap.orderableId";
   private static final String NATIVE_PROGRAM_ORDERABLE_INNER_JOIN =
       " INNER JOIN referencedata.program_orderables AS po"
@@ -96,8 +99,7 @@ public class FacilityTypeApprovedProductRepositoryImpl
   private static final String NATIVE_FACILITY_TYPE_INNER_JOIN =
       " INNER JOIN referencedata.facility_types AS ft ON ft.id = ftap.facilityTypeId";
   private static final String NATIVE_LATEST_FTAPS_INNER_JOIN =
-      " INNER JOIN (SELECT id, MAX(versionNumber) AS versionNumber"
-          + "   FROM referencedata.facility_type_approved_products GROUP BY id) AS latest"
+      " INNER JOIN referencedata.latest_facility_type_approved_product_versions AS latest"
           + "   ON ftap.id = latest.id AND ftap.versionNumber = latest.versionNumber";
   private static final String NATIVE_FTAP_ACTIVE_FLAG = " ftap.active = :active";
 
@@ -153,10 +155,7 @@ public class FacilityTypeApprovedProductRepositoryImpl
     List<VersionIdentity> identities = executeNativeQuery(nativeQuery);
 
     profiler.start("RETRIEVE_FTAPS");
-    List<FacilityTypeApprovedProduct> ftaps = new ArrayList<>();
-    for (List<VersionIdentity> partition : ListUtils.partition(identities, MAX_IDENTITIES_SIZE)) {
-      ftaps.addAll(retrieveFtaps(partition));
-    }
+    List<FacilityTypeApprovedProduct> ftaps = retrieveFtaps(identities);
 
     profiler.stop().log();
     return Pagination.getPage(ftaps, pageable, total);
@@ -184,10 +183,7 @@ public class FacilityTypeApprovedProductRepositoryImpl
     List<VersionIdentity> identities = getIdentities(searchParams, identityList, builder, pageable);
 
     profiler.start("RETRIEVE_FTAPS");
-    List<FacilityTypeApprovedProduct> ftaps = new ArrayList<>();
-    for (List<VersionIdentity> partition : ListUtils.partition(identities, MAX_IDENTITIES_SIZE)) {
-      ftaps.addAll(retrieveFtaps(partition));
-    }
+    List<FacilityTypeApprovedProduct> ftaps = retrieveFtaps(identities);
 
     profiler.stop().log();
     return Pagination.getPage(ftaps, pageable, total);
@@ -251,13 +247,10 @@ public class FacilityTypeApprovedProductRepositoryImpl
     }
 
     if (!isEmpty(identities)) {
-      predicate = builder.and(predicate, builder.in(root.get(IDENTITY)).value(identities));
+      predicate = builder.and(predicate,
+          isVersionIdentityIn(root.get(IDENTITY), identities, builder));
     } else {
-      Subquery<String> latestFtapQuery = createFtapSubQuery(newQuery, builder);
-      predicate = builder.and(predicate, builder.in(builder.concat(
-          root.get(IDENTITY).get(ID).as(String.class),
-          root.get(IDENTITY).get(VERSION_NUMBER).as(String.class)))
-          .value(latestFtapQuery));
+      predicate = builder.and(predicate, isLatestVersion(root, newQuery, builder));
     }
 
     Boolean isActive = searchParams.getActive();
@@ -305,14 +298,15 @@ public class FacilityTypeApprovedProductRepositoryImpl
       params.put("orderableIds", orderableIds);
     }
 
+    // LOWER(...) LIKE instead of ILIKE, so the orderable trigram indexes can be used
     if (isNotBlank(orderableCode)) {
-      orderablesCondition += " AND o.code ILIKE :orderableCode";
-      params.put("orderableCode", '%' + orderableCode + '%');
+      orderablesCondition += " AND LOWER(o.code) LIKE :orderableCode";
+      params.put("orderableCode", '%' + orderableCode.toLowerCase() + '%');
     }
 
     if (isNotBlank(orderableName)) {
-      orderablesCondition += " AND o.fullproductname ILIKE :orderableName";
-      params.put("orderableName", '%' + orderableName + '%');
+      orderablesCondition += " AND LOWER(o.fullproductname) LIKE :orderableName";
+      params.put("orderableName", '%' + orderableName.toLowerCase() + '%');
     }
 
     builder.append(String.format(NATIVE_ORDERABLE_INNER_JOIN_TEMPLATE, orderablesCondition))
@@ -383,19 +377,21 @@ public class FacilityTypeApprovedProductRepositoryImpl
         .collect(Collectors.toList());
   }
 
-  private Subquery<String> createFtapSubQuery(CriteriaQuery query, CriteriaBuilder builder) {
-    Subquery<String> latestFtapsQuery = query.subquery(String.class);
-    Root<FacilityTypeApprovedProduct> latestFtapsRoot =
-        latestFtapsQuery.from(FacilityTypeApprovedProduct.class);
+  private Predicate isLatestVersion(Root<FacilityTypeApprovedProduct> root,
+      CriteriaQuery query, CriteriaBuilder builder) {
+    Subquery<UUID> latestFtapsQuery = query.subquery(UUID.class);
+    Root<LatestFacilityTypeApprovedProductVersion> latestFtapsRoot =
+        latestFtapsQuery.from(LatestFacilityTypeApprovedProductVersion.class);
     latestFtapsRoot.alias("latestFtap");
 
-    latestFtapsQuery.select(
-        builder.concat(
-            latestFtapsRoot.get(IDENTITY).get(ID).as(String.class),
-            builder.max(latestFtapsRoot.get(IDENTITY).get(VERSION_NUMBER)).as(String.class)));
-    latestFtapsQuery.groupBy(latestFtapsRoot.get(IDENTITY).get(ID));
+    latestFtapsQuery
+        .select(latestFtapsRoot.get(ID))
+        .where(
+            builder.equal(latestFtapsRoot.get(ID), root.get(IDENTITY).get(ID)),
+            builder.equal(latestFtapsRoot.get(VERSION_NUMBER),
+                root.get(IDENTITY).get(VERSION_NUMBER)));
 
-    return latestFtapsQuery;
+    return builder.exists(latestFtapsQuery);
   }
 
   // appropriate class has been passed in the EntityManager.createNativeQuery method
@@ -405,7 +401,8 @@ public class FacilityTypeApprovedProductRepositoryImpl
     CriteriaQuery<FacilityTypeApprovedProduct> criteriaQuery =
         criteriaBuilder.createQuery(FacilityTypeApprovedProduct.class);
     Root<FacilityTypeApprovedProduct> root = criteriaQuery.from(FacilityTypeApprovedProduct.class);
-    criteriaQuery.select(root).where(root.get(IDENTITY).in(identities));
+    criteriaQuery.select(root)
+        .where(isVersionIdentityIn(root.get(IDENTITY), identities, criteriaBuilder));
 
     return entityManager
         .createQuery(criteriaQuery)
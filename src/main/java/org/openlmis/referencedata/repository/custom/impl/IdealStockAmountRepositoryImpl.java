@@ -20,38 +20,85 @@ import static org.springframework.util.CollectionUtils.isEmpty;
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import java.sql.Types;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 import org.apache.commons.lang3.tuple.Pair;
 import org.hibernate.SQLQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.type.IntegerType;
 import org.hibernate.type.LongType;
 import org.hibernate.type.PostgresUUIDType;
+import org.hibernate.type.StringType;
 import org.openlmis.referencedata.domain.CommodityType;
 import org.openlmis.referencedata.domain.Facility;
 import org.openlmis.referencedata.domain.IdealStockAmount;
 import org.openlmis.referencedata.domain.ProcessingPeriod;
+import org.openlmis.referencedata.dto.BasicFacilityDto;
+import org.openlmis.referencedata.dto.CommodityTypeDto;
+import org.openlmis.referencedata.dto.IdealStockAmountCsvModel;
+import org.openlmis.referencedata.dto.IsaProcessingPeriodDto;
+import org.openlmis.referencedata.dto.ProcessingPeriodDto;
+import org.openlmis.referencedata.dto.ProcessingScheduleDto;
 import org.openlmis.referencedata.repository.custom.IdealStockAmountRepositoryCustom;
 import org.openlmis.referencedata.util.Pagination;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+@SuppressWarnings("PMD.TooManyMethods")
 public class IdealStockAmountRepositoryImpl implements IdealStockAmountRepositoryCustom {
 
-  private static final String ID_SEARCH_SQL = "SELECT"
-      + " isa.id AS isa_id "
-      + " FROM referencedata.ideal_stock_amounts isa"
+  private static final String FROM_WITH_DIMENSIONS = " FROM referencedata.ideal_stock_amounts isa"
       + " INNER JOIN referencedata.facilities f ON isa.facilityid = f.id"
       + " INNER JOIN referencedata.commodity_types c ON isa.commoditytypeid = c.id"
       + " INNER JOIN referencedata.processing_periods p ON isa.processingperiodid = p.id"
       + " INNER JOIN referencedata.processing_schedules s ON p.processingscheduleid = s.id";
 
+  private static final String ID_SEARCH_SQL = "SELECT DISTINCT"
+      + " isa.id AS isa_id "
+      + FROM_WITH_DIMENSIONS;
+
+  private static final String CSV_EXPORT_SQL = "SELECT"
+      + " f.code AS facility_code,"
+      + " c.classificationsystem AS classification_system,"
+      + " c.classificationid AS classification_id,"
+      + " s.code AS schedule_code,"
+      + " p.name AS period_name,"
+      + " isa.amount AS isa_amount"
+      + FROM_WITH_DIMENSIONS;
+
+  // natural keys are passed as parallel arrays, so the statement is the same for any chunk size
+  private static final String WITH_NATURAL_KEYS =
+      " INNER JOIN unnest("
+      + "CAST(:facilityCodes AS text[]),"
+      + " CAST(:classificationIds AS text[]),"
+      + " CAST(:classificationSystems AS text[]),"
+      + " CAST(:periodNames AS text[]),"
+      + " CAST(:scheduleCodes AS text[]))"
+      + " AS k(facilitycode, classificationid, classificationsystem, periodname, schedulecode)"
+      + " ON f.code = k.facilitycode"
+      + " AND c.classificationid = k.classificationid"
+      + " AND c.classificationsystem = k.classificationsystem"
+      + " AND p.name = k.periodname"
+      + " AND s.code = k.schedulecode";
+
+  private static final String UPSERT_SQL = "INSERT INTO referencedata.ideal_stock_amounts"
+      + " (id, facilityid, commoditytypeid, processingperiodid, amount)"
+      + " VALUES (?, ?, ?, ?, ?)"
+      + " ON CONFLICT (facilityid, commoditytypeid, processingperiodid)"
+      + " DO UPDATE SET amount = EXCLUDED.amount";
+
   private static final String MINIMAL_SEARCH_SQL = "SELECT"
       + " id AS isa_id,"
       + " amount as isa_amount,"
@@ -76,10 +123,20 @@ public class IdealStockAmountRepositoryImpl implements IdealStockAmountRepositor
   private static final int FACILITY_ID = 2;
   private static final int COMMODITY_ID = 3;
   private static final int PERIOD_ID = 4;
+  private static final int CSV_FACILITY_CODE = 0;
+  private static final int CSV_CLASSIFICATION_SYSTEM = 1;
+  private static final int CSV_CLASSIFICATION_ID = 2;
+  private static final int CSV_SCHEDULE_CODE = 3;
+  private static final int CSV_PERIOD_NAME = 4;
+  private static final int CSV_AMOUNT = 5;
+  private static final int EXPORT_FETCH_SIZE = 1000;
 
   @PersistenceContext
   private EntityManager entityManager;
 
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
   /**
    * This method is supposed to retrieve all IdealStockAmount IDs based on the passed ISA objects.
    * It uses the facility, commodity type and processing period data to find correct database
@@ -134,6 +191,74 @@ public class IdealStockAmountRepositoryImpl implements IdealStockAmountRepositor
     return Pagination.getPage(result, pageable, count.get(0));
   }
 
+  /**
+   * Inserts the given Ideal Stock Amounts in a single batch. If an Ideal Stock Amount for the same
+   * facility, commodity type and processing period already exists, its amount is updated instead.
+   * Entities are written directly, so they are not managed by the persistence context afterwards.
+   *
+   * @param idealStockAmounts ideal stock amounts with facility, commodity type and period ids
+   */
+  @Override
+  public void upsert(List<IdealStockAmount> idealStockAmounts) {
+    jdbcTemplate.batchUpdate(UPSERT_SQL, idealStockAmounts, idealStockAmounts.size(),
+        (ps, isa) -> {
+          ps.setObject(1, null == isa.getId() ? UUID.randomUUID() : isa.getId());
+          ps.setObject(2, isa.getFacility().getId());
+          ps.setObject(3, isa.getCommodityType().getId());
+          ps.setObject(4, isa.getProcessingPeriod().getId());
+          ps.setObject(5, isa.getAmount(), Types.INTEGER);
+        });
+  }
+
+  /**
+   * Passes every Ideal Stock Amount, as a row of the CSV file, to the given consumer. Rows are
+   * read through a database cursor with only the columns of the file, so the memory used does not
+   * depend on the number of Ideal Stock Amounts. Requires an active transaction.
+   *
+   * @param consumer consumer of rows
+   */
+  @Override
+  public void exportToCsv(Consumer<IdealStockAmountCsvModel> consumer) {
+    ScrollableResults results = entityManager
+        .createNativeQuery(CSV_EXPORT_SQL)
+        .unwrap(SQLQuery.class)
+        .addScalar("facility_code", StringType.INSTANCE)
+        .addScalar("classification_system", StringType.INSTANCE)
+        .addScalar("classification_id", StringType.INSTANCE)
+        .addScalar("schedule_code", StringType.INSTANCE)
+        .addScalar("period_name", StringType.INSTANCE)
+        .addScalar("isa_amount", IntegerType.INSTANCE)
+        .setFetchSize(EXPORT_FETCH_SIZE)
+        .setReadOnly(true)
+        .scroll(ScrollMode.FORWARD_ONLY);
+
+    try {
+      while (results.next()) {
+        consumer.accept(toCsvModel(results.get()));
+      }
+    } finally {
+      results.close();
+    }
+  }
+
+  private IdealStockAmountCsvModel toCsvModel(Object[] values) {
+    BasicFacilityDto facility = new BasicFacilityDto();
+    facility.setCode((String) values[CSV_FACILITY_CODE]);
+
+    CommodityTypeDto commodityType = new CommodityTypeDto();
+    commodityType.setClassificationSystem((String) values[CSV_CLASSIFICATION_SYSTEM]);
+    commodityType.setClassificationId((String) values[CSV_CLASSIFICATION_ID]);
+
+    ProcessingScheduleDto schedule = new ProcessingScheduleDto();
+    schedule.setCode((String) values[CSV_SCHEDULE_CODE]);
+    ProcessingPeriodDto period = new IsaProcessingPeriodDto();
+    period.setName((String) values[CSV_PERIOD_NAME]);
+    period.setProcessingSchedule(schedule);
+
+    return new IdealStockAmountCsvModel(facility, commodityType, period,
+        (Integer) values[CSV_AMOUNT]);
+  }
+
   private IdealStockAmount toMinimalIsa(Object[] values) {
     Facility facility = new Facility((UUID) values[FACILITY_ID]);
 
@@ -171,33 +296,21 @@ public class IdealStockAmountRepositoryImpl implements IdealStockAmountRepositor
   }
 
   private Query createQuery(List<IdealStockAmount> idealStockAmounts) {
-    StringBuilder builder = new StringBuilder(ID_SEARCH_SQL);
-
-    if (!isEmpty(idealStockAmounts)) {
-      builder.append(" WHERE");
-
-      for (int i = 0, size = idealStockAmounts.size(); i < size; ++i) {
-        IdealStockAmount isa = idealStockAmounts.get(i);
-        builder
-            .append(" (f.code = '")
-            .append(isa.getFacility().getCode())
-            .append("' AND c.classificationid = '")
-            .append(isa.getCommodityType().getClassificationId())
-            .append("' AND c.classificationsystem = '")
-            .append(isa.getCommodityType().getClassificationSystem())
-            .append("' AND p.name = '")
-            .append(isa.getProcessingPeriod().getName())
-            .append("' AND s.code = '")
-            .append(isa.getProcessingPeriod().getProcessingSchedule().getCode())
-            .append("')");
-
-        if (i + 1 < size) {
-          builder.append(" OR");
-        }
-      }
+    if (isEmpty(idealStockAmounts)) {
+      return entityManager.createNativeQuery(ID_SEARCH_SQL);
     }
 
-    return entityManager.createNativeQuery(builder.toString());
+    return entityManager.createNativeQuery(ID_SEARCH_SQL + WITH_NATURAL_KEYS)
+        .setParameter("facilityCodes", toArray(idealStockAmounts,
+            isa -> isa.getFacility().getCode()))
+        .setParameter("classificationIds", toArray(idealStockAmounts,
+            isa -> isa.getCommodityType().getClassificationId()))
+        .setParameter("classificationSystems", toArray(idealStockAmounts,
+            isa -> isa.getCommodityType().getClassificationSystem()))
+        .setParameter("periodNames", toArray(idealStockAmounts,
+            isa -> isa.getProcessingPeriod().getName()))
+        .setParameter("scheduleCodes", toArray(idealStockAmounts,
+            isa -> isa.getProcessingPeriod().getProcessingSchedule().getCode().toString()));
   }
 
   private Query createQuery(String searchSql, UUID facilityId,
@@ -232,4 +345,16 @@ public class IdealStockAmountRepositoryImpl implements IdealStockAmountRepositor
     params.forEach(nativeQuery::setParameter);
     return nativeQuery;
   }
+
+  // builds a Postgres array literal, so the whole list is bound as a single parameter
+  private static String toArray(List<IdealStockAmount> idealStockAmounts,
+      Function<IdealStockAmount, String> value) {
+    return idealStockAmounts
+        .stream()
+        .map(value)
+        .map(item -> null == item
+            ? "NULL"
+            : '"' + item.replace("\\", "\\\\").replace("\"", "\\\"") + '"')
+        .collect(Collectors.joining(",", "{", "}"));
+  }
 }
@@ -15,7 +15,9 @@
 
 package org.openlmis.referencedata.repository.custom.impl;
 
+import static java.util.stream.Collectors.joining;
 import static org.apache.commons.collections4.CollectionUtils.isEmpty;
+import static org.openlmis.referencedata.util.CustomSqlFunctionsContributor.VERSION_IDENTITY_IN;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -27,51 +29,57 @@ import java.util.stream.Collectors;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
-import org.apache.commons.collections4.ListUtils;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
 import org.apache.commons.lang3.tuple.Pair;
 import org.openlmis.referencedata.domain.VersionIdentity;
 import org.springframework.data.domain.Pageable;
 
 abstract class IdentitiesSearchableRepository<T> {
 
-  static final Integer MAX_IDENTITIES_SIZE = 500;
+  private static final String ID = "id";
+  private static final String VERSION_NUMBER = "versionNumber";
 
   abstract <E> TypedQuery<E> prepareQuery(T searchParams, CriteriaQuery<E> query,
       boolean count, Collection<VersionIdentity> identities, Pageable pageable);
 
   Long getTotal(T searchParams, Set<Pair<UUID, Long>> identityPairs,
       List<VersionIdentity> identityList, CriteriaBuilder builder, Pageable pageable) {
-    Long total = 0L;
     if (!isEmpty(identityPairs)) {
       identityList.addAll(convertPairToVersionIdentity(identityPairs));
-      for (List<VersionIdentity> part : ListUtils.partition(identityList, MAX_IDENTITIES_SIZE)) {
-        CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
-        total += prepareQuery(searchParams, countQuery, true, part, pageable)
-            .getSingleResult();
-      }
-    } else {
-      CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
-      total += prepareQuery(searchParams, countQuery, true, identityList, pageable)
-          .getSingleResult();
     }
-    return total;
+
+    CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
+    return prepareQuery(searchParams, countQuery, true, identityList, pageable)
+        .getSingleResult();
   }
 
   List<VersionIdentity> getIdentities(T searchParams, List<VersionIdentity> identityList,
       CriteriaBuilder builder, Pageable pageable) {
-    List<VersionIdentity> identities = new ArrayList<>();
-    if (!isEmpty(identityList)) {
-      for (List<VersionIdentity> part : ListUtils.partition(identityList, MAX_IDENTITIES_SIZE)) {
-        CriteriaQuery<VersionIdentity> query = builder.createQuery(VersionIdentity.class);
-        identities.addAll(prepareQuery(searchParams, query, false, part, pageable)
-            .getResultList());
-      }
-    } else {
-      CriteriaQuery<VersionIdentity> query = builder.createQuery(VersionIdentity.class);
-      identities.addAll(prepareQuery(searchParams, query, false, identityList, pageable)
-          .getResultList());
-    }
-    return identities;
+    CriteriaQuery<VersionIdentity> query = builder.createQuery(VersionIdentity.class);
+    return new ArrayList<>(prepareQuery(searchParams, query, false, identityList, pageable)
+        .getResultList());
+  }
+
+  /**
+   * Creates a predicate that matches entities with one of the given version identities. The
+   * identities are bound as two array parameters, so the size of the generated query does not
+   * depend on how many identities were passed.
+   */
+  Predicate isVersionIdentityIn(Path<VersionIdentity> identity,
+      Collection<VersionIdentity> identities, CriteriaBuilder builder) {
+    String ids = identities
+        .stream()
+        .map(item -> item.getId().toString())
+        .collect(joining(",", "{", "}"));
+    String versionNumbers = identities
+        .stream()
+        .map(item -> item.getVersionNumber().toString())
+        .collect(joining(",", "{", "}"));
+
+    return builder.isTrue(builder.function(VERSION_IDENTITY_IN, Boolean.class,
+        identity.get(ID), identity.get(VERSION_NUMBER),
+        builder.literal(ids), builder.literal(versionNumbers)));
   }
 
   private List<VersionIdentity> convertPairToVersionIdentity(Set<Pair<UUID, Long>> identityPairs) {
@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -41,11 +42,13 @@ import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Subquery;
-import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.collections4.SetUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.jpa.QueryHints;
 import org.hibernate.transform.DistinctRootEntityResultTransformer;
+import org.openlmis.referencedata.domain.LatestOrderableVersion;
 import org.openlmis.referencedata.domain.Orderable;
 import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.ProgramOrderable;
@@ -83,8 +86,7 @@ public class OrderableRepositoryImpl extends IdentitiesSearchableRepository<Sear
       " INNER" + NATIVE_PROGRAM_JOIN;
 
   private static final String NATIVE_LATEST_ORDERABLE_INNER_JOIN =
-      " INNER JOIN (SELECT id, MAX (versionNumber) AS versionNumber"
-          + "  FROM referencedata.orderables GROUP BY id) AS latest"
+      " INNER JOIN referencedata.latest_orderable_versions AS latest"
           + "  ON o.id = latest.id AND o.versionNumber = latest.versionNumber";
 
   private static final String NATIVE_SELECT_LAST_UPDATED = "SELECT o.lastupdated "
@@ -132,16 +134,7 @@ public class OrderableRepositoryImpl extends IdentitiesSearchableRepository<Sear
     profiler.start("CALCULATE_FULL_LIST_SIZE");
     CriteriaBuilder builder = entityManager.getCriteriaBuilder();
     List<VersionIdentity> identityList = new ArrayList<>();
-    Set<Pair<UUID, Long>> identityPairs = searchParams.getIdentityPairs();
-
-    Set<UUID> tradeItemId = searchParams.getTradeItemId();
-    if (!tradeItemId.isEmpty()) {
-      Set<Pair<UUID, Long>> identitiesByTradeItemId = getIdentitiesByTradeItemId(tradeItemId);
-
-      identityPairs = identityPairs.isEmpty()
-          ? identitiesByTradeItemId
-          : SetUtils.intersection(identitiesByTradeItemId, identityPairs).toSet();
-    }
+    Set<Pair<UUID, Long>> identityPairs = getIdentityPairs(searchParams);
 
     Long total = getTotal(searchParams, identityPairs, identityList, builder, pageable);
 
@@ -154,15 +147,76 @@ public class OrderableRepositoryImpl extends IdentitiesSearchableRepository<Sear
     List<VersionIdentity> identities = getIdentities(searchParams, identityList, builder, pageable);
 
     profiler.start("RETRIEVE_ORDERABLES");
-    List<Orderable> orderables = new ArrayList<>();
-    for (List<VersionIdentity> partition : ListUtils.partition(identities, MAX_IDENTITIES_SIZE)) {
-      orderables.addAll(retrieveOrderables(partition));
-    }
+    List<Orderable> orderables = retrieveOrderables(identities);
 
     profiler.stop().log();
     return Pagination.getPage(orderables, pageable, total);
   }
 
+  /**
+   * Passes all latest orderables matching the parameters to the given consumer, in batches of the
+   * given size ordered by the full product name. Version identities are read through a forward-only
+   * cursor and the persistence context is cleared after every batch, so the memory used does not
+   * depend on how many orderables match. Must be called within a transaction.
+   */
+  @Override
+  public void forEachLatestBatch(SearchParams searchParams, Set<UUID> ids, int batchSize,
+      Consumer<List<Orderable>> batchConsumer) {
+    Profiler profiler = new Profiler("ORDERABLE_REPOSITORY_FOR_EACH_LATEST_BATCH");
+    profiler.setLogger(XLOGGER);
+
+    profiler.start("OPEN_VERSION_IDENTITY_CURSOR");
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<VersionIdentity> query = builder.createQuery(VersionIdentity.class);
+    Root<Orderable> root = query.from(Orderable.class);
+    root.alias(ORDERABLE);
+
+    List<VersionIdentity> identities = getIdentityPairs(searchParams)
+        .stream()
+        .map(pair -> new VersionIdentity(pair.getLeft(), pair.getRight()))
+        .collect(Collectors.toList());
+    Predicate where = prepareParams(root, query, searchParams, identities);
+
+    if (!isEmpty(ids)) {
+      where = builder.and(where, root.get(IDENTITY).get(ID).in(ids));
+    }
+
+    query.select(root.get(IDENTITY))
+        .where(where)
+        .groupBy(
+            root.get(IDENTITY).get(ID),
+            root.get(IDENTITY).get(VERSION_NUMBER),
+            root.get(FULL_PRODUCT_NAME))
+        .orderBy(builder.asc(root.get(FULL_PRODUCT_NAME)));
+
+    ScrollableResults results = entityManager
+        .createQuery(query)
+        .unwrap(org.hibernate.query.Query.class)
+        .setFetchSize(batchSize)
+        .setReadOnly(true)
+        .scroll(ScrollMode.FORWARD_ONLY);
+
+    try {
+      profiler.start("RETRIEVE_ORDERABLES_IN_BATCHES");
+      List<VersionIdentity> batch = new ArrayList<>(batchSize);
+
+      while (results.next()) {
+        batch.add((VersionIdentity) results.get(0));
+
+        if (batch.size() == batchSize) {
+          acceptBatch(batch, batchConsumer);
+        }
+      }
+
+      if (!batch.isEmpty()) {
+        acceptBatch(batch, batchConsumer);
+      }
+    } finally {
+      results.close();
+      profiler.stop().log();
+    }
+  }
+
   /**
    * This method is supposed to get the latest last update date from the retrieved orderables
    * based on params passed to the request.
@@ -241,13 +295,9 @@ public class OrderableRepositoryImpl extends IdentitiesSearchableRepository<Sear
       }
 
       if (isEmpty(identities)) {
-        Subquery<String> latestOrderablesQuery = createSubQuery(query, builder);
-        where = builder.and(where, builder.in(builder.concat(
-            root.get(IDENTITY).get(ID).as(String.class),
-            root.get(IDENTITY).get(VERSION_NUMBER)).as(String.class))
-            .value(latestOrderablesQuery));
+        where = builder.and(where, isLatestVersion(root, query, builder));
       } else {
-        where = builder.and(where, builder.in(root.get(IDENTITY)).value(identities));
+        where = builder.and(where, isVersionIdentityIn(root.get(IDENTITY), identities, builder));
       }
 
       if (isNotBlank(searchParams.getCode())) {
@@ -260,28 +310,48 @@ public class OrderableRepositoryImpl extends IdentitiesSearchableRepository<Sear
             "%" + searchParams.getName().toLowerCase() + "%"));
       }
     } else {
-      Subquery<String> latestOrderablesQuery = createSubQuery(query, builder);
-      where = builder.and(where, builder.in(builder.concat(
-          root.get(IDENTITY).get(ID).as(String.class),
-          root.get(IDENTITY).get(VERSION_NUMBER)).as(String.class))
-          .value(latestOrderablesQuery));
+      where = builder.and(where, isLatestVersion(root, query, builder));
     }
 
     return where;
   }
 
-  private Subquery<String> createSubQuery(CriteriaQuery query, CriteriaBuilder builder) {
-    Subquery<String> latestOrderablesQuery = query.subquery(String.class);
-    Root<Orderable> latestOrderablesRoot = latestOrderablesQuery.from(Orderable.class);
+  private Predicate isLatestVersion(Root<Orderable> root, CriteriaQuery query,
+      CriteriaBuilder builder) {
+    Subquery<UUID> latestOrderablesQuery = query.subquery(UUID.class);
+    Root<LatestOrderableVersion> latestOrderablesRoot =
+        latestOrderablesQuery.from(LatestOrderableVersion.class);
     latestOrderablesRoot.alias(LATEST_ORDERABLE_ALIAS);
 
-    latestOrderablesQuery.select(
-        builder.concat(
-            latestOrderablesRoot.get(IDENTITY).get(ID).as(String.class),
-            builder.max(latestOrderablesRoot.get(IDENTITY).get(VERSION_NUMBER)).as(String.class)));
-    latestOrderablesQuery.groupBy(latestOrderablesRoot.get(IDENTITY).get(ID));
+    latestOrderablesQuery
+        .select(latestOrderablesRoot.get(ID))
+        .where(
+            builder.equal(latestOrderablesRoot.get(ID), root.get(IDENTITY).get(ID)),
+            builder.equal(latestOrderablesRoot.get(VERSION_NUMBER),
+                root.get(IDENTITY).get(VERSION_NUMBER)));
+
+    return builder.exists(latestOrderablesQuery);
+  }
+
+  private Set<Pair<UUID, Long>> getIdentityPairs(SearchParams searchParams) {
+    Set<Pair<UUID, Long>> identityPairs = searchParams.getIdentityPairs();
+
+    Set<UUID> tradeItemId = searchParams.getTradeItemId();
+    if (!tradeItemId.isEmpty()) {
+      Set<Pair<UUID, Long>> identitiesByTradeItemId = getIdentitiesByTradeItemId(tradeItemId);
+
+      identityPairs = identityPairs.isEmpty()
+          ? identitiesByTradeItemId
+          : SetUtils.intersection(identitiesByTradeItemId, identityPairs).toSet();
+    }
+
+    return identityPairs;
+  }
 
-    return latestOrderablesQuery;
+  private void acceptBatch(List<VersionIdentity> batch, Consumer<List<Orderable>> batchConsumer) {
+    batchConsumer.accept(retrieveOrderables(batch));
+    batch.clear();
+    entityManager.clear();
   }
 
   private Query getLastUpdatedQuery(SearchParams searchParams, boolean count) {
@@ -327,7 +397,8 @@ public class OrderableRepositoryImpl extends IdentitiesSearchableRepository<Sear
     CriteriaQuery<Orderable> criteriaQuery =
         criteriaBuilder.createQuery(Orderable.class);
     Root<Orderable> root = criteriaQuery.from(Orderable.class);
-    criteriaQuery.select(root).where(root.get(IDENTITY).in(identities));
+    criteriaQuery.select(root)
+        .where(isVersionIdentityIn(root.get(IDENTITY), identities, criteriaBuilder));
 
     return retrieveOrderables(criteriaQuery);
   }
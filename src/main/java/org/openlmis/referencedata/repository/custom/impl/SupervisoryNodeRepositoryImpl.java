@@ -17,11 +17,13 @@ package org.openlmis.referencedata.repository.custom.impl;
 
 import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Join;
@@ -30,6 +32,8 @@ import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.validation.constraints.NotNull;
 import org.apache.commons.lang3.tuple.Pair;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.PostgresUUIDType;
 import org.openlmis.referencedata.domain.Facility;
 import org.openlmis.referencedata.domain.GeographicZone;
 import org.openlmis.referencedata.domain.Program;
@@ -55,6 +59,30 @@ public class SupervisoryNodeRepositoryImpl implements SupervisoryNodeRepositoryC
   private static final String REQUISITION_GROUP_PROGRAM_SCHEDULE =
       "requisitionGroupProgramSchedules";
 
+  private static final String SUPERVISORY_NODE_ID = "supervisoryNodeId";
+  private static final String PROGRAM_ID = "programId";
+
+  private static final String SELECT_SUPERVISED_FACILITY_IDS = "WITH RECURSIVE"
+      + " supervised_nodes(id) AS ("
+      + " SELECT sn.id FROM referencedata.supervisory_nodes AS sn"
+      + " WHERE sn.id = :" + SUPERVISORY_NODE_ID
+      + " UNION"
+      + " SELECT child.id FROM referencedata.supervisory_nodes AS child"
+      + " INNER JOIN supervised_nodes AS parent ON child.parentid = parent.id)"
+      + " SELECT DISTINCT rgm.facilityid AS id"
+      + " FROM supervised_nodes AS n"
+      + " INNER JOIN referencedata.requisition_groups AS rg ON rg.supervisorynodeid = n.id"
+      + " INNER JOIN referencedata.requisition_group_members AS rgm"
+      + " ON rgm.requisitiongroupid = rg.id";
+
+  private static final String WITH_PROGRAM = " WHERE EXISTS ("
+      + " SELECT 1 FROM referencedata.requisition_group_program_schedules AS rgps"
+      + " WHERE rgps.requisitiongroupid = rg.id AND rgps.programid = :" + PROGRAM_ID + ")"
+      + " AND EXISTS ("
+      + " SELECT 1 FROM referencedata.supported_programs AS sp"
+      + " WHERE sp.facilityid = rgm.facilityid AND sp.programid = :" + PROGRAM_ID
+      + " AND sp.active = TRUE)";
+
   @PersistenceContext
   private EntityManager entityManager;
 
@@ -86,6 +114,38 @@ public class SupervisoryNodeRepositoryImpl implements SupervisoryNodeRepositoryC
     return Pagination.getPage(supervisoryNodes, pageable, count);
   }
 
+  /**
+   * Retrieves IDs of all facilities supervised by the given supervisory node and all its
+   * recursive child nodes. Child nodes are resolved by a single recursive query instead of
+   * loading the node hierarchy.
+   *
+   * @param supervisoryNodeId ID of the supervisory node.
+   * @param programId ID of the program that has to be supported by requisition groups and
+   *                  member facilities, can be null.
+   * @return IDs of supervised facilities.
+   */
+  public Set<UUID> findSupervisedFacilityIds(UUID supervisoryNodeId, UUID programId) {
+    String sql = null == programId
+        ? SELECT_SUPERVISED_FACILITY_IDS
+        : SELECT_SUPERVISED_FACILITY_IDS + WITH_PROGRAM;
+
+    Query query = entityManager
+        .createNativeQuery(sql)
+        .setParameter(SUPERVISORY_NODE_ID, supervisoryNodeId);
+
+    if (null != programId) {
+      query.setParameter(PROGRAM_ID, programId);
+    }
+
+    query.unwrap(NativeQuery.class).addScalar(ID, PostgresUUIDType.INSTANCE);
+
+    // appropriate scalar is added to native query
+    @SuppressWarnings("unchecked")
+    List<UUID> ids = query.getResultList();
+
+    return new HashSet<>(ids);
+  }
+
   private <T> CriteriaQuery<T> prepareQuery(CriteriaQuery<T> query,
       SupervisoryNodeSearchParams searchParams, boolean count, CriteriaBuilder builder) {
     Root<SupervisoryNode> root = query.from(SupervisoryNode.class);
@@ -37,8 +37,10 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
@@ -47,6 +49,7 @@ import java.util.stream.StreamSupport;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 import org.openlmis.referencedata.domain.SupplyLine;
 import org.openlmis.referencedata.repository.custom.SupplyLineRepositoryCustom;
 import org.openlmis.referencedata.util.Pagination;
@@ -65,6 +68,7 @@ public class SupplyLineRepositoryImpl implements SupplyLineRepositoryCustom {
   private static final String PROGRAM_ID = "programId";
   private static final String SUPERVISORY_NODE = "supervisoryNode";
   private static final String SUPERVISORY_NODE_ID = SUPERVISORY_NODE + "Id";
+  private static final String SUPPLY_LINE_IDS = "supplyLineIds";
   private static final String MEMBER_FACILITIES = "memberFacilities";
   private static final String REQUISITION_GROUP = "requisitionGroup";
 
@@ -82,6 +86,8 @@ public class SupplyLineRepositoryImpl implements SupplyLineRepositoryCustom {
   private static final String FROM_SL = join(FROM, "SupplyLine", AS, SUPPLY_LINE_ALIAS);
   private static final String SELECT_SL = join(SELECT, SUPPLY_LINE_ALIAS, FROM_SL,
       SUPERVISORY_NODE_JOIN, REQUISITION_GROUP_JOIN, REQUISITION_GROUP_MEMBERS_JOIN);
+  private static final String SELECT_SL_IDS = join(SELECT, getField(SUPPLY_LINE_ALIAS, ID),
+      FROM_SL);
   private static final String COUNT_SL = join(SELECT_DISTINCT_COUNT, FROM_SL);
 
   private static final String WITH_PROGRAM_ID =
@@ -90,6 +96,8 @@ public class SupplyLineRepositoryImpl implements SupplyLineRepositoryCustom {
       isEqual(getField(SUPPLY_LINE_ALIAS, SUPERVISORY_NODE, ID), asParameter(SUPERVISORY_NODE_ID));
   private static final String WITH_SUPPLYING_FACILITIES =
       join(getField(SUPPLY_LINE_ALIAS, SUPPLYING_FACILITY, ID), in(SUPPLYING_FACILITY_IDS));
+  private static final String WITH_IDS =
+      join(getField(SUPPLY_LINE_ALIAS, ID), in(SUPPLY_LINE_IDS));
 
   @PersistenceContext
   private EntityManager entityManager;
@@ -98,7 +106,9 @@ public class SupplyLineRepositoryImpl implements SupplyLineRepositoryCustom {
    * Method returns a page of supply lines matching parameters.
    * Result can be sorted by supplying facility name if
    * "supplyingFacilityName" asParameter is used in sort property in pageable object.
-   * Using expand
+   * Supervisory nodes, requisition groups and their member facilities are fetched together with
+   * supply lines. Because a collection fetch cannot be paginated in SQL, IDs of the page are
+   * selected first and only these supply lines are fetched with their members.
    *
    * @param programId            UUID of the program
    * @param supervisoryNodeId    UUID of the supervisory node
@@ -117,26 +127,55 @@ public class SupplyLineRepositoryImpl implements SupplyLineRepositoryCustom {
     String whereStatement =
         prepareWhereStatement(programId, supervisoryNodeId, supplyingFacilityIds, params);
 
+    profiler.start("COUNT_SUPPLY_LINES");
     Query countQuery = entityManager.createQuery(join(COUNT_SL, whereStatement), Long.class);
     params.forEach(countQuery::setParameter);
     Long count = (Long) countQuery.getSingleResult();
 
     if (count < 1) {
+      profiler.stop().log();
       return Pagination.getPage(Collections.emptyList(), pageable, 0);
     }
 
-    Query searchQuery = entityManager.createQuery(
-        join(SELECT_SL, whereStatement, getOrderPredicate(pageable)), SupplyLine.class);
-    params.forEach(searchQuery::setParameter);
+    profiler.start("GET_PAGE_OF_SUPPLY_LINE_IDS");
+    TypedQuery<UUID> idsQuery = entityManager.createQuery(
+        join(SELECT_SL_IDS, whereStatement, getOrderPredicate(pageable)), UUID.class);
+    params.forEach(idsQuery::setParameter);
 
-    List<SupplyLine> result = searchQuery
+    List<UUID> ids = idsQuery
         .setMaxResults(pageable != null ? pageable.getPageSize() : Integer.MAX_VALUE)
         .setFirstResult(pageable != null ? Math.toIntExact(pageable.getOffset()) : 0)
         .getResultList();
 
+    profiler.start("FETCH_SUPPLY_LINES");
+    List<SupplyLine> result = fetchSupplyLines(ids);
+
+    profiler.stop().log();
     return Pagination.getPage(result, pageable, count);
   }
 
+  // the fetch join returns a row for every member facility, so supply lines are deduplicated
+  // and put back in the order of the page
+  private List<SupplyLine> fetchSupplyLines(List<UUID> ids) {
+    if (ids.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<SupplyLine> supplyLines = entityManager
+        .createQuery(join(SELECT_SL, WHERE, WITH_IDS), SupplyLine.class)
+        .setParameter(SUPPLY_LINE_IDS, ids)
+        .getResultList();
+
+    Map<UUID, SupplyLine> supplyLinesById = new HashMap<>();
+    supplyLines.forEach(supplyLine -> supplyLinesById.put(supplyLine.getId(), supplyLine));
+
+    return ids
+        .stream()
+        .map(supplyLinesById::get)
+        .filter(Objects::nonNull)
+        .collect(toList());
+  }
+
   private String prepareWhereStatement(UUID programId, UUID supervisoryNodeId,
       Set<UUID> supplyingFacilityIds, Map<String, Object> params) {
 
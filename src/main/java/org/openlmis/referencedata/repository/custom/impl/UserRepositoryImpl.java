@@ -157,6 +157,7 @@ public class UserRepositoryImpl implements UserRepositoryCustom {
     }
   }
 
+  // UPPER(...) LIKE matches the expressions of the trigram indexes on the users table
   private Predicate addLikeFilter(Predicate predicate, CriteriaBuilder builder, Root<User> root,
                                   String filterKey, String filterValue) {
     if (filterValue != null) {
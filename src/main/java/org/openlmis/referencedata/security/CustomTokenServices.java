@@ -15,22 +15,54 @@
 
 package org.openlmis.referencedata.security;
 
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
 import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.RemoteTokenServices;
 
 public class CustomTokenServices extends RemoteTokenServices {
 
   private int invalidTokenRetryLimit;
+  private long invalidTokenRetryDelayMillis;
+  private TokenCache tokenCache;
 
   public CustomTokenServices(int invalidTokenRetryLimit) {
+    this(invalidTokenRetryLimit, 0, null);
+  }
+
+  /**
+   * Creates token services which cache authentication of tokens.
+   *
+   * @param invalidTokenRetryLimit       how many times an invalid token is checked again
+   * @param invalidTokenRetryDelayMillis delay before the first retry, doubled for each next one
+   * @param tokenCache                   cache of token authentication, null to check the token
+   *                                     on every request
+   */
+  CustomTokenServices(int invalidTokenRetryLimit, long invalidTokenRetryDelayMillis,
+      TokenCache tokenCache) {
     super();
     this.invalidTokenRetryLimit = invalidTokenRetryLimit;
+    this.invalidTokenRetryDelayMillis = invalidTokenRetryDelayMillis;
+    this.tokenCache = tokenCache;
+    setAccessTokenConverter(new DefaultAccessTokenConverter());
+  }
+
+  @Override
+  public void setAccessTokenConverter(AccessTokenConverter accessTokenConverter) {
+    super.setAccessTokenConverter(new ExpirationAwareAccessTokenConverter(accessTokenConverter));
   }
 
   @Override
   public OAuth2Authentication loadAuthentication(String accessToken) {
-    return loadAuthentication(accessToken, 0);
+    if (null == tokenCache) {
+      return loadAuthentication(accessToken, 0);
+    }
+
+    return tokenCache.get(accessToken, token -> loadAuthentication(token, 0));
   }
 
   private OAuth2Authentication loadAuthentication(String accessToken, int attempt) {
@@ -38,6 +70,7 @@ public class CustomTokenServices extends RemoteTokenServices {
       return super.loadAuthentication(accessToken);
     } catch (InvalidTokenException e) {
       if (attempt < invalidTokenRetryLimit) {
+        waitBeforeRetry(attempt);
         attempt++;
         logger.debug("Retrying authentication load. Retry number: " + attempt);
         return loadAuthentication(accessToken, attempt);
@@ -46,4 +79,51 @@ public class CustomTokenServices extends RemoteTokenServices {
       }
     }
   }
-}
\ No newline at end of file
+
+  private void waitBeforeRetry(int attempt) {
+    long delay = invalidTokenRetryDelayMillis << attempt;
+
+    if (delay > 0) {
+      try {
+        TimeUnit.MILLISECONDS.sleep(delay);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Passes expiration time of the token, returned by the check token endpoint, to the cache.
+   */
+  private static final class ExpirationAwareAccessTokenConverter
+      implements AccessTokenConverter {
+
+    private final AccessTokenConverter delegate;
+
+    private ExpirationAwareAccessTokenConverter(AccessTokenConverter delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Map<String, ?> convertAccessToken(OAuth2AccessToken token,
+        OAuth2Authentication authentication) {
+      return delegate.convertAccessToken(token, authentication);
+    }
+
+    @Override
+    public OAuth2AccessToken extractAccessToken(String value, Map<String, ?> map) {
+      return delegate.extractAccessToken(value, map);
+    }
+
+    @Override
+    public OAuth2Authentication extractAuthentication(Map<String, ?> map) {
+      OAuth2Authentication authentication = delegate.extractAuthentication(map);
+      Object exp = map.get(EXP);
+
+      return exp instanceof Number
+          ? new TokenCache.ExpiringAuthentication(authentication,
+              TimeUnit.SECONDS.toMillis(((Number) exp).longValue()))
+          : authentication;
+    }
+  }
+}
@@ -15,7 +15,9 @@
 
 package org.openlmis.referencedata.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.io.IOException;
+import java.time.Clock;
 import java.util.Arrays;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -60,6 +62,15 @@ public class ResourceServerSecurityConfiguration implements ResourceServerConfig
   @Value("${cors.allowedMethods}")
   private String[] allowedMethods;
 
+  @Value("${auth.server.tokenCache.maximumSize}")
+  private long tokenCacheMaximumSize;
+
+  @Value("${auth.server.tokenCache.timeToLiveSeconds}")
+  private long tokenCacheTimeToLiveSeconds;
+
+  @Value("${auth.server.tokenCache.invalidTokenTimeToLiveSeconds}")
+  private long invalidTokenTimeToLiveSeconds;
+
 
   @Override
   public void configure(ResourceServerSecurityConfigurer resources) throws Exception {
@@ -115,6 +126,7 @@ public class ResourceServerSecurityConfiguration implements ResourceServerConfig
    * @param checkTokenUrl url to check tokens against
    * @param clientId      client's id
    * @param clientSecret  client's secret
+   * @param meterRegistry registry of token cache metrics
    * @return token services
    */
   @Bean
@@ -123,8 +135,12 @@ public class ResourceServerSecurityConfiguration implements ResourceServerConfig
       @Value("${auth.server.url}") String checkTokenUrl,
       @Value("${auth.server.clientId}") String clientId,
       @Value("${auth.server.clientSecret}") String clientSecret,
-      @Value("${auth.server.invalidToken.retryLimit}") int invalidTokenRetryLimit) {
-    final RemoteTokenServices remoteTokenServices = new CustomTokenServices(invalidTokenRetryLimit);
+      @Value("${auth.server.invalidToken.retryLimit}") int invalidTokenRetryLimit,
+      @Value("${auth.server.invalidToken.retryDelayMillis}") long invalidTokenRetryDelayMillis,
+      MeterRegistry meterRegistry) {
+    final RemoteTokenServices remoteTokenServices = new CustomTokenServices(
+        invalidTokenRetryLimit, invalidTokenRetryDelayMillis,
+        tokenCacheTimeToLiveSeconds > 0 ? tokenCache(meterRegistry) : null);
     remoteTokenServices.setCheckTokenEndpointUrl(checkTokenUrl);
     remoteTokenServices.setClientId(clientId);
     remoteTokenServices.setClientSecret(clientSecret);
@@ -132,6 +148,17 @@ public class ResourceServerSecurityConfiguration implements ResourceServerConfig
     return remoteTokenServices;
   }
 
+  /**
+   * Creates the cache of token authentication. Valid tokens are cached for the configured time
+   * to live, but never after they expire; a token revoked in the auth service can still be
+   * accepted until its cache entry expires. Invalid tokens are cached with a backoff up to
+   * the configured maximum.
+   */
+  private TokenCache tokenCache(MeterRegistry meterRegistry) {
+    return new TokenCache(tokenCacheMaximumSize, tokenCacheTimeToLiveSeconds,
+        invalidTokenTimeToLiveSeconds, meterRegistry, Clock.systemUTC());
+  }
+
   /**
    * CorsConfigurationSource bean initializer.
    * @return cors configuration
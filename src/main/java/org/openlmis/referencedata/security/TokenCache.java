@@ -0,0 +1,181 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+/**
+ * Bounded cache of token introspection results. A valid token is kept until the configured time
+ * to live passes or the token expires, whichever comes first. Concurrent requests with a token
+ * which is not cached wait for a single introspection.
+ *
+ * <p>Invalid tokens are cached too, so clients which keep sending them do not cause
+ * an introspection on every request. An invalid token is first kept for one second, and every
+ * time it turns out to be invalid again the time is doubled, up to the configured maximum.
+ */
+class TokenCache {
+
+  static final long INITIAL_INVALID_TOKEN_TIME_TO_LIVE_MILLIS = 1000;
+
+  private final Cache<String, Entry> entries;
+  private final long timeToLiveMillis;
+  private final long maxInvalidTokenTimeToLiveMillis;
+  private final Clock clock;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Timer introspections;
+
+  TokenCache(long maximumSize, long timeToLiveSeconds, long maxInvalidTokenTimeToLiveSeconds,
+      MeterRegistry meterRegistry, Clock clock) {
+    this.timeToLiveMillis = TimeUnit.SECONDS.toMillis(timeToLiveSeconds);
+    this.maxInvalidTokenTimeToLiveMillis =
+        TimeUnit.SECONDS.toMillis(maxInvalidTokenTimeToLiveSeconds);
+    this.clock = clock;
+    this.entries = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(Math.max(timeToLiveMillis, maxInvalidTokenTimeToLiveMillis),
+            TimeUnit.MILLISECONDS)
+        .build();
+
+    this.hits = meterRegistry.counter("referencedata.tokenCache.hits");
+    this.misses = meterRegistry.counter("referencedata.tokenCache.misses");
+    this.introspections = meterRegistry.timer("referencedata.tokenIntrospection");
+  }
+
+  /**
+   * Returns authentication of the token, introspecting it with the given function if it is not
+   * cached or its cache entry has expired.
+   *
+   * @param accessToken the token to authenticate
+   * @param introspection loads authentication of the token, throws {@link InvalidTokenException}
+   *                      if the token is not valid
+   * @return authentication of the token, a new instance for every call
+   * @throws InvalidTokenException if the token is not valid
+   */
+  OAuth2Authentication get(String accessToken,
+      Function<String, OAuth2Authentication> introspection) {
+    Entry entry = entries.getIfPresent(accessToken);
+
+    if (null != entry && !entry.isExpired(clock.millis())) {
+      hits.increment();
+      return entry.toAuthentication();
+    }
+
+    final int previousFailures = null == entry ? 0 : entry.failures;
+    if (null != entry) {
+      entries.asMap().remove(accessToken, entry);
+    }
+
+    try {
+      // concurrent calls for the same token wait for the one which introspects it
+      entry = entries.get(accessToken,
+          () -> introspect(accessToken, introspection, previousFailures));
+    } catch (ExecutionException | UncheckedExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw new IllegalStateException(ex);
+    }
+
+    return entry.toAuthentication();
+  }
+
+  private Entry introspect(String accessToken,
+      Function<String, OAuth2Authentication> introspection, int previousFailures) {
+    misses.increment();
+    long start = System.nanoTime();
+
+    try {
+      OAuth2Authentication authentication = introspection.apply(accessToken);
+      long now = clock.millis();
+      long expiresAt = now + timeToLiveMillis;
+
+      if (authentication instanceof ExpiringAuthentication) {
+        Long tokenExpiresAt = ((ExpiringAuthentication) authentication).getExpiresAt();
+        expiresAt = null == tokenExpiresAt ? expiresAt : Math.min(expiresAt, tokenExpiresAt);
+      }
+
+      return new Entry(authentication, null, expiresAt, 0);
+    } catch (InvalidTokenException ex) {
+      int failures = previousFailures + 1;
+      long backoff = INITIAL_INVALID_TOKEN_TIME_TO_LIVE_MILLIS << Math.min(failures - 1, 30);
+      long expiresAt = clock.millis() + Math.min(backoff, maxInvalidTokenTimeToLiveMillis);
+
+      return new Entry(null, ex.getMessage(), expiresAt, failures);
+    } finally {
+      introspections.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private static final class Entry {
+    private final OAuth2Authentication authentication;
+    private final String error;
+    private final long expiresAt;
+    private final int failures;
+
+    private Entry(OAuth2Authentication authentication, String error, long expiresAt,
+        int failures) {
+      this.authentication = authentication;
+      this.error = error;
+      this.expiresAt = expiresAt;
+      this.failures = failures;
+    }
+
+    private boolean isExpired(long now) {
+      return now >= expiresAt;
+    }
+
+    // a new instance is returned because the caller sets request details on it
+    private OAuth2Authentication toAuthentication() {
+      if (null == authentication) {
+        throw new InvalidTokenException(error);
+      }
+
+      return new OAuth2Authentication(authentication.getOAuth2Request(),
+          authentication.getUserAuthentication());
+    }
+  }
+
+  /**
+   * Authentication of a token which knows when the token expires.
+   */
+  static class ExpiringAuthentication extends OAuth2Authentication {
+    private static final long serialVersionUID = 1L;
+
+    private final Long expiresAt;
+
+    ExpiringAuthentication(OAuth2Authentication authentication, Long expiresAt) {
+      super(authentication.getOAuth2Request(), authentication.getUserAuthentication());
+      this.expiresAt = expiresAt;
+    }
+
+    Long getExpiresAt() {
+      return expiresAt;
+    }
+  }
+}
@@ -0,0 +1,455 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+import org.javers.core.metamodel.annotation.TypeName;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reads the audit log straight from the JaVers tables instead of asking JaVers to compare whole
+ * snapshot histories. Snapshots are filtered and ordered by the database (newest first, by their
+ * primary key, which follows the commit order) and only one page of them is read. Each snapshot
+ * is compared with its previous version, fetched in the same query, and rendered in the format
+ * of the JaVers JSON converter. The kind of each property change follows the JaVers type of the
+ * property: collections and maps are compared element by element (lists by index, as the simple
+ * list compare algorithm does), references to other entities give reference changes and
+ * everything else gives value changes.
+ *
+ * <p>Pages can be requested either by their number, or with the cursor returned with the
+ * previous page. The latter does not have to skip the snapshots of the earlier pages, so it
+ * stays fast for entities with long histories.
+ */
+@Service
+public class AuditLogService {
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(AuditLogService.class);
+
+  static final String INITIAL = "INITIAL";
+  static final String TERMINAL = "TERMINAL";
+
+  static final String SELECT_SQL = "SELECT s.snapshot_pk, s.type, s.state, s.changed_properties,"
+      + " g.type_name, g.local_id, c.commit_pk, c.author, c.commit_date, c.commit_id,"
+      + " p.state AS previous_state"
+      + " FROM referencedata.jv_snapshot s"
+      + " JOIN referencedata.jv_global_id g ON g.global_id_pk = s.global_id_fk"
+      + " JOIN referencedata.jv_commit c ON c.commit_pk = s.commit_fk"
+      + " LEFT JOIN referencedata.jv_snapshot p"
+      + "   ON p.global_id_fk = s.global_id_fk AND p.version = s.version - 1"
+      + " WHERE g.type_name = ?";
+
+  static final String WITH_LOCAL_ID = " AND g.local_id = ?";
+  static final String WITH_AUTHOR = " AND c.author = ?";
+  static final String WITH_CHANGED_PROPERTY = " AND s.changed_properties::jsonb @> ?::jsonb";
+  static final String BEFORE_CURSOR = " AND s.snapshot_pk < ?";
+  static final String ORDER_BY = " ORDER BY s.snapshot_pk DESC LIMIT ? OFFSET ?";
+
+  static final String COMMIT_PROPERTIES_SQL = "SELECT commit_fk, property_name, property_value"
+      + " FROM referencedata.jv_commit_property"
+      + " WHERE commit_fk IN (%s)"
+      + " ORDER BY commit_fk, property_name";
+
+  private static final String CHANGE_TYPE = "changeType";
+  private static final String ELEMENT_CHANGE_TYPE = "elementChangeType";
+  private static final String ENTRY_CHANGE_TYPE = "entryChangeType";
+  private static final String INDEX = "index";
+  private static final String KEY = "key";
+  private static final String VALUE = "value";
+
+  static final String VALUE_CHANGE = "ValueChange";
+  static final String REFERENCE_CHANGE = "ReferenceChange";
+  static final String LIST_CHANGE = "ListChange";
+  static final String SET_CHANGE = "SetChange";
+  static final String ARRAY_CHANGE = "ArrayChange";
+  static final String MAP_CHANGE = "MapChange";
+
+  private static final DateTimeFormatter COMMIT_DATE_FORMAT =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /**
+   * Returns a page of changes of the given type, newest first, optionally filtered by id,
+   * author and property.
+   *
+   * @param type the audited class
+   * @param id the id of the instance, if null changes of all instances are returned
+   * @param author the author of the changes, ignored if blank
+   * @param changedPropertyName the name of the changed property, ignored if blank
+   * @param cursor the cursor returned with the previous page, if null the page number is used
+   * @param pageNumber the number of the page, ignored if the cursor is given
+   * @param pageSize the maximum number of snapshots on the page
+   * @return the rendered changes and the cursor of the next page
+   */
+  public AuditLogPage getChanges(Class<?> type, UUID id, String author,
+      String changedPropertyName, Long cursor, int pageNumber, int pageSize) {
+    XLOGGER.entry(type, id, author, changedPropertyName, cursor, pageNumber, pageSize);
+    Profiler profiler = new Profiler("GET_AUDIT_LOG_CHANGES");
+    profiler.setLogger(XLOGGER);
+
+    StringBuilder sql = new StringBuilder(SELECT_SQL);
+    List<Object> params = new ArrayList<>();
+    params.add(getTypeName(type));
+
+    if (null != id) {
+      sql.append(WITH_LOCAL_ID);
+      params.add(toJson(id.toString()));
+    }
+    if (StringUtils.isNotBlank(author)) {
+      sql.append(WITH_AUTHOR);
+      params.add(author);
+    }
+    if (StringUtils.isNotBlank(changedPropertyName)) {
+      sql.append(WITH_CHANGED_PROPERTY);
+      params.add(toJson(Collections.singletonList(changedPropertyName)));
+    }
+    if (null != cursor) {
+      sql.append(BEFORE_CURSOR);
+      params.add(cursor);
+    }
+
+    sql.append(ORDER_BY);
+    params.add(pageSize);
+    params.add(null == cursor ? (long) pageNumber * pageSize : 0L);
+
+    profiler.start("FIND_SNAPSHOTS");
+    List<Snapshot> snapshots = jdbcTemplate.query(sql.toString(), params.toArray(),
+        this::toSnapshot);
+
+    profiler.start("FIND_COMMIT_PROPERTIES");
+    Map<Long, Map<String, String>> commitProperties = findCommitProperties(snapshots);
+
+    profiler.start("RENDER_CHANGES");
+    Long nextCursor = null;
+    if (pageSize > 0 && snapshots.size() == pageSize) {
+      nextCursor = snapshots.get(snapshots.size() - 1).getId();
+    }
+    AuditLogPage page = new AuditLogPage(
+        render(type, snapshots, commitProperties, changedPropertyName), nextCursor);
+
+    profiler.stop().log();
+    XLOGGER.exit(page.getNextCursor());
+    return page;
+  }
+
+  String render(Class<?> type, List<Snapshot> snapshots,
+      Map<Long, Map<String, String>> commitProperties, String changedPropertyName) {
+    ArrayNode changes = objectMapper.createArrayNode();
+
+    for (Snapshot snapshot : snapshots) {
+      ObjectNode globalId = objectMapper.createObjectNode();
+      globalId.put("entity", snapshot.getTypeName());
+      globalId.set("cdoId", readTree(snapshot.getLocalId()));
+
+      ObjectNode commitMetadata = objectMapper.createObjectNode();
+      commitMetadata.put("author", snapshot.getAuthor());
+      ArrayNode properties = commitMetadata.putArray("properties");
+      commitProperties.getOrDefault(snapshot.getCommitPk(), Collections.emptyMap())
+          .forEach((key, value) -> properties.addObject().put(KEY, key).put(VALUE, value));
+      commitMetadata.put("commitDate", COMMIT_DATE_FORMAT.format(snapshot.getCommitDate()));
+      commitMetadata.put("id", snapshot.getCommitId());
+
+      if (INITIAL.equals(snapshot.getType()) || TERMINAL.equals(snapshot.getType())) {
+        ObjectNode change = changes.addObject();
+        change.put(CHANGE_TYPE, INITIAL.equals(snapshot.getType())
+            ? "NewObject" : "ObjectRemoved");
+        change.set("globalId", globalId);
+        change.set("commitMetadata", commitMetadata);
+        continue;
+      }
+
+      JsonNode state = readTree(snapshot.getState());
+      JsonNode previousState = readTree(snapshot.getPreviousState());
+
+      for (JsonNode property : readTree(snapshot.getChangedProperties())) {
+        String propertyName = property.asText();
+
+        if (StringUtils.isNotBlank(changedPropertyName)
+            && !changedPropertyName.equals(propertyName)) {
+          continue;
+        }
+
+        ObjectNode change = objectMapper.createObjectNode();
+        change.set("globalId", globalId);
+        change.set("commitMetadata", commitMetadata);
+        change.put("property", propertyName);
+
+        if (renderPropertyChange(change, getPropertyType(type, propertyName),
+            getValue(previousState, propertyName), getValue(state, propertyName))) {
+          changes.add(change);
+        }
+      }
+    }
+
+    return toJson(changes);
+  }
+
+  /*
+    Fills in the change type and the values of a property change. Returns false if the property
+    holds a container whose elements did not change, as JaVers does not report such changes.
+  */
+  private boolean renderPropertyChange(ObjectNode change, Class<?> propertyType, JsonNode left,
+      JsonNode right) {
+    if (Map.class.isAssignableFrom(propertyType) && isObjectOrNull(left, right)) {
+      change.put(CHANGE_TYPE, MAP_CHANGE);
+      return renderEntryChanges(change.putArray("entryChanges"), left, right);
+    }
+    if (Set.class.isAssignableFrom(propertyType) && isArrayOrNull(left, right)) {
+      change.put(CHANGE_TYPE, SET_CHANGE);
+      return renderSetElementChanges(change.putArray("elementChanges"), left, right);
+    }
+    if ((Collection.class.isAssignableFrom(propertyType) || propertyType.isArray())
+        && isArrayOrNull(left, right)) {
+      change.put(CHANGE_TYPE, propertyType.isArray() ? ARRAY_CHANGE : LIST_CHANGE);
+      return renderListElementChanges(change.putArray("elementChanges"), left, right);
+    }
+
+    change.put(CHANGE_TYPE, isGlobalId(left) || isGlobalId(right)
+        ? REFERENCE_CHANGE : VALUE_CHANGE);
+    change.set("left", left);
+    change.set("right", right);
+    return true;
+  }
+
+  private boolean renderListElementChanges(ArrayNode elementChanges, JsonNode left,
+      JsonNode right) {
+    int size = Math.max(left.size(), right.size());
+
+    for (int index = 0; index < size; ++index) {
+      if (!left.has(index)) {
+        elementChanges.addObject()
+            .put(ELEMENT_CHANGE_TYPE, "ValueAdded")
+            .put(INDEX, index)
+            .set(VALUE, right.get(index));
+      } else if (!right.has(index)) {
+        elementChanges.addObject()
+            .put(ELEMENT_CHANGE_TYPE, "ValueRemoved")
+            .put(INDEX, index)
+            .set(VALUE, left.get(index));
+      } else if (!left.get(index).equals(right.get(index))) {
+        ObjectNode elementChange = elementChanges.addObject()
+            .put(ELEMENT_CHANGE_TYPE, "ElementValueChange")
+            .put(INDEX, index);
+        elementChange.set("leftValue", left.get(index));
+        elementChange.set("rightValue", right.get(index));
+      }
+    }
+
+    return elementChanges.size() > 0;
+  }
+
+  private boolean renderSetElementChanges(ArrayNode elementChanges, JsonNode left,
+      JsonNode right) {
+    Set<JsonNode> leftValues = toSet(left);
+    Set<JsonNode> rightValues = toSet(right);
+
+    rightValues.stream()
+        .filter(value -> !leftValues.contains(value))
+        .forEach(value -> elementChanges.addObject()
+            .put(ELEMENT_CHANGE_TYPE, "ValueAdded")
+            .set(VALUE, value));
+    leftValues.stream()
+        .filter(value -> !rightValues.contains(value))
+        .forEach(value -> elementChanges.addObject()
+            .put(ELEMENT_CHANGE_TYPE, "ValueRemoved")
+            .set(VALUE, value));
+
+    return elementChanges.size() > 0;
+  }
+
+  private boolean renderEntryChanges(ArrayNode entryChanges, JsonNode left, JsonNode right) {
+    right.fields().forEachRemaining(entry -> {
+      JsonNode leftValue = left.get(entry.getKey());
+
+      if (null == leftValue) {
+        entryChanges.addObject()
+            .put(ENTRY_CHANGE_TYPE, "EntryAdded")
+            .put(KEY, entry.getKey())
+            .set(VALUE, entry.getValue());
+      } else if (!leftValue.equals(entry.getValue())) {
+        ObjectNode entryChange = entryChanges.addObject()
+            .put(ENTRY_CHANGE_TYPE, "EntryValueChange")
+            .put(KEY, entry.getKey());
+        entryChange.set("leftValue", leftValue);
+        entryChange.set("rightValue", entry.getValue());
+      }
+    });
+    left.fields().forEachRemaining(entry -> {
+      if (!right.has(entry.getKey())) {
+        entryChanges.addObject()
+            .put(ENTRY_CHANGE_TYPE, "EntryRemoved")
+            .put(KEY, entry.getKey())
+            .set(VALUE, entry.getValue());
+      }
+    });
+
+    return entryChanges.size() > 0;
+  }
+
+  private Map<Long, Map<String, String>> findCommitProperties(List<Snapshot> snapshots) {
+    Set<Long> commitPks = snapshots
+        .stream()
+        .map(Snapshot::getCommitPk)
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+    Map<Long, Map<String, String>> commitProperties = new HashMap<>();
+
+    if (commitPks.isEmpty()) {
+      return commitProperties;
+    }
+
+    String placeholders = String.join(",", Collections.nCopies(commitPks.size(), "?"));
+    jdbcTemplate.query(String.format(COMMIT_PROPERTIES_SQL, placeholders), commitPks.toArray(),
+        (RowCallbackHandler) rs -> commitProperties
+            .computeIfAbsent(rs.getLong("commit_fk"), key -> new LinkedHashMap<>())
+            .put(rs.getString("property_name"), rs.getString("property_value")));
+
+    return commitProperties;
+  }
+
+  private Snapshot toSnapshot(ResultSet rs, int rowNum) throws SQLException {
+    return new Snapshot(rs.getLong("snapshot_pk"), rs.getString("type"),
+        rs.getString("state"), rs.getString("previous_state"),
+        rs.getString("changed_properties"), rs.getString("type_name"),
+        rs.getString("local_id"), rs.getLong("commit_pk"), rs.getString("author"),
+        rs.getTimestamp("commit_date").toLocalDateTime(), rs.getBigDecimal("commit_id"));
+  }
+
+  private JsonNode getValue(JsonNode state, String propertyName) {
+    return state.has(propertyName) ? state.get(propertyName) : NullNode.getInstance();
+  }
+
+  /*
+    JaVers maps the audited classes by their fields, so the declared type of the field is the
+    type JaVers compares the property as.
+  */
+  private Class<?> getPropertyType(Class<?> type, String propertyName) {
+    for (Class<?> current = type; null != current; current = current.getSuperclass()) {
+      try {
+        return current.getDeclaredField(propertyName).getType();
+      } catch (NoSuchFieldException ex) {
+        XLOGGER.trace("Property {} is not declared in {}", propertyName, current);
+      }
+    }
+
+    return Object.class;
+  }
+
+  private boolean isGlobalId(JsonNode value) {
+    return value.isObject()
+        && (value.has("entity") && value.has("cdoId") || value.has("valueObject"));
+  }
+
+  private boolean isObjectOrNull(JsonNode... values) {
+    return Arrays.stream(values).allMatch(value -> value.isObject() || value.isNull());
+  }
+
+  private boolean isArrayOrNull(JsonNode... values) {
+    return Arrays.stream(values).allMatch(value -> value.isArray() || value.isNull());
+  }
+
+  private Set<JsonNode> toSet(JsonNode values) {
+    Set<JsonNode> set = new LinkedHashSet<>();
+    values.forEach(set::add);
+    return set;
+  }
+
+  /**
+   * Returns the name under which JaVers stores snapshots of the given type.
+   */
+  public static String getTypeName(Class<?> type) {
+    TypeName typeName = type.getAnnotation(TypeName.class);
+    return null == typeName ? type.getName() : typeName.value();
+  }
+
+  private JsonNode readTree(String json) {
+    if (null == json) {
+      return objectMapper.createArrayNode();
+    }
+
+    try {
+      return objectMapper.readTree(json);
+    } catch (IOException ex) {
+      throw new IllegalStateException("Unable to read the audit log snapshot", ex);
+    }
+  }
+
+  private String toJson(Object value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException("Unable to write the audit log", ex);
+    }
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static final class AuditLogPage {
+    private final String changes;
+    private final Long nextCursor;
+  }
+
+  @Getter
+  @AllArgsConstructor
+  static final class Snapshot {
+    private final long id;
+    private final String type;
+    private final String state;
+    private final String previousState;
+    private final String changedProperties;
+    private final String typeName;
+    private final String localId;
+    private final long commitPk;
+    private final String author;
+    private final LocalDateTime commitDate;
+    private final BigDecimal commitId;
+  }
+
+}
@@ -0,0 +1,247 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * Two-tier cache of a single type of entity. A value is looked up in a bounded local cache first,
+ * then in a Redis hash shared by all instances of the service, and only then loaded from the
+ * database.
+ *
+ * <p>Values are stored as JSON, so the cache always returns a detached copy of the loaded value,
+ * which is shared by all callers and must not be modified. If Redis is not available, values are
+ * loaded from the database and kept in the local cache only.
+ *
+ * <p>Every invalidation increments a generation counter kept in Redis next to the hash. The
+ * generation is read before a value is loaded from the database, and the value is written to
+ * Redis (atomically, by a script) only if the generation did not change in the meantime. This
+ * way a value loaded by one instance before another instance changed it is never written back to
+ * Redis after the change was invalidated.
+ */
+class EntityCache<T> {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(EntityCache.class);
+
+  static final String HITS = "referencedata.entityCache.hits";
+  static final String MISSES = "referencedata.entityCache.misses";
+  static final String EVICTIONS = "referencedata.entityCache.evictions";
+  static final String SIZE = "referencedata.entityCache.size";
+  static final String CACHE_TAG = "cache";
+
+  static final String INITIAL_GENERATION = "0";
+  static final RedisScript<Long> WRITE_SCRIPT = new DefaultRedisScript<>(
+      "if (redis.call('GET', KEYS[1]) or '" + INITIAL_GENERATION + "') ~= ARGV[1] then"
+          + " return 0"
+          + " end"
+          + " redis.call('HSET', KEYS[2], ARGV[2], ARGV[3])"
+          + " if redis.call('TTL', KEYS[2]) < 0 then"
+          + " redis.call('EXPIRE', KEYS[2], ARGV[4])"
+          + " end"
+          + " return 1", Long.class);
+
+  private final String name;
+  private final Class<T> type;
+  private final String redisKey;
+  private final String generationKey;
+  private final long redisTimeToLiveSeconds;
+  private final StringRedisTemplate redisTemplate;
+  private final HashOperations<String, String, String> hashOperations;
+  private final ObjectMapper objectMapper;
+  private final MeterRegistry meterRegistry;
+  private final Cache<UUID, T> local;
+
+  // incremented on every invalidation, so a value loaded before it is not cached afterwards
+  private final AtomicLong invalidations = new AtomicLong();
+
+  private final Counter localHits;
+  private final Counter redisHits;
+  private final Counter misses;
+
+  EntityCache(String name, Class<T> type, String redisKey, String generationKey,
+      long redisTimeToLiveSeconds, long localMaximumSize, long localTimeToLiveSeconds,
+      StringRedisTemplate redisTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+    this.name = name;
+    this.type = type;
+    this.redisKey = redisKey;
+    this.generationKey = generationKey;
+    this.redisTimeToLiveSeconds = redisTimeToLiveSeconds;
+    this.redisTemplate = redisTemplate;
+    this.hashOperations = redisTemplate.opsForHash();
+    this.objectMapper = objectMapper;
+    this.meterRegistry = meterRegistry;
+    this.local = CacheBuilder.newBuilder()
+        .maximumSize(localMaximumSize)
+        .expireAfterWrite(localTimeToLiveSeconds, TimeUnit.SECONDS)
+        .removalListener(this::onRemoval)
+        .build();
+
+    this.localHits = meterRegistry.counter(HITS, CACHE_TAG, name, "tier", "local");
+    this.redisHits = meterRegistry.counter(HITS, CACHE_TAG, name, "tier", "redis");
+    this.misses = meterRegistry.counter(MISSES, CACHE_TAG, name);
+    Gauge.builder(SIZE, local, Cache::size)
+        .tag(CACHE_TAG, name)
+        .register(meterRegistry);
+  }
+
+  Class<T> getType() {
+    return type;
+  }
+
+  /**
+   * Returns the cached value with the given id, loading it with the given loader if it is not
+   * cached in either tier. Missing values (loaded as null) are not cached.
+   */
+  T get(UUID id, Supplier<T> loader) {
+    T value = local.getIfPresent(id);
+
+    if (null != value) {
+      localHits.increment();
+      return value;
+    }
+
+    final long invalidation = invalidations.get();
+    String json = readFromRedis(id);
+    value = null == json ? null : fromJson(json);
+
+    if (null != value) {
+      redisHits.increment();
+    } else {
+      misses.increment();
+      // read before loading, so an invalidation made while loading is noticed
+      final String generation = readGeneration();
+      T loaded = loader.get();
+      json = null == loaded ? null : toJson(loaded);
+      value = null == json ? null : fromJson(json);
+
+      if (null == value) {
+        return loaded;
+      }
+
+      if (invalidation != invalidations.get() || !writeToRedis(id, json, generation)) {
+        // the value was invalidated while it was loaded, so it may be stale
+        return value;
+      }
+    }
+
+    if (invalidation == invalidations.get()) {
+      local.put(id, value);
+    }
+
+    return value;
+  }
+
+  /**
+   * Removes the value with the given id from the local cache of this instance.
+   */
+  void evictLocally(UUID id) {
+    invalidations.incrementAndGet();
+    local.invalidate(id);
+  }
+
+  /**
+   * Removes all values from the local cache of this instance.
+   */
+  void clearLocally() {
+    invalidations.incrementAndGet();
+    local.invalidateAll();
+  }
+
+  private String readFromRedis(UUID id) {
+    try {
+      return hashOperations.get(redisKey, id.toString());
+    } catch (RuntimeException ex) {
+      XLOGGER.warn("Could not read {} from the {} cache in Redis", id, name, ex);
+      return null;
+    }
+  }
+
+  private String readGeneration() {
+    try {
+      String generation = redisTemplate.opsForValue().get(generationKey);
+      return null == generation ? INITIAL_GENERATION : generation;
+    } catch (RuntimeException ex) {
+      XLOGGER.warn("Could not read the generation of the {} cache in Redis", name, ex);
+      return null;
+    }
+  }
+
+  /*
+    Returns false if the value was not written because the cache was invalidated after the given
+    generation was read. If Redis is not available, the value is kept in the local cache only.
+  */
+  private boolean writeToRedis(UUID id, String json, String generation) {
+    if (null == generation) {
+      return true;
+    }
+
+    try {
+      // the whole hash expires, so values changed outside of the service are reloaded eventually
+      Long written = redisTemplate.execute(WRITE_SCRIPT, Arrays.asList(generationKey, redisKey),
+          generation, id.toString(), json, String.valueOf(redisTimeToLiveSeconds));
+      return !Long.valueOf(0).equals(written);
+    } catch (RuntimeException ex) {
+      XLOGGER.warn("Could not write {} to the {} cache in Redis", id, name, ex);
+      return true;
+    }
+  }
+
+  private String toJson(T value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException ex) {
+      XLOGGER.warn("Could not serialize a value of the {} cache", name, ex);
+      return null;
+    }
+  }
+
+  private T fromJson(String json) {
+    try {
+      return objectMapper.readValue(json, type);
+    } catch (IOException ex) {
+      XLOGGER.warn("Could not deserialize a value of the {} cache", name, ex);
+      return null;
+    }
+  }
+
+  private void onRemoval(RemovalNotification<UUID, T> notification) {
+    if (notification.getCause() != RemovalCause.REPLACED) {
+      meterRegistry.counter(EVICTIONS, CACHE_TAG, name,
+          "cause", notification.getCause().name().toLowerCase(Locale.ENGLISH)).increment();
+    }
+  }
+}
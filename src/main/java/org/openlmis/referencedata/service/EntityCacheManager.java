@@ -0,0 +1,245 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-through caches of slow-changing reference data, shared by all instances of the service.
+ * Every cache keeps a bounded number of values locally and all of them in Redis. A value is
+ * evicted from Redis once the transaction which changed it completes, and every instance is told
+ * to evict it from its local cache through a Redis channel. The generation of the cache in Redis
+ * is incremented first, so values loaded before the change are not written back to Redis by other
+ * instances (see {@link EntityCache}).
+ */
+@Component
+public class EntityCacheManager implements MessageListener {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(EntityCacheManager.class);
+
+  public static final String PROGRAMS = "programs";
+  public static final String FACILITY_TYPES = "facilityTypes";
+  public static final String PROCESSING_SCHEDULES = "processingSchedules";
+  public static final String PROCESSING_PERIODS = "processingPeriods";
+  public static final String GEOGRAPHIC_LEVELS = "geographicLevels";
+  public static final String RIGHTS = "rights";
+  public static final String ROLES = "roles";
+
+  static final String INVALIDATION_CHANNEL = "entityCache:invalidation";
+  static final String REDIS_KEY_PREFIX = "entityCache:";
+  static final String GENERATION_SUFFIX = ":generation";
+  static final String ALL = "*";
+  private static final String SEPARATOR = "/";
+
+  @Autowired
+  private RedisConnectionFactory connectionFactory;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${entityCache.enabled}")
+  private boolean enabled;
+
+  @Value("${entityCache.local.maximumSize}")
+  private long localMaximumSize;
+
+  @Value("${entityCache.local.timeToLiveSeconds}")
+  private long localTimeToLiveSeconds;
+
+  @Value("${entityCache.redis.timeToLiveSeconds}")
+  private long redisTimeToLiveSeconds;
+
+  private final Map<String, EntityCache<?>> caches = new ConcurrentHashMap<>();
+
+  private StringRedisTemplate redisTemplate;
+  private RedisMessageListenerContainer listenerContainer;
+
+  /**
+   * Subscribes to invalidations sent by other instances of the service.
+   */
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+
+    redisTemplate = new StringRedisTemplate(connectionFactory);
+
+    listenerContainer = new RedisMessageListenerContainer();
+    listenerContainer.setConnectionFactory(connectionFactory);
+    listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    listenerContainer.afterPropertiesSet();
+    listenerContainer.start();
+  }
+
+  /**
+   * Stops listening for invalidations.
+   */
+  @PreDestroy
+  public void stop() throws Exception {
+    if (null != listenerContainer) {
+      listenerContainer.destroy();
+    }
+  }
+
+  /**
+   * Returns the value with the given id from the given cache, loading it with the given loader if
+   * it is not cached. Missing values (loaded as null) are not cached. The returned value is shared
+   * with other callers and must not be modified.
+   */
+  public <T> T get(String cacheName, UUID id, Class<T> type, Supplier<T> loader) {
+    if (!enabled) {
+      return loader.get();
+    }
+
+    return getCache(cacheName, type).get(id, loader);
+  }
+
+  /**
+   * Evicts the value with the given id from the given cache in all instances of the service, once
+   * the current transaction completes.
+   */
+  public void evict(String cacheName, UUID id) {
+    if (enabled) {
+      afterTransaction(() -> invalidate(cacheName, id.toString()));
+    }
+  }
+
+  /**
+   * Evicts all values from the given cache in all instances of the service, once the current
+   * transaction completes.
+   */
+  public void clear(String cacheName) {
+    if (enabled) {
+      afterTransaction(() -> invalidate(cacheName, ALL));
+    }
+  }
+
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    String body = new String(message.getBody(), UTF_8);
+    int separator = body.lastIndexOf(SEPARATOR);
+
+    if (separator < 0) {
+      XLOGGER.warn("Ignoring invalid entity cache invalidation: {}", body);
+      return;
+    }
+
+    invalidateLocally(body.substring(0, separator), body.substring(separator + 1));
+  }
+
+  private void invalidate(String cacheName, String key) {
+    try {
+      redisTemplate.opsForValue().increment(getGenerationKey(cacheName), 1);
+
+      if (ALL.equals(key)) {
+        redisTemplate.delete(getRedisKey(cacheName));
+      } else {
+        redisTemplate.opsForHash().delete(getRedisKey(cacheName), key);
+      }
+
+      redisTemplate.convertAndSend(INVALIDATION_CHANNEL, cacheName + SEPARATOR + key);
+    } catch (RuntimeException ex) {
+      XLOGGER.warn("Could not invalidate {} in the {} cache in Redis", key, cacheName, ex);
+    }
+
+    // the message is received by this instance too, but it may come after the next read
+    invalidateLocally(cacheName, key);
+  }
+
+  private void invalidateLocally(String cacheName, String key) {
+    EntityCache<?> cache = caches.get(cacheName);
+
+    if (null == cache) {
+      return;
+    }
+
+    if (ALL.equals(key)) {
+      cache.clearLocally();
+    } else {
+      cache.evictLocally(UUID.fromString(key));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> EntityCache<T> getCache(String cacheName, Class<T> type) {
+    EntityCache<?> cache = caches.computeIfAbsent(cacheName, name -> new EntityCache<>(name,
+        type, getRedisKey(name), getGenerationKey(name), redisTimeToLiveSeconds,
+        localMaximumSize, localTimeToLiveSeconds, redisTemplate, getValueMapper(),
+        meterRegistry));
+
+    if (!type.equals(cache.getType())) {
+      throw new IllegalArgumentException("The " + cacheName + " cache contains values of type "
+          + cache.getType().getName() + ", not " + type.getName());
+    }
+
+    return (EntityCache<T>) cache;
+  }
+
+  // cached values must be the same as loaded ones, so dates keep their time zones
+  private ObjectMapper getValueMapper() {
+    return objectMapper.copy()
+        .disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE);
+  }
+
+  private String getRedisKey(String cacheName) {
+    return REDIS_KEY_PREFIX + cacheName;
+  }
+
+  private String getGenerationKey(String cacheName) {
+    return getRedisKey(cacheName) + GENERATION_SUFFIX;
+  }
+
+  private void afterTransaction(Runnable invalidation) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+              invalidation.run();
+            }
+          });
+    } else {
+      invalidation.run();
+    }
+  }
+}
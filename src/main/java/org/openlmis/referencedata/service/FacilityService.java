@@ -52,9 +52,6 @@ public class FacilityService {
   @Autowired
   private GeographicZoneRepository geographicZoneRepository;
 
-  @Autowired
-  private GeographicZoneService geographicZoneService;
-
   private ObjectMapper mapper = new ObjectMapper();
 
   /**
@@ -93,11 +90,8 @@ public class FacilityService {
     profiler.start("GET_GEOGRAPHIC_ZONES");
     Set<UUID> zones = Sets.newHashSet();
     if (null != params.getZoneId()) {
+      // descendants of the zone are joined by the repository when the search is recursive
       zones.add(params.getZoneId());
-      if (params.isRecurse()) {
-        profiler.start("GET_ALL_ZONES_IN_HIERARCHY");
-        zones.addAll(geographicZoneService.getAllZonesInHierarchy(params.getZoneId()));
-      }
     }
 
     profiler.start("PARSE_EXTRA_DATA");
@@ -15,7 +15,6 @@
 
 package org.openlmis.referencedata.service;
 
-import com.google.common.collect.Sets;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -85,21 +84,13 @@ public class GeographicZoneService {
   }
 
   /**
-   * Retrieves recursively all geographic zone IDs that are descendants of the given one.
+   * Retrieves all geographic zone IDs that are descendants of the given one.
    *
    * @param root root of zone hierarchy
    * @return collection with all descendant zone IDs.
    */
   public Set<UUID> getAllZonesInHierarchy(UUID root) {
-    Set<UUID> children = geographicZoneRepository.findIdsByParent(root);
-    Set<UUID> result = Sets.newHashSet(children);
-
-    for (UUID zone : children) {
-      Set<UUID> descendants = getAllZonesInHierarchy(zone);
-      result.addAll(descendants);
-    }
-
-    return result;
+    return geographicZoneRepository.findIdsOfDescendants(root);
   }
 
   private GeographicZone findGeographicZone(Optional<UUID> parentId) {
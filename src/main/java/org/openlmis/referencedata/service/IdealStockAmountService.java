@@ -18,7 +18,9 @@ package org.openlmis.referencedata.service;
 import com.google.common.collect.Lists;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.openlmis.referencedata.domain.IdealStockAmount;
+import org.openlmis.referencedata.dto.IdealStockAmountCsvModel;
 import org.openlmis.referencedata.repository.IdealStockAmountRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -45,4 +47,12 @@ public class IdealStockAmountService {
     return repository.search(requestParams.getFacilityId(), requestParams.getCommodityTypeId(),
         requestParams.getProcessingPeriodId(), pageable);
   }
+
+  /**
+   * Passes all ideal stock amounts, converted to rows of the CSV file, one by one to the given
+   * consumer. They are not loaded into memory at once.
+   */
+  public void exportToCsv(Consumer<IdealStockAmountCsvModel> consumer) {
+    repository.exportToCsv(consumer);
+  }
 }
@@ -15,6 +15,12 @@
 
 package org.openlmis.referencedata.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.sql.Timestamp;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -23,6 +29,7 @@ import java.util.UUID;
 import javax.validation.constraints.NotNull;
 
 import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.dto.OrderableDto;
 import org.openlmis.referencedata.repository.OrderableRepository;
 import org.openlmis.referencedata.web.QueryOrderableSearchParams;
 import org.slf4j.Logger;
@@ -32,6 +39,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class OrderableService {
@@ -39,10 +47,14 @@ public class OrderableService {
   private static final Logger LOGGER = LoggerFactory.getLogger(OrderableService.class);
 
   private static final String GMT = "GMT";
+  static final int EXPORT_BATCH_SIZE = 500;
 
   @Autowired
   private OrderableRepository orderableRepository;
 
+  @Autowired
+  private ObjectMapper objectMapper;
+
   /**
    * Method returns all orderables with matched parameters.
    *
@@ -107,6 +119,41 @@ public class OrderableService {
             .findLatestModifiedDateByParams(queryParams);
   }
 
+  /**
+   * Writes all latest orderables with matched parameters to the given stream as newline-delimited
+   * JSON, one orderable per line. Orderables are loaded and written in batches, so the memory used
+   * does not depend on the number of exported orderables.
+   *
+   * @param queryParams request parameters (code, name, program, tradeItemId, id).
+   * @param outputStream the stream to which orderables are written; it is not closed.
+   */
+  @Transactional(readOnly = true)
+  public void exportOrderables(@NotNull QueryOrderableSearchParams queryParams,
+      OutputStream outputStream) throws IOException {
+    LOGGER.info("export orderables with query params: {}", queryParams);
+    ObjectWriter writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+
+    try {
+      orderableRepository.forEachLatestBatch(queryParams, queryParams.getIds(),
+          EXPORT_BATCH_SIZE, batch -> writeBatch(writer, batch, outputStream));
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  private void writeBatch(ObjectWriter writer, Iterable<Orderable> batch,
+      OutputStream outputStream) {
+    try {
+      for (Orderable orderable : batch) {
+        outputStream.write(writer.writeValueAsBytes(OrderableDto.newInstance(orderable)));
+        outputStream.write('\n');
+      }
+      outputStream.flush();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
   private ZonedDateTime getZoneDateTime(Timestamp timestamp) {
 
     if (null != timestamp) {
@@ -0,0 +1,270 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import org.openlmis.referencedata.dto.RightAssignmentDto;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-process index of right assignments, which answers permission checks without querying
+ * the database. Right assignments of a user are loaded on the first check and kept until they
+ * are invalidated or their time to live passes. The time to live bounds how long changes made
+ * by other instances of the service can go unnoticed.
+ *
+ * <p>Every invalidation increments the generation of the index. Right assignments loaded by
+ * a check which overlapped with an invalidation are not kept, so a check never brings back
+ * right assignments which have just been invalidated.
+ */
+@Service
+@SuppressWarnings("PMD.TooManyMethods")
+public class PermissionIndex {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(PermissionIndex.class);
+
+  static final String SELECT_USER_RIGHT_ASSIGNMENTS_SQL = "SELECT u.id AS userid"
+      + ", ra.rightname, ra.facilityid, ra.programid"
+      + " FROM referencedata.users u"
+      + " LEFT JOIN referencedata.right_assignments ra ON ra.userid = u.id"
+      + " WHERE u.id = ?";
+
+  @Autowired
+  private JdbcTemplate template;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private Clock clock;
+
+  @Value("${permissionIndex.timeToLiveSeconds}")
+  private long timeToLiveSeconds;
+
+  private final Map<UUID, UserPermissions> users = new ConcurrentHashMap<>();
+  private final Map<String, Integer> rightIds = new ConcurrentHashMap<>();
+  private final List<String> rightNames = new ArrayList<>();
+  private final AtomicLong generation = new AtomicLong();
+
+  private Counter hits;
+  private Counter misses;
+
+  /**
+   * Registers metrics of the index.
+   */
+  @PostConstruct
+  public void registerMetrics() {
+    hits = meterRegistry.counter("referencedata.permissionIndex.hits");
+    misses = meterRegistry.counter("referencedata.permissionIndex.misses");
+    Gauge.builder("referencedata.permissionIndex.users", users, Map::size)
+        .register(meterRegistry);
+    Gauge.builder("referencedata.permissionIndex.generation", generation, AtomicLong::get)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Checks whether the user exists.
+   */
+  public boolean userExists(UUID userId) {
+    return getUserPermissions(userId).userExists();
+  }
+
+  /**
+   * Checks whether the user has the right, regardless of facility and program.
+   */
+  public boolean hasRight(UUID userId, String rightName) {
+    UserPermissions permissions = getUserPermissions(userId);
+    Integer rightId = findRightId(rightName);
+    return null != rightId && permissions.hasRight(rightId);
+  }
+
+  /**
+   * Checks whether the user has the right at the facility, regardless of program.
+   */
+  public boolean hasRight(UUID userId, String rightName, UUID facilityId) {
+    UserPermissions permissions = getUserPermissions(userId);
+    Integer rightId = findRightId(rightName);
+    return null != rightId && permissions.hasRight(rightId, facilityId);
+  }
+
+  /**
+   * Checks whether the user has the right at the facility for the program.
+   */
+  public boolean hasRight(UUID userId, String rightName, UUID facilityId, UUID programId) {
+    UserPermissions permissions = getUserPermissions(userId);
+    Integer rightId = findRightId(rightName);
+    return null != rightId && permissions.hasRight(rightId, facilityId, programId);
+  }
+
+  /**
+   * Returns right assignments of the user as permission strings.
+   */
+  public Set<String> getPermissionStrings(UUID userId) {
+    return getUserPermissions(userId).toPermissionStrings(this::getRightName);
+  }
+
+  /**
+   * Returns an entity tag of permission strings of the user, see
+   * {@link #getPermissionStrings(UUID)}. The tag is computed once for loaded right assignments,
+   * so conditional requests for permission strings do not build them.
+   */
+  public String getPermissionStringsETag(UUID userId) {
+    return "\"" + getUserPermissions(userId).permissionStringsHashCode(this::getRightName) + '"';
+  }
+
+  /**
+   * Invalidates right assignments of the given users. If a transaction is active, right
+   * assignments are invalidated once it completes, so that they are not reloaded before
+   * the changes are visible to other transactions.
+   */
+  public void invalidate(Collection<UUID> userIds) {
+    afterTransaction(() -> {
+      generation.incrementAndGet();
+      userIds.forEach(users::remove);
+    });
+  }
+
+  public void invalidate(UUID userId) {
+    invalidate(Collections.singleton(userId));
+  }
+
+  /**
+   * Invalidates right assignments of all users, see {@link #invalidate(Collection)}.
+   */
+  public void invalidateAll() {
+    afterTransaction(() -> {
+      generation.incrementAndGet();
+      users.clear();
+    });
+  }
+
+  public long getGeneration() {
+    return generation.get();
+  }
+
+  UserPermissions getUserPermissions(UUID userId) {
+    UserPermissions permissions = users.get(userId);
+
+    if (null != permissions && !isExpired(permissions)) {
+      hits.increment();
+      return permissions;
+    }
+
+    misses.increment();
+    long loadedGeneration = generation.get();
+    permissions = load(userId);
+    users.put(userId, permissions);
+
+    // an invalidation could have removed the user before the put above
+    if (generation.get() != loadedGeneration) {
+      users.remove(userId, permissions);
+    }
+
+    return permissions;
+  }
+
+  private UserPermissions load(UUID userId) {
+    XLOGGER.entry(userId);
+    long loadedAt = clock.millis();
+    List<RightAssignmentDto> rows = template.query(SELECT_USER_RIGHT_ASSIGNMENTS_SQL,
+        (ResultSet rs, int rowNum) -> new RightAssignmentDto(toUuid(rs, "userid"),
+            rs.getString("rightname"), toUuid(rs, "facilityid"), toUuid(rs, "programid")),
+        userId);
+
+    if (rows.isEmpty()) {
+      XLOGGER.exit("User not found");
+      return UserPermissions.ofMissingUser(loadedAt);
+    }
+
+    List<Object[]> rightAssignments = new ArrayList<>(rows.size());
+    for (RightAssignmentDto row : rows) {
+      // a user without right assignments is returned as one row without a right
+      if (null != row.getRightName()) {
+        rightAssignments.add(new Object[]{getRightId(row.getRightName()), row.getFacilityId(),
+            row.getProgramId()});
+      }
+    }
+
+    XLOGGER.exit(rightAssignments.size());
+    return UserPermissions.of(rightAssignments, loadedAt);
+  }
+
+  private boolean isExpired(UserPermissions permissions) {
+    return clock.millis() - permissions.getLoadedAt()
+        >= TimeUnit.SECONDS.toMillis(timeToLiveSeconds);
+  }
+
+  private UUID toUuid(ResultSet rs, String columnName) throws SQLException {
+    String value = rs.getString(columnName);
+    return null == value ? null : UUID.fromString(value);
+  }
+
+  // a right which is not in the index is not assigned to any loaded user
+  private Integer findRightId(String rightName) {
+    return null == rightName ? null : rightIds.get(rightName);
+  }
+
+  private int getRightId(String rightName) {
+    return rightIds.computeIfAbsent(rightName, name -> {
+      synchronized (rightNames) {
+        rightNames.add(name);
+        return rightNames.size() - 1;
+      }
+    });
+  }
+
+  private String getRightName(int rightId) {
+    synchronized (rightNames) {
+      return rightNames.get(rightId);
+    }
+  }
+
+  private void afterTransaction(Runnable invalidation) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+              invalidation.run();
+            }
+          });
+    } else {
+      invalidation.run();
+    }
+  }
+}
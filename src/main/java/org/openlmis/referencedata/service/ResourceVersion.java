@@ -0,0 +1,85 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import java.time.ZonedDateTime;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Validators of the current version of a resource, see {@link ResourceVersionRegistry}.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public final class ResourceVersion {
+
+  private static final String WEAK_PREFIX = "W/";
+
+  /**
+   * Weak entity tag of the resource, including quotes.
+   */
+  private final String etag;
+
+  /**
+   * Last modification time of the resource in milliseconds.
+   */
+  private final long lastModified;
+
+  /**
+   * Checks whether a client which sent the given conditional request headers already has
+   * this version of the resource. If-Modified-Since is only checked if If-None-Match was not sent.
+   *
+   * @param ifNoneMatch     value of the If-None-Match header, may be null
+   * @param ifModifiedSince value of the If-Modified-Since header, may be null
+   */
+  public boolean isNotModified(String ifNoneMatch, ZonedDateTime ifModifiedSince) {
+    if (StringUtils.isNotBlank(ifNoneMatch)) {
+      return matches(etag, ifNoneMatch);
+    }
+
+    // HTTP dates have a precision of seconds
+    return null != ifModifiedSince
+        && lastModified / 1000 <= ifModifiedSince.toEpochSecond();
+  }
+
+  /**
+   * Checks whether the entity tag is listed in the If-None-Match header. Entity tags are compared
+   * with the weak comparison, as required for If-None-Match.
+   *
+   * @param etag        entity tag, including quotes
+   * @param ifNoneMatch value of the If-None-Match header, may be null
+   */
+  public static boolean matches(String etag, String ifNoneMatch) {
+    if (StringUtils.isBlank(ifNoneMatch)) {
+      return false;
+    }
+
+    String opaqueTag = StringUtils.removeStart(etag, WEAK_PREFIX);
+    for (String tag : ifNoneMatch.split(",")) {
+      String trimmed = tag.trim();
+      if ("*".equals(trimmed) || opaqueTag.equals(StringUtils.removeStart(trimmed, WEAK_PREFIX))) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Registry of versions of resources which are read often and changed rarely. Versions are
+ * kept in the resource_versions table and incremented by database triggers whenever one of
+ * the tables a resource is built from changes, so they cover changes made by any instance of
+ * the service. Reading a version is a single query of a few rows, so conditional requests can be
+ * answered before the resource itself is read.
+ *
+ * <p>A version must be read before the resource. A version which changes in between only makes
+ * the next conditional request miss, while a version read afterwards could be newer than
+ * the returned resource.
+ */
+@Service
+public class ResourceVersionRegistry {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(ResourceVersionRegistry.class);
+
+  public static final String ORDERABLES = "orderables";
+  public static final String FACILITY_TYPE_APPROVED_PRODUCTS = "facility_type_approved_products";
+  public static final String RIGHT_ASSIGNMENTS = "right_assignments";
+  public static final String FACILITIES = "facilities";
+  public static final String ORDERABLE_FULFILLS = "orderable_fulfills";
+  public static final String SYSTEM_NOTIFICATIONS = "system_notifications";
+
+  static final String SELECT_RESOURCE_VERSIONS_SQL = "SELECT resource, version, lastModified"
+      + " FROM referencedata.resource_versions";
+
+  @Autowired
+  private JdbcTemplate template;
+
+  /**
+   * Returns the current version of a resource built from the given tracked resources.
+   *
+   * @param resources names of tracked resources, see constants of this class
+   * @return the version, or null if any of the resources is not tracked
+   */
+  public ResourceVersion getVersion(String... resources) {
+    XLOGGER.entry((Object[]) resources);
+    Map<String, Object[]> versions = new HashMap<>();
+    template.query(SELECT_RESOURCE_VERSIONS_SQL, (ResultSet rs, int rowNum) ->
+        new Object[]{rs.getString("resource"), rs.getLong("version"),
+            rs.getTimestamp("lastModified").getTime()})
+        .forEach(row -> versions.put((String) row[0], row));
+
+    StringBuilder tag = new StringBuilder();
+    long lastModified = 0;
+    for (String resource : resources) {
+      Object[] version = versions.get(resource);
+      if (null == version) {
+        XLOGGER.exit("Resource not tracked: " + resource);
+        return null;
+      }
+
+      if (tag.length() > 0) {
+        tag.append('-');
+      }
+      tag.append(version[1]);
+      lastModified = Math.max(lastModified, (Long) version[2]);
+    }
+
+    ResourceVersion resourceVersion = new ResourceVersion("W/\"" + tag + '"', lastModified);
+    XLOGGER.exit(resourceVersion);
+    return resourceVersion;
+  }
+}
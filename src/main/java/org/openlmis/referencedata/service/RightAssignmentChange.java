@@ -0,0 +1,86 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Describes which part of the data that right assignments are generated from has been changed.
+ * It is used to find users whose right assignments have to be recalculated instead of
+ * regenerating the whole right assignments table.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RightAssignmentChange {
+  private final Set<UUID> roleIds;
+  private final Set<UUID> supervisoryNodeIds;
+  private final Set<UUID> requisitionGroupIds;
+  private final Set<UUID> facilityIds;
+
+  public static RightAssignmentChange ofRole(UUID roleId) {
+    return new RightAssignmentChange(singleton(roleId), emptySet(), emptySet(), emptySet());
+  }
+
+  public static RightAssignmentChange ofFacility(UUID facilityId) {
+    return new RightAssignmentChange(emptySet(), emptySet(), emptySet(), singleton(facilityId));
+  }
+
+  public static RightAssignmentChange ofRequisitionGroup(UUID requisitionGroupId) {
+    return new RightAssignmentChange(emptySet(), emptySet(), singleton(requisitionGroupId),
+        emptySet());
+  }
+
+  /**
+   * Creates a change of a supervisory node. Related nodes (like the parent or child nodes) and
+   * the requisition group attached to the node are also taken into account because their
+   * supervision hierarchy could have been changed too.
+   *
+   * @param supervisoryNodeId  ID of the changed supervisory node
+   * @param relatedNodeIds     IDs of nodes related to the changed node, may contain nulls
+   * @param requisitionGroupId ID of the requisition group attached to the node, may be null
+   */
+  public static RightAssignmentChange ofSupervisoryNode(UUID supervisoryNodeId,
+      Collection<UUID> relatedNodeIds, UUID requisitionGroupId) {
+    Set<UUID> supervisoryNodeIds = new HashSet<>();
+    supervisoryNodeIds.add(supervisoryNodeId);
+    relatedNodeIds
+        .stream()
+        .filter(Objects::nonNull)
+        .forEach(supervisoryNodeIds::add);
+
+    Set<UUID> requisitionGroupIds = null == requisitionGroupId
+        ? emptySet()
+        : singleton(requisitionGroupId);
+
+    return new RightAssignmentChange(emptySet(), supervisoryNodeIds, requisitionGroupIds,
+        emptySet());
+  }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.openlmis.referencedata.dto.RightAssignmentDto;
+
+/**
+ * Result of comparing the content of the right assignments table with the right assignments
+ * that would be produced by a full regeneration.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public final class RightAssignmentConsistencyReport {
+
+  /**
+   * Right assignments which would be created by a full regeneration but are not in the table.
+   */
+  private final Set<RightAssignmentDto> missing;
+
+  /**
+   * Right assignments which are in the table but would not be created by a full regeneration.
+   */
+  private final Set<RightAssignmentDto> unexpected;
+
+  public boolean isConsistent() {
+    return missing.isEmpty() && unexpected.isEmpty();
+  }
+
+}
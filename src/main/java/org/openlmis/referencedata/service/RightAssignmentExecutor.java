@@ -15,6 +15,7 @@
 
 package org.openlmis.referencedata.service;
 
+import java.util.concurrent.RejectedExecutionException;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -51,8 +52,10 @@ public class RightAssignmentExecutor {
   public ThreadPoolTaskExecutor rightAssignmentTaskExecutor() {
     ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
     threadPoolTaskExecutor.setCorePoolSize(corePoolSize);
-    threadPoolTaskExecutor.setRejectedExecutionHandler((runnable, executor) ->
-        XLOGGER.error("Thread pool for Right Assignment Regeneration exceeded"));
+    threadPoolTaskExecutor.setRejectedExecutionHandler((runnable, executor) -> {
+      XLOGGER.error("Thread pool for Right Assignment Regeneration exceeded");
+      throw new RejectedExecutionException("Right Assignment Regeneration rejected");
+    });
     threadPoolTaskExecutor.setMaxPoolSize(maxPoolSize);
     threadPoolTaskExecutor.setQueueCapacity(queueCapacity);
     threadPoolTaskExecutor.setKeepAliveSeconds(threadTimeout);
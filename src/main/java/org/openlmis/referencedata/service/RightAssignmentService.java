@@ -16,33 +16,44 @@
 package org.openlmis.referencedata.service;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
-import org.apache.commons.lang3.tuple.MutablePair;
+import java.util.stream.Stream;
 import org.openlmis.referencedata.dto.RightAssignmentDto;
 import org.openlmis.referencedata.util.Resource2Db;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.AsyncResult;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StreamUtils;
 
 /**
@@ -51,43 +62,232 @@ import org.springframework.util.StreamUtils;
  * right assignments. This component only runs when the "refresh-db" Spring profile is set.
  */
 @Service
+@SuppressWarnings("PMD.TooManyMethods")
 public class RightAssignmentService {
 
   private static final XLogger XLOGGER = XLoggerFactory.getXLogger(RightAssignmentService.class);
 
   private static final String USER_ID = "userid";
   private static final String RIGHT_NAME = "rightname";
+  private static final String FACILITY_ID = "facilityid";
+  private static final String PROGRAM_ID = "programid";
+  private static final String USER_IDS = "userIds";
+  private static final String RIGHT_ASSIGNMENTS_TABLE = "referencedata.right_assignments";
+  private static final String RIGHT_ASSIGNMENTS_SHADOW_TABLE =
+      "referencedata.right_assignments_shadow";
   private static final String RIGHT_ASSIGNMENTS_PATH = "classpath:db/right-assignments/";
 
+  static final int USER_BATCH_SIZE = 500;
+
   static final String DELETE_SQL = "DELETE FROM referencedata.right_assignments;";
 
+  static final String DELETE_ONE_SQL = "DELETE FROM referencedata.right_assignments"
+      + " WHERE userid = ? AND rightname = ?"
+      + " AND facilityid IS NOT DISTINCT FROM ? AND programid IS NOT DISTINCT FROM ?;";
+
+  static final String SELECT_ALL_SQL = "SELECT userid, rightname, facilityid, programid"
+      + " FROM referencedata.right_assignments";
+
+  static final String SELECT_BY_USERS_SQL = SELECT_ALL_SQL + " WHERE userid IN (:userIds)";
+
+  static final String SELECT_SUPERVISORY_NODES_SQL = "SELECT id, parentid"
+      + " FROM referencedata.supervisory_nodes";
+
+  // Serializes full and incremental regenerations so they never modify the table concurrently
+  static final String LOCK_SQL =
+      "SELECT pg_advisory_xact_lock(hashtext('referencedata.right_assignments'));";
+
   @Value(value = RIGHT_ASSIGNMENTS_PATH + "get_right_assignments.sql")
   private Resource rightAssignmentsResource;
 
-  @Value(value = RIGHT_ASSIGNMENTS_PATH + "get_all_supervised_facilities_from_node.sql")
+  @Value(value = RIGHT_ASSIGNMENTS_PATH + "get_right_assignments_for_users.sql")
+  private Resource rightAssignmentsForUsersResource;
+
+  @Value(value = RIGHT_ASSIGNMENTS_PATH + "get_supervised_facilities_by_node.sql")
   private Resource supervisedFacilitiesResource;
 
+  @Value(value = RIGHT_ASSIGNMENTS_PATH + "get_users_affected_by_change.sql")
+  private Resource affectedUsersResource;
+
+  @Value(value = RIGHT_ASSIGNMENTS_PATH + "create_right_assignments_shadow.sql")
+  private Resource createShadowTableResource;
+
+  @Value(value = RIGHT_ASSIGNMENTS_PATH + "swap_right_assignments_shadow.sql")
+  private Resource swapShadowTableResource;
+
+  @Value("${rightAssignments.incremental.verify}")
+  private boolean verifyIncrementalRegeneration;
+
+  @Value("${rightAssignments.shadowTable.enabled}")
+  private boolean useShadowTable;
+
   @Autowired
   private JdbcTemplate template;
 
+  @Autowired
+  private NamedParameterJdbcTemplate namedTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private PermissionIndex permissionIndex;
+
+  @Autowired
+  @Qualifier("rightAssignmentTaskExecutor")
+  private TaskExecutor rightAssignmentTaskExecutor;
+
+  private final Object rebuildMonitor = new Object();
+
+  // Rebuild which has been scheduled but has not started yet, null if there is none
+  private CompletableFuture<Void> pendingRebuild;
+
   /**
-   * Re-generates right assignments. This operation needs to be transactional so that dropping 
-   * and re-generating is one transaction. The isolation level is specified to READ_COMMITTED, 
-   * to allow proper reads on the right assignments table. This is so that any permission checks 
-   * do not have to wait for this re-generation to finish, but can use the "old" right 
-   * assignments. This is acceptable since the right assignments table is not expected to change 
-   * very often, and the re-generation could take several seconds to finish.
+   * Schedules re-generation of all right assignments. Requests which arrive before a scheduled
+   * re-generation starts are coalesced into it, so at most one re-generation runs and at most
+   * one waits for it at any time. A request which arrives while a re-generation is running
+   * schedules a new one, because the running one might not see the latest changes.
+   *
+   * @return future completed when the re-generation serving this request finishes
    */
-  @Async("rightAssignmentTaskExecutor")
-  @Transactional(isolation = Isolation.READ_COMMITTED)
   public Future<Void> regenerateRightAssignments() {
+    synchronized (rebuildMonitor) {
+      if (null != pendingRebuild) {
+        XLOGGER.debug("Right assignment re-generation already pending, coalescing request");
+        return pendingRebuild;
+      }
+
+      CompletableFuture<Void> rebuild = new CompletableFuture<>();
+      pendingRebuild = rebuild;
+
+      try {
+        rightAssignmentTaskExecutor.execute(() -> runRebuild(rebuild));
+      } catch (RuntimeException ex) {
+        pendingRebuild = null;
+        rebuild.completeExceptionally(ex);
+      }
+
+      return rebuild;
+    }
+  }
+
+  /**
+   * Re-generates right assignments of users affected by the given change. Right assignments of
+   * other users are left untouched and only the difference between the current and the expected
+   * right assignments of affected users is written, so permission checks of other users are not
+   * slowed down by this operation.
+   *
+   * @param change describes what has been changed
+   */
+  @Transactional(isolation = Isolation.READ_COMMITTED)
+  public void regenerateRightAssignments(RightAssignmentChange change) {
+    regenerateRightAssignments(change, Collections.emptySet());
+  }
+
+  /**
+   * Re-generates right assignments of users affected by the given change. Users affected by the
+   * change before it was saved (see {@link #findAffectedUsers(RightAssignmentChange)}) should be
+   * passed if the change could move facilities out of their supervision, for example when
+   * a supervisory node gets a new parent.
+   *
+   * @param change                  describes what has been changed
+   * @param previouslyAffectedUsers IDs of users affected by the change before it was saved
+   */
+  @Transactional(isolation = Isolation.READ_COMMITTED)
+  public void regenerateRightAssignments(RightAssignmentChange change,
+      Set<UUID> previouslyAffectedUsers) {
+    Profiler profiler = new Profiler("REGENERATE_AFFECTED_RIGHT_ASSIGNMENTS");
+    profiler.setLogger(XLOGGER);
+    XLOGGER.entry(change);
+
+    profiler.start("LOCK_RIGHT_ASSIGNMENTS");
+    template.execute(LOCK_SQL);
+
+    profiler.start("FIND_AFFECTED_USERS");
+    Set<UUID> userIds = new HashSet<>(previouslyAffectedUsers);
+    userIds.addAll(findAffectedUsers(change));
+
+    try {
+      profiler.start("REGENERATE_RIGHT_ASSIGNMENTS_FOR_USERS");
+      regenerateRightAssignmentsForUsers(userIds);
+    } catch (IOException ioe) {
+      XLOGGER.warn("Error when re-generating right assignments: " + ioe.getMessage());
+    }
+
+    permissionIndex.invalidate(userIds);
+
+    if (verifyIncrementalRegeneration) {
+      profiler.start("CHECK_CONSISTENCY");
+      RightAssignmentConsistencyReport report = checkConsistency();
+
+      if (!report.isConsistent()) {
+        XLOGGER.error("Right assignments are inconsistent after change {}: {}", change, report);
+      }
+    }
+
+    XLOGGER.exit("Affected users: " + userIds.size());
+    profiler.stop().log();
+  }
+
+  private void runRebuild(CompletableFuture<Void> rebuild) {
+    synchronized (rebuildMonitor) {
+      // From now on new requests must schedule another rebuild
+      if (pendingRebuild == rebuild) {
+        pendingRebuild = null;
+      }
+    }
+
+    try {
+      TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+      transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+      transactionTemplate.execute(status -> {
+        rebuildRightAssignments();
+        return null;
+      });
+      rebuild.complete(null);
+    } catch (RuntimeException ex) {
+      XLOGGER.error("Error when re-generating right assignments", ex);
+      rebuild.completeExceptionally(ex);
+    }
+  }
+
+  /**
+   * Re-generates right assignments. This operation needs to run in one transaction so that
+   * dropping and re-generating is atomic. The isolation level is specified to READ_COMMITTED,
+   * to allow proper reads on the right assignments table. This is so that any permission checks
+   * do not have to wait for this re-generation to finish, but can use the "old" right
+   * assignments. This is acceptable since the right assignments table is not expected to change
+   * very often, and the re-generation could take several seconds to finish.
+   *
+   * <p>If the shadow table is enabled, right assignments are loaded into a new table which then
+   * replaces the live one, so the live table is locked only for the swap and no dead rows are
+   * left behind. Otherwise existing rows are deleted and new ones are inserted in place.
+   */
+  void rebuildRightAssignments() {
     Profiler profiler = new Profiler("REGENERATE_RIGHT_ASSIGNMENTS");
     profiler.setLogger(XLOGGER);
     XLOGGER.entry();
 
-    // Drop existing rows; we are regenerating from scratch
-    profiler.start("DROP_RIGHT_ASSIGNMENTS");
-    template.update(DELETE_SQL);
+    profiler.start("LOCK_RIGHT_ASSIGNMENTS");
+    template.execute(LOCK_SQL);
+
+    String targetTable = RIGHT_ASSIGNMENTS_TABLE;
+    if (useShadowTable) {
+      try {
+        profiler.start("CREATE_SHADOW_TABLE");
+        template.execute(resourceToString(createShadowTableResource));
+        targetTable = RIGHT_ASSIGNMENTS_SHADOW_TABLE;
+      } catch (IOException ioe) {
+        XLOGGER.warn("Error when creating shadow table, regenerating in place: "
+            + ioe.getMessage());
+      }
+    }
+
+    if (RIGHT_ASSIGNMENTS_TABLE.equals(targetTable)) {
+      // Drop existing rows; we are regenerating from scratch
+      profiler.start("DROP_RIGHT_ASSIGNMENTS");
+      template.update(DELETE_SQL);
+    }
 
     // Get a right assignment matrix from database
     profiler.start("GET_INTERMEDIATE_RIGHT_ASSIGNMENTS");
@@ -101,116 +301,221 @@ public class RightAssignmentService {
     profiler.start("RESOURCE_2_DB");
     Resource2Db r2db = new Resource2Db(template);
     try {
+      profiler.start("LOAD_SUPERVISION_GRAPH");
+      SupervisionGraph supervisionGraph = loadSupervisionGraph();
+
       profiler.start("CHANGE_SUPERVISORY_NODES_TO_FACILITIES_IN_RIGHT_ASSIGNMENTS");
       Set<RightAssignmentDto> rightAssignmentsToInsert = convertForInsert(dbRightAssignments,
-          supervisedFacilitiesResource);
+          supervisionGraph);
+      XLOGGER.debug("Expanded {} supervisory node and program pairs",
+          supervisionGraph.getExpandedCount());
+
+      profiler.start("COPY_INTO_DB");
+      copyRightAssignments(r2db, targetTable, rightAssignmentsToInsert);
 
-      profiler.start("INSERT_INTO_DB");
-      for (List partialRightAssignments : Iterables.partition(rightAssignmentsToInsert, 100)) {
-        insertFromDbRightAssignmentList(r2db, partialRightAssignments);
+      if (RIGHT_ASSIGNMENTS_SHADOW_TABLE.equals(targetTable)) {
+        profiler.start("SWAP_SHADOW_TABLE");
+        template.execute(resourceToString(swapShadowTableResource));
       }
     } catch (IOException ioe) {
       XLOGGER.warn("Error when getting inserting right assignments: " + ioe.getMessage());
     }
 
+    permissionIndex.invalidateAll();
+
     XLOGGER.exit();
     profiler.stop().log();
-    return new AsyncResult<>(null);
   }
 
-  private void insertFromDbRightAssignmentList(Resource2Db resource2Db,
-      List<RightAssignmentDto> rightAssignmentDtos) {
-    // Convert set of right assignments to insert to a set of SQL inserts
-    XLOGGER.debug("Convert right assignments to SQL inserts");
-    MutablePair dataWithHeader = new MutablePair<List<String>, List<Object[]>>();
-    dataWithHeader.setRight(rightAssignmentDtos.stream()
-        .map(rad -> rad.toColumnArray())
-        .collect(Collectors.toList()));
+  /**
+   * Finds users whose right assignments could be affected by the given change.
+   *
+   * @param change describes what has been changed
+   * @return IDs of affected users
+   */
+  @Transactional(readOnly = true)
+  public Set<UUID> findAffectedUsers(RightAssignmentChange change) {
+    MapSqlParameterSource params = new MapSqlParameterSource()
+        .addValue("roleIds", matchNothingIfEmpty(change.getRoleIds()))
+        .addValue("supervisoryNodeIds", matchNothingIfEmpty(change.getSupervisoryNodeIds()))
+        .addValue("requisitionGroupIds", matchNothingIfEmpty(change.getRequisitionGroupIds()))
+        .addValue("facilityIds", matchNothingIfEmpty(change.getFacilityIds()));
+
+    try {
+      return new HashSet<>(namedTemplate
+          .queryForList(resourceToString(affectedUsersResource), params, UUID.class));
+    } catch (IOException ioe) {
+      XLOGGER.warn("Error when getting affected users: " + ioe.getMessage());
+      return Collections.emptySet();
+    }
+  }
+
+  /**
+   * Compares the right assignments table with the output of the full regeneration. This is
+   * an expensive operation which is meant to verify that incremental regeneration leaves
+   * the table in the same state as the full one.
+   *
+   * @return report with differences between the table and the expected right assignments
+   */
+  @Transactional(readOnly = true)
+  public RightAssignmentConsistencyReport checkConsistency() {
+    Set<RightAssignmentDto> expected = new HashSet<>();
+    try {
+      expected = convertForInsert(getRightAssignmentsFromDbResource(rightAssignmentsResource),
+          loadSupervisionGraph());
+    } catch (IOException ioe) {
+      XLOGGER.warn("Error when getting right assignments: " + ioe.getMessage());
+    }
+
+    Set<RightAssignmentDto> actual = new HashSet<>(
+        template.query(SELECT_ALL_SQL, (ResultSet rs, int rowNum) -> toRightAssignment(rs)));
+
+    return new RightAssignmentConsistencyReport(
+        new HashSet<>(Sets.difference(expected, actual)),
+        new HashSet<>(Sets.difference(actual, expected)));
+  }
+
+  void regenerateRightAssignmentsForUsers(Set<UUID> userIds) throws IOException {
+    Resource2Db r2db = new Resource2Db(template);
+    String rightAssignmentsForUsersSql = resourceToString(rightAssignmentsForUsersResource);
+    SupervisionGraph supervisionGraph = loadSupervisionGraph();
+
+    for (List<UUID> userIdsBatch : Iterables.partition(userIds, USER_BATCH_SIZE)) {
+      MapSqlParameterSource params = new MapSqlParameterSource(USER_IDS, userIdsBatch);
+
+      Set<RightAssignmentDto> expected = convertForInsert(
+          namedTemplate.query(rightAssignmentsForUsersSql, params,
+              (ResultSet rs, int rowNum) -> toIntermediateRightAssignment(rs)),
+          supervisionGraph);
+      Set<RightAssignmentDto> existing = new HashSet<>(namedTemplate.query(SELECT_BY_USERS_SQL,
+          params, (ResultSet rs, int rowNum) -> toRightAssignment(rs)));
+
+      applyDifference(r2db, existing, expected);
+    }
+  }
+
+  void applyDifference(Resource2Db resource2Db, Set<RightAssignmentDto> existing,
+      Set<RightAssignmentDto> expected) {
+    List<Object[]> rightAssignmentsToDelete = Sets.difference(existing, expected)
+        .stream()
+        .map(rad -> new Object[]{rad.getUserId(), rad.getRightName(), rad.getFacilityId(),
+            rad.getProgramId()})
+        .collect(Collectors.toList());
+
+    if (!rightAssignmentsToDelete.isEmpty()) {
+      XLOGGER.debug("Delete {} right assignments", rightAssignmentsToDelete.size());
+      template.batchUpdate(DELETE_ONE_SQL, rightAssignmentsToDelete);
+    }
+
+    Set<RightAssignmentDto> rightAssignmentsToInsert = Sets.difference(expected, existing);
 
-    // set column headers
-    dataWithHeader.setLeft(Arrays.asList("id",
-        USER_ID,
-        RIGHT_NAME,
-        "facilityid",
-        "programid"));
+    if (!rightAssignmentsToInsert.isEmpty()) {
+      copyRightAssignments(resource2Db, RIGHT_ASSIGNMENTS_TABLE, rightAssignmentsToInsert);
+    }
+  }
 
-    // insert into right_assignments
-    XLOGGER.debug("Perform SQL inserts");
-    resource2Db.insertToDbFromBatchedPair("referencedata.right_assignments", dataWithHeader);
+  private void copyRightAssignments(Resource2Db resource2Db, String tableName,
+      Collection<RightAssignmentDto> rightAssignmentDtos) {
+    // Stream right assignments into the table, converting each one to a row on the fly
+    XLOGGER.debug("Copy right assignments into {}", tableName);
+    resource2Db.copyToDb(tableName,
+        Arrays.asList("id", USER_ID, RIGHT_NAME, FACILITY_ID, PROGRAM_ID),
+        rightAssignmentDtos
+            .stream()
+            .map(rad -> (Object[]) rad.toColumnArray())
+            .iterator());
   }
 
   List<RightAssignmentDto> getRightAssignmentsFromDbResource(Resource resource)
       throws IOException {
     return template.query(
         resourceToString(resource),
-        (ResultSet rs, int rowNum) -> {
-
-          RightAssignmentDto rightAssignmentMap = new RightAssignmentDto();
-          rightAssignmentMap.setUserId(UUID.fromString(rs.getString(USER_ID)));
-          rightAssignmentMap.setRightName(rs.getString(RIGHT_NAME));
-          if (null != rs.getString("facilityid")) {
-            rightAssignmentMap.setFacilityId(UUID.fromString(rs.getString("facilityid")));
-          }
-          if (null != rs.getString("programid")) {
-            rightAssignmentMap.setProgramId(UUID.fromString(rs.getString("programid")));
-          }
-          if (null != rs.getString("supervisorynodeid")) {
-            rightAssignmentMap.setSupervisoryNodeId(
-                UUID.fromString(rs.getString("supervisorynodeid")));
-          }
-          return rightAssignmentMap;
-        }
+        (ResultSet rs, int rowNum) -> toIntermediateRightAssignment(rs)
     );
   }
 
-  Set<RightAssignmentDto> convertForInsert(List<RightAssignmentDto> rightAssignments,
-      Resource supervisedFacilitiesResource)
-      throws IOException {
-    Set<RightAssignmentDto> rightAssignmentsToInsert = new HashSet<>();
-    for (RightAssignmentDto rightAssignment : rightAssignments) {
+  private RightAssignmentDto toIntermediateRightAssignment(ResultSet rs) throws SQLException {
+    RightAssignmentDto rightAssignmentMap = toRightAssignment(rs);
+    if (null != rs.getString("supervisorynodeid")) {
+      rightAssignmentMap.setSupervisoryNodeId(
+          UUID.fromString(rs.getString("supervisorynodeid")));
+    }
+    return rightAssignmentMap;
+  }
+
+  private RightAssignmentDto toRightAssignment(ResultSet rs) throws SQLException {
+    RightAssignmentDto rightAssignmentMap = new RightAssignmentDto();
+    rightAssignmentMap.setUserId(UUID.fromString(rs.getString(USER_ID)));
+    rightAssignmentMap.setRightName(rs.getString(RIGHT_NAME));
+    if (null != rs.getString(FACILITY_ID)) {
+      rightAssignmentMap.setFacilityId(UUID.fromString(rs.getString(FACILITY_ID)));
+    }
+    if (null != rs.getString(PROGRAM_ID)) {
+      rightAssignmentMap.setProgramId(UUID.fromString(rs.getString(PROGRAM_ID)));
+    }
+    return rightAssignmentMap;
+  }
+
+  /**
+   * Loads the whole supervision hierarchy: supervisory node tree and facilities supervised
+   * directly by each node for each program.
+   */
+  SupervisionGraph loadSupervisionGraph() throws IOException {
+    SupervisionGraph supervisionGraph = new SupervisionGraph();
 
-      if (null != rightAssignment.getSupervisoryNodeId()) {
+    template.query(SELECT_SUPERVISORY_NODES_SQL, (RowCallbackHandler) rs ->
+        supervisionGraph.addNode(toUuid(rs, "id"), toUuid(rs, "parentid")));
+    template.query(resourceToString(supervisedFacilitiesResource), (RowCallbackHandler) rs ->
+        supervisionGraph.addSupervisedFacility(toUuid(rs, "supervisorynodeid"),
+            toUuid(rs, PROGRAM_ID), toUuid(rs, FACILITY_ID)));
 
-        // Special case: supervisory node is present. We need to expand the supervisory node and 
-        // turn it into a list of all facility IDs being supervised by this node.
+    return supervisionGraph;
+  }
 
-        // Get all supervised facilities. Add each facility to the set.
-        List<UUID> facilityIds = getSupervisedFacilityIds(supervisedFacilitiesResource,
-            rightAssignment.getSupervisoryNodeId(),
-            rightAssignment.getProgramId());
+  /**
+   * Converts intermediate right assignments into right assignments which can be inserted into
+   * the database. Supervisory nodes are expanded into all supervised facilities using
+   * the given graph. Right assignments are converted in parallel.
+   */
+  Set<RightAssignmentDto> convertForInsert(List<RightAssignmentDto> rightAssignments,
+      SupervisionGraph supervisionGraph) {
+    return rightAssignments
+        .parallelStream()
+        .flatMap(rightAssignment -> {
+          if (null != rightAssignment.getSupervisoryNodeId()) {
 
-        for (UUID facilityId : facilityIds) {
+            // Special case: supervisory node is present. We need to expand the supervisory node
+            // and turn it into a list of all facility IDs being supervised by this node.
+            return supervisionGraph
+                .getSupervisedFacilityIds(rightAssignment.getSupervisoryNodeId(),
+                    rightAssignment.getProgramId())
+                .stream()
+                .map(facilityId -> new RightAssignmentDto(
+                    rightAssignment.getUserId(),
+                    rightAssignment.getRightName(),
+                    facilityId,
+                    rightAssignment.getProgramId()));
+          }
 
-          rightAssignmentsToInsert.add(new RightAssignmentDto(
+          // All other cases: home facility supervision, fulfillment and direct right
+          // assignments. Just copy everything but the supervisoryNodeId.
+          return Stream.of(new RightAssignmentDto(
               rightAssignment.getUserId(),
               rightAssignment.getRightName(),
-              facilityId,
+              rightAssignment.getFacilityId(),
               rightAssignment.getProgramId()));
-        }
-      } else {
-
-        // All other cases: home facility supervision, fulfillment and direct right assignments.
-        // Just copy everything but the supervisoryNodeId and add it to the set.
-        rightAssignmentsToInsert.add(new RightAssignmentDto(
-            rightAssignment.getUserId(),
-            rightAssignment.getRightName(),
-            rightAssignment.getFacilityId(),
-            rightAssignment.getProgramId()));
-      }
-    }
-
-    return rightAssignmentsToInsert;
+        })
+        .collect(Collectors.toSet());
   }
 
-  private List<UUID> getSupervisedFacilityIds(Resource supervisedFacilitiesResource,
-      UUID supervisoryNodeId, UUID programId)
-      throws IOException {
+  private UUID toUuid(ResultSet rs, String columnName) throws SQLException {
+    String value = rs.getString(columnName);
+    return null == value ? null : UUID.fromString(value);
+  }
 
-    return template.queryForList(
-        resourceToString(supervisedFacilitiesResource),
-        UUID.class,
-        supervisoryNodeId,
-        programId);
+  // an IN clause needs at least one element; (NULL) is a valid list which matches no rows
+  private Collection<UUID> matchNothingIfEmpty(Collection<UUID> ids) {
+    return ids.isEmpty() ? Collections.singleton(null) : ids;
   }
 
   private String resourceToString(final Resource resource) throws IOException {
@@ -19,11 +19,11 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.startsWith;
 
 import java.util.UUID;
+import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.UnauthorizedException;
-import org.openlmis.referencedata.repository.RightAssignmentRepository;
-import org.openlmis.referencedata.repository.UserRepository;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.messagekeys.SystemMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.UserMessageKeys;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,13 +41,7 @@ public class RightService {
       SystemMessageKeys.ERROR_UNAUTHORIZED_GENERIC;
 
   @Autowired
-  private UserRepository userRepository;
-
-  @Autowired
-  private RightAssignmentRepository rightAssignmentRepository;
-
-  @Autowired
-  private AuthenticationHelper authenticationHelper;
+  private PermissionIndex permissionIndex;
 
   @Value("${auth.server.clientId}")
   private String serviceTokenClientId;
@@ -121,7 +115,7 @@ public class RightService {
         return true;
       }
     } else {
-      if (checkUserToken(rightName, allowUserTokens, expectedUserId)) {
+      if (checkUserToken(rightName, allowUserTokens, expectedUserId, authentication)) {
         XLOGGER.exit("User has right");
         return true;
       }
@@ -137,21 +131,25 @@ public class RightService {
     checkAdminRight(null, false, true, false, null);
   }
 
-  private boolean checkUserToken(String rightName, boolean allowUserTokens, UUID expectedUserId) {
+  private boolean checkUserToken(String rightName, boolean allowUserTokens, UUID expectedUserId,
+                                 OAuth2Authentication authentication) {
     if (!allowUserTokens) {
       return false;
     }
 
-    UUID userId = authenticationHelper.getCurrentUser().getId();
+    // user and right checks are answered by the permission index without querying the database
+    UUID userId = (UUID) authentication.getPrincipal();
+
+    if (!permissionIndex.userExists(userId)) {
+      throw new NotFoundException(UserMessageKeys.ERROR_NOT_FOUND);
+    }
 
-    if (null != expectedUserId
-        && userId.equals(expectedUserId)
-        && userRepository.existsById(userId)) {
+    if (userId.equals(expectedUserId)) {
       XLOGGER.exit("user id allowed to bypass right check");
       return true;
     }
 
-    if (rightAssignmentRepository.existsByUserIdAndRightName(userId, rightName)) {
+    if (permissionIndex.hasRight(userId, rightName)) {
       XLOGGER.exit("User has right");
       return true;
     }
@@ -0,0 +1,114 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * In-memory view of the supervision hierarchy used by right assignment regeneration. It holds
+ * the supervisory node tree and facilities supervised directly by each node for each program.
+ * Facilities supervised by a node (directly or through its descendants) are computed only once
+ * for each node and program pair and then memoized.
+ *
+ * <p>The graph should be fully populated before it is used. After that it is safe to expand
+ * supervisory nodes from many threads at once.
+ */
+class SupervisionGraph {
+
+  private final Map<UUID, Set<UUID>> childNodes = new HashMap<>();
+  private final Map<Pair<UUID, UUID>, Set<UUID>> directlySupervisedFacilities = new HashMap<>();
+  private final Map<Pair<UUID, UUID>, Set<UUID>> supervisedFacilities =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Adds a supervisory node to the tree.
+   *
+   * @param nodeId   ID of the supervisory node
+   * @param parentId ID of the parent node, null for a root node
+   */
+  void addNode(UUID nodeId, UUID parentId) {
+    if (null != parentId) {
+      childNodes.computeIfAbsent(parentId, key -> new HashSet<>()).add(nodeId);
+    }
+  }
+
+  /**
+   * Adds a facility supervised directly by the node (as a member of its requisition group) for
+   * the given program.
+   */
+  void addSupervisedFacility(UUID nodeId, UUID programId, UUID facilityId) {
+    directlySupervisedFacilities
+        .computeIfAbsent(ImmutablePair.of(nodeId, programId), key -> new HashSet<>())
+        .add(facilityId);
+  }
+
+  /**
+   * Returns IDs of all facilities supervised by the node for the given program, including
+   * facilities supervised by all descendant nodes.
+   */
+  Set<UUID> getSupervisedFacilityIds(UUID nodeId, UUID programId) {
+    Pair<UUID, UUID> key = ImmutablePair.of(nodeId, programId);
+    Set<UUID> facilityIds = supervisedFacilities.get(key);
+
+    if (null == facilityIds) {
+      facilityIds = Collections.unmodifiableSet(collectSupervisedFacilityIds(nodeId, programId));
+      Set<UUID> previous = supervisedFacilities.putIfAbsent(key, facilityIds);
+      facilityIds = null == previous ? facilityIds : previous;
+    }
+
+    return facilityIds;
+  }
+
+  /**
+   * Returns the number of node and program pairs which have been expanded so far.
+   */
+  int getExpandedCount() {
+    return supervisedFacilities.size();
+  }
+
+  // walks the subtree iteratively; the visited set protects against cycles in the node tree
+  private Set<UUID> collectSupervisedFacilityIds(UUID nodeId, UUID programId) {
+    Set<UUID> facilityIds = new HashSet<>();
+    Set<UUID> visited = new HashSet<>();
+    Deque<UUID> toVisit = new ArrayDeque<>();
+    toVisit.push(nodeId);
+
+    while (!toVisit.isEmpty()) {
+      UUID current = toVisit.pop();
+
+      if (visited.add(current)) {
+        facilityIds.addAll(directlySupervisedFacilities
+            .getOrDefault(ImmutablePair.of(current, programId), Collections.emptySet()));
+        childNodes
+            .getOrDefault(current, Collections.emptySet())
+            .forEach(toVisit::push);
+      }
+    }
+
+    return facilityIds;
+  }
+
+}
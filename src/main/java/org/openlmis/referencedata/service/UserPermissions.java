@@ -0,0 +1,205 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * Compact, immutable view of right assignments of a single user. Each right assignment is
+ * stored as five longs: right ID (see {@link PermissionIndex}), facility ID and program ID,
+ * and all right assignments are kept sorted in one array. This way checks for a right, a right
+ * at a facility and a right at a facility for a program are binary searches for a prefix.
+ *
+ * <p>A missing facility or program ID is stored as the nil UUID, which is never used as an ID
+ * of a facility or a program.
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+final class UserPermissions {
+
+  static final int ENTRY_SIZE = 5;
+
+  private static final Comparator<long[]> ENTRY_ORDER = (left, right) -> {
+    for (int i = 0; i < ENTRY_SIZE; ++i) {
+      int result = Long.compare(left[i], right[i]);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  };
+
+  private final boolean userExists;
+  private final long[] entries;
+  private final long loadedAt;
+
+  // computed on first use and kept, like the hash code of a string
+  private volatile Integer permissionStringsHash;
+
+  private UserPermissions(boolean userExists, long[] entries, long loadedAt) {
+    this.userExists = userExists;
+    this.entries = entries;
+    this.loadedAt = loadedAt;
+  }
+
+  /**
+   * Creates permissions of a user who does not exist.
+   */
+  static UserPermissions ofMissingUser(long loadedAt) {
+    return new UserPermissions(false, new long[0], loadedAt);
+  }
+
+  /**
+   * Creates permissions of an existing user.
+   *
+   * @param rightAssignments right assignments, each as an array of right ID, facility ID and
+   *                         program ID; facility ID and program ID may be null
+   * @param loadedAt         time in milliseconds when right assignments were loaded
+   */
+  static UserPermissions of(List<Object[]> rightAssignments, long loadedAt) {
+    List<long[]> sorted = new ArrayList<>(rightAssignments.size());
+    for (Object[] rightAssignment : rightAssignments) {
+      sorted.add(toEntry((Integer) rightAssignment[0], (UUID) rightAssignment[1],
+          (UUID) rightAssignment[2]));
+    }
+    sorted.sort(ENTRY_ORDER);
+
+    long[] entries = new long[sorted.size() * ENTRY_SIZE];
+    for (int i = 0; i < sorted.size(); ++i) {
+      System.arraycopy(sorted.get(i), 0, entries, i * ENTRY_SIZE, ENTRY_SIZE);
+    }
+
+    return new UserPermissions(true, entries, loadedAt);
+  }
+
+  boolean userExists() {
+    return userExists;
+  }
+
+  long getLoadedAt() {
+    return loadedAt;
+  }
+
+  int size() {
+    return entries.length / ENTRY_SIZE;
+  }
+
+  boolean hasRight(int rightId) {
+    return containsPrefix(new long[]{rightId});
+  }
+
+  boolean hasRight(int rightId, UUID facilityId) {
+    return containsPrefix(Arrays.copyOf(toEntry(rightId, facilityId, null), 3));
+  }
+
+  boolean hasRight(int rightId, UUID facilityId, UUID programId) {
+    return containsPrefix(toEntry(rightId, facilityId, programId));
+  }
+
+  /**
+   * Returns right assignments in the permission string format: right name, followed by facility
+   * ID and program ID if they are present, separated by a pipe.
+   *
+   * @param rightNames resolves a right ID to the right name
+   */
+  Set<String> toPermissionStrings(IntFunction<String> rightNames) {
+    if (entries.length == 0) {
+      return Collections.emptySet();
+    }
+
+    Set<String> permissionStrings = new HashSet<>();
+    for (int offset = 0; offset < entries.length; offset += ENTRY_SIZE) {
+      StringBuilder permissionString = new StringBuilder(
+          rightNames.apply((int) entries[offset]));
+      UUID facilityId = toUuid(entries[offset + 1], entries[offset + 2]);
+      UUID programId = toUuid(entries[offset + 3], entries[offset + 4]);
+
+      if (null != facilityId || null != programId) {
+        permissionString.append('|').append(facilityId);
+      }
+      if (null != programId) {
+        permissionString.append('|').append(programId);
+      }
+
+      permissionStrings.add(permissionString.toString());
+    }
+
+    return permissionStrings;
+  }
+
+  /**
+   * Returns the hash code of {@link #toPermissionStrings(IntFunction)}. It is computed once, so
+   * checking whether permission strings changed does not require building them again.
+   */
+  int permissionStringsHashCode(IntFunction<String> rightNames) {
+    Integer hashCode = permissionStringsHash;
+    if (null == hashCode) {
+      hashCode = toPermissionStrings(rightNames).hashCode();
+      permissionStringsHash = hashCode;
+    }
+    return hashCode;
+  }
+
+  private boolean containsPrefix(long[] prefix) {
+    int low = 0;
+    int high = size();
+
+    // find the first entry which is not lower than the prefix
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (comparePrefix(middle * ENTRY_SIZE, prefix) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    return low < size() && comparePrefix(low * ENTRY_SIZE, prefix) == 0;
+  }
+
+  private int comparePrefix(int offset, long[] prefix) {
+    for (int i = 0; i < prefix.length; ++i) {
+      int result = Long.compare(entries[offset + i], prefix[i]);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  private static long[] toEntry(int rightId, UUID facilityId, UUID programId) {
+    return new long[]{
+        rightId,
+        null == facilityId ? 0 : facilityId.getMostSignificantBits(),
+        null == facilityId ? 0 : facilityId.getLeastSignificantBits(),
+        null == programId ? 0 : programId.getMostSignificantBits(),
+        null == programId ? 0 : programId.getLeastSignificantBits()
+    };
+  }
+
+  private static UUID toUuid(long mostSignificantBits, long leastSignificantBits) {
+    return mostSignificantBits == 0 && leastSignificantBits == 0
+        ? null
+        : new UUID(mostSignificantBits, leastSignificantBits);
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.util;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers SQL functions that JPQL and criteria queries can use on top of the ones provided by
+ * the dialect.
+ */
+public class CustomSqlFunctionsContributor implements MetadataBuilderContributor {
+
+  /**
+   * Checks whether the given id and version number are one of the version identities passed as
+   * two arrays in the PostgreSQL text format - the first with ids and the second with version
+   * numbers. The whole set is bound as two parameters, no matter how many identities it has.
+   */
+  public static final String VERSION_IDENTITY_IN = "version_identity_in";
+
+  @Override
+  public void contribute(MetadataBuilder metadataBuilder) {
+    metadataBuilder.applySqlFunction(VERSION_IDENTITY_IN, new SQLFunctionTemplate(
+        StandardBasicTypes.BOOLEAN,
+        "((?1, ?2) IN (SELECT * FROM unnest(CAST(?3 AS uuid[]), CAST(?4 AS bigint[]))))"));
+  }
+}
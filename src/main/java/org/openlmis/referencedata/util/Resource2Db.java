@@ -20,8 +20,11 @@ import static java.util.stream.Collectors.joining;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.apache.commons.collections4.IteratorUtils;
@@ -33,9 +36,12 @@ import org.apache.commons.io.input.BOMInputStream;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.tuple.MutablePair;
 import org.apache.commons.lang3.tuple.Pair;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 /**
@@ -44,9 +50,13 @@ import org.springframework.jdbc.core.JdbcTemplate;
  * attached datasource. It knows what SQL to run, or what data to load, based on Spring
  * {@link Resource}'s passed in.
  */
+@SuppressWarnings("PMD.TooManyMethods")
 public class Resource2Db {
   private static final XLogger XLOGGER = XLoggerFactory.getXLogger(Resource2Db.class);
 
+  // rows are sent to the database whenever the buffer reaches this number of characters
+  static final int COPY_BUFFER_SIZE = 64 * 1024;
+
   private final JdbcTemplate template;
 
   /**
@@ -89,6 +99,117 @@ public class Resource2Db {
     XLOGGER.exit();
   }
 
+  /**
+   * Copy into the database (a table) from a Resource with CSV data. Unlike
+   * {@link #insertToDbFromCsv(String, Resource)} the rows are streamed to the database with
+   * PostgreSQL COPY, so the Resource is never loaded into memory as a whole.
+   * @param tableName the name of the table (incl schema) to load the data into.
+   * @param resource the Resource as a CSV, with a header, that has the data to load.
+   * @return the number of rows copied.
+   * @throws IOException if the Resource can't be used.
+   * @throws NullPointerException if any of the arguments are null
+   * @throws IllegalArgumentException if the tableName is blank or a record is inconsistent
+   */
+  public long copyToDbFromCsv(String tableName, Resource resource) throws IOException {
+    XLOGGER.entry(tableName, resource);
+    Validate.notBlank(tableName);
+    Validate.notNull(resource);
+
+    try (InputStreamReader isReader = new InputStreamReader(
+        new BOMInputStream(resource.getInputStream(), ByteOrderMark.UTF_8))) {
+      CSVParser parser = CSVFormat.DEFAULT.withHeader().withNullString("").parse(isReader);
+      List<String> columns = new ArrayList<>(parser.getHeaderMap().keySet());
+      XLOGGER.info("Read header: " + columns);
+
+      Iterator<Object[]> rows = IteratorUtils.transformedIterator(parser.iterator(), record -> {
+        if (!record.isConsistent()) {
+          throw new IllegalArgumentException("CSV record inconsistent: " + record);
+        }
+        return IteratorUtils.toArray(record.iterator());
+      });
+
+      long count = copyToDb(tableName, columns, rows);
+      XLOGGER.exit(count);
+      return count;
+    }
+  }
+
+  /**
+   * Copies data into a single table with PostgreSQL COPY FROM STDIN (CSV format). Rows are
+   * taken from the iterator and sent to the database in small chunks, so they never have to be
+   * held in memory all at once. This is much faster than {@link #insertToDbFromBatchedPair}
+   * for large amounts of data.
+   * @param tableName the name of the table (including schema) to copy into.
+   * @param columns an ordered list of column names.
+   * @param rows rows to copy, each row is similarly ordered as the columns.
+   * @return the number of rows copied.
+   */
+  public long copyToDb(String tableName, List<String> columns, Iterator<Object[]> rows) {
+    XLOGGER.entry(tableName);
+    Validate.notBlank(tableName);
+    Validate.notEmpty(columns);
+    Validate.notNull(rows);
+
+    String copySql = String.format("COPY %s (%s) FROM STDIN WITH (FORMAT csv)",
+        tableName,
+        String.join(",", columns));
+    XLOGGER.info("Copy SQL: " + copySql);
+
+    Long count = template.execute((ConnectionCallback<Long>) connection ->
+        copyRows(connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql), rows));
+
+    XLOGGER.exit("Total " + tableName + " rows copied: " + count);
+    return count;
+  }
+
+  private long copyRows(CopyIn copyIn, Iterator<Object[]> rows) throws SQLException {
+    StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE);
+
+    try {
+      while (rows.hasNext()) {
+        appendCsvRow(buffer, rows.next());
+
+        if (buffer.length() >= COPY_BUFFER_SIZE) {
+          writeToCopy(copyIn, buffer);
+        }
+      }
+
+      writeToCopy(copyIn, buffer);
+      return copyIn.endCopy();
+    } finally {
+      if (copyIn.isActive()) {
+        copyIn.cancelCopy();
+      }
+    }
+  }
+
+  private void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+    byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+    copyIn.writeToCopy(bytes, 0, bytes.length);
+    buffer.setLength(0);
+  }
+
+  /*
+   appends a row in the CSV format expected by COPY - null values are written as nothing,
+   other values are always quoted so that an empty string is not read as null
+   */
+  static void appendCsvRow(StringBuilder buffer, Object[] row) {
+    for (int i = 0; i < row.length; ++i) {
+      if (i > 0) {
+        buffer.append(',');
+      }
+
+      if (null != row[i]) {
+        buffer
+            .append('"')
+            .append(row[i].toString().replace("\"", "\"\""))
+            .append('"');
+      }
+    }
+
+    buffer.append('\n');
+  }
+
   /*
    converts a Resource into a List of Strings - used when those strings are direct SQL
    */
@@ -181,7 +302,9 @@ public class Resource2Db {
     XLOGGER.info("Insert SQL: " + insertSql);
 
     List<Object[]> data = dataWithHeader.getRight();
-    data.forEach(e -> XLOGGER.info(tableName + ": " + Arrays.toString(e)));
+    if (XLOGGER.isTraceEnabled()) {
+      data.forEach(e -> XLOGGER.trace(tableName + ": " + Arrays.toString(e)));
+    }
     int[] updateCount = template.batchUpdate(insertSql, data);
 
     XLOGGER.exit("Total " + tableName + " inserts: " + Arrays.stream(updateCount).sum());
@@ -30,11 +30,13 @@ import org.apache.commons.lang3.StringUtils;
 import org.javers.core.Javers;
 import org.javers.core.changelog.SimpleTextChangeLog;
 import org.javers.core.diff.Change;
-import org.javers.core.json.JsonConverter;
 import org.javers.repository.jql.QueryBuilder;
 import org.openlmis.referencedata.domain.BaseEntity;
 import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.service.AuditLogService;
+import org.openlmis.referencedata.service.AuditLogService.AuditLogPage;
 import org.openlmis.referencedata.service.ObjectReferenceExpander;
+import org.openlmis.referencedata.service.ResourceVersion;
 import org.openlmis.referencedata.service.RightService;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.Pagination;
@@ -56,6 +58,7 @@ public abstract class BaseController {
   public static final DateTimeFormatter RFC_7231_FORMAT =
       DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss z").withZone(ZoneId.of("GMT"));
   public static final String API_PATH = "/api";
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
   @Autowired
   RightService rightService;
@@ -66,6 +69,9 @@ public abstract class BaseController {
   @Autowired
   private ObjectReferenceExpander objectReferenceExpander;
 
+  @Autowired
+  private AuditLogService auditLogService;
+
   protected void checkAdminRight(String rightName, Profiler profiler) {
     checkAdminRight(rightName, true, null, profiler);
   }
@@ -91,17 +97,32 @@ public abstract class BaseController {
     return Pagination.getPage(originalList, pageable, totalElements);
   }
 
+  /**
+   * Returns the audit log response. JSON audit logs are read page by page from the database;
+   * if there may be more changes, the cursor of the next page is returned in the
+   * {@value #NEXT_CURSOR_HEADER} header and can be passed back as the cursor of the next request.
+   * The cursor is ignored by the text audit log.
+   */
   protected ResponseEntity<String> getAuditLogResponse(Class type, UUID id, String author,
-                                                       String changedPropertyName,
+                                                       String changedPropertyName, Long cursor,
                                                        Pageable page, boolean returnJson) {
-    String auditLogs = getAuditLog(type, id, author, changedPropertyName, page, returnJson);
+    HttpHeaders headers = new HttpHeaders();
 
-    MediaType contentType = returnJson ? MediaType.APPLICATION_JSON : MediaType.TEXT_PLAIN;
+    if (!returnJson) {
+      headers.setContentType(MediaType.TEXT_PLAIN);
+      String auditLogs = getAuditLogText(type, id, author, changedPropertyName, page);
+      return new ResponseEntity<>(auditLogs, headers, HttpStatus.OK);
+    }
 
-    HttpHeaders headers = new HttpHeaders();
-    headers.setContentType(contentType);
+    AuditLogPage auditLog = auditLogService.getChanges(type, id, author, changedPropertyName,
+        cursor, Pagination.getPageNumber(page), Pagination.getPageSize(page));
 
-    return new ResponseEntity<>(auditLogs, headers, HttpStatus.OK);
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    if (null != auditLog.getNextCursor()) {
+      headers.set(NEXT_CURSOR_HEADER, String.valueOf(auditLog.getNextCursor()));
+    }
+
+    return new ResponseEntity<>(auditLog.getChanges(), headers, HttpStatus.OK);
   }
 
   /**
@@ -149,9 +170,10 @@ public abstract class BaseController {
    */
   protected String getAuditLogJson(Class type, UUID id, String author,
                                      String changedPropertyName, Pageable page) {
-    List<Change> changes = getChangesByType(type, id, author, changedPropertyName, page);
-    JsonConverter jsonConverter = javers.getJsonConverter();
-    return jsonConverter.toJson(changes);
+    return auditLogService
+        .getChanges(type, id, author, changedPropertyName, null,
+            Pagination.getPageNumber(page), Pagination.getPageSize(page))
+        .getChanges();
   }
 
 
@@ -191,6 +213,18 @@ public abstract class BaseController {
     return ZonedDateTime.parse(httpDate, RFC_7231_FORMAT);
   }
 
+  /**
+   * Checks whether the client already has the given version of a resource, based on
+   * the If-None-Match and If-Modified-Since request headers.
+   *
+   * @param version current version of the resource, may be null if it is not tracked
+   */
+  protected boolean isNotModified(ResourceVersion version, String ifNoneMatch,
+      String ifModifiedSince) {
+    return null != version && version.isNotModified(ifNoneMatch,
+        null == ifModifiedSince ? null : parseHttpDateToZonedDateTime(ifModifiedSince));
+  }
+
   void validateCsvFile(MultipartFile csvFile) {
     if (csvFile == null || csvFile.isEmpty()) {
       throw new ValidationMessageException(ERROR_FILE_IS_EMPTY);
@@ -219,8 +253,8 @@ public abstract class BaseController {
       queryBuilder = QueryBuilder.byClass(type);
     }
 
-    int skip = Pagination.getPageNumber(page);
     int limit = Pagination.getPageSize(page);
+    int skip = Pagination.getPageNumber(page) * limit;
 
     queryBuilder = queryBuilder.withNewObjectChanges(true).skip(skip).limit(limit);
 
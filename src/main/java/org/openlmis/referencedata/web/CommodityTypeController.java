@@ -188,6 +188,8 @@ public class CommodityTypeController extends BaseController {
    *               If null or empty, changes are returned regardless of author.
    * @param changedPropertyName The name of the property about which changes should be returned.
    *               If null or empty, changes associated with any and all properties are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param page A Pageable object that allows client to optionally add "page" (page number)
    *             and "size" (page size) query parameters to the request.
    */
@@ -199,6 +201,7 @@ public class CommodityTypeController extends BaseController {
       @RequestParam(name = "author", required = false, defaultValue = "") String author,
       @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
           String changedPropertyName,
+      @RequestParam(name = "cursor", required = false) Long cursor,
       //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
@@ -212,7 +215,7 @@ public class CommodityTypeController extends BaseController {
       throw new NotFoundException(CommodityTypeMessageKeys.ERROR_NOT_FOUND);
     }
 
-    return getAuditLogResponse(CommodityType.class, id, author, changedPropertyName, page,
+    return getAuditLogResponse(CommodityType.class, id, author, changedPropertyName, cursor, page,
         returnJson);
   }
 }
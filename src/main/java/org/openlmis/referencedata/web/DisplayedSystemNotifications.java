@@ -0,0 +1,375 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.SYSTEM_NOTIFICATIONS;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.openlmis.referencedata.domain.SystemNotification;
+import org.openlmis.referencedata.dto.SystemNotificationDto;
+import org.openlmis.referencedata.repository.SystemNotificationRepository;
+import org.openlmis.referencedata.service.ObjectReferenceExpander;
+import org.openlmis.referencedata.service.ResourceVersion;
+import org.openlmis.referencedata.service.ResourceVersionRegistry;
+import org.openlmis.referencedata.util.Pagination;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * In-memory snapshot of system notifications which are currently displayed. The snapshot is
+ * kept together with the version of system notifications it was built from (see
+ * {@link ResourceVersionRegistry}) and the time when the next notification starts or expires.
+ * It is rebuilt on the first request after either of them passes.
+ *
+ * <p>The snapshot is also refreshed in the background, right after this instance changes a system
+ * notification, when a notification starts or expires and periodically to pick up changes made
+ * by other instances. Every time the displayed notifications change, they are sent to clients
+ * subscribed to the stream.
+ */
+@Component
+@SuppressWarnings("PMD.TooManyMethods")
+public class DisplayedSystemNotifications {
+
+  private static final XLogger XLOGGER =
+      XLoggerFactory.getXLogger(DisplayedSystemNotifications.class);
+
+  static final String AUTHOR = "author";
+  static final String EVENT_NAME = "systemNotifications";
+
+  // expiry dates are compared with the precision of the database
+  private static final Duration EXPIRY_PRECISION = Duration.ofNanos(1000);
+
+  @Autowired
+  private SystemNotificationRepository systemNotificationRepository;
+
+  @Autowired
+  private ResourceVersionRegistry resourceVersionRegistry;
+
+  @Autowired
+  private ObjectReferenceExpander objectReferenceExpander;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private Clock clock;
+
+  @Value("${service.url}")
+  private String serviceUrl;
+
+  @Value("${systemNotifications.refreshIntervalMillis}")
+  private long refreshIntervalMillis;
+
+  @Value("${systemNotifications.stream.timeoutMillis}")
+  private long streamTimeoutMillis;
+
+  private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+  private volatile Snapshot snapshot;
+  private Snapshot publishedSnapshot;
+  private ScheduledExecutorService scheduler;
+  private ScheduledFuture<?> boundaryRefresh;
+  private ZonedDateTime scheduledBoundary;
+
+  /**
+   * Starts refreshing the snapshot periodically.
+   */
+  @PostConstruct
+  public void start() {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalMillis, refreshIntervalMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops refreshing the snapshot and closes the streams.
+   */
+  @PreDestroy
+  public void stop() {
+    scheduler.shutdownNow();
+    subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    subscribers.clear();
+  }
+
+  /**
+   * Returns system notifications which are currently displayed, with or without the expanded
+   * author.
+   */
+  public Notifications getNotifications(boolean expandAuthor) {
+    return getSnapshot().get(expandAuthor);
+  }
+
+  /**
+   * Subscribes to changes of displayed system notifications. Currently displayed notifications
+   * are sent right away, and then every time they change.
+   */
+  public SseEmitter subscribe(boolean expandAuthor) {
+    SseEmitter emitter = createEmitter();
+    Subscriber subscriber = new Subscriber(emitter, expandAuthor);
+
+    emitter.onCompletion(() -> subscribers.remove(subscriber));
+    emitter.onTimeout(() -> subscribers.remove(subscriber));
+    emitter.onError(ex -> subscribers.remove(subscriber));
+
+    subscribers.add(subscriber);
+    send(subscriber, getNotifications(expandAuthor));
+
+    return emitter;
+  }
+
+  /**
+   * Refreshes the snapshot once the current transaction completes.
+   */
+  public void refreshAfterTransaction() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+              refreshInBackground();
+            }
+          });
+    } else {
+      refreshInBackground();
+    }
+  }
+
+  /**
+   * Rebuilds the snapshot if it is out of date and sends changed notifications to subscribers.
+   * It is only run by the scheduler, one refresh at a time.
+   */
+  void refresh() {
+    try {
+      Snapshot current = getSnapshot();
+      publish(current);
+      scheduleBoundaryRefresh(current.validUntil);
+    } catch (RuntimeException ex) {
+      XLOGGER.error("Could not refresh displayed system notifications", ex);
+    }
+  }
+
+  SseEmitter createEmitter() {
+    return new SseEmitter(streamTimeoutMillis);
+  }
+
+  private void refreshInBackground() {
+    if (null != scheduler && !scheduler.isShutdown()) {
+      scheduler.execute(this::refresh);
+    }
+  }
+
+  private Snapshot getSnapshot() {
+    // the version must be read before the snapshot is built, see ResourceVersionRegistry
+    ResourceVersion version = resourceVersionRegistry.getVersion(SYSTEM_NOTIFICATIONS);
+    String etag = null == version ? null : version.getEtag();
+
+    Snapshot current = snapshot;
+    if (isUpToDate(current, etag)) {
+      return current;
+    }
+
+    return rebuild(etag);
+  }
+
+  private synchronized Snapshot rebuild(String etag) {
+    Snapshot current = snapshot;
+    if (isUpToDate(current, etag)) {
+      return current;
+    }
+
+    Snapshot built = build(etag);
+    if (null != etag) {
+      // untracked versions are never cached, so changes are not missed
+      snapshot = built;
+    }
+
+    return built;
+  }
+
+  private boolean isUpToDate(Snapshot current, String etag) {
+    return null != etag && null != current && etag.equals(current.version)
+        && (null == current.validUntil || ZonedDateTime.now(clock).isBefore(current.validUntil));
+  }
+
+  private Snapshot build(String version) {
+    Profiler profiler = new Profiler("BUILD_DISPLAYED_SYSTEM_NOTIFICATIONS");
+    profiler.setLogger(XLOGGER);
+
+    final ZonedDateTime now = ZonedDateTime.now(clock);
+
+    profiler.start("FIND_DISPLAYED_SYSTEM_NOTIFICATIONS");
+    MultiValueMap<String, Object> queryParams = new LinkedMultiValueMap<>();
+    queryParams.add("isDisplayed", true);
+    List<SystemNotification> notifications = systemNotificationRepository
+        .search(new SystemNotificationSearchParams(queryParams),
+            PageRequest.of(Pagination.DEFAULT_PAGE_NUMBER, Pagination.NO_PAGINATION))
+        .getContent();
+
+    profiler.start("FIND_NEXT_START_OR_EXPIRY_DATE");
+    ZonedDateTime nextStartDate = systemNotificationRepository.findNextStartDate(now);
+    ZonedDateTime nextExpiryDate = systemNotificationRepository.findNextExpiryDate(now);
+    ZonedDateTime validUntil = earlier(nextStartDate,
+        null == nextExpiryDate ? null : nextExpiryDate.plus(EXPIRY_PRECISION));
+
+    profiler.start("EXPORT_TO_DTOS");
+    List<SystemNotificationDto> dtos = new ArrayList<>();
+    List<SystemNotificationDto> dtosWithAuthor = new ArrayList<>();
+    for (SystemNotification notification : notifications) {
+      dtos.add(SystemNotificationDto.newInstance(notification, serviceUrl, true));
+
+      SystemNotificationDto dtoWithAuthor =
+          SystemNotificationDto.newInstance(notification, serviceUrl, true);
+      objectReferenceExpander.expandDto(dtoWithAuthor, notification,
+          Collections.singleton(AUTHOR));
+      dtosWithAuthor.add(dtoWithAuthor);
+    }
+
+    Snapshot built = new Snapshot(version, validUntil, toNotifications(dtos),
+        toNotifications(dtosWithAuthor));
+
+    profiler.stop().log();
+    return built;
+  }
+
+  private Notifications toNotifications(List<SystemNotificationDto> dtos) {
+    try {
+      // the entity tag is strong, it is computed from the representation of notifications
+      String etag = '"' + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(dtos)) + '"';
+      return new Notifications(Collections.unmodifiableList(dtos), etag);
+    } catch (JsonProcessingException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private ZonedDateTime earlier(ZonedDateTime first, ZonedDateTime second) {
+    if (null == first || null == second) {
+      return null == first ? second : first;
+    }
+
+    return first.isBefore(second) ? first : second;
+  }
+
+  private void publish(Snapshot current) {
+    Snapshot previous = publishedSnapshot;
+    publishedSnapshot = current;
+
+    if (null == previous) {
+      return;
+    }
+
+    for (boolean expandAuthor : new boolean[]{false, true}) {
+      Notifications notifications = current.get(expandAuthor);
+
+      if (!notifications.etag.equals(previous.get(expandAuthor).etag)) {
+        subscribers
+            .stream()
+            .filter(subscriber -> subscriber.expandAuthor == expandAuthor)
+            .forEach(subscriber -> send(subscriber, notifications));
+      }
+    }
+  }
+
+  private void send(Subscriber subscriber, Notifications notifications) {
+    try {
+      subscriber.emitter.send(SseEmitter
+          .event()
+          .name(EVENT_NAME)
+          .id(notifications.etag)
+          .data(notifications.content, MediaType.APPLICATION_JSON));
+    } catch (IOException | IllegalStateException ex) {
+      XLOGGER.debug("Could not send system notifications, closing the stream", ex);
+      subscribers.remove(subscriber);
+      subscriber.emitter.completeWithError(ex);
+    }
+  }
+
+  private void scheduleBoundaryRefresh(ZonedDateTime validUntil) {
+    if (Objects.equals(validUntil, scheduledBoundary)
+        && null != boundaryRefresh && !boundaryRefresh.isDone()) {
+      return;
+    }
+
+    if (null != boundaryRefresh) {
+      boundaryRefresh.cancel(false);
+    }
+
+    scheduledBoundary = validUntil;
+    boundaryRefresh = null == validUntil
+        ? null
+        : scheduler.schedule(this::refresh,
+            Math.max(0, Duration.between(ZonedDateTime.now(clock), validUntil).toMillis() + 1),
+            TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Displayed system notifications together with their strong entity tag.
+   */
+  @Getter
+  @AllArgsConstructor
+  public static final class Notifications {
+    private final List<SystemNotificationDto> content;
+    private final String etag;
+  }
+
+  @AllArgsConstructor
+  private static final class Snapshot {
+    private final String version;
+    private final ZonedDateTime validUntil;
+    private final Notifications notifications;
+    private final Notifications notificationsWithAuthor;
+
+    Notifications get(boolean expandAuthor) {
+      return expandAuthor ? notificationsWithAuthor : notifications;
+    }
+  }
+
+  @AllArgsConstructor
+  private static final class Subscriber {
+    private final SseEmitter emitter;
+    private final boolean expandAuthor;
+  }
+}
@@ -44,6 +44,7 @@ import org.openlmis.referencedata.repository.FacilityTypeApprovedProductReposito
 import org.openlmis.referencedata.repository.OrderableRepository;
 import org.openlmis.referencedata.service.FacilityBuilder;
 import org.openlmis.referencedata.service.FacilityService;
+import org.openlmis.referencedata.service.RightAssignmentChange;
 import org.openlmis.referencedata.service.RightAssignmentService;
 import org.openlmis.referencedata.util.messagekeys.FacilityMessageKeys;
 import org.openlmis.referencedata.validate.FacilityValidator;
@@ -183,6 +184,8 @@ public class FacilityController extends BaseController {
    *               If null or empty, changes are returned regardless of author.
    * @param changedPropertyName The name of the property about which changes should be returned.
    *               If null or empty, changes associated with any and all properties are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param page A Pageable object that allows client to optionally add "page" (page number)
    *             and "size" (page size) query parameters to the request.
    */
@@ -194,6 +197,7 @@ public class FacilityController extends BaseController {
           @RequestParam(name = "author", required = false, defaultValue = "") String author,
           @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
                         String changedPropertyName,
+          @RequestParam(name = "cursor", required = false) Long cursor,
           //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
           @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
                         boolean returnJson,
@@ -208,7 +212,7 @@ public class FacilityController extends BaseController {
 
     profiler.start("GET_AUDIT_LOG");
     ResponseEntity<String> response = getAuditLogResponse(
-        Facility.class, id, author, changedPropertyName, page, returnJson
+        Facility.class, id, author, changedPropertyName, cursor, page, returnJson
     );
 
     profiler.stop().log();
@@ -254,7 +258,8 @@ public class FacilityController extends BaseController {
     fhirClient.synchronizeFacility(facilityToSave);
 
     profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-    rightAssignmentService.regenerateRightAssignments();
+    rightAssignmentService.regenerateRightAssignments(
+        RightAssignmentChange.ofFacility(facilityToSave.getId()));
 
     XLOGGER.info("Saved facility with id: {}", facilityToSave.getId());
     FacilityDto dto = toDto(facilityToSave, profiler);
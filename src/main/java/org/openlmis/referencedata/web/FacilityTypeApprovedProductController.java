@@ -16,6 +16,8 @@
 package org.openlmis.referencedata.web;
 
 import static org.openlmis.referencedata.domain.RightName.FACILITY_APPROVED_ORDERABLES_MANAGE;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.FACILITY_TYPE_APPROVED_PRODUCTS;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.ORDERABLES;
 import static org.openlmis.referencedata.web.FacilityTypeApprovedProductController.RESOURCE_PATH;
 
 import java.util.ArrayList;
@@ -36,6 +38,8 @@ import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.FacilityTypeApprovedProductRepository;
 import org.openlmis.referencedata.repository.OrderableRepository;
 import org.openlmis.referencedata.service.FacilityTypeApprovedProductBuilder;
+import org.openlmis.referencedata.service.ResourceVersion;
+import org.openlmis.referencedata.service.ResourceVersionRegistry;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.UuidUtil;
 import org.openlmis.referencedata.util.messagekeys.FacilityTypeApprovedProductMessageKeys;
@@ -46,6 +50,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
@@ -56,6 +61,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -80,6 +86,9 @@ public class FacilityTypeApprovedProductController extends BaseController {
   @Autowired
   private FacilityTypeApprovedProductBuilder facilityTypeApprovedProductBuilder;
 
+  @Autowired
+  private ResourceVersionRegistry resourceVersionRegistry;
+
   /**
    * Allows creating new facilityTypeApprovedProduct.
    *
@@ -208,14 +217,33 @@ public class FacilityTypeApprovedProductController extends BaseController {
    * @param queryParams a map containing search parameters. Supported keys are:
    *                    * facilityType [required]
    *                    * program
-   * @return a page of approved products matching the criteria
+   * @return a page of approved products matching the criteria, or Not Modified if neither
+   *     approved products, the facility types and programs they are searched by, nor orderables
+   *     changed since the version the client has
    */
   @GetMapping
-  public Page<ApprovedProductDto> searchFacilityTypeApprovedProducts(
-        @RequestParam MultiValueMap<String, Object> queryParams, Pageable pageable) {
+  public ResponseEntity<Page<ApprovedProductDto>> searchFacilityTypeApprovedProducts(
+      @RequestParam MultiValueMap<String, Object> queryParams,
+      @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false)
+          String ifModifiedSince,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      Pageable pageable) {
     Profiler profiler = new Profiler("GET_FACILITY_TYPE_APPROVED_PRODUCT");
     profiler.setLogger(XLOGGER);
 
+    // approved products are returned with their orderables, and the version of approved products
+    // also covers the facility types and programs they are searched by
+    profiler.start("GET_RESOURCE_VERSION");
+    ResourceVersion version = resourceVersionRegistry
+        .getVersion(FACILITY_TYPE_APPROVED_PRODUCTS, ORDERABLES);
+
+    if (isNotModified(version, ifNoneMatch, ifModifiedSince)) {
+      profiler.stop().log();
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(version.getEtag())
+          .build();
+    }
+
     profiler.start("PARSE_QUERY_PARAMETERS");
     QueryFacilityTypeApprovedProductSearchParams searchParams =
         new QueryFacilityTypeApprovedProductSearchParams(queryParams);
@@ -229,7 +257,11 @@ public class FacilityTypeApprovedProductController extends BaseController {
     Page<ApprovedProductDto> page = Pagination.getPage(content, pageable, ftaps.getTotalElements());
 
     profiler.stop().log();
-    return page;
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (null != version) {
+      response.eTag(version.getEtag()).lastModified(version.getLastModified());
+    }
+    return response.body(page);
   }
 
   /**
@@ -306,6 +338,8 @@ public class FacilityTypeApprovedProductController extends BaseController {
    *               If null or empty, changes are returned regardless of author.
    * @param changedPropertyName The name of the property about which changes should be returned.
    *               If null or empty, changes associated with any and all properties are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param page A Pageable object that allows client to optionally add "page" (page number)
    *             and "size" (page size) query parameters to the request.
    */
@@ -315,6 +349,7 @@ public class FacilityTypeApprovedProductController extends BaseController {
       @RequestParam(name = "author", required = false, defaultValue = "") String author,
       @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
           String changedPropertyName,
+      @RequestParam(name = "cursor", required = false) Long cursor,
       //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
@@ -331,7 +366,7 @@ public class FacilityTypeApprovedProductController extends BaseController {
     }
 
     return getAuditLogResponse(
-        FacilityTypeApprovedProduct.class, id, author, changedPropertyName, page, returnJson
+        FacilityTypeApprovedProduct.class, id, author, changedPropertyName, cursor, page, returnJson
     );
   }
 
@@ -23,6 +23,7 @@ import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.exception.IntegrityViolationException;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.repository.FacilityTypeRepository;
+import org.openlmis.referencedata.service.EntityCacheManager;
 import org.openlmis.referencedata.service.FacilityTypeService;
 import org.openlmis.referencedata.util.messagekeys.FacilityTypeMessageKeys;
 import org.slf4j.Logger;
@@ -61,6 +62,9 @@ public class FacilityTypeController extends BaseController {
   @Autowired
   private FacilityTypeService facilityTypeService;
 
+  @Autowired
+  private EntityCacheManager entityCacheManager;
+
   /**
    * Allows creating new facilityType. If the id is specified, it will be ignored.
    *
@@ -118,6 +122,7 @@ public class FacilityTypeController extends BaseController {
 
       facilityTypeToUpdate.updateFrom(facilityType);
       facilityTypeRepository.save(facilityTypeToUpdate);
+      entityCacheManager.evict(EntityCacheManager.FACILITY_TYPES, facilityTypeId);
 
       LOGGER.debug("Updating facility type with id: %s", facilityTypeToUpdate.getId());
       return facilityTypeToUpdate;
@@ -137,7 +142,9 @@ public class FacilityTypeController extends BaseController {
   @ResponseBody
   public FacilityType getFacilityType(@PathVariable("id") UUID facilityTypeId) {
 
-    FacilityType facilityType = facilityTypeRepository.findById(facilityTypeId).orElse(null);
+    FacilityType facilityType = entityCacheManager.get(EntityCacheManager.FACILITY_TYPES,
+        facilityTypeId, FacilityType.class,
+        () -> facilityTypeRepository.findById(facilityTypeId).orElse(null));
     if (facilityType == null) {
       throw new NotFoundException(FacilityTypeMessageKeys.ERROR_NOT_FOUND);
     } else {
@@ -160,6 +167,7 @@ public class FacilityTypeController extends BaseController {
     } else {
       try {
         facilityTypeRepository.delete(facilityType);
+        entityCacheManager.evict(EntityCacheManager.FACILITY_TYPES, facilityTypeId);
       } catch (DataIntegrityViolationException ex) {
         throw new IntegrityViolationException(FacilityTypeMessageKeys.ERROR_DELETING_WITH_ID, ex);
       }
@@ -173,6 +181,8 @@ public class FacilityTypeController extends BaseController {
    *               If null or empty, changes are returned regardless of author.
    * @param changedPropertyName The name of the property about which changes should be returned.
    *               If null or empty, changes associated with any and all properties are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param page A Pageable object that allows client to optionally add "page" (page number)
    *             and "size" (page size) query parameters to the request.
    */
@@ -184,6 +194,7 @@ public class FacilityTypeController extends BaseController {
       @RequestParam(name = "author", required = false, defaultValue = "") String author,
       @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
           String changedPropertyName,
+      @RequestParam(name = "cursor", required = false) Long cursor,
       //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
@@ -197,7 +208,7 @@ public class FacilityTypeController extends BaseController {
       throw new NotFoundException(FacilityTypeMessageKeys.ERROR_NOT_FOUND);
     }
 
-    return getAuditLogResponse(FacilityType.class, id, author, changedPropertyName, page,
+    return getAuditLogResponse(FacilityType.class, id, author, changedPropertyName, cursor, page,
         returnJson);
   }
 }
@@ -22,6 +22,7 @@ import java.util.UUID;
 import org.openlmis.referencedata.domain.GeographicLevel;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.repository.GeographicLevelRepository;
+import org.openlmis.referencedata.service.EntityCacheManager;
 import org.openlmis.referencedata.util.messagekeys.GeographicLevelMessageKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,6 +54,9 @@ public class GeographicLevelController extends BaseController {
   @Autowired
   private GeographicLevelRepository geographicLevelRepository;
 
+  @Autowired
+  private EntityCacheManager entityCacheManager;
+
   /**
    * Allows creating new geographicLevels.
    *
@@ -70,6 +74,7 @@ public class GeographicLevelController extends BaseController {
     // Ignore provided id
     geographicLevel.setId(null);
     geographicLevelRepository.save(geographicLevel);
+    entityCacheManager.evict(EntityCacheManager.GEOGRAPHIC_LEVELS, geographicLevel.getId());
     return geographicLevel;
   }
 
@@ -107,6 +112,7 @@ public class GeographicLevelController extends BaseController {
 
     LOGGER.debug("Updating geographicLevel");
     geographicLevelRepository.save(geographicLevel);
+    entityCacheManager.evict(EntityCacheManager.GEOGRAPHIC_LEVELS, geographicLevel.getId());
     return geographicLevel;
   }
 
@@ -122,8 +128,15 @@ public class GeographicLevelController extends BaseController {
   public GeographicLevel getGeographicLevel(
       @PathVariable("id") UUID geographicLevelId) {
 
-    return geographicLevelRepository.findById(geographicLevelId)
-        .orElseThrow(() -> new NotFoundException(GeographicLevelMessageKeys.ERROR_NOT_FOUND));
+    GeographicLevel geographicLevel = entityCacheManager.get(
+        EntityCacheManager.GEOGRAPHIC_LEVELS, geographicLevelId, GeographicLevel.class,
+        () -> geographicLevelRepository.findById(geographicLevelId).orElse(null));
+
+    if (null == geographicLevel) {
+      throw new NotFoundException(GeographicLevelMessageKeys.ERROR_NOT_FOUND);
+    }
+
+    return geographicLevel;
   }
 
   /**
@@ -140,6 +153,7 @@ public class GeographicLevelController extends BaseController {
     GeographicLevel geographicLevel = geographicLevelRepository.findById(geographicLevelId)
         .orElseThrow(() -> new NotFoundException(GeographicLevelMessageKeys.ERROR_NOT_FOUND));
     geographicLevelRepository.delete(geographicLevel);
+    entityCacheManager.evict(EntityCacheManager.GEOGRAPHIC_LEVELS, geographicLevelId);
   }
 
   /**
@@ -148,6 +162,8 @@ public class GeographicLevelController extends BaseController {
    *               If null or empty, changes are returned regardless of author.
    * @param changedPropertyName The name of the property about which changes should be returned.
    *               If null or empty, changes associated with any and all properties are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param page A Pageable object that allows client to optionally add "page" (page number)
    *             and "size" (page size) query parameters to the request.
    */
@@ -159,6 +175,7 @@ public class GeographicLevelController extends BaseController {
       @RequestParam(name = "author", required = false, defaultValue = "") String author,
       @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
           String changedPropertyName,
+      @RequestParam(name = "cursor", required = false) Long cursor,
       //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
@@ -172,7 +189,7 @@ public class GeographicLevelController extends BaseController {
       throw new NotFoundException(GeographicLevelMessageKeys.ERROR_NOT_FOUND);
     }
 
-    return getAuditLogResponse(GeographicLevel.class, id, author, changedPropertyName, page,
+    return getAuditLogResponse(GeographicLevel.class, id, author, changedPropertyName, cursor, page,
         returnJson);
   }
 }
@@ -40,6 +40,7 @@ import org.openlmis.referencedata.validate.CsvHeaderValidator;
 import org.openlmis.referencedata.web.csv.format.CsvFormatter;
 import org.openlmis.referencedata.web.csv.model.ModelClass;
 import org.openlmis.referencedata.web.csv.parser.CsvParser;
+import org.openlmis.referencedata.web.csv.recordhandler.IdealStockAmountDimensionResolver;
 import org.openlmis.referencedata.web.csv.recordhandler.IdealStockAmountProcessor;
 import org.openlmis.referencedata.web.csv.recordhandler.IdealStockAmountWriter;
 import org.slf4j.Logger;
@@ -51,6 +52,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -123,7 +125,8 @@ public class IdealStockAmountController extends BaseController {
   }
 
   /**
-   * Downloads csv file with all Ideal Stock Amounts.
+   * Downloads csv file with all Ideal Stock Amounts. Rows are written as they are read from
+   * the database.
    */
   @GetMapping(value = RESOURCE_PATH, params = FORMAT)
   @ResponseBody
@@ -141,20 +144,14 @@ public class IdealStockAmountController extends BaseController {
       return;
     }
 
-    profiler.start("FIND_ALL_IDEAL_STOCK_AMOUNTS");
-    Iterable<IdealStockAmount> list = service.search();
-
-    profiler.start("CONVERT_IDEAL_STOCK_AMOUNTS_TO_DTO");
-    List<IdealStockAmountCsvModel> items = toCsvDto(list);
-
     response.setContentType("text/csv");
     response.addHeader(HttpHeaders.CONTENT_DISPOSITION,
         DISPOSITION_BASE + "ideal_stock_amounts.csv");
 
-    profiler.start("PARSE_IDEAL_STOCK_AMOUNTS_TO_CSV");
+    profiler.start("STREAM_IDEAL_STOCK_AMOUNTS_TO_CSV");
     try {
-      csvFormatter.process(
-          response.getOutputStream(), new ModelClass(IdealStockAmountCsvModel.class), items);
+      csvFormatter.process(response.getOutputStream(),
+          new ModelClass<>(IdealStockAmountCsvModel.class), service::exportToCsv);
     } catch (IOException ex) {
       throw new ValidationMessageException(ex, MessageKeys.ERROR_IO, ex.getMessage());
     } finally {
@@ -166,8 +163,10 @@ public class IdealStockAmountController extends BaseController {
    * Uploads csv file and converts to domain object.
    *
    * @param file File in ".csv" format to upload.
-   * @return number of uploaded records
+   * @return number of uploaded records and statistics of lookups
    */
+  // the CSV parser runs its own transactions in other threads
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
   @PostMapping(value = RESOURCE_PATH, params = FORMAT)
   @ResponseBody
   @ResponseStatus(HttpStatus.OK)
@@ -186,14 +185,19 @@ public class IdealStockAmountController extends BaseController {
 
     profiler.start("VALIDATE_FILE");
     validateCsvFile(file);
-    ModelClass modelClass = new ModelClass(IdealStockAmountCsvModel.class);
+    ModelClass<IdealStockAmountCsvModel> modelClass =
+        new ModelClass<>(IdealStockAmountCsvModel.class);
 
     profiler.start("PARSE_FILE");
     try {
+      // facilities, periods and commodity types are shared by all chunks of the upload
+      IdealStockAmountDimensionResolver dimensionResolver =
+          idealStockAmountProcessor.newDimensionResolver();
       int result = csvParser.parse(file.getInputStream(), modelClass, csvHeaderValidator,
-          idealStockAmountProcessor, idealStockAmountWriter);
+          records -> idealStockAmountProcessor.process(records, dimensionResolver),
+          idealStockAmountWriter);
       profiler.start("UPLOAD_RESULT_DTO");
-      UploadResultDto dto = new UploadResultDto(result);
+      UploadResultDto dto = new UploadResultDto(result, dimensionResolver.getStatistics());
       return dto;
     } catch (IOException ex) {
       throw new ValidationMessageException(ex, MessageKeys.ERROR_IO, ex.getMessage());
@@ -202,19 +206,6 @@ public class IdealStockAmountController extends BaseController {
     }
   }
 
-  private IdealStockAmountCsvModel toCsvDto(IdealStockAmount isa) {
-    IdealStockAmountCsvModel dto = new IdealStockAmountCsvModel();
-    isa.export(dto);
-    return dto;
-  }
-
-  private List<IdealStockAmountCsvModel> toCsvDto(Iterable<IdealStockAmount> items) {
-    return StreamSupport
-        .stream(items.spliterator(), false)
-        .map(this::toCsvDto)
-        .collect(Collectors.toList());
-  }
-
   private List<IdealStockAmountDto> toDto(Iterable<IdealStockAmount> items) {
     return StreamSupport
         .stream(items.spliterator(), false)
@@ -16,13 +16,15 @@
 package org.openlmis.referencedata.web;
 
 import static org.openlmis.referencedata.domain.RightName.ORDERABLES_MANAGE;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.ORDERABLES;
 
+import java.io.IOException;
 import java.time.ZonedDateTime;
 import java.util.Collections;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
-
+import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.lang3.tuple.Pair;
 import org.openlmis.referencedata.domain.Orderable;
 import org.openlmis.referencedata.dto.OrderableDto;
@@ -34,6 +36,8 @@ import org.openlmis.referencedata.extension.point.OrderableCreatePostProcessor;
 import org.openlmis.referencedata.extension.point.OrderableUpdatePostProcessor;
 import org.openlmis.referencedata.repository.OrderableRepository;
 import org.openlmis.referencedata.service.OrderableService;
+import org.openlmis.referencedata.service.ResourceVersion;
+import org.openlmis.referencedata.service.ResourceVersionRegistry;
 import org.openlmis.referencedata.util.OrderableBuilder;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.UuidUtil;
@@ -71,6 +75,7 @@ public class OrderableController extends BaseController {
 
   private static final XLogger XLOGGER = XLoggerFactory.getXLogger(OrderableController.class);
   public static final String RESOURCE_PATH = "/orderables";
+  static final String NDJSON = "application/x-ndjson";
 
   @Autowired
   private OrderableRepository repository;
@@ -87,6 +92,9 @@ public class OrderableController extends BaseController {
   @Autowired
   private ExtensionManager extensionManager;
 
+  @Autowired
+  private ResourceVersionRegistry resourceVersionRegistry;
+
   /**
    * Create an orderable.
    *
@@ -181,17 +189,29 @@ public class OrderableController extends BaseController {
   public ResponseEntity<Page<OrderableDto>> findAll(
       @RequestParam MultiValueMap<String, Object> queryParams,
       @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedDate,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
       Pageable pageable) {
     XLOGGER.entry(queryParams, pageable);
     Profiler profiler = new Profiler("ORDERABLES_SEARCH");
     profiler.setLogger(XLOGGER);
 
+    profiler.start("GET_RESOURCE_VERSION");
+    ResourceVersion version = resourceVersionRegistry.getVersion(ORDERABLES);
+
+    if (isNotModified(version, ifNoneMatch, ifModifiedDate)) {
+      profiler.stop().log();
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(version.getEtag())
+          .build();
+    }
+
     QueryOrderableSearchParams searchParams = new QueryOrderableSearchParams(queryParams);
     ZonedDateTime lastUpdated = orderableService.getLatestLastUpdatedDate(searchParams, profiler);
 
     if (lastUpdated == null) {
       Page<OrderableDto> emptyPage = Pagination.getPage(Collections.emptyList(), pageable, 0);
       return ResponseEntity.ok()
+              .headers(buildETagHeader(version))
               .body(emptyPage);
     }
 
@@ -212,16 +232,39 @@ public class OrderableController extends BaseController {
       profiler.stop().log();
       XLOGGER.exit(page);
       return ResponseEntity.ok()
-          .headers(buildLastModifiedHeader(lastUpdated))
+          .headers(buildLastModifiedHeader(lastUpdated, version))
           .body(page);
     } else {
       profiler.stop().log();
       return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
-          .headers(buildLastModifiedHeader(lastUpdated))
+          .headers(buildLastModifiedHeader(lastUpdated, version))
           .build();
     }
   }
 
+  /**
+   * Exports all latest orderables matching the provided parameters as newline-delimited JSON,
+   * one orderable per line. Unlike {@link #findAll}, the response is written while orderables are
+   * being read from the database, so it can be used to download the whole catalog.
+   *
+   * @param queryParams request parameters (code, name, program, tradeItemId, id).
+   */
+  @GetMapping(RESOURCE_PATH + "/export")
+  public void exportOrderables(@RequestParam MultiValueMap<String, Object> queryParams,
+      HttpServletResponse response) throws IOException {
+    XLOGGER.entry(queryParams);
+    Profiler profiler = new Profiler("ORDERABLES_EXPORT");
+    profiler.setLogger(XLOGGER);
+
+    profiler.start("EXPORT_ORDERABLES");
+    response.setContentType(NDJSON);
+    orderableService.exportOrderables(new QueryOrderableSearchParams(queryParams),
+        response.getOutputStream());
+
+    profiler.stop().log();
+    XLOGGER.exit();
+  }
+
   /**
    * Search orderables by search criteria.
    *
@@ -232,12 +275,23 @@ public class OrderableController extends BaseController {
   public ResponseEntity<Page<OrderableDto>> searchOrderables(
       @RequestBody OrderableSearchParams body,
       @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false)
-          String ifModifiedDate) {
+          String ifModifiedDate,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
     Profiler profiler = new Profiler("ORDERABLES_SEARCH_POST");
     profiler.setLogger(XLOGGER);
 
     Pageable pageable = body.getPageable();
 
+    profiler.start("GET_RESOURCE_VERSION");
+    ResourceVersion version = resourceVersionRegistry.getVersion(ORDERABLES);
+
+    if (isNotModified(version, ifNoneMatch, ifModifiedDate)) {
+      profiler.stop().log();
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(version.getEtag())
+          .build();
+    }
+
     profiler.start("GET_LATEST_LAST_UPDATED_DATE");
     ZonedDateTime lastUpdated = orderableService
             .getLatestLastUpdatedDate(getQueryOrderableSearchParams(body), profiler);
@@ -245,6 +299,7 @@ public class OrderableController extends BaseController {
     if (lastUpdated == null) {
       Page<OrderableDto> emptyPage = Pagination.getPage(Collections.emptyList(), pageable, 0);
       return ResponseEntity.ok()
+              .headers(buildETagHeader(version))
               .body(emptyPage);
     }
 
@@ -262,12 +317,12 @@ public class OrderableController extends BaseController {
       profiler.stop().log();
       XLOGGER.exit(page);
       return ResponseEntity.ok()
-          .headers(buildLastModifiedHeader(lastUpdated))
+          .headers(buildLastModifiedHeader(lastUpdated, version))
           .body(page);
     } else {
       profiler.stop().log();
       return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
-          .headers(buildLastModifiedHeader(lastUpdated))
+          .headers(buildLastModifiedHeader(lastUpdated, version))
           .build();
     }
   }
@@ -317,6 +372,8 @@ public class OrderableController extends BaseController {
    *               If null or empty, changes are returned regardless of author.
    * @param changedPropertyName The name of the property about which changes should be returned.
    *               If null or empty, changes associated with any and all properties are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param page A Pageable object that allows client to optionally add "page" (page number)
    *             and "size" (page size) query parameters to the request.
    */
@@ -328,6 +385,7 @@ public class OrderableController extends BaseController {
       @RequestParam(name = "author", required = false, defaultValue = "") String author,
       @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
           String changedPropertyName,
+      @RequestParam(name = "cursor", required = false) Long cursor,
       //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
@@ -340,7 +398,8 @@ public class OrderableController extends BaseController {
       throw new NotFoundException(OrderableMessageKeys.ERROR_NOT_FOUND);
     }
 
-    return getAuditLogResponse(Orderable.class, id, author, changedPropertyName, page, returnJson);
+    return getAuditLogResponse(Orderable.class, id, author, changedPropertyName, cursor, page,
+        returnJson);
   }
 
   private HttpHeaders buildLastModifiedHeader(ZonedDateTime lastUpdated) {
@@ -349,6 +408,21 @@ public class OrderableController extends BaseController {
     return headers;
   }
 
+  private HttpHeaders buildLastModifiedHeader(ZonedDateTime lastUpdated,
+      ResourceVersion version) {
+    HttpHeaders headers = buildLastModifiedHeader(lastUpdated);
+    headers.putAll(buildETagHeader(version));
+    return headers;
+  }
+
+  private HttpHeaders buildETagHeader(ResourceVersion version) {
+    HttpHeaders headers = new HttpHeaders();
+    if (null != version) {
+      headers.setETag(version.getEtag());
+    }
+    return headers;
+  }
+
   public boolean wasModifiedSince(ZonedDateTime lastUpdated, ZonedDateTime date) {
     return date == null || lastUpdated == null || lastUpdated.isAfter(date);
   }
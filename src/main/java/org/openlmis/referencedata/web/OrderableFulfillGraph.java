@@ -0,0 +1,235 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.ORDERABLES;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.ORDERABLE_FULFILLS;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openlmis.referencedata.domain.CommodityType;
+import org.openlmis.referencedata.domain.Dispensable;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.TradeItem;
+import org.openlmis.referencedata.domain.TradeItemClassification;
+import org.openlmis.referencedata.repository.CommodityTypeRepository;
+import org.openlmis.referencedata.repository.OrderableRepository;
+import org.openlmis.referencedata.repository.TradeItemRepository;
+import org.openlmis.referencedata.service.ResourceVersion;
+import org.openlmis.referencedata.service.ResourceVersionRegistry;
+import org.openlmis.referencedata.util.Pagination;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Precomputed {@link OrderableFulfill} of every latest orderable. A trade item can fulfill
+ * commodity types with one of its classifications, and orderables of both are linked when they
+ * have the same dispensable.
+ *
+ * <p>The graph is built once and kept together with the version of orderables, trade items and
+ * commodity types it was built from (see {@link ResourceVersionRegistry}). It is rebuilt on the
+ * first request after any of them changes, so changes made by other instances are picked up
+ * as well.
+ */
+@Component
+public class OrderableFulfillGraph {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(OrderableFulfillGraph.class);
+
+  @Autowired
+  private ResourceVersionRegistry resourceVersionRegistry;
+
+  @Autowired
+  private OrderableRepository orderableRepository;
+
+  @Autowired
+  private TradeItemRepository tradeItemRepository;
+
+  @Autowired
+  private CommodityTypeRepository commodityTypeRepository;
+
+  private volatile Snapshot snapshot;
+
+  /**
+   * Returns orderable fulfills of the given orderables, or of all orderables if no IDs are given.
+   * Orderables without a trade item or a commodity type identifier are left out.
+   */
+  public Map<UUID, OrderableFulfill> getOrderableFulfills(Set<UUID> orderableIds) {
+    Map<UUID, OrderableFulfill> fulfills = getSnapshot().fulfills;
+
+    if (orderableIds.isEmpty()) {
+      return new HashMap<>(fulfills);
+    }
+
+    Map<UUID, OrderableFulfill> result = new HashMap<>();
+    for (UUID orderableId : orderableIds) {
+      OrderableFulfill fulfill = fulfills.get(orderableId);
+      if (null != fulfill) {
+        result.put(orderableId, fulfill);
+      }
+    }
+
+    return result;
+  }
+
+  private Snapshot getSnapshot() {
+    // the version must be read before the graph is built, see ResourceVersionRegistry
+    ResourceVersion version = resourceVersionRegistry.getVersion(ORDERABLES, ORDERABLE_FULFILLS);
+    String etag = null == version ? null : version.getEtag();
+
+    Snapshot current = snapshot;
+    if (null != etag && null != current && etag.equals(current.etag)) {
+      return current;
+    }
+
+    return rebuild(etag);
+  }
+
+  private synchronized Snapshot rebuild(String etag) {
+    Snapshot current = snapshot;
+    if (null != etag && null != current && etag.equals(current.etag)) {
+      return current;
+    }
+
+    Snapshot built = new Snapshot(etag, build());
+    if (null != etag) {
+      // untracked versions are never cached, so changes are not missed
+      snapshot = built;
+    }
+
+    return built;
+  }
+
+  private Map<UUID, OrderableFulfill> build() {
+    Profiler profiler = new Profiler("BUILD_ORDERABLE_FULFILL_GRAPH");
+    profiler.setLogger(XLOGGER);
+
+    profiler.start("LINK_TRADE_ITEMS_AND_COMMODITY_TYPES");
+    Map<Pair<String, String>, Set<String>> commodityTypesByClassification = new HashMap<>();
+    for (CommodityType commodityType : commodityTypeRepository.findAll()) {
+      commodityTypesByClassification
+          .computeIfAbsent(ImmutablePair.of(commodityType.getClassificationSystem(),
+              commodityType.getClassificationId()), key -> new HashSet<>())
+          .add(commodityType.getId().toString());
+    }
+
+    Map<String, Set<String>> commodityTypesByTradeItem = new HashMap<>();
+    Map<String, Set<String>> tradeItemsByCommodityType = new HashMap<>();
+    for (TradeItem tradeItem : tradeItemRepository.findAll()) {
+      String tradeItemId = tradeItem.getId().toString();
+
+      for (TradeItemClassification classification : tradeItem.getClassifications()) {
+        Set<String> commodityTypes = commodityTypesByClassification.getOrDefault(
+            ImmutablePair.of(classification.getClassificationSystem(),
+                classification.getClassificationId()), Collections.emptySet());
+
+        for (String commodityTypeId : commodityTypes) {
+          commodityTypesByTradeItem
+              .computeIfAbsent(tradeItemId, key -> new HashSet<>())
+              .add(commodityTypeId);
+          tradeItemsByCommodityType
+              .computeIfAbsent(commodityTypeId, key -> new HashSet<>())
+              .add(tradeItemId);
+        }
+      }
+    }
+
+    profiler.start("GROUP_ORDERABLES");
+    List<Orderable> orderables = orderableRepository
+        .findAllLatest(PageRequest.of(Pagination.DEFAULT_PAGE_NUMBER, Pagination.NO_PAGINATION))
+        .getContent();
+
+    Map<String, List<Orderable>> orderablesByTradeItem = new HashMap<>();
+    Map<String, List<Orderable>> orderablesByCommodityType = new HashMap<>();
+    for (Orderable orderable : orderables) {
+      addOrderable(orderablesByTradeItem, orderable.getTradeItemIdentifier(), orderable);
+      addOrderable(orderablesByCommodityType, orderable.getCommodityTypeIdentifier(), orderable);
+    }
+
+    profiler.start("CREATE_ORDERABLE_FULFILLS");
+    Map<UUID, OrderableFulfill> fulfills = new HashMap<>();
+    for (Orderable orderable : orderables) {
+      String tradeItemId = orderable.getTradeItemIdentifier();
+      String commodityTypeId = orderable.getCommodityTypeIdentifier();
+
+      if (isNotBlank(tradeItemId)) {
+        fulfills.put(orderable.getId(), OrderableFulfill.ofTradeItem(getLinkedOrderables(
+            commodityTypesByTradeItem.get(tradeItemId), orderablesByCommodityType,
+            orderable.getDispensable())));
+      } else if (isNotBlank(commodityTypeId)) {
+        fulfills.put(orderable.getId(), OrderableFulfill.ofCommodityType(getLinkedOrderables(
+            tradeItemsByCommodityType.get(commodityTypeId), orderablesByTradeItem,
+            orderable.getDispensable())));
+      }
+    }
+
+    profiler.stop().log();
+    return Collections.unmodifiableMap(fulfills);
+  }
+
+  private void addOrderable(Map<String, List<Orderable>> orderablesByIdentifier,
+      String identifier, Orderable orderable) {
+    if (isNotBlank(identifier)) {
+      orderablesByIdentifier
+          .computeIfAbsent(identifier, key -> new ArrayList<>())
+          .add(orderable);
+    }
+  }
+
+  /*
+    Dispensables are matched with equals (through Orderable.hasDispensable), not looked up by
+    hash: their equals ignores case and some of the attributes, while their hashCode does not.
+  */
+  private List<UUID> getLinkedOrderables(Collection<String> linkedIdentifiers,
+      Map<String, List<Orderable>> orderablesByIdentifier, Dispensable dispensable) {
+    if (null == linkedIdentifiers) {
+      return Collections.emptyList();
+    }
+
+    List<UUID> linkedOrderables = new ArrayList<>();
+    for (String identifier : linkedIdentifiers) {
+      for (Orderable orderable : orderablesByIdentifier
+          .getOrDefault(identifier, Collections.emptyList())) {
+        if (orderable.hasDispensable(dispensable)) {
+          linkedOrderables.add(orderable.getId());
+        }
+      }
+    }
+
+    return Collections.unmodifiableList(linkedOrderables);
+  }
+
+  @AllArgsConstructor
+  private static final class Snapshot {
+    private final String etag;
+    private final Map<UUID, OrderableFulfill> fulfills;
+  }
+}
@@ -26,6 +26,7 @@ import org.openlmis.referencedata.dto.ResultDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.ProcessingPeriodRepository;
+import org.openlmis.referencedata.service.EntityCacheManager;
 import org.openlmis.referencedata.service.ProcessingPeriodSearchParams;
 import org.openlmis.referencedata.service.ProcessingPeriodService;
 import org.openlmis.referencedata.util.Message;
@@ -72,6 +73,9 @@ public class ProcessingPeriodController extends BaseController {
   @Autowired
   private ProcessingPeriodService periodService;
 
+  @Autowired
+  private EntityCacheManager entityCacheManager;
+
   /**
    * Create a new processing period using the provided processing period DTO.
    *
@@ -90,6 +94,8 @@ public class ProcessingPeriodController extends BaseController {
     validator.validate(newPeriod, bindingResult);
     if (bindingResult.getErrorCount() == 0) {
       periodRepository.save(newPeriod);
+      // the id is taken from the request, so an existing period can be replaced
+      entityCacheManager.evict(EntityCacheManager.PROCESSING_PERIODS, newPeriod.getId());
 
       return exportToDto(newPeriod);
     } else {
@@ -154,6 +160,7 @@ public class ProcessingPeriodController extends BaseController {
     }
 
     periodRepository.save(updatedProcessingPeriod);
+    entityCacheManager.evict(EntityCacheManager.PROCESSING_PERIODS, periodId);
     return exportToDto(updatedProcessingPeriod);
   }
 
@@ -170,16 +177,15 @@ public class ProcessingPeriodController extends BaseController {
     Profiler profiler = new Profiler("GET_PERIOD_BY_ID");
     profiler.setLogger(LOGGER);
 
-    profiler.start("FIND_PERIOD_IN_DB");
-    ProcessingPeriod period = periodRepository.findById(periodId).orElse(null);
-    if (period == null) {
+    profiler.start("GET_PERIOD");
+    ProcessingPeriodDto dto = entityCacheManager.get(EntityCacheManager.PROCESSING_PERIODS,
+        periodId, ProcessingPeriodDto.class,
+        () -> periodRepository.findById(periodId).map(this::exportToDto).orElse(null));
+    if (dto == null) {
       profiler.stop().log();
       throw new NotFoundException(ProcessingPeriodMessageKeys.ERROR_NOT_FOUND);
     }
 
-    profiler.start("EXPORT_TO_DTO");
-    ProcessingPeriodDto dto = exportToDto(period);
-
     profiler.stop().log();
     return dto;
   }
@@ -210,6 +216,8 @@ public class ProcessingPeriodController extends BaseController {
    *               If null or empty, changes are returned regardless of author.
    * @param changedPropertyName The name of the property about which changes should be returned.
    *               If null or empty, changes associated with any and all properties are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param page A Pageable object that allows client to optionally add "page" (page number)
    *             and "size" (page size) query parameters to the request.
    */
@@ -221,6 +229,7 @@ public class ProcessingPeriodController extends BaseController {
       @RequestParam(name = "author", required = false, defaultValue = "") String author,
       @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
           String changedPropertyName,
+      @RequestParam(name = "cursor", required = false) Long cursor,
       //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
@@ -234,7 +243,8 @@ public class ProcessingPeriodController extends BaseController {
       throw new NotFoundException(ProcessingPeriodMessageKeys.ERROR_NOT_FOUND);
     }
 
-    return getAuditLogResponse(ProcessingPeriod.class, id, author, changedPropertyName, page,
+    return getAuditLogResponse(ProcessingPeriod.class, id, author, changedPropertyName, cursor,
+        page,
         returnJson);
   }
 
@@ -28,6 +28,7 @@ import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.FacilityRepository;
 import org.openlmis.referencedata.repository.ProcessingScheduleRepository;
 import org.openlmis.referencedata.repository.ProgramRepository;
+import org.openlmis.referencedata.service.EntityCacheManager;
 import org.openlmis.referencedata.service.RequisitionGroupProgramScheduleService;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.messagekeys.FacilityMessageKeys;
@@ -71,6 +72,9 @@ public class ProcessingScheduleController extends BaseController {
   @Autowired
   private FacilityRepository facilityRepository;
 
+  @Autowired
+  private EntityCacheManager entityCacheManager;
+
   /**
    * Allows creating new ProcessingSchedules.
    *
@@ -105,6 +109,10 @@ public class ProcessingScheduleController extends BaseController {
     rightService.checkAdminRight(RightName.PROCESSING_SCHEDULES_MANAGE_RIGHT);
     LOGGER.debug("Updating processingSchedule");
     scheduleRepository.save(schedule);
+
+    // processing periods are cached together with their schedule
+    entityCacheManager.evict(EntityCacheManager.PROCESSING_SCHEDULES, schedule.getId());
+    entityCacheManager.clear(EntityCacheManager.PROCESSING_PERIODS);
     return schedule;
   }
 
@@ -188,7 +196,9 @@ public class ProcessingScheduleController extends BaseController {
   public ProcessingSchedule getProcessingSchedule(
       @PathVariable("id") UUID scheduleId) {
 
-    ProcessingSchedule schedule = scheduleRepository.findById(scheduleId).orElse(null);
+    ProcessingSchedule schedule = entityCacheManager.get(
+        EntityCacheManager.PROCESSING_SCHEDULES, scheduleId, ProcessingSchedule.class,
+        () -> scheduleRepository.findById(scheduleId).orElse(null));
     if (schedule == null) {
       throw new NotFoundException(ProcessingScheduleMessageKeys.ERROR_NOT_FOUND);
     } else {
@@ -211,6 +221,7 @@ public class ProcessingScheduleController extends BaseController {
       throw new NotFoundException(ProcessingScheduleMessageKeys.ERROR_NOT_FOUND);
     } else {
       scheduleRepository.delete(schedule);
+      entityCacheManager.evict(EntityCacheManager.PROCESSING_SCHEDULES, scheduleId);
     }
   }
 
@@ -220,6 +231,8 @@ public class ProcessingScheduleController extends BaseController {
    *               If null or empty, changes are returned regardless of author.
    * @param changedPropertyName The name of the property about which changes should be returned.
    *               If null or empty, changes associated with any and all properties are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param page A Pageable object that allows client to optionally add "page" (page number)
    *             and "size" (page size) query parameters to the request.
    */
@@ -231,6 +244,7 @@ public class ProcessingScheduleController extends BaseController {
       @RequestParam(name = "author", required = false, defaultValue = "") String author,
       @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
           String changedPropertyName,
+      @RequestParam(name = "cursor", required = false) Long cursor,
       //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
@@ -244,7 +258,8 @@ public class ProcessingScheduleController extends BaseController {
       throw new NotFoundException(ProcessingScheduleMessageKeys.ERROR_NOT_FOUND);
     }
 
-    return getAuditLogResponse(ProcessingSchedule.class, id, author, changedPropertyName, page,
+    return getAuditLogResponse(ProcessingSchedule.class, id, author, changedPropertyName, cursor,
+        page,
         returnJson);
   }
 
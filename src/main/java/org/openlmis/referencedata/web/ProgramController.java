@@ -22,7 +22,6 @@ import static org.openlmis.referencedata.web.ProgramController.RESOURCE_PATH;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
-import org.openlmis.referencedata.AvailableFeatures;
 import org.openlmis.referencedata.domain.Code;
 import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.RightName;
@@ -30,7 +29,7 @@ import org.openlmis.referencedata.dto.ProgramDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.ProgramRepository;
-import org.openlmis.referencedata.repository.custom.impl.ProgramRedisRepository;
+import org.openlmis.referencedata.service.EntityCacheManager;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
 import org.openlmis.referencedata.validate.ProgramValidator;
@@ -68,7 +67,7 @@ public class ProgramController extends BaseController {
   private ProgramRepository programRepository;
 
   @Autowired
-  private ProgramRedisRepository programRedisRepository;
+  private EntityCacheManager entityCacheManager;
 
   @Autowired
   private ProgramValidator validator;
@@ -146,22 +145,15 @@ public class ProgramController extends BaseController {
     Profiler profiler = new Profiler("GET_PROGRAM_BY_ID");
     profiler.setLogger(XLOGGER);
 
-    Program program;
+    profiler.start("GET_PROGRAM");
+    Program program = entityCacheManager.get(EntityCacheManager.PROGRAMS, programId,
+        Program.class, () -> programRepository.findById(programId).orElse(null));
 
-    if (AvailableFeatures.REDIS_CACHING.isActive()) {
-      program = getProgramFromCache(programId, profiler);
-      profiler.stop().log();
-      return program;
-    }
-
-    if (!programRepository.existsById(programId)) {
+    if (null == program) {
       profiler.stop().log();
       throw new NotFoundException(ProgramMessageKeys.ERROR_NOT_FOUND);
     }
 
-    profiler.start("GET_PROGRAM_FROM_DATABASE");
-    program = programRepository.findById(programId).orElse(null);
-
     profiler.stop().log();
     return program;
   }
@@ -178,14 +170,11 @@ public class ProgramController extends BaseController {
 
     Program program = programRepository.findById(programId).orElse(null);
 
-    if (AvailableFeatures.REDIS_CACHING.isActive()) {
-      deleteProgramFromCache(programId);
-    }
-
     if (program == null) {
       throw new NotFoundException(ProgramMessageKeys.ERROR_NOT_FOUND);
     } else {
       programRepository.delete(program);
+      entityCacheManager.evict(EntityCacheManager.PROGRAMS, programId);
     }
   }
 
@@ -226,10 +215,8 @@ public class ProgramController extends BaseController {
     Program updatedProgram = Program.newProgram(program);
 
     programRepository.save(updatedProgram);
-
-    if (AvailableFeatures.REDIS_CACHING.isActive()) {
-      deleteProgramFromCache(id);
-    }
+    // the program is saved with the id from the request body
+    entityCacheManager.evict(EntityCacheManager.PROGRAMS, updatedProgram.getId());
 
     return updatedProgram;
   }
@@ -266,6 +253,8 @@ public class ProgramController extends BaseController {
    *               If null or empty, changes are returned regardless of author.
    * @param changedPropertyName The name of the property about which changes should be returned.
    *               If null or empty, changes associated with any and all properties are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param page A Pageable object that allows client to optionally add "page" (page number)
    *             and "size" (page size) query parameters to the request.
    */
@@ -277,6 +266,7 @@ public class ProgramController extends BaseController {
       @RequestParam(name = "author", required = false, defaultValue = "") String author,
       @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
           String changedPropertyName,
+      @RequestParam(name = "cursor", required = false) Long cursor,
       //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
@@ -287,45 +277,7 @@ public class ProgramController extends BaseController {
       throw new NotFoundException(ProgramMessageKeys.ERROR_NOT_FOUND);
     }
 
-    return getAuditLogResponse(Program.class, id, author, changedPropertyName, page,
+    return getAuditLogResponse(Program.class, id, author, changedPropertyName, cursor, page,
         returnJson);
   }
-
-  /**
-   * Get the program from cache.
-   */
-  private Program getProgramFromCache(UUID programId, Profiler profiler) {
-    Program program;
-
-    profiler.start("CHECK_IF_PROGRAM_EXISTS_IN_CACHE");
-    boolean programInCache = programRedisRepository
-        .exists(programId);
-
-    if (programInCache) {
-      profiler.start("GET_PROGRAM_FROM_CACHE");
-      program = programRedisRepository.findById(programId);
-    } else if (!programRepository.existsById(programId)) {
-      profiler.stop().log();
-      throw new NotFoundException(ProgramMessageKeys.ERROR_NOT_FOUND);
-    } else {
-      profiler.start("GET_PROGRAM_FROM_DATABASE");
-      program = programRepository.findById(programId).orElse(null);
-      profiler.start("SAVE_PROGRAM_IN_CACHE");
-      programRedisRepository.save(program);
-    }
-
-    return program;
-  }
-
-  /**
-   * Delete the program from cache.
-   */
-  private void deleteProgramFromCache(UUID programId) {
-    if (!programRedisRepository.exists(programId)) {
-      throw new NotFoundException(ProgramMessageKeys.ERROR_NOT_FOUND);
-    } else {
-      Program program = programRedisRepository.findById(programId);
-      programRedisRepository.delete(program);
-    }
-  }
 }
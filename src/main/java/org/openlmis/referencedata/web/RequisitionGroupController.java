@@ -20,6 +20,7 @@ import static org.openlmis.referencedata.domain.RightName.REQUISITION_GROUPS_MAN
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import org.openlmis.referencedata.domain.RequisitionGroup;
@@ -30,6 +31,7 @@ import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.RequisitionGroupRepository;
 import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
 import org.openlmis.referencedata.service.RequisitionGroupService;
+import org.openlmis.referencedata.service.RightAssignmentChange;
 import org.openlmis.referencedata.service.RightAssignmentService;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.messagekeys.RequisitionGroupMessageKeys;
@@ -112,7 +114,8 @@ public class RequisitionGroupController extends BaseController {
       requisitionGroupRepository.saveAndFlush(requisitionGroup);
 
       profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-      rightAssignmentService.regenerateRightAssignments();
+      rightAssignmentService.regenerateRightAssignments(
+          RightAssignmentChange.ofRequisitionGroup(requisitionGroup.getId()));
 
       LOGGER.info("Created new requisitionGroup with id: {}", requisitionGroup.getId());
       profiler.start("EXPORT_REQUISITION_GROUP_TO_DTO");
@@ -196,6 +199,10 @@ public class RequisitionGroupController extends BaseController {
         LOGGER.info("Updating requisitionGroup with id: {}", requisitionGroupId);
       }
 
+      profiler.start("FIND_USERS_AFFECTED_BY_REQUISITION_GROUP");
+      RightAssignmentChange change = RightAssignmentChange.ofRequisitionGroup(requisitionGroupId);
+      final Set<UUID> affectedUsers = rightAssignmentService.findAffectedUsers(change);
+
       profiler.start("IMPORT_REQUISITION_GROUP_FROM_DTO");
       requisitionGroupToUpdate.updateFrom(
               RequisitionGroup.newRequisitionGroup(requisitionGroupDto));
@@ -208,7 +215,7 @@ public class RequisitionGroupController extends BaseController {
       requisitionGroupToUpdate = requisitionGroupRepository.saveAndFlush(requisitionGroupToUpdate);
 
       profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-      rightAssignmentService.regenerateRightAssignments();
+      rightAssignmentService.regenerateRightAssignments(change, affectedUsers);
 
       LOGGER.info("Saved requisitionGroup with id: {}", requisitionGroupToUpdate.getId());
       profiler.start("EXPORT_REQUISITION_GROUP_TO_DTO");
@@ -243,12 +250,16 @@ public class RequisitionGroupController extends BaseController {
       profiler.stop().log();
       throw new NotFoundException(RequisitionGroupMessageKeys.ERROR_NOT_FOUND);
     } else {
+      profiler.start("FIND_USERS_AFFECTED_BY_REQUISITION_GROUP");
+      RightAssignmentChange change = RightAssignmentChange.ofRequisitionGroup(requisitionGroupId);
+      final Set<UUID> affectedUsers = rightAssignmentService.findAffectedUsers(change);
+
       profiler.start("DELETE_REQUISITION_GROUP");
       requisitionGroupRepository.delete(requisitionGroup);
       requisitionGroupRepository.flush();
 
       profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-      rightAssignmentService.regenerateRightAssignments();
+      rightAssignmentService.regenerateRightAssignments(change, affectedUsers);
 
       profiler.stop().log();
     }
@@ -260,6 +271,8 @@ public class RequisitionGroupController extends BaseController {
    *               If null or empty, changes are returned regardless of author.
    * @param changedPropertyName The name of the property about which changes should be returned.
    *               If null or empty, changes associated with any and all properties are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param page A Pageable object that allows client to optionally add "page" (page number)
    *             and "size" (page size) query parameters to the request.
    */
@@ -271,6 +284,7 @@ public class RequisitionGroupController extends BaseController {
       @RequestParam(name = "author", required = false, defaultValue = "") String author,
       @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
           String changedPropertyName,
+      @RequestParam(name = "cursor", required = false) Long cursor,
       //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
@@ -283,7 +297,8 @@ public class RequisitionGroupController extends BaseController {
       throw new NotFoundException(RequisitionGroupMessageKeys.ERROR_NOT_FOUND);
     }
 
-    return getAuditLogResponse(RequisitionGroup.class, id, author, changedPropertyName, page,
+    return getAuditLogResponse(RequisitionGroup.class, id, author, changedPropertyName, cursor,
+        page,
         returnJson);
   }
 
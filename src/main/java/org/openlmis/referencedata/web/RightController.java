@@ -32,6 +32,7 @@ import org.openlmis.referencedata.dto.RightDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.RightRepository;
+import org.openlmis.referencedata.service.EntityCacheManager;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.messagekeys.RightMessageKeys;
 import org.slf4j.Logger;
@@ -61,6 +62,9 @@ public class RightController extends BaseController {
   @Autowired
   private RightRepository rightRepository;
 
+  @Autowired
+  private EntityCacheManager entityCacheManager;
+
   public RightController(RightRepository repository) {
     this.rightRepository = Objects.requireNonNull(repository);
   }
@@ -95,12 +99,13 @@ public class RightController extends BaseController {
     
     rightService.checkRootAccess();
 
-    Right right = rightRepository.findById(rightId).orElse(null);
+    RightDto right = entityCacheManager.get(EntityCacheManager.RIGHTS, rightId, RightDto.class,
+        () -> rightRepository.findById(rightId).map(this::exportToDto).orElse(null));
 
     if (right == null) {
       throw new NotFoundException(RightMessageKeys.ERROR_NOT_FOUND);
     } else {
-      return exportToDto(right);
+      return right;
     }
   }
 
@@ -110,6 +115,8 @@ public class RightController extends BaseController {
    *               If null or empty, changes are returned regardless of author.
    * @param changedPropertyName The name of the property about which changes should be returned.
    *               If null or empty, changes associated with any and all properties are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param page A Pageable object that allows client to optionally add "page" (page number)
    *             and "size" (page size) query parameters to the request.
    */
@@ -121,6 +128,7 @@ public class RightController extends BaseController {
       @RequestParam(name = "author", required = false, defaultValue = "") String author,
       @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
           String changedPropertyName,
+      @RequestParam(name = "cursor", required = false) Long cursor,
       //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
@@ -133,7 +141,8 @@ public class RightController extends BaseController {
       throw new NotFoundException(RightMessageKeys.ERROR_NOT_FOUND);
     }
 
-    return getAuditLogResponse(Right.class, id, author, changedPropertyName, page, returnJson);
+    return getAuditLogResponse(Right.class, id, author, changedPropertyName, cursor, page,
+        returnJson);
   }
 
   /**
@@ -172,7 +181,7 @@ public class RightController extends BaseController {
 
     LOGGER.debug("Saving right");
     rightToSave = rightRepository.save(rightToSave);
-
+    clearCaches();
 
     LOGGER.debug("Saved right with id: " + rightToSave.getId());
 
@@ -197,6 +206,7 @@ public class RightController extends BaseController {
 
     LOGGER.debug("Deleting right");
     rightRepository.deleteById(rightId);
+    clearCaches();
   }
 
   /**
@@ -241,6 +251,12 @@ public class RightController extends BaseController {
     return dtos;
   }
 
+  // rights are cached together with their attachments and roles together with their rights
+  private void clearCaches() {
+    entityCacheManager.clear(EntityCacheManager.RIGHTS);
+    entityCacheManager.clear(EntityCacheManager.ROLES);
+  }
+
   private RightDto exportToDto(Right right) {
     RightDto rightDto = new RightDto();
     right.export(rightDto);
@@ -34,6 +34,8 @@ import org.openlmis.referencedata.repository.CountResource;
 import org.openlmis.referencedata.repository.RightRepository;
 import org.openlmis.referencedata.repository.RoleAssignmentRepository;
 import org.openlmis.referencedata.repository.RoleRepository;
+import org.openlmis.referencedata.service.EntityCacheManager;
+import org.openlmis.referencedata.service.RightAssignmentChange;
 import org.openlmis.referencedata.service.RightAssignmentService;
 import org.openlmis.referencedata.util.messagekeys.RoleMessageKeys;
 import org.slf4j.Logger;
@@ -73,6 +75,9 @@ public class RoleController extends BaseController {
   @Autowired
   private RightAssignmentService rightAssignmentService;
 
+  @Autowired
+  private EntityCacheManager entityCacheManager;
+
   /**
    * Get all roles in the system.
    *
@@ -114,12 +119,13 @@ public class RoleController extends BaseController {
   public RoleDto getRole(@PathVariable("roleId") UUID roleId) {
 
     LOGGER.debug("Getting role");
-    Role role = roleRepository.findById(roleId).orElse(null);
+    RoleDto role = entityCacheManager.get(EntityCacheManager.ROLES, roleId, RoleDto.class,
+        () -> roleRepository.findById(roleId).map(this::exportToDto).orElse(null));
     if (role == null) {
       throw new NotFoundException(RoleMessageKeys.ERROR_NOT_FOUND);
     }
 
-    return exportToDto(role);
+    return role;
   }
 
   /**
@@ -128,6 +134,8 @@ public class RoleController extends BaseController {
    *               If null or empty, changes are returned regardless of author.
    * @param changedPropertyName The name of the property about which changes should be returned.
    *               If null or empty, changes associated with any and all properties are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param page A Pageable object that allows client to optionally add "page" (page number)
    *             and "size" (page size) query parameters to the request.
    */
@@ -139,6 +147,7 @@ public class RoleController extends BaseController {
       @RequestParam(name = "author", required = false, defaultValue = "") String author,
       @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
           String changedPropertyName,
+      @RequestParam(name = "cursor", required = false) Long cursor,
       //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
@@ -151,7 +160,8 @@ public class RoleController extends BaseController {
       throw new NotFoundException(RoleMessageKeys.ERROR_NOT_FOUND);
     }
 
-    return getAuditLogResponse(Role.class, id, author, changedPropertyName, page, returnJson);
+    return getAuditLogResponse(Role.class, id, author, changedPropertyName, cursor, page,
+        returnJson);
   }
 
   /**
@@ -169,6 +179,8 @@ public class RoleController extends BaseController {
     populateRights(roleDto);
     Role newRole = Role.newRole(roleDto);
     roleRepository.save(newRole);
+    // the id is taken from the request, so an existing role can be replaced
+    entityCacheManager.evict(EntityCacheManager.ROLES, newRole.getId());
 
     LOGGER.info("Saved new role with id: {}", newRole.getId());
 
@@ -206,9 +218,10 @@ public class RoleController extends BaseController {
 
     profiler.start("SAVE_ROLE");
     roleRepository.saveAndFlush(roleToSave);
+    entityCacheManager.evict(EntityCacheManager.ROLES, roleId);
 
     profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-    rightAssignmentService.regenerateRightAssignments();
+    rightAssignmentService.regenerateRightAssignments(RightAssignmentChange.ofRole(roleId));
     
     LOGGER.info("Saved role with id: {}", roleToSave.getId());
 
@@ -236,6 +249,7 @@ public class RoleController extends BaseController {
 
     LOGGER.debug("Deleting role");
     roleRepository.deleteById(roleId);
+    entityCacheManager.evict(EntityCacheManager.ROLES, roleId);
   }
 
   private RoleDto exportToDto(Role role) {
@@ -18,13 +18,16 @@ package org.openlmis.referencedata.web;
 import static java.util.stream.Collectors.toSet;
 import static org.openlmis.referencedata.domain.RightName.SUPERVISORY_NODES_MANAGE;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.openlmis.referencedata.AvailableFeatures;
 import org.openlmis.referencedata.domain.Facility;
-import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.RequisitionGroup;
 import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.domain.SupervisoryNode;
@@ -34,12 +37,14 @@ import org.openlmis.referencedata.dto.SupervisoryNodeDto;
 import org.openlmis.referencedata.dto.UserDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.repository.FacilityRepository;
 import org.openlmis.referencedata.repository.ProgramRepository;
 import org.openlmis.referencedata.repository.RequisitionGroupRepository;
 import org.openlmis.referencedata.repository.RightRepository;
 import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
 import org.openlmis.referencedata.repository.UserRepository;
 import org.openlmis.referencedata.repository.custom.impl.SupervisoryNodeDtoRedisRepository;
+import org.openlmis.referencedata.service.RightAssignmentChange;
 import org.openlmis.referencedata.service.RightAssignmentService;
 import org.openlmis.referencedata.service.SupervisoryNodeBuilder;
 import org.openlmis.referencedata.util.Message;
@@ -87,6 +92,9 @@ public class SupervisoryNodeController extends BaseController {
 
   @Autowired
   private ProgramRepository programRepository;
+
+  @Autowired
+  private FacilityRepository facilityRepository;
   
   @Autowired
   private RightRepository rightRepository;
@@ -208,6 +216,13 @@ public class SupervisoryNodeController extends BaseController {
     validator.validate(supervisoryNodeDto, bindingResult);
     throwValidationMessageExceptionIfErrors(bindingResult);
 
+    profiler.start("FIND_USERS_AFFECTED_BY_SUPERVISORY_NODE");
+    Set<UUID> relatedNodeIds = new HashSet<>(supervisoryNodeDto.getChildNodeIds());
+    relatedNodeIds.add(supervisoryNodeDto.getParentNodeId());
+    RightAssignmentChange change = RightAssignmentChange.ofSupervisoryNode(supervisoryNodeId,
+        relatedNodeIds, supervisoryNodeDto.getRequisitionGroupId());
+    final Set<UUID> affectedUsers = rightAssignmentService.findAffectedUsers(change);
+
     profiler.start("BUILD_DOMAIN_OBJ_FROM_DTO");
     SupervisoryNode supervisoryNodeToUpdate = builder.build(supervisoryNodeDto);
 
@@ -228,7 +243,7 @@ public class SupervisoryNodeController extends BaseController {
     }
 
     profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-    rightAssignmentService.regenerateRightAssignments();
+    rightAssignmentService.regenerateRightAssignments(change, affectedUsers);
 
     LOGGER.info("Updated supervisoryNode with id: {}", supervisoryNodeId);
     profiler.start("EXPORT_SUPERVISORY_NODE_TO_DTO");
@@ -319,24 +334,29 @@ public class SupervisoryNodeController extends BaseController {
     SupervisoryNode supervisoryNode = supervisoryNodeRepository.findById(supervisoryNodeId)
         .orElseThrow(() -> new NotFoundException(SupervisoryNodeMessageKeys.ERROR_NOT_FOUND));
 
-    Program program;
-
-    if (null == programId) {
-      program = null;
-    } else {
-      program = programRepository.findById(programId)
-          .orElseThrow(() -> new NotFoundException(ProgramMessageKeys.ERROR_NOT_FOUND));
+    if (null != programId && !programRepository.findById(programId).isPresent()) {
+      throw new NotFoundException(ProgramMessageKeys.ERROR_NOT_FOUND);
     }
 
-    Set<Facility> facilities = supervisoryNode.getAllSupervisedFacilities(program);
-    Page<Facility> facilityPage = Pagination.getPage(facilities, pageable);
-    List<FacilityDto> facilityDtos = facilityPage
-        .getContent()
+    List<UUID> facilityIds = supervisoryNodeRepository
+        .findSupervisedFacilityIds(supervisoryNode.getId(), programId)
+        .stream()
+        .sorted()
+        .collect(Collectors.toList());
+    List<UUID> pageOfFacilityIds = Pagination.getPage(facilityIds, pageable).getContent();
+
+    Map<UUID, Facility> facilities = facilityRepository
+        .findAllById(pageOfFacilityIds)
+        .stream()
+        .collect(Collectors.toMap(Facility::getId, Function.identity()));
+    List<FacilityDto> facilityDtos = pageOfFacilityIds
         .stream()
+        .map(facilities::get)
+        .filter(Objects::nonNull)
         .map(FacilityDto::newInstance)
         .collect(Collectors.toList());
 
-    return Pagination.getPage(facilityDtos, pageable, facilities.size());
+    return Pagination.getPage(facilityDtos, pageable, facilityIds.size());
   }
 
   /**
@@ -374,6 +394,8 @@ public class SupervisoryNodeController extends BaseController {
    *               If null or empty, changes are returned regardless of author.
    * @param changedPropertyName The name of the property about which changes should be returned.
    *               If null or empty, changes associated with any and all properties are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param page A Pageable object that allows client to optionally add "page" (page number)
    *             and "size" (page size) query parameters to the request.
    */
@@ -385,6 +407,7 @@ public class SupervisoryNodeController extends BaseController {
       @RequestParam(name = "author", required = false, defaultValue = "") String author,
       @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
           String changedPropertyName,
+      @RequestParam(name = "cursor", required = false) Long cursor,
       //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
@@ -397,7 +420,7 @@ public class SupervisoryNodeController extends BaseController {
       throw new NotFoundException(SupervisoryNodeMessageKeys.ERROR_NOT_FOUND);
     }
 
-    return getAuditLogResponse(SupervisoryNode.class, id, author, changedPropertyName, page,
+    return getAuditLogResponse(SupervisoryNode.class, id, author, changedPropertyName, cursor, page,
         returnJson);
   }
 
@@ -191,6 +191,8 @@ public class SupplyPartnerController extends BaseController {
    * @param changedPropertyName The name of the property about which changes should be returned.
    *                            If null or empty, changes associated with any and all properties
    *                            are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param pageable A Pageable object that allows client to optionally add "page" (page number)
    *                 and "size" (page size) query parameters to the request.
    */
@@ -200,6 +202,7 @@ public class SupplyPartnerController extends BaseController {
       @RequestParam(name = "author", required = false, defaultValue = "") String author,
       @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
           String changedPropertyName,
+      @RequestParam(name = "cursor", required = false) Long cursor,
       //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
@@ -213,7 +216,7 @@ public class SupplyPartnerController extends BaseController {
 
     profiler.start("GET_AUDIT_LOG");
     ResponseEntity<String> response = getAuditLogResponse(
-        SupplyPartner.class, id, author, changedPropertyName, pageable, returnJson
+        SupplyPartner.class, id, author, changedPropertyName, cursor, pageable, returnJson
     );
 
     profiler.stop().log();
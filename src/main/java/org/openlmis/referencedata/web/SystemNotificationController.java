@@ -18,6 +18,7 @@ package org.openlmis.referencedata.web;
 import static org.openlmis.referencedata.domain.RightName.SYSTEM_NOTIFICATIONS_MANAGE;
 import static org.openlmis.referencedata.web.SystemNotificationController.RESOURCE_PATH;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -32,10 +33,12 @@ import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.SystemNotificationRepository;
 import org.openlmis.referencedata.repository.UserRepository;
+import org.openlmis.referencedata.service.ResourceVersion;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.messagekeys.SystemNotificationMessageKeys;
 import org.openlmis.referencedata.validate.SystemNotificationValidator;
+import org.openlmis.referencedata.web.DisplayedSystemNotifications.Notifications;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import org.slf4j.profiler.Profiler;
@@ -43,7 +46,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -54,18 +59,22 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Transactional
 @RestController
 @RequestMapping(RESOURCE_PATH)
+@SuppressWarnings("PMD.TooManyMethods")
 public class SystemNotificationController extends BaseController {
 
   public static final String RESOURCE_PATH = BaseController.API_PATH + "/systemNotifications";
   public static final String ID_URL = "/{id}";
+  public static final String STREAM_URL = "/stream";
 
   private static final XLogger XLOGGER = XLoggerFactory.getXLogger(SystemNotification.class);
   private static final String AUDIT_LOG_URL = ID_URL + "/auditLog";
@@ -79,23 +88,46 @@ public class SystemNotificationController extends BaseController {
   @Autowired
   private UserRepository userRepository;
 
+  @Autowired
+  private DisplayedSystemNotifications displayedSystemNotifications;
+
   @Value("${service.url}")
   private String serviceUrl;
 
   /**
-   * Retrieves all system notifications.
+   * Retrieves all system notifications. Currently displayed notifications are served from
+   * memory with a strong entity tag, see {@link DisplayedSystemNotifications}.
    *
    * @return List of system notifications.
    */
   @GetMapping
-  public Page<SystemNotificationDto> getSystemNotifications(
-      @RequestParam MultiValueMap<String, Object> requestParams, Pageable pageable) {
+  public ResponseEntity<Page<SystemNotificationDto>> getSystemNotifications(
+      @RequestParam MultiValueMap<String, Object> requestParams, Pageable pageable,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
     Profiler profiler = new Profiler("GET_SYSTEM_NOTIFICATIONS");
     profiler.setLogger(XLOGGER);
 
-    profiler.start("FIND_SYSTEM_NOTIFICATIONS");
     SystemNotificationSearchParams searchParams =
         new SystemNotificationSearchParams(requestParams);
+
+    if (isDisplayedSearch(searchParams, pageable)) {
+      profiler.start("GET_DISPLAYED_SYSTEM_NOTIFICATIONS");
+      Notifications notifications = displayedSystemNotifications
+          .getNotifications(!searchParams.getExpand().isEmpty());
+
+      profiler.stop().log();
+      if (ResourceVersion.matches(notifications.getEtag(), ifNoneMatch)) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(notifications.getEtag())
+            .build();
+      }
+
+      return ResponseEntity.ok()
+          .eTag(notifications.getEtag())
+          .body(Pagination.getPage(notifications.getContent(), pageable));
+    }
+
+    profiler.start("FIND_SYSTEM_NOTIFICATIONS");
     Page<SystemNotification> notifications =
         systemNotificationRepository.search(searchParams, pageable);
 
@@ -105,7 +137,26 @@ public class SystemNotificationController extends BaseController {
             searchParams.getIsDisplayed());
 
     profiler.stop().log();
-    return page;
+    return ResponseEntity.ok(page);
+  }
+
+  /**
+   * Streams system notifications which are currently displayed as server-sent events.
+   * Displayed notifications are sent right after subscribing, and then every time they change.
+   *
+   * @param expand set to "author" to expand authors of notifications.
+   * @return the stream of displayed system notifications.
+   */
+  @GetMapping(value = STREAM_URL, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamDisplayedSystemNotifications(
+      @RequestParam(value = "expand", required = false) Set<String> expand) {
+    if (null != expand && !expand.isEmpty()
+        && !expand.equals(Collections.singleton(DisplayedSystemNotifications.AUTHOR))) {
+      throw new ValidationMessageException(
+          new Message(SystemNotificationMessageKeys.ERROR_INVALID_PARAMS));
+    }
+
+    return displayedSystemNotifications.subscribe(null != expand && !expand.isEmpty());
   }
 
   /**
@@ -198,6 +249,7 @@ public class SystemNotificationController extends BaseController {
     SystemNotification notification = findSystemNotification(id, profiler);
 
     systemNotificationRepository.delete(notification);
+    displayedSystemNotifications.refreshAfterTransaction();
 
     profiler.stop().log();
   }
@@ -210,6 +262,8 @@ public class SystemNotificationController extends BaseController {
    * @param changedPropertyName The name of the property about which changes should be returned.
    *                            If null or empty, changes associated with any and all properties
    *                            are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param pageable A Pageable object that allows client to optionally add "page" (page number)
    *                 and "size" (page size) query parameters to the request.
    */
@@ -219,6 +273,7 @@ public class SystemNotificationController extends BaseController {
       @RequestParam(name = "author", required = false, defaultValue = "") String author,
       @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
           String changedPropertyName,
+      @RequestParam(name = "cursor", required = false) Long cursor,
       //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
@@ -232,7 +287,7 @@ public class SystemNotificationController extends BaseController {
 
     profiler.start("GET_AUDIT_LOG");
     ResponseEntity<String> response = getAuditLogResponse(
-        SystemNotification.class, id, author, changedPropertyName, pageable, returnJson
+        SystemNotification.class, id, author, changedPropertyName, cursor, pageable, returnJson
     );
 
     profiler.stop().log();
@@ -252,6 +307,18 @@ public class SystemNotificationController extends BaseController {
     return systemNotification;
   }
 
+  // displayed notifications are kept in memory in the default order
+  private boolean isDisplayedSearch(SystemNotificationSearchParams searchParams,
+      Pageable pageable) {
+    Set<String> expand = searchParams.getExpand();
+
+    return Boolean.TRUE.equals(searchParams.getIsDisplayed())
+        && null == searchParams.getAuthorId()
+        && pageable.getSort().isUnsorted()
+        && (expand.isEmpty()
+        || expand.equals(Collections.singleton(DisplayedSystemNotifications.AUTHOR)));
+  }
+
   private List<SystemNotification> notificationsToDisplay(Pageable pageable) {
     MultiValueMap<String, Object> paramsMap = new LinkedMultiValueMap<>();
     paramsMap.add("isDisplayed", true);
@@ -274,6 +341,7 @@ public class SystemNotificationController extends BaseController {
 
     profiler.start("SAVE_SYSTEM_NOTIFICATION");
     systemNotificationRepository.save(systemNotification);
+    displayedSystemNotifications.refreshAfterTransaction();
 
     return toDto(systemNotification, profiler);
   }
@@ -16,6 +16,8 @@
 package org.openlmis.referencedata.web;
 
 import static java.util.stream.Collectors.toList;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.FACILITIES;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.RIGHT_ASSIGNMENTS;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -50,13 +52,15 @@ import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.FacilityRepository;
 import org.openlmis.referencedata.repository.ProgramRepository;
-import org.openlmis.referencedata.repository.RightAssignmentRepository;
 import org.openlmis.referencedata.repository.RightRepository;
 import org.openlmis.referencedata.repository.RoleAssignmentRepository;
 import org.openlmis.referencedata.repository.RoleRepository;
 import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
 import org.openlmis.referencedata.repository.UserRepository;
 import org.openlmis.referencedata.repository.UserSearchParams;
+import org.openlmis.referencedata.service.PermissionIndex;
+import org.openlmis.referencedata.service.ResourceVersion;
+import org.openlmis.referencedata.service.ResourceVersionRegistry;
 import org.openlmis.referencedata.service.UserService;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.Pagination;
@@ -75,6 +79,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -85,6 +90,7 @@ import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -131,7 +137,10 @@ public class UserController extends BaseController {
   private UserValidator userValidator;
   
   @Autowired
-  private RightAssignmentRepository rightAssignmentRepository;
+  private PermissionIndex permissionIndex;
+
+  @Autowired
+  private ResourceVersionRegistry resourceVersionRegistry;
   
   @Autowired
   private RoleAssignmentRepository roleAssignmentRepository;
@@ -213,6 +222,7 @@ public class UserController extends BaseController {
 
     profiler.start("SAVE_USER");
     user = userRepository.save(user);
+    permissionIndex.invalidate(user.getId());
 
     profiler.start(PROFILER_TO_DTO);
     UserDto responseDto = exportUserToDto(user);
@@ -353,6 +363,7 @@ public class UserController extends BaseController {
     } else {
       profiler.start("DELETE_USER_FROM_DB");
       userRepository.deleteById(userId);
+      permissionIndex.invalidate(userId);
     }
     profiler.stop().log();
   }
@@ -443,8 +454,7 @@ public class UserController extends BaseController {
         }
 
         profiler.start("CHECK_HAS_RIGHT_BY_USER_RIGHT_FACILITY_PROGRAM");
-        hasRight = rightAssignmentRepository.existsByUserIdAndAndRightNameAndFacilityIdAndProgramId(
-            userId, right.getName(), facilityId, programId);
+        hasRight = permissionIndex.hasRight(userId, right.getName(), facilityId, programId);
 
       } else {
         throw new ValidationMessageException(UserMessageKeys.ERROR_PROGRAM_WITHOUT_FACILITY);
@@ -459,12 +469,11 @@ public class UserController extends BaseController {
       }
 
       profiler.start("CHECK_HAS_RIGHT_BY_USER_RIGHT_WAREHOUSE");
-      hasRight = rightAssignmentRepository.existsByUserIdAndAndRightNameAndFacilityId(
-          userId, right.getName(), warehouseId);
+      hasRight = permissionIndex.hasRight(userId, right.getName(), warehouseId);
 
     } else {
       profiler.start("CHECK_HAS_RIGHT_BY_USER_RIGHT");
-      hasRight = rightAssignmentRepository.existsByUserIdAndRightName(userId, right.getName());
+      hasRight = permissionIndex.hasRight(userId, right.getName());
     }
 
     profiler.stop().log();
@@ -606,6 +615,8 @@ public class UserController extends BaseController {
    * @param changedPropertyName  The name of the property about which changes should be returned.
    *                             If null or empty, changes associated with any and all properties
    *                             are returned.
+   * @param cursor The value of the X-Next-Cursor header returned with the previous page.
+   *               If given, the following page is returned and the page number is ignored.
    * @param page  A Pageable object that allows client to optionally add "page" (page number) and
    *              "size" (page size) query parameters to the request.
    * @return the list of all matching audit logs as string
@@ -618,6 +629,7 @@ public class UserController extends BaseController {
       @RequestParam(name = "author", required = false, defaultValue = "") String author,
       @RequestParam(name = "changedPropertyName", required = false, defaultValue = "")
           String changedPropertyName,
+      @RequestParam(name = "cursor", required = false) Long cursor,
       //Because JSON is all we formally support, returnJSON is excluded from our JavaDoc
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
@@ -634,6 +646,7 @@ public class UserController extends BaseController {
         userId,
         author,
         changedPropertyName,
+        cursor,
         page,
         returnJson);
 
@@ -645,10 +658,12 @@ public class UserController extends BaseController {
    * Get permissions (in string format) of the specified user.
    *
    * @param userId UUID of the user to retrieve.
+   * @param ifNoneMatch entity tag of permission strings the client already has.
    * @return a set of user permission strings.
    */
   @RequestMapping(value = "/users/{id}/permissionStrings", method = RequestMethod.GET)
-  public ResponseEntity<Set<String>> getUserPermissionStrings(@PathVariable("id") UUID userId) {
+  public ResponseEntity<Set<String>> getUserPermissionStrings(@PathVariable("id") UUID userId,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
     XLOGGER.entry(userId);
     Profiler profiler = new Profiler("GET_USER_PERM_STRINGS");
     profiler.setLogger(LOGGER);
@@ -656,8 +671,21 @@ public class UserController extends BaseController {
     checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId, profiler);
     checkUserExists(userId, profiler);
 
+    if (null != ifNoneMatch) {
+      profiler.start("GET_PERM_STRINGS_ETAG");
+      String etag = permissionIndex.getPermissionStringsETag(userId);
+
+      if (null != etag && ResourceVersion.matches(etag, ifNoneMatch)) {
+        profiler.stop().log();
+        XLOGGER.exit(etag);
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(etag)
+            .build();
+      }
+    }
+
     profiler.start("GET_PERM_STRINGS_FROM_RIGHT_ASSIGNMENTS");
-    Set<String> permissionStrings = rightAssignmentRepository.findByUser(userId);
+    Set<String> permissionStrings = permissionIndex.getPermissionStrings(userId);
 
     profiler.stop().log();
     XLOGGER.exit(permissionStrings);
@@ -672,11 +700,16 @@ public class UserController extends BaseController {
    * facilities).
    *
    * @param userId id of user to get supervised facilities
+   * @param ifNoneMatch entity tag of facilities the client already has
+   * @param ifModifiedSince date of facilities the client already has
    * @return a set of facilities
    */
   @RequestMapping(value = "/users/{userId}/facilities", method = RequestMethod.GET)
   public ResponseEntity<Set<NamedResource>> getUserFacilities(
-      @PathVariable(USER_ID) UUID userId) {
+      @PathVariable(USER_ID) UUID userId,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false)
+          String ifModifiedSince) {
     XLOGGER.entry(userId);
     Profiler profiler = new Profiler("GET_USER_FACILITIES");
     profiler.setLogger(LOGGER);
@@ -687,15 +720,36 @@ public class UserController extends BaseController {
       throw new NotFoundException(UserMessageKeys.ERROR_NOT_FOUND);
     }
 
+    // supervision facilities are found by right assignments and returned with their names
+    profiler.start("GET_RESOURCE_VERSION");
+    ResourceVersion version = resourceVersionRegistry.getVersion(RIGHT_ASSIGNMENTS, FACILITIES);
+
+    if (isNotModified(version, ifNoneMatch, ifModifiedSince)) {
+      profiler.stop().log();
+      XLOGGER.exit(version);
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(version.getEtag())
+          .build();
+    }
+
     profiler.start("GET_SUPERVISION_FACILITIES_BY_USER");
     Set<NamedResource> userFacilityDtos = facilityRepository
         .findSupervisionFacilitiesByUser(userId);
 
     profiler.stop().log();
     XLOGGER.exit(userFacilityDtos);
+
+    if (null == version) {
+      return ResponseEntity
+          .ok()
+          .eTag(Integer.toString(userFacilityDtos.hashCode()))
+          .body(userFacilityDtos);
+    }
+
     return ResponseEntity
         .ok()
-        .eTag(Integer.toString(userFacilityDtos.hashCode()))
+        .eTag(version.getEtag())
+        .lastModified(version.getLastModified())
         .body(userFacilityDtos);
   }
 
@@ -70,19 +70,35 @@ class CsvBeanWriter<T extends BaseDto> {
     profiler.setLogger(LOGGER);
 
     profiler.start("WRITE_HEADERS");
-    csvDozerBeanWriter.writeHeader(headers);
+    writeHeader();
 
     profiler.start("WRITE_LINE_ITEMS");
-    for (Object dto : dtos) {
-      csvDozerBeanWriter.write(dto, processors);
+    for (BaseDto dto : dtos) {
+      write(dto);
     }
 
     profiler.start("CLOSE_STREAM");
-    csvDozerBeanWriter.close();
+    close();
 
     profiler.stop().log();
   }
 
+  void writeHeader() throws IOException {
+    csvDozerBeanWriter.writeHeader(headers);
+  }
+
+  void write(BaseDto dto) throws IOException {
+    csvDozerBeanWriter.write(dto, processors);
+  }
+
+  void flush() throws IOException {
+    csvDozerBeanWriter.flush();
+  }
+
+  void close() throws IOException {
+    csvDozerBeanWriter.close();
+  }
+
   private void configureDozerBeanWriter(OutputStream outputStream) throws IOException {
     Profiler profiler = new Profiler("CONFIGURE_DOZER_WRITER");
     profiler.setLogger(LOGGER);
@@ -19,7 +19,9 @@ import static org.openlmis.referencedata.util.messagekeys.CsvExportMessageKeys.E
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.Consumer;
 import lombok.NoArgsConstructor;
 import org.openlmis.referencedata.dto.BaseDto;
 import org.openlmis.referencedata.exception.ValidationMessageException;
@@ -69,6 +71,47 @@ public class CsvFormatter {
     }
   }
 
+  /**
+   * Writes rows to the output stream as they are passed by the given source, so they do not have
+   * to be kept in memory. The header is sent right away.
+   *
+   * @param outputStream output stream of csv file
+   * @param modelClass   java model which is mapped to the csv row
+   * @param source       called once with a consumer that writes a single row
+   */
+  public <T extends BaseDto> void process(OutputStream outputStream,
+                                          ModelClass<T> modelClass,
+                                          Consumer<Consumer<T>> source) throws IOException {
+    Profiler profiler = new Profiler("CSV_PROCESS_STREAM");
+    profiler.setLogger(LOGGER);
+
+    profiler.start("CREATE_CSV_WRITER");
+    CsvBeanWriter<T> csvBeanWriter = new CsvBeanWriter<>(modelClass, outputStream);
+
+    profiler.start("WRITE_HEADERS");
+    csvBeanWriter.writeHeader();
+    csvBeanWriter.flush();
+
+    profiler.start("WRITE_CSV");
+    try {
+      source.accept(dto -> {
+        try {
+          csvBeanWriter.write(dto);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      });
+      csvBeanWriter.close();
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    } catch (SuperCsvException err) {
+      Message message = getCsvRowErrorMessage(err);
+      throw new ValidationMessageException(err, message);
+    } finally {
+      profiler.stop().log();
+    }
+  }
+
   private Message getCsvRowErrorMessage(SuperCsvException err) {
     CsvContext context = err.getCsvContext();
     int row = context.getRowNumber() - 1;
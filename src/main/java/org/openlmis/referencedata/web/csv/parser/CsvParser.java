@@ -15,17 +15,13 @@
 
 package org.openlmis.referencedata.web.csv.parser;
 
-import static org.openlmis.referencedata.util.messagekeys.CsvUploadMessageKeys.ERROR_UPLOAD_RECORD_INVALID;
-
-import com.google.common.collect.Lists;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import lombok.NoArgsConstructor;
 import org.openlmis.referencedata.domain.BaseEntity;
 import org.openlmis.referencedata.dto.BaseDto;
-import org.openlmis.referencedata.exception.ValidationMessageException;
-import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.validate.CsvHeaderValidator;
 import org.openlmis.referencedata.web.csv.model.ModelClass;
 import org.openlmis.referencedata.web.csv.recordhandler.RecordProcessor;
@@ -33,16 +29,20 @@ import org.openlmis.referencedata.web.csv.recordhandler.RecordWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.supercsv.exception.SuperCsvException;
-import org.supercsv.util.CsvContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * This class has logic to invoke corresponding respective record handler to parse data from input
  * stream into the corresponding model. To speed up the process for huge files the stream is divided
- * into smaller chunks. The chunk size is set by {@code csvParser.chunkSize} property. Each chunk is
- * executed asynchronously in the thread pool with size set by {@code csvParser.poolSize}.
+ * into smaller chunks. The chunk size is set by {@code csvParser.chunkSize} property. Chunks are
+ * processed in parallel by the number of threads set by {@code csvParser.poolSize}, each chunk in
+ * its own read only transaction, and written in the order of the file in one transaction, so
+ * either all records are imported or none. See {@link CsvPipeline} for details.
  */
 @Component
 @NoArgsConstructor
@@ -53,6 +53,15 @@ public class CsvParser {
   @Value("${csvParser.chunkSize}")
   private int chunkSize;
 
+  @Value("${csvParser.poolSize}")
+  private int poolSize;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
   /**
    * Parses data from input stream into the corresponding model.
    *
@@ -76,60 +85,20 @@ public class CsvParser {
     csvBeanReader.validateHeaders();
 
     profiler.start("PROCESS_CSV");
-    while (true) {
-      List<D> imported = doRead(csvBeanReader);
-
-      if (imported.isEmpty()) {
-        break;
-      }
-
-      doWrite(processor, writer, imported);
-    }
-
-    profiler.stop().log();
-    return csvBeanReader.getRowNumber() - 1;
-  }
-
-  private <D extends BaseDto> List<D> doRead(CsvBeanReader<D> csvBeanReader) throws IOException {
-    try {
-      List<D> list = Lists.newArrayList();
-
-      for (int i = 0; i < chunkSize; ++i) {
-        D imported = csvBeanReader.readWithCellProcessors();
-
-        if (null == imported) {
-          break;
-        }
-
-        list.add(imported);
-      }
-
-      return list;
-    } catch (SuperCsvException err) {
-      Message message = getCsvRowErrorMessage(err);
-      throw new ValidationMessageException(err, message);
-    }
-  }
-
-  private <D extends BaseDto, E extends BaseEntity> void doWrite(RecordProcessor<D, E> processor,
-                                                                 RecordWriter<E> writer,
-                                                                 List<D> imported) {
-    Profiler profiler = new Profiler("WRITE_CSV_CHUNK");
-    profiler.setLogger(LOGGER);
-
-    profiler.start("PROCESS");
-    List<E> entities = processor.process(imported);
+    TransactionTemplate processTransaction = newTransaction();
+    processTransaction.setReadOnly(true);
 
-    profiler.start("WRITE_TO_DB");
-    writer.write(entities);
+    int records = new CsvPipeline<>(csvBeanReader, processor, writer, processTransaction,
+        newTransaction(), entityManager, chunkSize, poolSize).run();
 
     profiler.stop().log();
+    return records;
   }
 
-  private Message getCsvRowErrorMessage(SuperCsvException err) {
-    CsvContext context = err.getCsvContext();
-    int row = context.getRowNumber() - 1;
-    return new Message(ERROR_UPLOAD_RECORD_INVALID, row, err.getMessage());
+  private TransactionTemplate newTransaction() {
+    TransactionTemplate template = new TransactionTemplate(transactionManager);
+    template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    return template;
   }
 
 }
@@ -0,0 +1,390 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web.csv.parser;
+
+import static org.openlmis.referencedata.util.messagekeys.CsvUploadMessageKeys.ERROR_UPLOAD_RECORD_INVALID;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.persistence.EntityManager;
+import org.openlmis.referencedata.domain.BaseEntity;
+import org.openlmis.referencedata.dto.BaseDto;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.web.csv.recordhandler.RecordProcessor;
+import org.openlmis.referencedata.web.csv.recordhandler.RecordWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.supercsv.exception.SuperCsvException;
+
+/**
+ * One run of the CSV import pipeline. The calling thread reads the file in chunks, worker
+ * threads process chunks in parallel, each chunk in its own read only transaction, and a single
+ * writer thread writes processed chunks in the order of the file, all in one transaction which
+ * is committed only if every chunk was read, processed and written.
+ *
+ * <p>The number of chunks between reading and writing is limited, so a slow stage holds back
+ * the reader instead of filling the memory. Once a chunk fails, no further chunks are read and
+ * chunks after it are skipped, but chunks before it are still processed. The error of the
+ * first failed chunk in the file is reported, so the same file always fails with the same error.
+ * Errors of other chunks which failed in the meantime are attached to it as suppressed.
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+class CsvPipeline<D extends BaseDto, E extends BaseEntity> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CsvPipeline.class);
+  private static final long POLL_MILLIS = 100;
+
+  private final CsvBeanReader<D> reader;
+  private final RecordProcessor<D, E> processor;
+  private final RecordWriter<E> writer;
+  private final TransactionTemplate processTransaction;
+  private final TransactionTemplate writeTransaction;
+  private final EntityManager entityManager;
+  private final int chunkSize;
+  private final int workers;
+
+  private final Semaphore chunksInFlight;
+  private final BlockingQueue<Chunk<D>> processQueue;
+  private final BlockingQueue<Chunk<E>> writeQueue;
+
+  private final AtomicReference<Failure> failure = new AtomicReference<>();
+  private final Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+  private volatile int chunkCount = -1;
+
+  private final Stage readStage = new Stage("READ");
+  private final Stage processStage = new Stage("PROCESS");
+  private final Stage writeStage = new Stage("WRITE");
+
+  CsvPipeline(CsvBeanReader<D> reader, RecordProcessor<D, E> processor, RecordWriter<E> writer,
+      TransactionTemplate processTransaction, TransactionTemplate writeTransaction,
+      EntityManager entityManager, int chunkSize, int workers) {
+    this.reader = reader;
+    this.processor = processor;
+    this.writer = writer;
+    this.processTransaction = processTransaction;
+    this.writeTransaction = writeTransaction;
+    this.entityManager = entityManager;
+    this.chunkSize = chunkSize;
+    this.workers = workers;
+
+    int capacity = 2 * workers;
+    this.chunksInFlight = new Semaphore(capacity);
+    this.processQueue = new ArrayBlockingQueue<>(capacity + workers);
+    this.writeQueue = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Reads, processes and writes all records.
+   *
+   * @return number of records
+   */
+  int run() throws IOException {
+    final long start = System.nanoTime();
+    ExecutorService executor = new DelegatingSecurityContextExecutorService(
+        Executors.newFixedThreadPool(workers + 1, new ThreadFactoryBuilder()
+            .setNameFormat("csv-parser-%d")
+            .setDaemon(true)
+            .build()));
+
+    try {
+      executor.execute(this::write);
+      for (int i = 0; i < workers; ++i) {
+        executor.execute(this::process);
+      }
+
+      read();
+
+      executor.shutdown();
+      while (!executor.awaitTermination(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+        LOGGER.debug("Waiting for CSV chunks to be processed and written");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      fail(Integer.MIN_VALUE, new IllegalStateException("CSV import was interrupted", ex));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    readStage.log();
+    processStage.log();
+    writeStage.log();
+    LOGGER.info("Imported {} CSV records in {} ms", readStage.getRecords(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+    throwFailure();
+    return (int) readStage.getRecords();
+  }
+
+  private void read() throws InterruptedException {
+    int index = 0;
+    while (null == failure.get()) {
+      if (!chunksInFlight.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+        continue;
+      }
+
+      long start = System.nanoTime();
+      List<D> records;
+      try {
+        records = readChunk();
+      } catch (SuperCsvException ex) {
+        fail(index, new ValidationMessageException(ex, getCsvRowErrorMessage(ex)));
+        break;
+      } catch (IOException | RuntimeException ex) {
+        fail(index, ex);
+        break;
+      }
+      readStage.add(records.size(), System.nanoTime() - start);
+
+      if (records.isEmpty()) {
+        chunksInFlight.release();
+        break;
+      }
+
+      processQueue.put(new Chunk<>(index++, records));
+    }
+
+    chunkCount = index;
+    for (int i = 0; i < workers; ++i) {
+      processQueue.put(Chunk.end());
+    }
+  }
+
+  private List<D> readChunk() throws IOException {
+    List<D> records = new ArrayList<>(chunkSize);
+
+    for (int i = 0; i < chunkSize; ++i) {
+      D record = reader.readWithCellProcessors();
+      if (null == record) {
+        break;
+      }
+      records.add(record);
+    }
+
+    return records;
+  }
+
+  private void process() {
+    try {
+      while (true) {
+        Chunk<D> chunk = processQueue.take();
+        if (chunk.isEnd()) {
+          return;
+        }
+
+        // a chunk after the failed one would not be written anyway
+        if (isAfterFailure(chunk.getIndex())) {
+          chunksInFlight.release();
+          continue;
+        }
+
+        long start = System.nanoTime();
+        try {
+          List<E> entities = processTransaction.execute(status ->
+              processor.process(chunk.getRecords()));
+          processStage.add(chunk.getRecords().size(), System.nanoTime() - start);
+          writeQueue.put(new Chunk<>(chunk.getIndex(), entities));
+        } catch (RuntimeException ex) {
+          fail(chunk.getIndex(), ex);
+          chunksInFlight.release();
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void write() {
+    try {
+      writeTransaction.execute(status -> {
+        if (!writeInOrder()) {
+          status.setRollbackOnly();
+        }
+        return null;
+      });
+    } catch (RuntimeException ex) {
+      // the commit failed, after all chunks were written
+      fail(chunkCount, ex);
+    }
+  }
+
+  private boolean writeInOrder() {
+    Map<Integer, Chunk<E>> pending = new HashMap<>();
+    int next = 0;
+
+    try {
+      while (chunkCount < 0 || next < chunkCount) {
+        if (null != failure.get()) {
+          return false;
+        }
+
+        Chunk<E> chunk = writeQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (null != chunk) {
+          pending.put(chunk.getIndex(), chunk);
+        }
+
+        for (chunk = pending.remove(next); null != chunk; chunk = pending.remove(next)) {
+          writeChunk(chunk);
+          chunksInFlight.release();
+          ++next;
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      fail(next, new IllegalStateException("CSV import was interrupted", ex));
+    } catch (RuntimeException ex) {
+      fail(next, ex);
+    }
+
+    return null == failure.get();
+  }
+
+  private void writeChunk(Chunk<E> chunk) {
+    final long start = System.nanoTime();
+    writer.write(chunk.getRecords());
+
+    // written entities are not needed anymore, so they are not kept for dirty checking
+    entityManager.flush();
+    entityManager.clear();
+    writeStage.add(chunk.getRecords().size(), System.nanoTime() - start);
+  }
+
+  private boolean isAfterFailure(int index) {
+    Failure current = failure.get();
+    return null != current && current.getIndex() < index;
+  }
+
+  private void fail(int index, Exception exception) {
+    Failure candidate = new Failure(index, exception);
+    failures.add(candidate);
+    failure.accumulateAndGet(candidate, (current, next) ->
+        null == current || next.getIndex() < current.getIndex() ? next : current);
+  }
+
+  private void throwFailure() throws IOException {
+    Failure current = failure.get();
+    if (null == current) {
+      return;
+    }
+
+    Exception exception = current.getException();
+    failures
+        .stream()
+        .filter(other -> other.getException() != exception)
+        .sorted(Comparator.comparingInt(Failure::getIndex))
+        .forEach(other -> exception.addSuppressed(other.getException()));
+
+    if (exception instanceof IOException) {
+      throw (IOException) exception;
+    }
+    throw (RuntimeException) exception;
+  }
+
+  private Message getCsvRowErrorMessage(SuperCsvException err) {
+    int row = err.getCsvContext().getRowNumber() - 1;
+    return new Message(ERROR_UPLOAD_RECORD_INVALID, row, err.getMessage());
+  }
+
+  private static final class Chunk<T> {
+    private static final Chunk<?> END = new Chunk<>(-1, null);
+
+    private final int index;
+    private final List<T> records;
+
+    Chunk(int index, List<T> records) {
+      this.index = index;
+      this.records = records;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Chunk<T> end() {
+      return (Chunk<T>) END;
+    }
+
+    boolean isEnd() {
+      return this == END;
+    }
+
+    int getIndex() {
+      return index;
+    }
+
+    List<T> getRecords() {
+      return records;
+    }
+  }
+
+  private static final class Failure {
+    private final int index;
+    private final Exception exception;
+
+    Failure(int index, Exception exception) {
+      this.index = index;
+      this.exception = exception;
+    }
+
+    int getIndex() {
+      return index;
+    }
+
+    Exception getException() {
+      return exception;
+    }
+  }
+
+  private static final class Stage {
+    private final String name;
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+
+    Stage(String name) {
+      this.name = name;
+    }
+
+    void add(int count, long elapsedNanos) {
+      records.addAndGet(count);
+      nanos.addAndGet(elapsedNanos);
+    }
+
+    long getRecords() {
+      return records.get();
+    }
+
+    // throughput is based on the time spent in the stage, summed up over its threads
+    void log() {
+      long millis = TimeUnit.NANOSECONDS.toMillis(nanos.get());
+      LOGGER.info("CSV {} stage: {} records in {} ms, {} records/s", name, records.get(),
+          millis, 0 == millis ? records.get() : records.get() * 1000 / millis);
+    }
+  }
+}
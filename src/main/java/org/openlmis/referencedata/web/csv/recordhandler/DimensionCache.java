@@ -0,0 +1,70 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web.csv.recordhandler;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.openlmis.referencedata.dto.DimensionStatisticsDto;
+
+/**
+ * Memoizes values of a single dimension (like facilities by code) for the whole upload. Values
+ * missing for a chunk are fetched with a single query. The cache can be used by many threads.
+ */
+class DimensionCache<K, V> {
+
+  private final Map<K, V> values = new ConcurrentHashMap<>();
+
+  private final LongAdder lookups = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder queries = new LongAdder();
+  private final LongAdder fetched = new LongAdder();
+
+  /**
+   * Makes sure that values for the given keys are available. Keys without a value are passed to
+   * the loader at once. The loader may return values for more keys than it was asked for.
+   */
+  void prefetch(Set<K> keys, Function<Set<K>, Map<K, V>> loader) {
+    Set<K> missing = keys
+        .stream()
+        .filter(key -> !values.containsKey(key))
+        .collect(Collectors.toSet());
+
+    lookups.add(keys.size());
+    hits.add(keys.size() - missing.size());
+
+    if (!missing.isEmpty()) {
+      Map<K, V> loaded = loader.apply(missing);
+      queries.increment();
+      fetched.add(loaded.size());
+      values.putAll(loaded);
+    }
+  }
+
+  /**
+   * Returns the value for the given key or null if it does not exist.
+   */
+  V get(K key) {
+    return values.get(key);
+  }
+
+  DimensionStatisticsDto getStatistics() {
+    return new DimensionStatisticsDto(lookups.sum(), hits.sum(), queries.sum(), fetched.sum());
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web.csv.recordhandler;
+
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static org.openlmis.referencedata.util.messagekeys.IdealStockAmountMessageKeys.ERROR_COMMODITY_TYPE_NOT_FOUND;
+import static org.openlmis.referencedata.util.messagekeys.IdealStockAmountMessageKeys.ERROR_FACILITY_NOT_FOUND;
+import static org.openlmis.referencedata.util.messagekeys.IdealStockAmountMessageKeys.ERROR_PROCESSING_PERIOD_NOT_FOUND;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openlmis.referencedata.domain.Code;
+import org.openlmis.referencedata.domain.CommodityType;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.IdealStockAmount;
+import org.openlmis.referencedata.domain.ProcessingPeriod;
+import org.openlmis.referencedata.domain.ProcessingSchedule;
+import org.openlmis.referencedata.dto.DimensionStatisticsDto;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.repository.CommodityTypeRepository;
+import org.openlmis.referencedata.repository.FacilityRepository;
+import org.openlmis.referencedata.repository.ProcessingPeriodRepository;
+import org.openlmis.referencedata.repository.ProcessingScheduleRepository;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.messagekeys.ProcessingScheduleMessageKeys;
+
+/**
+ * Resolves facilities, processing periods and commodity types of Ideal Stock Amounts during
+ * a single upload. All values needed by a chunk are fetched with one query per dimension and
+ * are kept until the end of the upload, so chunks referring to the same facilities or periods do
+ * not query them again. Instances are safe to share between the threads processing chunks.
+ */
+public class IdealStockAmountDimensionResolver {
+
+  private final FacilityRepository facilityRepository;
+  private final ProcessingScheduleRepository processingScheduleRepository;
+  private final ProcessingPeriodRepository processingPeriodRepository;
+  private final CommodityTypeRepository commodityTypeRepository;
+
+  private final DimensionCache<String, Facility> facilities = new DimensionCache<>();
+  private final DimensionCache<Code, ProcessingSchedule> schedules = new DimensionCache<>();
+  private final DimensionCache<Pair<Code, String>, ProcessingPeriod> periods =
+      new DimensionCache<>();
+  private final DimensionCache<Pair<String, String>, CommodityType> commodityTypes =
+      new DimensionCache<>();
+
+  IdealStockAmountDimensionResolver(FacilityRepository facilityRepository,
+      ProcessingScheduleRepository processingScheduleRepository,
+      ProcessingPeriodRepository processingPeriodRepository,
+      CommodityTypeRepository commodityTypeRepository) {
+    this.facilityRepository = facilityRepository;
+    this.processingScheduleRepository = processingScheduleRepository;
+    this.processingPeriodRepository = processingPeriodRepository;
+    this.commodityTypeRepository = commodityTypeRepository;
+  }
+
+  /**
+   * Fetches all facilities, processing schedules, processing periods and commodity types used
+   * by the given Ideal Stock Amounts that were not fetched before.
+   */
+  public void prefetch(Collection<IdealStockAmount> idealStockAmounts) {
+    if (idealStockAmounts.isEmpty()) {
+      return;
+    }
+
+    facilities.prefetch(
+        collect(idealStockAmounts, isa -> isa.getFacility().getCode()),
+        codes -> facilityRepository.findByCodeIn(codes)
+            .stream()
+            .collect(toMap(Facility::getCode, Function.identity(), (first, second) -> first)));
+
+    schedules.prefetch(
+        collect(idealStockAmounts, IdealStockAmountDimensionResolver::getScheduleCode),
+        codes -> processingScheduleRepository
+            .findByCodeIn(codes.stream().map(Code::toString).collect(toSet()))
+            .stream()
+            .collect(toMap(ProcessingSchedule::getCode, Function.identity(),
+                (first, second) -> first)));
+
+    periods.prefetch(
+        collect(idealStockAmounts, isa -> Pair.of(getScheduleCode(isa),
+            isa.getProcessingPeriod().getName())),
+        this::fetchPeriods);
+
+    commodityTypes.prefetch(
+        collect(idealStockAmounts, isa -> getCommodityTypeKey(isa.getCommodityType())),
+        this::fetchCommodityTypes);
+  }
+
+  /**
+   * Creates a new Ideal Stock Amount that refers to the resolved facility, processing period and
+   * commodity type of the given one. Values must be prefetched first.
+   *
+   * @throws ValidationMessageException if any of them does not exist
+   */
+  public IdealStockAmount resolve(IdealStockAmount isa) {
+    String facilityCode = isa.getFacility().getCode();
+    Facility facility = facilities.get(facilityCode);
+    if (null == facility) {
+      throw new ValidationMessageException(new Message(ERROR_FACILITY_NOT_FOUND, facilityCode));
+    }
+
+    Code scheduleCode = getScheduleCode(isa);
+    if (null == schedules.get(scheduleCode)) {
+      throw new ValidationMessageException(new Message(
+          ProcessingScheduleMessageKeys.ERROR_NOT_FOUND_WITH_CODE, scheduleCode));
+    }
+
+    String periodName = isa.getProcessingPeriod().getName();
+    ProcessingPeriod period = periods.get(Pair.of(scheduleCode, periodName));
+    if (null == period) {
+      throw new ValidationMessageException(new Message(ERROR_PROCESSING_PERIOD_NOT_FOUND,
+          periodName, scheduleCode));
+    }
+
+    CommodityType commodityType = commodityTypes.get(getCommodityTypeKey(isa.getCommodityType()));
+    if (null == commodityType) {
+      throw new ValidationMessageException(new Message(ERROR_COMMODITY_TYPE_NOT_FOUND,
+          isa.getCommodityType().getClassificationId(),
+          isa.getCommodityType().getClassificationSystem()));
+    }
+
+    return new IdealStockAmount(facility, commodityType, period, isa.getAmount());
+  }
+
+  /**
+   * Returns statistics of lookups so far, by dimension.
+   */
+  public Map<String, DimensionStatisticsDto> getStatistics() {
+    Map<String, DimensionStatisticsDto> statistics = new LinkedHashMap<>();
+    statistics.put("facilities", facilities.getStatistics());
+    statistics.put("processingSchedules", schedules.getStatistics());
+    statistics.put("processingPeriods", periods.getStatistics());
+    statistics.put("commodityTypes", commodityTypes.getStatistics());
+    return statistics;
+  }
+
+  private Map<Pair<Code, String>, ProcessingPeriod> fetchPeriods(Set<Pair<Code, String>> keys) {
+    Set<ProcessingSchedule> periodSchedules = keys
+        .stream()
+        .map(key -> schedules.get(key.getLeft()))
+        .filter(Objects::nonNull)
+        .collect(toSet());
+
+    if (periodSchedules.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    // names and schedules are matched separately, so periods of other keys can be fetched too
+    return processingPeriodRepository
+        .findByNameInAndProcessingScheduleIn(
+            keys.stream().map(Pair::getRight).collect(toSet()), periodSchedules)
+        .stream()
+        .collect(toMap(
+            period -> Pair.of(period.getProcessingSchedule().getCode(), period.getName()),
+            Function.identity(), (first, second) -> first));
+  }
+
+  private Map<Pair<String, String>, CommodityType> fetchCommodityTypes(
+      Set<Pair<String, String>> keys) {
+    return commodityTypeRepository
+        .findByClassificationIdInAndClassificationSystemIn(
+            keys.stream().map(Pair::getLeft).collect(toSet()),
+            keys.stream().map(Pair::getRight).collect(toSet()))
+        .stream()
+        .collect(toMap(this::getCommodityTypeKey, Function.identity(), (first, second) -> first));
+  }
+
+  private Pair<String, String> getCommodityTypeKey(CommodityType commodityType) {
+    return Pair.of(commodityType.getClassificationId(), commodityType.getClassificationSystem());
+  }
+
+  private static Code getScheduleCode(IdealStockAmount isa) {
+    return isa.getProcessingPeriod().getProcessingSchedule().getCode();
+  }
+
+  private static <K> Set<K> collect(Collection<IdealStockAmount> idealStockAmounts,
+      Function<IdealStockAmount, K> key) {
+    return idealStockAmounts.stream().map(key).collect(toSet());
+  }
+}
@@ -15,15 +15,12 @@
 
 package org.openlmis.referencedata.web.csv.recordhandler;
 
-import static org.openlmis.referencedata.util.messagekeys.IdealStockAmountMessageKeys.ERROR_COMMODITY_TYPE_NOT_FOUND;
-import static org.openlmis.referencedata.util.messagekeys.IdealStockAmountMessageKeys.ERROR_FACILITY_NOT_FOUND;
-import static org.openlmis.referencedata.util.messagekeys.IdealStockAmountMessageKeys.ERROR_PROCESSING_PERIOD_NOT_FOUND;
-
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 import org.openlmis.referencedata.domain.Code;
 import org.openlmis.referencedata.domain.CommodityType;
 import org.openlmis.referencedata.domain.Facility;
@@ -31,14 +28,11 @@ import org.openlmis.referencedata.domain.IdealStockAmount;
 import org.openlmis.referencedata.domain.ProcessingPeriod;
 import org.openlmis.referencedata.domain.ProcessingSchedule;
 import org.openlmis.referencedata.dto.IdealStockAmountCsvModel;
-import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.CommodityTypeRepository;
 import org.openlmis.referencedata.repository.FacilityRepository;
 import org.openlmis.referencedata.repository.ProcessingPeriodRepository;
 import org.openlmis.referencedata.repository.ProcessingScheduleRepository;
 import org.openlmis.referencedata.service.IdealStockAmountService;
-import org.openlmis.referencedata.util.Message;
-import org.openlmis.referencedata.util.messagekeys.ProcessingScheduleMessageKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.profiler.Profiler;
@@ -47,7 +41,8 @@ import org.springframework.stereotype.Component;
 
 /**
  * IdealStockAmountProcessor is used for uploads of Ideal Stock Amount.
- * It uploads each ideal stock amount by record.
+ * It uploads each ideal stock amount by record. Facilities, processing periods and commodity
+ * types of new ideal stock amounts are resolved with {@link IdealStockAmountDimensionResolver}.
  */
 @Component
 public class IdealStockAmountProcessor
@@ -72,6 +67,15 @@ public class IdealStockAmountProcessor
 
   @Override
   public List<IdealStockAmount> process(List<IdealStockAmountCsvModel> records) {
+    return process(records, newDimensionResolver());
+  }
+
+  /**
+   * Converts the given records to Ideal Stock Amounts. Existing Ideal Stock Amounts are updated
+   * and new ones are resolved with the given resolver.
+   */
+  public List<IdealStockAmount> process(List<IdealStockAmountCsvModel> records,
+      IdealStockAmountDimensionResolver dimensionResolver) {
     Profiler profiler = new Profiler("PROCESS_DTO_CHUNK");
     profiler.setLogger(LOGGER);
 
@@ -82,13 +86,19 @@ public class IdealStockAmountProcessor
       isaMap.put(hash(isa), isa);
     }
 
+    profiler.start("PREFETCH_DIMENSIONS");
+    dimensionResolver.prefetch(idealStockAmounts
+        .stream()
+        .filter(isa -> !isaMap.containsKey(hash(isa)))
+        .collect(Collectors.toList()));
+
     List<IdealStockAmount> resultList = new ArrayList<>();
 
     profiler.start("PROCESS_RECORDS");
     for (IdealStockAmount isa : idealStockAmounts) {
       IdealStockAmount result = isaMap.getOrDefault(hash(isa), null);
       if (null == result) {
-        resultList.add(prepareNewIdealStockAmountObject(isa));
+        resultList.add(dimensionResolver.resolve(isa));
       } else {
         result.setAmount(isa.getAmount());
         resultList.add(result);
@@ -100,34 +110,13 @@ public class IdealStockAmountProcessor
     return resultList;
   }
 
-  private IdealStockAmount prepareNewIdealStockAmountObject(IdealStockAmount isa) {
-    Facility facility = facilityRepository.findByCode(isa.getFacility().getCode())
-        .orElseThrow(() -> new ValidationMessageException(new Message(ERROR_FACILITY_NOT_FOUND,
-            isa.getFacility().getCode())));
-
-    ProcessingSchedule schedule = processingScheduleRepository
-        .findOneByCode(isa.getProcessingPeriod().getProcessingSchedule().getCode())
-        .orElseThrow(() -> new ValidationMessageException(new Message(
-            ProcessingScheduleMessageKeys.ERROR_NOT_FOUND_WITH_CODE,
-            isa.getProcessingPeriod().getProcessingSchedule().getCode()
-        )));
-    ProcessingPeriod period = processingPeriodRepository.findOneByNameAndProcessingSchedule(
-        isa.getProcessingPeriod().getName(),
-        schedule)
-        .orElseThrow(() -> new ValidationMessageException(
-            new Message(ERROR_PROCESSING_PERIOD_NOT_FOUND,
-            isa.getProcessingPeriod().getName(),
-            isa.getProcessingPeriod().getProcessingSchedule().getCode())));
-
-    CommodityType commodityType = commodityTypeRepository
-        .findByClassificationIdAndClassificationSystem(isa.getCommodityType().getClassificationId(),
-            isa.getCommodityType().getClassificationSystem())
-        .orElseThrow(() -> new ValidationMessageException(new Message(
-            ERROR_COMMODITY_TYPE_NOT_FOUND,
-            isa.getCommodityType().getClassificationId(),
-            isa.getCommodityType().getClassificationSystem())));
-
-    return new IdealStockAmount(facility, commodityType, period, isa.getAmount());
+  /**
+   * Creates a resolver of facilities, processing periods and commodity types that should be
+   * shared by all chunks of a single upload.
+   */
+  public IdealStockAmountDimensionResolver newDimensionResolver() {
+    return new IdealStockAmountDimensionResolver(facilityRepository,
+        processingScheduleRepository, processingPeriodRepository, commodityTypeRepository);
   }
 
   private List<IdealStockAmount> convert(List<IdealStockAmountCsvModel> list) {
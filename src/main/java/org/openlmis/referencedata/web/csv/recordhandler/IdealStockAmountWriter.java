@@ -15,6 +15,7 @@
 
 package org.openlmis.referencedata.web.csv.recordhandler;
 
+import com.google.common.collect.Lists;
 import org.openlmis.referencedata.domain.IdealStockAmount;
 import org.openlmis.referencedata.repository.IdealStockAmountRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +23,9 @@ import org.springframework.stereotype.Component;
 
 /**
  * This class is responsible for saving {@link IdealStockAmount} instances to the database.
+ * Ideal stock amounts are inserted, or updated if one already exists for the same facility,
+ * commodity type and processing period. This includes ideal stock amounts repeated in the file,
+ * which are processed in parallel before earlier chunks are written.
  */
 @Component
 public class IdealStockAmountWriter implements RecordWriter<IdealStockAmount> {
@@ -31,6 +35,6 @@ public class IdealStockAmountWriter implements RecordWriter<IdealStockAmount> {
 
   @Override
   public void write(Iterable<IdealStockAmount> records) {
-    repository.saveAll(records);
+    repository.upsert(Lists.newArrayList(records));
   }
 }
@@ -0,0 +1,93 @@
+-- WHEN COMMITTING OR REVIEWING THIS FILE: Make sure that the timestamp in the file name (that serves as a version) is the latest timestamp, and that no new migration have been added in the meanwhile.
+-- Adding migrations out of order may cause this migration to never execute or behave in an unexpected way.
+-- Migrations should NOT BE EDITED. Add a new migration to apply changes.
+
+-- Keeps the latest version number of every orderable and FTAP, so searches can join on the
+-- primary key instead of grouping the whole versioned table by id.
+CREATE TABLE latest_orderable_versions (
+  id uuid PRIMARY KEY,
+  versionNumber bigint NOT NULL
+);
+
+CREATE TABLE latest_facility_type_approved_product_versions (
+  id uuid PRIMARY KEY,
+  versionNumber bigint NOT NULL
+);
+
+INSERT INTO latest_orderable_versions (id, versionNumber)
+  SELECT id, MAX(versionNumber)
+  FROM orderables
+  GROUP BY id;
+
+INSERT INTO latest_facility_type_approved_product_versions (id, versionNumber)
+  SELECT id, MAX(versionNumber)
+  FROM facility_type_approved_products
+  GROUP BY id;
+
+CREATE OR REPLACE FUNCTION update_latest_orderable_version() returns trigger LANGUAGE plpgsql AS $$
+BEGIN
+
+  IF TG_OP = 'INSERT'
+  THEN
+    INSERT INTO referencedata.latest_orderable_versions AS latest (id, versionNumber)
+    VALUES (NEW.id, NEW.versionNumber)
+    ON CONFLICT (id) DO UPDATE SET versionNumber = EXCLUDED.versionNumber
+    WHERE latest.versionNumber < EXCLUDED.versionNumber;
+
+    RETURN NEW;
+  END IF;
+
+  DELETE FROM referencedata.latest_orderable_versions
+  WHERE id = OLD.id AND versionNumber = OLD.versionNumber;
+
+  INSERT INTO referencedata.latest_orderable_versions AS latest (id, versionNumber)
+    SELECT id, MAX(versionNumber)
+    FROM referencedata.orderables
+    WHERE id = OLD.id
+    GROUP BY id
+  ON CONFLICT (id) DO UPDATE SET versionNumber = EXCLUDED.versionNumber
+  WHERE latest.versionNumber < EXCLUDED.versionNumber;
+
+  RETURN OLD;
+
+END $$;
+
+CREATE OR REPLACE FUNCTION update_latest_ftap_version() returns trigger LANGUAGE plpgsql AS $$
+BEGIN
+
+  IF TG_OP = 'INSERT'
+  THEN
+    INSERT INTO referencedata.latest_facility_type_approved_product_versions AS latest
+      (id, versionNumber)
+    VALUES (NEW.id, NEW.versionNumber)
+    ON CONFLICT (id) DO UPDATE SET versionNumber = EXCLUDED.versionNumber
+    WHERE latest.versionNumber < EXCLUDED.versionNumber;
+
+    RETURN NEW;
+  END IF;
+
+  DELETE FROM referencedata.latest_facility_type_approved_product_versions
+  WHERE id = OLD.id AND versionNumber = OLD.versionNumber;
+
+  INSERT INTO referencedata.latest_facility_type_approved_product_versions AS latest
+    (id, versionNumber)
+    SELECT id, MAX(versionNumber)
+    FROM referencedata.facility_type_approved_products
+    WHERE id = OLD.id
+    GROUP BY id
+  ON CONFLICT (id) DO UPDATE SET versionNumber = EXCLUDED.versionNumber
+  WHERE latest.versionNumber < EXCLUDED.versionNumber;
+
+  RETURN OLD;
+
+END $$;
+
+CREATE TRIGGER update_latest_orderable_version
+    AFTER INSERT OR DELETE ON orderables
+    FOR EACH ROW
+    EXECUTE PROCEDURE update_latest_orderable_version();
+
+CREATE TRIGGER update_latest_ftap_version
+    AFTER INSERT OR DELETE ON facility_type_approved_products
+    FOR EACH ROW
+    EXECUTE PROCEDURE update_latest_ftap_version();
@@ -0,0 +1,73 @@
+-- WHEN COMMITTING OR REVIEWING THIS FILE: Make sure that the timestamp in the file name (that serves as a version) is the latest timestamp, and that no new migration have been added in the meanwhile.
+-- Adding migrations out of order may cause this migration to never execute or behave in an unexpected way.
+-- Migrations should NOT BE EDITED. Add a new migration to apply changes.
+
+-- Keeps a version and a last modification time of resources which are read often and changed
+-- rarely, so conditional requests can be answered without reading the resources. A version is
+-- incremented by every statement which changes one of the tables the resource is built from.
+-- The row is updated in the changing transaction, so a new version is only visible together
+-- with the changes.
+CREATE TABLE resource_versions (
+  resource varchar(255) PRIMARY KEY,
+  version bigint NOT NULL,
+  lastModified timestamp with time zone NOT NULL
+);
+
+INSERT INTO resource_versions (resource, version, lastModified) VALUES
+  ('orderables', 0, now()),
+  ('facility_type_approved_products', 0, now()),
+  ('right_assignments', 0, now()),
+  ('facilities', 0, now());
+
+CREATE OR REPLACE FUNCTION increment_resource_version() returns trigger LANGUAGE plpgsql AS $$
+BEGIN
+
+  UPDATE referencedata.resource_versions
+  SET version = version + 1, lastModified = clock_timestamp()
+  WHERE resource = TG_ARGV[0];
+
+  RETURN NULL;
+
+END $$;
+
+CREATE TRIGGER increment_orderables_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON orderables
+  FOR EACH STATEMENT EXECUTE PROCEDURE increment_resource_version('orderables');
+
+CREATE TRIGGER increment_orderables_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON program_orderables
+  FOR EACH STATEMENT EXECUTE PROCEDURE increment_resource_version('orderables');
+
+CREATE TRIGGER increment_orderables_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON orderable_identifiers
+  FOR EACH STATEMENT EXECUTE PROCEDURE increment_resource_version('orderables');
+
+CREATE TRIGGER increment_orderables_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON orderable_children
+  FOR EACH STATEMENT EXECUTE PROCEDURE increment_resource_version('orderables');
+
+CREATE TRIGGER increment_orderables_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON dispensables
+  FOR EACH STATEMENT EXECUTE PROCEDURE increment_resource_version('orderables');
+
+CREATE TRIGGER increment_orderables_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON dispensable_attributes
+  FOR EACH STATEMENT EXECUTE PROCEDURE increment_resource_version('orderables');
+
+CREATE TRIGGER increment_orderables_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON orderable_display_categories
+  FOR EACH STATEMENT EXECUTE PROCEDURE increment_resource_version('orderables');
+
+CREATE TRIGGER increment_ftaps_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON facility_type_approved_products
+  FOR EACH STATEMENT EXECUTE PROCEDURE
+  increment_resource_version('facility_type_approved_products');
+
+-- the trigger is created again when right assignments are swapped with the shadow table
+CREATE TRIGGER increment_right_assignments_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON right_assignments
+  FOR EACH STATEMENT EXECUTE PROCEDURE increment_resource_version('right_assignments');
+
+CREATE TRIGGER increment_facilities_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON facilities
+  FOR EACH STATEMENT EXECUTE PROCEDURE increment_resource_version('facilities');
@@ -0,0 +1,18 @@
+-- WHEN COMMITTING OR REVIEWING THIS FILE: Make sure that the timestamp in the file name (that serves as a version) is the latest timestamp, and that no new migration have been added in the meanwhile.
+-- Adding migrations out of order may cause this migration to never execute or behave in an unexpected way.
+-- Migrations should NOT BE EDITED. Add a new migration to apply changes.
+
+-- Only one ideal stock amount may exist for a facility, commodity type and processing period, so
+-- uploads can insert or update them with ON CONFLICT. One of any duplicates is kept.
+DELETE FROM ideal_stock_amounts isa
+USING ideal_stock_amounts other
+WHERE isa.facilityid = other.facilityid
+  AND isa.commoditytypeid = other.commoditytypeid
+  AND isa.processingperiodid = other.processingperiodid
+  AND isa.ctid < other.ctid;
+
+CREATE UNIQUE INDEX unq_ideal_stock_amounts_facility_commodity_type_period
+ON ideal_stock_amounts (facilityid, commoditytypeid, processingperiodid);
+
+-- the unique index starts with the facility, so it is used to find ideal stock amounts by facility
+DROP INDEX IF EXISTS ideal_stock_amounts_facilityid_idx;
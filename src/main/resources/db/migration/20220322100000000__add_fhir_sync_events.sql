@@ -0,0 +1,20 @@
+-- WHEN COMMITTING OR REVIEWING THIS FILE: Make sure that the timestamp in the file name (that serves as a version) is the latest timestamp, and that no new migration have been added in the meanwhile.
+-- Adding migrations out of order may cause this migration to never execute or behave in an unexpected way.
+-- Migrations should NOT BE EDITED. Add a new migration to apply changes.
+
+-- Outbox of locations which have to be synchronized with the FHIR server. A row is written in
+-- the same transaction as the change of the facility or geographic zone and removed once the
+-- location has been delivered, so repeated changes of the same location are coalesced.
+CREATE TABLE fhir_sync_events (
+    resourcetype VARCHAR(50) NOT NULL,
+    resourceid UUID NOT NULL,
+    revision BIGINT NOT NULL,
+    attempts INTEGER NOT NULL,
+    createddate TIMESTAMP WITH TIME ZONE NOT NULL,
+    nextattemptdate TIMESTAMP WITH TIME ZONE NOT NULL,
+    lockeduntil TIMESTAMP WITH TIME ZONE,
+    lasterror TEXT,
+    CONSTRAINT fhir_sync_events_pkey PRIMARY KEY (resourcetype, resourceid)
+);
+
+CREATE INDEX fhir_sync_events_nextattemptdate_idx ON fhir_sync_events (nextattemptdate);
@@ -0,0 +1,14 @@
+-- WHEN COMMITTING OR REVIEWING THIS FILE: Make sure that the timestamp in the file name (that serves as a version) is the latest timestamp, and that no new migration have been added in the meanwhile.
+-- Adding migrations out of order may cause this migration to never execute or behave in an unexpected way.
+-- Migrations should NOT BE EDITED. Add a new migration to apply changes.
+
+-- Progress of the bulk synchronization of locations with the FHIR server, stored separately for
+-- facilities and for every level of geographic zones.
+CREATE TABLE fhir_bulk_sync_checkpoints (
+    resourcetype VARCHAR(50) NOT NULL,
+    levelnumber INTEGER NOT NULL,
+    lastid UUID NOT NULL,
+    completed BOOLEAN NOT NULL,
+    modifieddate TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT fhir_bulk_sync_checkpoints_pkey PRIMARY KEY (resourcetype, levelnumber)
+);
@@ -0,0 +1,78 @@
+-- WHEN COMMITTING OR REVIEWING THIS FILE: Make sure that the timestamp in the file name (that serves as a version) is the latest timestamp, and that no new migration have been added in the meanwhile.
+-- Adding migrations out of order may cause this migration to never execute or behave in an unexpected way.
+-- Migrations should NOT BE EDITED. Add a new migration to apply changes.
+
+-- Keeps every ancestor/descendant pair of the geographic zone hierarchy (including each zone
+-- paired with itself at depth 0), so descendants of a zone can be found with one indexed lookup
+-- instead of walking the hierarchy level by level.
+CREATE TABLE geographic_zone_hierarchy (
+  ancestorId uuid NOT NULL REFERENCES geographic_zones(id) ON DELETE CASCADE,
+  descendantId uuid NOT NULL REFERENCES geographic_zones(id) ON DELETE CASCADE,
+  depth integer NOT NULL,
+  PRIMARY KEY (ancestorId, descendantId)
+);
+
+CREATE INDEX geographic_zone_hierarchy_descendantid_idx
+  ON geographic_zone_hierarchy (descendantId);
+
+INSERT INTO geographic_zone_hierarchy (ancestorId, descendantId, depth)
+  WITH RECURSIVE hierarchy (ancestorId, descendantId, depth) AS (
+    SELECT id, id, 0
+    FROM geographic_zones
+    UNION ALL
+    SELECT hierarchy.ancestorId, zone.id, hierarchy.depth + 1
+    FROM hierarchy
+      INNER JOIN geographic_zones AS zone ON zone.parentId = hierarchy.descendantId
+  )
+  SELECT ancestorId, descendantId, depth
+  FROM hierarchy;
+
+CREATE OR REPLACE FUNCTION update_geographic_zone_hierarchy() returns trigger LANGUAGE plpgsql AS $$
+BEGIN
+
+  IF TG_OP = 'INSERT'
+  THEN
+    INSERT INTO referencedata.geographic_zone_hierarchy (ancestorId, descendantId, depth)
+    VALUES (NEW.id, NEW.id, 0);
+
+    INSERT INTO referencedata.geographic_zone_hierarchy (ancestorId, descendantId, depth)
+      SELECT ancestorId, NEW.id, depth + 1
+      FROM referencedata.geographic_zone_hierarchy
+      WHERE descendantId = NEW.parentId;
+
+    RETURN NEW;
+  END IF;
+
+  -- the zone has been moved, so its whole subtree is detached from the old ancestors
+  -- and attached to the new ones
+  DELETE FROM referencedata.geographic_zone_hierarchy
+  WHERE descendantId IN (
+      SELECT descendantId
+      FROM referencedata.geographic_zone_hierarchy
+      WHERE ancestorId = NEW.id)
+    AND ancestorId IN (
+      SELECT ancestorId
+      FROM referencedata.geographic_zone_hierarchy
+      WHERE descendantId = NEW.id AND ancestorId <> NEW.id);
+
+  INSERT INTO referencedata.geographic_zone_hierarchy (ancestorId, descendantId, depth)
+    SELECT ancestor.ancestorId, descendant.descendantId, ancestor.depth + descendant.depth + 1
+    FROM referencedata.geographic_zone_hierarchy AS ancestor
+      CROSS JOIN referencedata.geographic_zone_hierarchy AS descendant
+    WHERE ancestor.descendantId = NEW.parentId
+      AND descendant.ancestorId = NEW.id;
+
+  RETURN NEW;
+
+END $$;
+
+CREATE TRIGGER insert_geographic_zone_hierarchy
+    AFTER INSERT ON geographic_zones
+    FOR EACH ROW
+    EXECUTE PROCEDURE update_geographic_zone_hierarchy();
+
+CREATE TRIGGER update_geographic_zone_hierarchy
+    AFTER UPDATE OF parentId ON geographic_zones
+    FOR EACH ROW
+    WHEN (OLD.parentId IS DISTINCT FROM NEW.parentId)
+    EXECUTE PROCEDURE update_geographic_zone_hierarchy();
@@ -0,0 +1,30 @@
+-- WHEN COMMITTING OR REVIEWING THIS FILE: Make sure that the timestamp in the file name (that serves as a version) is the latest timestamp, and that no new migration have been added in the meanwhile.
+-- Adding migrations out of order may cause this migration to never execute or behave in an unexpected way.
+-- Migrations should NOT BE EDITED. Add a new migration to apply changes.
+
+-- Substring searches use a leading wildcard (LIKE '%...%'), which a btree index cannot serve.
+-- Trigram indexes can, as long as the indexed expression is exactly the one used in the search
+-- predicate, so keep these in sync with the repository queries.
+CREATE EXTENSION IF NOT EXISTS pg_trgm WITH SCHEMA public;
+
+CREATE INDEX facilities_code_trgm_idx
+  ON facilities USING gin (UPPER(code) gin_trgm_ops);
+CREATE INDEX facilities_name_trgm_idx
+  ON facilities USING gin (UPPER(name) gin_trgm_ops);
+
+CREATE INDEX users_username_trgm_idx
+  ON users USING gin (UPPER(username) gin_trgm_ops);
+CREATE INDEX users_firstname_trgm_idx
+  ON users USING gin (UPPER(firstname) gin_trgm_ops);
+CREATE INDEX users_lastname_trgm_idx
+  ON users USING gin (UPPER(lastname) gin_trgm_ops);
+
+CREATE INDEX geographic_zones_code_trgm_idx
+  ON geographic_zones USING gin (UPPER(code) gin_trgm_ops);
+CREATE INDEX geographic_zones_name_trgm_idx
+  ON geographic_zones USING gin (UPPER(name) gin_trgm_ops);
+
+CREATE INDEX orderables_code_trgm_idx
+  ON orderables USING gin (LOWER(code) gin_trgm_ops);
+CREATE INDEX orderables_fullproductname_trgm_idx
+  ON orderables USING gin (LOWER(fullproductname) gin_trgm_ops);
@@ -0,0 +1,19 @@
+-- WHEN COMMITTING OR REVIEWING THIS FILE: Make sure that the timestamp in the file name (that serves as a version) is the latest timestamp, and that no new migration have been added in the meanwhile.
+-- Adding migrations out of order may cause this migration to never execute or behave in an unexpected way.
+-- Migrations should NOT BE EDITED. Add a new migration to apply changes.
+
+-- Orderable fulfills are built from orderables (already tracked), trade items and commodity types.
+INSERT INTO resource_versions (resource, version, lastModified) VALUES
+  ('orderable_fulfills', 0, now());
+
+CREATE TRIGGER increment_orderable_fulfills_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON trade_items
+  FOR EACH STATEMENT EXECUTE PROCEDURE increment_resource_version('orderable_fulfills');
+
+CREATE TRIGGER increment_orderable_fulfills_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON trade_item_classifications
+  FOR EACH STATEMENT EXECUTE PROCEDURE increment_resource_version('orderable_fulfills');
+
+CREATE TRIGGER increment_orderable_fulfills_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON commodity_types
+  FOR EACH STATEMENT EXECUTE PROCEDURE increment_resource_version('orderable_fulfills');
@@ -0,0 +1,15 @@
+-- WHEN COMMITTING OR REVIEWING THIS FILE: Make sure that the timestamp in the file name (that serves as a version) is the latest timestamp, and that no new migration have been added in the meanwhile.
+-- Adding migrations out of order may cause this migration to never execute or behave in an unexpected way.
+-- Migrations should NOT BE EDITED. Add a new migration to apply changes.
+
+-- Displayed system notifications are exported together with a reference to their author.
+INSERT INTO resource_versions (resource, version, lastModified) VALUES
+  ('system_notifications', 0, now());
+
+CREATE TRIGGER increment_system_notifications_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON system_notifications
+  FOR EACH STATEMENT EXECUTE PROCEDURE increment_resource_version('system_notifications');
+
+CREATE TRIGGER increment_system_notifications_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON users
+  FOR EACH STATEMENT EXECUTE PROCEDURE increment_resource_version('system_notifications');
@@ -0,0 +1,15 @@
+-- WHEN COMMITTING OR REVIEWING THIS FILE: Make sure that the timestamp in the file name (that serves as a version) is the latest timestamp, and that no new migration have been added in the meanwhile.
+-- Adding migrations out of order may cause this migration to never execute or behave in an unexpected way.
+-- Migrations should NOT BE EDITED. Add a new migration to apply changes.
+
+-- Approved products are searched by codes of facility types and programs, so changing either
+-- of them can change the result of a search.
+CREATE TRIGGER increment_ftaps_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON facility_types
+  FOR EACH STATEMENT EXECUTE PROCEDURE
+  increment_resource_version('facility_type_approved_products');
+
+CREATE TRIGGER increment_ftaps_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON programs
+  FOR EACH STATEMENT EXECUTE PROCEDURE
+  increment_resource_version('facility_type_approved_products');
@@ -0,0 +1,9 @@
+-- This SQL creates an empty shadow table with the columns of right assignments. The full 
+-- regeneration loads right assignments into it while the live table keeps serving permission 
+-- checks, and then swaps both tables (see swap_right_assignments_shadow.sql).
+--
+-- Indexes and constraints are not copied, they are built once all rows are loaded.
+DROP TABLE IF EXISTS referencedata.right_assignments_shadow;
+
+CREATE TABLE referencedata.right_assignments_shadow
+  (LIKE referencedata.right_assignments INCLUDING DEFAULTS);
@@ -0,0 +1,35 @@
+-- This SQL is the same as get_right_assignments.sql but it is limited to the given users. It is 
+-- used to re-generate right assignments only for users affected by a change.
+--
+-- Input: user IDs
+-- Output: intermediate right assignments of the given users
+WITH filtered_role_assignments AS
+(
+  SELECT ra.*
+  FROM referencedata.role_assignments ra
+  WHERE ra.userid IN (:userIds)
+  EXCEPT
+  SELECT ra.*
+  FROM referencedata.role_assignments ra
+    INNER JOIN referencedata.users u ON ra.userid = u.id
+    LEFT JOIN referencedata.supported_programs sp ON sp.facilityid = u.homefacilityid
+      AND sp.programid = ra.programid
+  WHERE ra.type = 'supervision'
+    AND ra.programid IS NOT NULL
+    AND ra.supervisorynodeid IS NULL
+    AND (sp.active = FALSE OR sp.active IS NULL)
+    AND ra.userid IN (:userIds)
+)
+SELECT DISTINCT ra.userid
+  , ri.name AS rightname
+  , CASE WHEN ra.programid IS NOT NULL THEN u.homefacilityid
+         WHEN ra.warehouseid IS NOT NULL THEN ra.warehouseid
+         ELSE NULL
+    END AS facilityid
+  , ra.programid
+  , ra.supervisorynodeid
+FROM filtered_role_assignments ra
+  INNER JOIN referencedata.role_rights rr ON rr.roleid = ra.roleid
+  INNER JOIN referencedata.rights ri ON ri.id = rr.rightid
+  INNER JOIN referencedata.users u ON u.id = ra.userid
+;
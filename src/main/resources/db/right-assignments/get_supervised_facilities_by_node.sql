@@ -0,0 +1,21 @@
+-- This SQL returns facilities supervised directly by each supervisory node (members of the 
+-- requisition group of the node), together with programs for which they are supervised. 
+-- A facility is supervised for a program if the requisition group has a schedule for that program 
+-- and the facility actively supports it.
+--
+-- Indirect supervision (facilities of descendant nodes) is resolved in memory by 
+-- SupervisionGraph, so the whole supervision hierarchy is loaded once instead of running 
+-- a recursive query for every supervisory node and program.
+--
+-- Output: a list of supervisory node ID, program ID and facility ID
+SELECT DISTINCT rg.supervisorynodeid
+  , rgps.programid
+  , rgm.facilityid
+FROM referencedata.requisition_groups rg
+  JOIN referencedata.requisition_group_members rgm ON rgm.requisitiongroupid = rg.id
+  JOIN referencedata.requisition_group_program_schedules rgps ON rgps.requisitiongroupid = rg.id
+  JOIN referencedata.supported_programs sp ON sp.facilityid = rgm.facilityid
+    AND sp.programid = rgps.programid
+    AND sp.active = TRUE
+WHERE rg.supervisorynodeid IS NOT NULL
+;
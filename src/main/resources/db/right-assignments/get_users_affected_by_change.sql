@@ -0,0 +1,52 @@
+-- This SQL returns IDs of all users whose right assignments could be affected by a change of 
+-- the given roles, supervisory nodes, requisition groups or facilities. Only right assignments 
+-- of those users have to be re-generated after such a change.
+--
+-- The CTE changed_nodes collects supervisory nodes which are changed directly, or indirectly by 
+-- a change of their requisition group or one of its member facilities. The recursive CTE 
+-- ancestor_nodes extends that list with all ancestors of those nodes, because supervision role 
+-- assignments on an ancestor node cover facilities of the whole subtree.
+--
+-- Input: role IDs, supervisory node IDs, requisition group IDs and facility IDs (each list has 
+-- to contain at least one element, NULL can be used to match nothing)
+-- Output: a list of affected user IDs
+WITH RECURSIVE changed_nodes AS
+(
+  SELECT sn.id
+  FROM referencedata.supervisory_nodes sn
+  WHERE sn.id IN (:supervisoryNodeIds)
+  UNION
+  SELECT rg.supervisorynodeid
+  FROM referencedata.requisition_groups rg
+  WHERE rg.id IN (:requisitionGroupIds)
+  UNION
+  SELECT rg.supervisorynodeid
+  FROM referencedata.requisition_groups rg
+    JOIN referencedata.requisition_group_members rgm ON rgm.requisitiongroupid = rg.id
+  WHERE rgm.facilityid IN (:facilityIds)
+), ancestor_nodes AS
+(
+  SELECT sn.id, sn.parentid
+  FROM referencedata.supervisory_nodes sn
+    JOIN changed_nodes cn ON cn.id = sn.id
+  UNION
+  SELECT sn.id, sn.parentid
+  FROM ancestor_nodes
+    JOIN referencedata.supervisory_nodes sn ON sn.id = ancestor_nodes.parentid
+)
+SELECT ra.userid
+FROM referencedata.role_assignments ra
+WHERE ra.roleid IN (:roleIds)
+UNION
+SELECT ra.userid
+FROM referencedata.role_assignments ra
+  JOIN ancestor_nodes an ON an.id = ra.supervisorynodeid
+UNION
+SELECT ra.userid
+FROM referencedata.role_assignments ra
+WHERE ra.warehouseid IN (:facilityIds)
+UNION
+SELECT u.id
+FROM referencedata.users u
+WHERE u.homefacilityid IN (:facilityIds)
+;
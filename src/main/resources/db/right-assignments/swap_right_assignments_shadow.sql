@@ -0,0 +1,52 @@
+-- This SQL builds indexes and constraints of the loaded shadow table and swaps it with the live 
+-- right assignments table. The swap must run in the transaction which loaded the shadow table, 
+-- so other transactions see either the old or the new right assignments, never an empty or 
+-- partially loaded table. The live table is locked only for the drop and renames at the end.
+--
+-- The old table is dropped instead of being emptied, so no dead rows are left to vacuum. Index 
+-- and constraint names of the old table are freed by the drop and reused by the new table.
+ALTER TABLE referencedata.right_assignments_shadow
+  ADD CONSTRAINT right_assignments_shadow_pkey PRIMARY KEY (id)
+  , ADD CONSTRAINT right_assignments_shadow_unq UNIQUE (rightname, facilityid, programid, userid)
+  , ADD CONSTRAINT right_assignments_rightname_fkey FOREIGN KEY (rightname)
+    REFERENCES referencedata.rights (name)
+  , ADD CONSTRAINT right_assignments_facilityid_fkey FOREIGN KEY (facilityid)
+    REFERENCES referencedata.facilities (id)
+  , ADD CONSTRAINT right_assignments_programid_fkey FOREIGN KEY (programid)
+    REFERENCES referencedata.programs (id)
+  , ADD CONSTRAINT right_assignments_userid_fkey FOREIGN KEY (userid)
+    REFERENCES referencedata.users (id);
+
+CREATE INDEX right_assignments_shadow_userid_rightname_idx
+  ON referencedata.right_assignments_shadow (userid, rightname);
+
+CREATE INDEX right_assignments_shadow_programid_idx
+  ON referencedata.right_assignments_shadow (programid);
+
+ANALYZE referencedata.right_assignments_shadow;
+
+DROP TABLE referencedata.right_assignments;
+
+ALTER TABLE referencedata.right_assignments_shadow RENAME TO right_assignments;
+
+ALTER TABLE referencedata.right_assignments
+  RENAME CONSTRAINT right_assignments_shadow_pkey TO right_assignments_pkey;
+
+ALTER TABLE referencedata.right_assignments
+  RENAME CONSTRAINT right_assignments_shadow_unq TO right_assignment_unq;
+
+ALTER INDEX referencedata.right_assignments_shadow_userid_rightname_idx
+  RENAME TO right_assignments_userid_rightname_idx;
+
+ALTER INDEX referencedata.right_assignments_shadow_programid_idx
+  RENAME TO right_assignments_programid_idx;
+
+-- the trigger was dropped with the old table; the swap itself is a change of right assignments
+CREATE TRIGGER increment_right_assignments_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON referencedata.right_assignments
+  FOR EACH STATEMENT EXECUTE PROCEDURE
+  referencedata.increment_resource_version('right_assignments');
+
+UPDATE referencedata.resource_versions
+SET version = version + 1, lastModified = clock_timestamp()
+WHERE resource = 'right_assignments';
@@ -0,0 +1,123 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AuditLogIndexInitializerTest {
+
+  private static final String SNAPSHOT_INDEX = "jv_snapshot_global_id_fk_version_idx";
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  private AuditLogIndexInitializer initializer;
+
+  @Before
+  public void setUp() {
+    initializer = new AuditLogIndexInitializer(jdbcTemplate);
+
+    when(jdbcTemplate.queryForObject(AuditLogIndexInitializer.TRY_LOCK_SQL, Boolean.class))
+        .thenReturn(true);
+    when(jdbcTemplate.queryForList(eq(AuditLogIndexInitializer.IS_VALID_SQL), eq(Boolean.class),
+        anyString())).thenReturn(Collections.emptyList());
+  }
+
+  @Test
+  public void shouldCreateAllIndexesWhileHoldingLock() {
+    initializer.createIndexes(jdbcTemplate);
+
+    InOrder order = inOrder(jdbcTemplate);
+    order.verify(jdbcTemplate).queryForObject(AuditLogIndexInitializer.TRY_LOCK_SQL,
+        Boolean.class);
+    AuditLogIndexInitializer.INDEXES.forEach((name, definition) -> order.verify(jdbcTemplate)
+        .execute(String.format(AuditLogIndexInitializer.CREATE_SQL, name, definition)));
+    order.verify(jdbcTemplate).queryForObject(AuditLogIndexInitializer.UNLOCK_SQL,
+        Boolean.class);
+    verify(jdbcTemplate, never()).execute(startsWithDrop());
+  }
+
+  @Test
+  public void shouldDropAndRebuildInvalidIndex() {
+    when(jdbcTemplate.queryForList(AuditLogIndexInitializer.IS_VALID_SQL, Boolean.class,
+        SNAPSHOT_INDEX)).thenReturn(Collections.singletonList(false));
+
+    initializer.createIndexes(jdbcTemplate);
+
+    InOrder order = inOrder(jdbcTemplate);
+    order.verify(jdbcTemplate)
+        .execute(String.format(AuditLogIndexInitializer.DROP_SQL, SNAPSHOT_INDEX));
+    order.verify(jdbcTemplate).execute(String.format(AuditLogIndexInitializer.CREATE_SQL,
+        SNAPSHOT_INDEX, AuditLogIndexInitializer.INDEXES.get(SNAPSHOT_INDEX)));
+  }
+
+  @Test
+  public void shouldNotDropValidIndex() {
+    when(jdbcTemplate.queryForList(AuditLogIndexInitializer.IS_VALID_SQL, Boolean.class,
+        SNAPSHOT_INDEX)).thenReturn(Collections.singletonList(true));
+
+    initializer.createIndexes(jdbcTemplate);
+
+    verify(jdbcTemplate, never()).execute(startsWithDrop());
+  }
+
+  @Test
+  public void shouldNotCreateIndexesIfAnotherInstanceHoldsLock() {
+    when(jdbcTemplate.queryForObject(AuditLogIndexInitializer.TRY_LOCK_SQL, Boolean.class))
+        .thenReturn(false);
+
+    initializer.createIndexes(jdbcTemplate);
+
+    verify(jdbcTemplate, never()).execute(anyString());
+    verify(jdbcTemplate, never()).queryForObject(AuditLogIndexInitializer.UNLOCK_SQL,
+        Boolean.class);
+  }
+
+  @Test
+  public void shouldCreateRemainingIndexesAndReleaseLockIfOneFails() {
+    String failing = String.format(AuditLogIndexInitializer.CREATE_SQL, SNAPSHOT_INDEX,
+        AuditLogIndexInitializer.INDEXES.get(SNAPSHOT_INDEX));
+    doThrow(new DataAccessResourceFailureException("test")).when(jdbcTemplate).execute(failing);
+
+    initializer.createIndexes(jdbcTemplate);
+
+    AuditLogIndexInitializer.INDEXES.forEach((name, definition) -> verify(jdbcTemplate)
+        .execute(String.format(AuditLogIndexInitializer.CREATE_SQL, name, definition)));
+    verify(jdbcTemplate).queryForObject(AuditLogIndexInitializer.UNLOCK_SQL, Boolean.class);
+  }
+
+  private String startsWithDrop() {
+    return startsWith("DROP INDEX");
+  }
+}
@@ -15,44 +15,51 @@
 
 package org.openlmis.referencedata;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.Lists;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.javers.core.Javers;
-import org.javers.core.metamodel.object.CdoSnapshot;
-import org.javers.repository.jql.JqlQuery;
 import org.javers.spring.annotation.JaversSpringDataAuditable;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.AuditLogInitializer.AuditedType;
 import org.openlmis.referencedata.domain.TradeItem;
+import org.openlmis.referencedata.domain.VersionIdentity;
+import org.openlmis.referencedata.repository.OrderableRepository;
 import org.openlmis.referencedata.repository.TradeItemRepository;
 import org.openlmis.referencedata.testbuilder.TradeItemDataBuilder;
-import org.powermock.api.mockito.PowerMockito;
-import org.powermock.core.classloader.annotations.PrepareForTest;
-import org.powermock.modules.junit4.PowerMockRunner;
 import org.springframework.context.ApplicationContext;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
 
-@RunWith(PowerMockRunner.class)
-@PrepareForTest({CdoSnapshot.class})
+@RunWith(MockitoJUnitRunner.class)
 public class AuditLogInitializerTest {
 
+  private static final int BATCH_SIZE = 2;
+  private static final String TRADE_ITEM = "TradeItem";
+
   @Mock
   private ApplicationContext applicationContext;
 
@@ -60,10 +67,13 @@ public class AuditLogInitializerTest {
   private Javers javers;
 
   @Mock
-  private TradeItemRepository tradeItemRepository;
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
 
   @Mock
-  private CdoSnapshot snapshot;
+  private TradeItemRepository tradeItemRepository;
 
   @Mock
   private TestItemRepository testItemRepository;
@@ -74,7 +84,8 @@ public class AuditLogInitializerTest {
 
   @Before
   public void setUp() {
-    auditLogInitializer = new AuditLogInitializer(applicationContext, javers);
+    auditLogInitializer = new AuditLogInitializer(applicationContext, javers, jdbcTemplate,
+        transactionManager, BATCH_SIZE, 2);
 
     when(applicationContext.getBeansWithAnnotation(JaversSpringDataAuditable.class))
         .thenReturn(repositoryMap);
@@ -92,19 +103,78 @@ public class AuditLogInitializerTest {
   @Test
   public void shouldNotCreateSecondSnapshot() {
     repositoryMap.put("tradeItemRepository", tradeItemRepository);
+    when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(TRADE_ITEM)))
+        .thenReturn(0L);
 
-    ArrayList<TradeItem> content = Lists.newArrayList(new TradeItemDataBuilder().build());
-    Page<TradeItem> page = new PageImpl<>(content);
+    auditLogInitializer.run();
 
-    when(tradeItemRepository.findAllWithoutSnapshots(any(Pageable.class)))
-        .thenReturn(page)
-        .thenReturn(new PageImpl<>(Lists.newArrayList()));
+    verify(javers, never()).commit(eq(AuditLogInitializer.AUTHOR), any());
+    verify(jdbcTemplate, never()).query(anyString(), any(Object[].class), any(RowMapper.class));
+  }
 
-    PowerMockito.when(javers.findSnapshots(any(JqlQuery.class)))
-        .thenReturn(Lists.newArrayList(snapshot));
+  @Test
+  public void shouldCreateSnapshotsInBatches() {
+    repositoryMap.put("tradeItemRepository", tradeItemRepository);
+    TradeItem first = new TradeItemDataBuilder().build();
+    TradeItem second = new TradeItemDataBuilder().build();
+    TradeItem third = new TradeItemDataBuilder().build();
+
+    when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(TRADE_ITEM)))
+        .thenReturn(3L);
+    when(jdbcTemplate.query(anyString(), any(Object[].class), any(RowMapper.class)))
+        .thenReturn(Lists.newArrayList(first.getId(), second.getId()))
+        .thenReturn(Lists.newArrayList(third.getId()));
+    when(tradeItemRepository.findAllById(Lists.newArrayList(first.getId(), second.getId())))
+        .thenReturn(Lists.newArrayList(first, second));
+    when(tradeItemRepository.findAllById(Collections.singletonList(third.getId())))
+        .thenReturn(Collections.singletonList(third));
 
     auditLogInitializer.run();
-    verify(javers, never()).commit(eq("System: AuditLogInitializer"), any());
+
+    verify(javers).commit(AuditLogInitializer.AUTHOR, first);
+    verify(javers).commit(AuditLogInitializer.AUTHOR, second);
+    verify(javers).commit(AuditLogInitializer.AUTHOR, third);
+
+    ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+    ArgumentCaptor<Object[]> params = ArgumentCaptor.forClass(Object[].class);
+    verify(jdbcTemplate, times(2))
+        .query(sql.capture(), params.capture(), any(RowMapper.class));
+
+    List<String> queries = sql.getAllValues();
+    assertThat(queries.get(0)).doesNotContain("e.id > ?");
+    assertThat(queries.get(1)).contains("e.id > ?");
+    assertThat(params.getAllValues().get(0)).containsExactly(TRADE_ITEM, BATCH_SIZE);
+    assertThat(params.getAllValues().get(1))
+        .containsExactly(TRADE_ITEM, second.getId(), BATCH_SIZE);
+  }
+
+  @Test
+  public void shouldFindObjectsWithoutSnapshotsByLocalId() {
+    AuditedType type = AuditedType.of(tradeItemRepository);
+
+    assertThat(type.getTypeName()).isEqualTo(TRADE_ITEM);
+    assertThat(type.getTable()).isEqualTo("referencedata.trade_items");
+    assertThat(type.isVersioned()).isFalse();
+    assertThat(type.getSelectSql(false))
+        .contains("FROM referencedata.trade_items e")
+        .contains("g.type_name = ? AND g.local_id = '\"' || e.id || '\"'")
+        .endsWith("ORDER BY e.id LIMIT ?");
+  }
+
+  @Test
+  public void shouldFindVersionedObjectsWithoutSnapshotsByIdAndVersionNumber() {
+    AuditedType type = AuditedType.of(mock(OrderableRepository.class));
+    VersionIdentity lastId = new VersionIdentity(UUID.randomUUID(), 3L);
+
+    assertThat(type.getTypeName()).isEqualTo("Orderable");
+    assertThat(type.isVersioned()).isTrue();
+    assertThat(type.getSelectSql(true))
+        .startsWith("SELECT e.id, e.versionnumber FROM referencedata.orderables e")
+        .contains("'{\"id\":\"' || e.id || '\",\"versionNumber\":' || e.versionnumber || '}'")
+        .contains("AND (e.id, e.versionnumber) > (?, ?)")
+        .endsWith("ORDER BY e.id, e.versionnumber LIMIT ?");
+    assertThat(type.getParameters(lastId, BATCH_SIZE))
+        .containsExactly("Orderable", lastId.getId(), 3L, BATCH_SIZE);
   }
 
   @Getter
@@ -144,58 +144,58 @@ public class TestDataInitializerTest {
   public void shouldLoadData() throws IOException {
     initializer.run();
 
-    verify(loader).insertToDbFromCsv("referencedata.geographic_levels", geographicLevelsResource);
-    verify(loader).insertToDbFromCsv("referencedata.geographic_zones", geographicZonesResource);
-    verify(loader).insertToDbFromCsv("referencedata.facility_operators",
+    verify(loader).copyToDbFromCsv("referencedata.geographic_levels", geographicLevelsResource);
+    verify(loader).copyToDbFromCsv("referencedata.geographic_zones", geographicZonesResource);
+    verify(loader).copyToDbFromCsv("referencedata.facility_operators",
         facilityOperatorsResource);
-    verify(loader).insertToDbFromCsv("referencedata.facility_types", facilityTypesResource);
-    verify(loader).insertToDbFromCsv("referencedata.facilities", facilitiesResource);
-    verify(loader).insertToDbFromCsv("referencedata.supervisory_nodes", supervisoryNodesResource);
-    verify(loader).insertToDbFromCsv("referencedata.processing_schedules",
+    verify(loader).copyToDbFromCsv("referencedata.facility_types", facilityTypesResource);
+    verify(loader).copyToDbFromCsv("referencedata.facilities", facilitiesResource);
+    verify(loader).copyToDbFromCsv("referencedata.supervisory_nodes", supervisoryNodesResource);
+    verify(loader).copyToDbFromCsv("referencedata.processing_schedules",
         processingSchedulesResource);
-    verify(loader).insertToDbFromCsv("referencedata.processing_periods",
+    verify(loader).copyToDbFromCsv("referencedata.processing_periods",
         processingPeriodsResource);
-    verify(loader).insertToDbFromCsv("referencedata.commodity_types", commodityTypesResource);
-    verify(loader).insertToDbFromCsv("referencedata.orderable_display_categories",
+    verify(loader).copyToDbFromCsv("referencedata.commodity_types", commodityTypesResource);
+    verify(loader).copyToDbFromCsv("referencedata.orderable_display_categories",
         orderableDisplayCategoriesResource);
-    verify(loader).insertToDbFromCsv("referencedata.dispensables", dispensablesResource);
-    verify(loader).insertToDbFromCsv("referencedata.dispensable_attributes",
+    verify(loader).copyToDbFromCsv("referencedata.dispensables", dispensablesResource);
+    verify(loader).copyToDbFromCsv("referencedata.dispensable_attributes",
         dispensableAttributesResource);
-    verify(loader).insertToDbFromCsv("referencedata.orderables", orderablesResource);
-    verify(loader).insertToDbFromCsv("referencedata.orderable_identifiers",
+    verify(loader).copyToDbFromCsv("referencedata.orderables", orderablesResource);
+    verify(loader).copyToDbFromCsv("referencedata.orderable_identifiers",
         orderableIdentifiersResource);
-    verify(loader).insertToDbFromCsv("referencedata.programs", programsResource);
-    verify(loader).insertToDbFromCsv("referencedata.program_orderables",
+    verify(loader).copyToDbFromCsv("referencedata.programs", programsResource);
+    verify(loader).copyToDbFromCsv("referencedata.program_orderables",
         programOrderablesResource);
-    verify(loader).insertToDbFromCsv("referencedata.supply_lines", supplyLinesResource);
-    verify(loader).insertToDbFromCsv("referencedata.users", usersResource);
-    verify(loader).insertToDbFromCsv("referencedata.roles", rolesResource);
-    verify(loader).insertToDbFromCsv("referencedata.role_rights", roleRightsResource);
-    verify(loader).insertToDbFromCsv("referencedata.role_assignments", roleAssignmentsResource);
-    verify(loader).insertToDbFromCsv("referencedata.requisition_groups",
+    verify(loader).copyToDbFromCsv("referencedata.supply_lines", supplyLinesResource);
+    verify(loader).copyToDbFromCsv("referencedata.users", usersResource);
+    verify(loader).copyToDbFromCsv("referencedata.roles", rolesResource);
+    verify(loader).copyToDbFromCsv("referencedata.role_rights", roleRightsResource);
+    verify(loader).copyToDbFromCsv("referencedata.role_assignments", roleAssignmentsResource);
+    verify(loader).copyToDbFromCsv("referencedata.requisition_groups",
         requisitionGroupsResource);
-    verify(loader).insertToDbFromCsv("referencedata.requisition_group_program_schedules",
+    verify(loader).copyToDbFromCsv("referencedata.requisition_group_program_schedules",
         requisitionGroupProgramSchedulesResource);
-    verify(loader).insertToDbFromCsv("referencedata.requisition_group_members",
+    verify(loader).copyToDbFromCsv("referencedata.requisition_group_members",
         requisitionGroupMembersResource);
-    verify(loader).insertToDbFromCsv("referencedata.supported_programs",
+    verify(loader).copyToDbFromCsv("referencedata.supported_programs",
         supportedProgramsResource);
-    verify(loader).insertToDbFromCsv("referencedata.trade_items", tradeItemsResource);
-    verify(loader).insertToDbFromCsv("referencedata.trade_item_classifications",
+    verify(loader).copyToDbFromCsv("referencedata.trade_items", tradeItemsResource);
+    verify(loader).copyToDbFromCsv("referencedata.trade_item_classifications",
         tradeItemClassificationsResource);
-    verify(loader).insertToDbFromCsv("referencedata.ideal_stock_amounts",
+    verify(loader).copyToDbFromCsv("referencedata.ideal_stock_amounts",
         idealStockAmountsResource);
-    verify(loader).insertToDbFromCsv("referencedata.lots", lotsResource);
-    verify(loader).insertToDbFromCsv("referencedata.service_accounts", serviceAccountsResource);
-    verify(loader).insertToDbFromCsv("referencedata.facility_type_approved_products",
+    verify(loader).copyToDbFromCsv("referencedata.lots", lotsResource);
+    verify(loader).copyToDbFromCsv("referencedata.service_accounts", serviceAccountsResource);
+    verify(loader).copyToDbFromCsv("referencedata.facility_type_approved_products",
         facilityTypeApprovedProductsResource);
-    verify(loader).insertToDbFromCsv("referencedata.supply_partners",
+    verify(loader).copyToDbFromCsv("referencedata.supply_partners",
         supplyPartnersResource);
-    verify(loader).insertToDbFromCsv("referencedata.supply_partner_associations",
+    verify(loader).copyToDbFromCsv("referencedata.supply_partner_associations",
         supplyPartnerAssociationsResource);
-    verify(loader).insertToDbFromCsv("referencedata.supply_partner_association_facilities",
+    verify(loader).copyToDbFromCsv("referencedata.supply_partner_association_facilities",
         supplyPartnerAssociationFacilitiesResource);
-    verify(loader).insertToDbFromCsv("referencedata.supply_partner_association_orderables",
+    verify(loader).copyToDbFromCsv("referencedata.supply_partner_association_orderables",
         supplyPartnerAssociationOrderablesResource);
   }
 }
@@ -18,6 +18,7 @@ package org.openlmis.referencedata.fhir;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import ca.uhn.fhir.rest.gclient.ICriterion;
+import com.google.common.collect.Lists;
 import java.util.UUID;
 import org.junit.Test;
 
@@ -40,4 +41,20 @@ public class CriterionBuilderTest {
         .hasFieldOrPropertyWithValue("myName", "identifier")
         .hasFieldOrPropertyWithValue("myValue", SERVICE_URL + "|" + id.toString());
   }
+
+  @Test
+  public void shouldBuildIdentifierCriterionForManyIds() {
+    // given
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+
+    // when
+    ICriterion criterion = builder.buildIdentifierCriterion(Lists.newArrayList(first, second));
+
+    // then
+    assertThat(criterion)
+        .hasFieldOrPropertyWithValue("myName", "identifier")
+        .hasFieldOrPropertyWithValue("myValue",
+            SERVICE_URL + "|" + first + "," + SERVICE_URL + "|" + second);
+  }
 }
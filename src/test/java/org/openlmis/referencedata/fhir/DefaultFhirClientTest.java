@@ -19,7 +19,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
-import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -27,31 +27,26 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.openlmis.referencedata.domain.Facility;
 import org.openlmis.referencedata.domain.GeographicZone;
+import org.openlmis.referencedata.fhir.FhirSyncEvent.ResourceType;
 import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
 import org.openlmis.referencedata.testbuilder.GeographicZoneDataBuilder;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @RunWith(MockitoJUnitRunner.class)
-@SuppressWarnings("PMD.AvoidUsingHardCodedIP")
 public class DefaultFhirClientTest {
 
-  private static final String SERVICE_URL = "http://localhost";
   private static final String API_KEY_PREFIX = "prefix";
 
   @Mock
-  private LocationFactory locationFactory;
+  private FhirSyncOutbox outbox;
 
   @Mock
-  private LocationConverter locationConvert;
-
-  @Mock
-  private LocationSynchronizer locationSynchronizer;
-
-  @Mock
-  private IBaseResource resource;
+  private FhirSyncDispatcher dispatcher;
 
   @Mock
   private SecurityContext securityContext;
@@ -66,9 +61,8 @@ public class DefaultFhirClientTest {
   public void setUp() {
     client = new DefaultFhirClient();
     client.setApiKeyPrefix(API_KEY_PREFIX);
-    client.setLocationSynchronizer(locationSynchronizer);
-    client.setLocationFactory(locationFactory);
-    client.setLocationConvert(locationConvert);
+    client.setOutbox(outbox);
+    client.setDispatcher(dispatcher);
 
     when(securityContext.getAuthentication()).thenReturn(authentication);
     when(authentication.isClientOnly()).thenReturn(true);
@@ -77,21 +71,24 @@ public class DefaultFhirClientTest {
     SecurityContextHolder.setContext(securityContext);
   }
 
+  @After
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
   @Test
-  public void shouldSynchronizeFacility() {
+  public void shouldQueueFacility() {
     //given
     Facility facility = new FacilityDataBuilder().build();
-    FhirLocation location = FhirLocation.newInstance(SERVICE_URL, facility);
 
     // when
-    when(locationFactory.createFor(facility)).thenReturn(location);
-    when(locationConvert.convert(location)).thenReturn(resource);
     client.synchronizeFacility(facility);
 
     // then
-    verify(locationFactory).createFor(facility);
-    verify(locationConvert).convert(location);
-    verify(locationSynchronizer).synchronize(location, resource);
+    verify(outbox).enqueue(ResourceType.FACILITY, facility.getId());
+    verify(dispatcher).wakeUp();
   }
 
   @Test
@@ -104,24 +101,20 @@ public class DefaultFhirClientTest {
     client.synchronizeFacility(facility);
 
     // then
-    verifyZeroInteractions(locationFactory, locationConvert, locationSynchronizer);
+    verifyZeroInteractions(outbox, dispatcher);
   }
 
   @Test
-  public void shouldSynchronizeGeographicZone() {
+  public void shouldQueueGeographicZone() {
     //given
     GeographicZone geographicZone = new GeographicZoneDataBuilder().build();
-    FhirLocation location = FhirLocation.newInstance(SERVICE_URL, geographicZone);
 
     // when
-    when(locationFactory.createFor(geographicZone)).thenReturn(location);
-    when(locationConvert.convert(location)).thenReturn(resource);
     client.synchronizeGeographicZone(geographicZone);
 
     // then
-    verify(locationFactory).createFor(geographicZone);
-    verify(locationConvert).convert(location);
-    verify(locationSynchronizer).synchronize(location, resource);
+    verify(outbox).enqueue(ResourceType.GEOGRAPHIC_ZONE, geographicZone.getId());
+    verify(dispatcher).wakeUp();
   }
 
   @Test
@@ -134,7 +127,25 @@ public class DefaultFhirClientTest {
     client.synchronizeGeographicZone(geographicZone);
 
     // then
-    verifyZeroInteractions(locationFactory, locationConvert, locationSynchronizer);
+    verifyZeroInteractions(outbox, dispatcher);
+  }
+
+  @Test
+  public void shouldWakeUpDispatcherOnlyAfterTransactionCommits() {
+    // given
+    Facility facility = new FacilityDataBuilder().build();
+    TransactionSynchronizationManager.initSynchronization();
+
+    // when
+    client.synchronizeFacility(facility);
+
+    // then
+    verify(outbox).enqueue(ResourceType.FACILITY, facility.getId());
+    verifyZeroInteractions(dispatcher);
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+    verify(dispatcher).wakeUp();
   }
 
   private OAuth2Request createAuthRequest(String clientId) {
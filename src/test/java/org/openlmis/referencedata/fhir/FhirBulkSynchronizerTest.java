@@ -0,0 +1,228 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.fhir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.openlmis.referencedata.fhir.FhirBulkSynchronizer.FACILITY_LEVEL_NUMBER;
+import static org.openlmis.referencedata.fhir.FhirBulkSynchronizer.FIRST_ID;
+import static org.openlmis.referencedata.fhir.FhirBulkSynchronizer.SAVE_CHECKPOINT_SQL;
+import static org.openlmis.referencedata.fhir.FhirBulkSynchronizer.SELECT_CHECKPOINT_SQL;
+import static org.openlmis.referencedata.fhir.FhirBulkSynchronizer.SELECT_FACILITY_IDS_SQL;
+import static org.openlmis.referencedata.fhir.FhirBulkSynchronizer.SELECT_GEOGRAPHIC_ZONE_IDS_SQL;
+import static org.openlmis.referencedata.fhir.FhirBulkSynchronizer.SELECT_LEVEL_NUMBERS_SQL;
+
+import com.google.common.collect.Lists;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.GeographicZone;
+import org.openlmis.referencedata.fhir.FhirSyncEvent.ResourceType;
+import org.openlmis.referencedata.repository.FacilityRepository;
+import org.openlmis.referencedata.repository.GeographicZoneRepository;
+import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
+import org.openlmis.referencedata.testbuilder.GeographicZoneDataBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionOperations;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings({"PMD.TooManyMethods", "unchecked"})
+public class FhirBulkSynchronizerTest {
+
+  private static final String SERVICE_URL = "http://localhost";
+  private static final String ZONE = ResourceType.GEOGRAPHIC_ZONE.name();
+  private static final String FACILITY = ResourceType.FACILITY.name();
+  private static final int BUNDLE_SIZE = 2;
+  private static final int LEVEL_NUMBER = 1;
+
+  @Mock
+  private JdbcTemplate template;
+
+  @Mock
+  private FacilityRepository facilityRepository;
+
+  @Mock
+  private GeographicZoneRepository geographicZoneRepository;
+
+  @Mock
+  private LocationBundleSynchronizer bundleSynchronizer;
+
+  private ExecutorService workers = Executors.newFixedThreadPool(2);
+  private GeographicZone zone = new GeographicZoneDataBuilder().build();
+  private Facility firstFacility = new FacilityDataBuilder().build();
+  private Facility secondFacility = new FacilityDataBuilder().build();
+  private Facility thirdFacility = new FacilityDataBuilder().build();
+
+  private FhirBulkSynchronizer synchronizer;
+
+  @Before
+  public void setUp() {
+    synchronizer = new FhirBulkSynchronizer();
+    synchronizer.setTemplate(template);
+    synchronizer.setTransactionOperations(TransactionOperations.withoutTransaction());
+    synchronizer.setFacilityRepository(facilityRepository);
+    synchronizer.setGeographicZoneRepository(geographicZoneRepository);
+    synchronizer.setLocationFactory(new LocationFactory() {
+      @Override
+      public FhirLocation createFor(GeographicZone zone) {
+        return FhirLocation.newInstance(SERVICE_URL, zone);
+      }
+
+      @Override
+      public FhirLocation createFor(Facility facility) {
+        return FhirLocation.newInstance(SERVICE_URL, facility);
+      }
+    });
+    synchronizer.setBundleSynchronizer(bundleSynchronizer);
+    synchronizer.setBundleSize(BUNDLE_SIZE);
+    synchronizer.setParallelism(2);
+    synchronizer.setWorkers(workers);
+
+    when(template.queryForList(SELECT_LEVEL_NUMBERS_SQL, Integer.class))
+        .thenReturn(Collections.singletonList(LEVEL_NUMBER));
+
+    mockZoneIds(FIRST_ID, zone.getId());
+    mockZoneIds(zone.getId());
+    mockFacilityIds(FIRST_ID, firstFacility.getId(), secondFacility.getId());
+    mockFacilityIds(secondFacility.getId(), thirdFacility.getId());
+    mockFacilityIds(thirdFacility.getId());
+
+    when(geographicZoneRepository.findAllById(Collections.singletonList(zone.getId())))
+        .thenReturn(Collections.singletonList(zone));
+    when(facilityRepository.findAllById(
+        Arrays.asList(firstFacility.getId(), secondFacility.getId())))
+        .thenReturn(Arrays.asList(firstFacility, secondFacility));
+    when(facilityRepository.findAllById(Collections.singletonList(thirdFacility.getId())))
+        .thenReturn(Collections.singletonList(thirdFacility));
+  }
+
+  @After
+  public void tearDown() {
+    workers.shutdownNow();
+  }
+
+  @Test
+  public void shouldSynchronizeGeographicZonesBeforeFacilities() {
+    synchronizer.synchronizeAll();
+
+    InOrder order = inOrder(bundleSynchronizer, template);
+    order.verify(bundleSynchronizer).synchronize(Collections.singletonList(location(zone)));
+    order.verify(template)
+        .update(SAVE_CHECKPOINT_SQL, ZONE, LEVEL_NUMBER, zone.getId(), false);
+    order.verify(template)
+        .update(SAVE_CHECKPOINT_SQL, ZONE, LEVEL_NUMBER, zone.getId(), true);
+    order.verify(template).update(SAVE_CHECKPOINT_SQL, FACILITY, FACILITY_LEVEL_NUMBER,
+        thirdFacility.getId(), false);
+    order.verify(template).update(SAVE_CHECKPOINT_SQL, FACILITY, FACILITY_LEVEL_NUMBER,
+        thirdFacility.getId(), true);
+  }
+
+  @Test
+  public void shouldSynchronizeSeveralBundlesAtOnce() {
+    synchronizer.synchronizeAll();
+
+    ArgumentCaptor<List<FhirLocation>> bundles = ArgumentCaptor.forClass(List.class);
+    verify(bundleSynchronizer, times(3)).synchronize(bundles.capture());
+
+    assertThat(bundles.getAllValues()).contains(
+        Arrays.asList(location(firstFacility), location(secondFacility)),
+        Collections.singletonList(location(thirdFacility)));
+  }
+
+  @Test
+  public void shouldResumeFromCheckpoint() {
+    when(template.query(eq(SELECT_CHECKPOINT_SQL), any(RowMapper.class), eq(ZONE),
+        eq(LEVEL_NUMBER))).thenAnswer(invocation -> Collections.singletonList(
+            checkpoint(invocation.getArgument(1), zone.getId(), true)));
+    when(template.query(eq(SELECT_CHECKPOINT_SQL), any(RowMapper.class), eq(FACILITY),
+        eq(FACILITY_LEVEL_NUMBER))).thenAnswer(invocation -> Collections.singletonList(
+            checkpoint(invocation.getArgument(1), secondFacility.getId(), false)));
+
+    synchronizer.synchronizeAll();
+
+    verify(bundleSynchronizer)
+        .synchronize(Collections.singletonList(location(thirdFacility)));
+    verify(bundleSynchronizer, never())
+        .synchronize(Collections.singletonList(location(zone)));
+    verify(template, never()).query(eq(SELECT_GEOGRAPHIC_ZONE_IDS_SQL), any(RowMapper.class),
+        any(), any(), any());
+  }
+
+  @Test
+  public void shouldNotMoveCheckpointIfBundleCouldNotBeSynchronized() {
+    doThrow(new IllegalStateException("timeout"))
+        .when(bundleSynchronizer).synchronize(anyListOf(FhirLocation.class));
+
+    synchronizer.synchronizeAll();
+
+    verify(template, never()).update(eq(SAVE_CHECKPOINT_SQL), anyString(), anyInt(),
+        any(UUID.class), anyBoolean());
+  }
+
+  private void mockZoneIds(UUID lastId, UUID... ids) {
+    when(template.query(eq(SELECT_GEOGRAPHIC_ZONE_IDS_SQL), any(RowMapper.class),
+        eq(LEVEL_NUMBER), eq(lastId), eq(BUNDLE_SIZE))).thenReturn(Lists.newArrayList(ids));
+  }
+
+  private void mockFacilityIds(UUID lastId, UUID... ids) {
+    when(template.query(eq(SELECT_FACILITY_IDS_SQL), any(RowMapper.class),
+        eq(lastId), eq(BUNDLE_SIZE))).thenReturn(Lists.newArrayList(ids));
+  }
+
+  private Object checkpoint(RowMapper<?> mapper, UUID lastId, boolean completed)
+      throws SQLException {
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getString("lastid")).thenReturn(lastId.toString());
+    when(rs.getBoolean("completed")).thenReturn(completed);
+    return mapper.mapRow(rs, 0);
+  }
+
+  private FhirLocation location(GeographicZone zone) {
+    return FhirLocation.newInstance(SERVICE_URL, zone);
+  }
+
+  private FhirLocation location(Facility facility) {
+    return FhirLocation.newInstance(SERVICE_URL, facility);
+  }
+
+}
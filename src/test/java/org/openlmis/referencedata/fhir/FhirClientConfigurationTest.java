@@ -104,5 +104,19 @@ public class FhirClientConfigurationTest {
         .hasMessage("Unsupported FHIR version: DSTU2");
   }
 
+  @Test
+  public void shouldCreateLocationBundleSynchronizer() {
+    assertThat(configuration.locationBundleSynchronizer())
+        .isInstanceOf(R4LocationBundleSynchronizer.class)
+        .hasNoNullFieldsOrProperties();
+  }
 
+  @Test
+  public void shouldNotCreateLocationBundleSynchronizerIfVersionNotSupported() {
+    when(fhirVersion.getVersion()).thenReturn(VERSION_2);
+
+    assertThatThrownBy(() -> configuration.locationBundleSynchronizer())
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Unsupported FHIR version: DSTU2");
+  }
 }
@@ -0,0 +1,214 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.fhir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.GeographicZone;
+import org.openlmis.referencedata.fhir.FhirSyncEvent.ResourceType;
+import org.openlmis.referencedata.fhir.FhirSyncOutbox.Statistics;
+import org.openlmis.referencedata.repository.FacilityRepository;
+import org.openlmis.referencedata.repository.GeographicZoneRepository;
+import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
+import org.openlmis.referencedata.testbuilder.GeographicZoneDataBuilder;
+import org.springframework.transaction.support.TransactionOperations;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings({"PMD.TooManyMethods", "unchecked"})
+public class FhirSyncDispatcherTest {
+
+  private static final String SERVICE_URL = "http://localhost";
+  private static final int BATCH_SIZE = 10;
+  private static final long LEASE_SECONDS = 300;
+  private static final long INITIAL_BACKOFF_MILLIS = 1000;
+  private static final long MAX_BACKOFF_MILLIS = 60000;
+
+  @Mock
+  private FhirSyncOutbox outbox;
+
+  @Mock
+  private LocationFactory locationFactory;
+
+  @Mock
+  private LocationConverter locationConverter;
+
+  @Mock
+  private LocationSynchronizer locationSynchronizer;
+
+  @Mock
+  private FacilityRepository facilityRepository;
+
+  @Mock
+  private GeographicZoneRepository geographicZoneRepository;
+
+  @Mock
+  private IBaseResource resource;
+
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private Facility facility = new FacilityDataBuilder().build();
+  private FhirLocation location = FhirLocation.newInstance(SERVICE_URL, facility);
+  private FhirSyncEvent event = new FhirSyncEvent(ResourceType.FACILITY, facility.getId(), 1, 0);
+
+  private FhirSyncDispatcher dispatcher;
+
+  @Before
+  public void setUp() {
+    dispatcher = new FhirSyncDispatcher();
+    dispatcher.setOutbox(outbox);
+    dispatcher.setLocationFactory(locationFactory);
+    dispatcher.setLocationConverter(locationConverter);
+    dispatcher.setLocationSynchronizer(locationSynchronizer);
+    dispatcher.setFacilityRepository(facilityRepository);
+    dispatcher.setGeographicZoneRepository(geographicZoneRepository);
+    dispatcher.setTransactionOperations(TransactionOperations.withoutTransaction());
+    dispatcher.setMeterRegistry(meterRegistry);
+    dispatcher.setConcurrency(2);
+    dispatcher.setBatchSize(BATCH_SIZE);
+    dispatcher.setPollIntervalMillis(Long.MAX_VALUE / 2);
+    dispatcher.setLeaseSeconds(LEASE_SECONDS);
+    dispatcher.setInitialBackoffMillis(INITIAL_BACKOFF_MILLIS);
+    dispatcher.setMaxBackoffMillis(MAX_BACKOFF_MILLIS);
+    dispatcher.start();
+
+    when(outbox.claim(BATCH_SIZE, LEASE_SECONDS))
+        .thenReturn(Collections.singletonList(event))
+        .thenReturn(Collections.emptyList());
+    when(outbox.getStatistics()).thenReturn(new Statistics(0, 0));
+    when(facilityRepository.findById(facility.getId())).thenReturn(Optional.of(facility));
+    when(locationFactory.createFor(facility)).thenReturn(location);
+    when(locationConverter.convert(location)).thenReturn(resource);
+  }
+
+  @After
+  public void tearDown() {
+    dispatcher.stop();
+  }
+
+  @Test
+  public void shouldDeliverFacility() {
+    dispatcher.dispatch();
+
+    verify(locationSynchronizer).synchronize(location, resource);
+    verify(outbox).complete(event);
+    verify(outbox, never()).fail(any(FhirSyncEvent.class), anyLong(), anyString());
+    assertThat(meterRegistry.counter("referencedata.fhirSync.delivered").count()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldDeliverGeographicZone() {
+    GeographicZone zone = new GeographicZoneDataBuilder().build();
+    FhirLocation zoneLocation = FhirLocation.newInstance(SERVICE_URL, zone);
+    FhirSyncEvent zoneEvent = new FhirSyncEvent(ResourceType.GEOGRAPHIC_ZONE, zone.getId(), 1, 0);
+
+    when(outbox.claim(BATCH_SIZE, LEASE_SECONDS))
+        .thenReturn(Collections.singletonList(zoneEvent))
+        .thenReturn(Collections.emptyList());
+    when(geographicZoneRepository.findById(zone.getId())).thenReturn(Optional.of(zone));
+    when(locationFactory.createFor(zone)).thenReturn(zoneLocation);
+    when(locationConverter.convert(zoneLocation)).thenReturn(resource);
+
+    dispatcher.dispatch();
+
+    verify(locationSynchronizer).synchronize(zoneLocation, resource);
+    verify(outbox).complete(zoneEvent);
+  }
+
+  @Test
+  public void shouldCompleteEventOfLocationWhichDoesNotExist() {
+    when(facilityRepository.findById(facility.getId())).thenReturn(Optional.empty());
+
+    dispatcher.dispatch();
+
+    verify(locationSynchronizer, never())
+        .synchronize(any(FhirLocation.class), any(IBaseResource.class));
+    verify(outbox).complete(event);
+  }
+
+  @Test
+  public void shouldRetryEventWithBackoffIfDeliveryFails() {
+    FhirSyncEvent retriedEvent =
+        new FhirSyncEvent(ResourceType.FACILITY, facility.getId(), 1, 2);
+    when(outbox.claim(BATCH_SIZE, LEASE_SECONDS))
+        .thenReturn(Collections.singletonList(retriedEvent))
+        .thenReturn(Collections.emptyList());
+    doThrow(new IllegalStateException("timeout"))
+        .when(locationSynchronizer).synchronize(location, resource);
+
+    dispatcher.dispatch();
+
+    verify(outbox).fail(retriedEvent, 4 * INITIAL_BACKOFF_MILLIS, "timeout");
+    verify(outbox, never()).complete(any(FhirSyncEvent.class));
+    assertThat(meterRegistry.counter("referencedata.fhirSync.failed").count()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldNotWaitLongerThanMaxBackoff() {
+    assertThat(dispatcher.getBackoffMillis(0)).isEqualTo(INITIAL_BACKOFF_MILLIS);
+    assertThat(dispatcher.getBackoffMillis(3)).isEqualTo(8 * INITIAL_BACKOFF_MILLIS);
+    assertThat(dispatcher.getBackoffMillis(100)).isEqualTo(MAX_BACKOFF_MILLIS);
+  }
+
+  @Test
+  public void shouldClaimNextBatchIfBatchWasFull() {
+    dispatcher.setBatchSize(1);
+    FhirSyncEvent secondEvent = new FhirSyncEvent(ResourceType.FACILITY, UUID.randomUUID(), 1, 0);
+    when(outbox.claim(1, LEASE_SECONDS))
+        .thenReturn(Collections.singletonList(event))
+        .thenReturn(Collections.singletonList(secondEvent))
+        .thenReturn(Collections.emptyList());
+
+    dispatcher.dispatch();
+
+    verify(outbox, times(3)).claim(anyInt(), anyLong());
+    verify(outbox).complete(event);
+    verify(outbox).complete(secondEvent);
+  }
+
+  @Test
+  public void shouldExposeQueueDepthAndLag() {
+    when(outbox.getStatistics()).thenReturn(new Statistics(5, 30));
+
+    dispatcher.dispatch();
+
+    assertThat(meterRegistry.get("referencedata.fhirSync.queueDepth").gauge().value())
+        .isEqualTo(5);
+    assertThat(meterRegistry.get("referencedata.fhirSync.lagSeconds").gauge().value())
+        .isEqualTo(30);
+  }
+
+}
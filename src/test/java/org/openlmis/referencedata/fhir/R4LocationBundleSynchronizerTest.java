@@ -0,0 +1,210 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.fhir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ca.uhn.fhir.rest.api.CacheControlDirective;
+import ca.uhn.fhir.rest.api.SearchStyleEnum;
+import ca.uhn.fhir.rest.client.api.IGenericClient;
+import ca.uhn.fhir.rest.gclient.ICriterion;
+import ca.uhn.fhir.rest.gclient.IGetPage;
+import ca.uhn.fhir.rest.gclient.IGetPageTyped;
+import ca.uhn.fhir.rest.gclient.IQuery;
+import ca.uhn.fhir.rest.gclient.ITransaction;
+import ca.uhn.fhir.rest.gclient.ITransactionTyped;
+import ca.uhn.fhir.rest.gclient.IUntypedQuery;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Function;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.Bundle.BundleType;
+import org.hl7.fhir.r4.model.Bundle.HTTPVerb;
+import org.hl7.fhir.r4.model.Location;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings("unchecked")
+public class R4LocationBundleSynchronizerTest {
+
+  private static final String SERVICE_URL = "http://localhost";
+  private static final String FHIR_URL = "http://localhost/hapifhir/Location/";
+
+  @Mock
+  private IGenericClient client;
+
+  @Mock
+  private CacheControlDirective cacheControlDirective;
+
+  @Mock
+  private CriterionBuilder criterionBuilder;
+
+  @Mock
+  private LocationConverter<Location> converter;
+
+  @Mock
+  private ICriterion criterion;
+
+  @Mock
+  private IUntypedQuery search;
+
+  @Mock
+  private IQuery baseQuery;
+
+  @Mock
+  private IQuery query;
+
+  @Mock
+  private IGetPage getPage;
+
+  @Mock
+  private IGetPageTyped getPageTyped;
+
+  @Mock
+  private ITransaction transaction;
+
+  @Mock
+  private ITransactionTyped transactionTyped;
+
+  private Facility newFacility = new FacilityDataBuilder().build();
+  private Facility existingFacility = new FacilityDataBuilder().build();
+  private FhirLocation newLocation = FhirLocation.newInstance(SERVICE_URL, newFacility);
+  private FhirLocation existingLocation = FhirLocation.newInstance(SERVICE_URL, existingFacility);
+
+  private Bundle searchResult = new Bundle();
+
+  private R4LocationBundleSynchronizer synchronizer;
+
+  @Before
+  public void setUp() {
+    synchronizer = new R4LocationBundleSynchronizer(client, cacheControlDirective,
+        criterionBuilder, converter, SERVICE_URL);
+
+    when(criterionBuilder.buildIdentifierCriterion(anyCollectionOf(UUID.class)))
+        .thenReturn(criterion);
+
+    when(client.search()).thenReturn(search);
+    when(search.forResource(Location.class)).thenReturn(baseQuery);
+    when(baseQuery.cacheControl(cacheControlDirective)).thenReturn(baseQuery);
+    when(baseQuery.where(criterion)).thenReturn(baseQuery);
+    when(baseQuery.count(any(Integer.class))).thenReturn(baseQuery);
+    when(baseQuery.usingStyle(SearchStyleEnum.POST)).thenReturn(baseQuery);
+    when(baseQuery.returnBundle(Bundle.class)).thenReturn(query);
+    when(query.execute()).thenReturn(searchResult);
+
+    when(client.loadPage()).thenReturn(getPage);
+
+    when(client.transaction()).thenReturn(transaction);
+    when(transaction.withBundle(any(Bundle.class))).thenReturn(transactionTyped);
+    when(transactionTyped.encodedJson()).thenReturn(transactionTyped);
+
+    when(converter.convert(any(FhirLocation.class), any(Function.class)))
+        .thenAnswer(invocation -> new Location());
+
+    searchResult.addEntry(entry(existingFacility.getId(), "12"));
+    searchResult.addEntry(entry(existingFacility.getGeographicZone().getId(), "3"));
+  }
+
+  @Test
+  public void shouldFindExistingLocationsAndTheirParentsWithOneSearch() {
+    synchronizer.synchronize(Arrays.asList(newLocation, existingLocation));
+
+    ArgumentCaptor<Collection<UUID>> ids = ArgumentCaptor.forClass(Collection.class);
+    verify(criterionBuilder).buildIdentifierCriterion(ids.capture());
+    assertThat(ids.getValue()).containsOnly(newFacility.getId(),
+        newFacility.getGeographicZone().getId(), existingFacility.getId(),
+        existingFacility.getGeographicZone().getId());
+  }
+
+  @Test
+  public void shouldCreateNewAndUpdateExistingLocationsInOneTransaction() {
+    synchronizer.synchronize(Arrays.asList(newLocation, existingLocation));
+
+    Bundle bundle = captureTransaction();
+    assertThat(bundle.getType()).isEqualTo(BundleType.TRANSACTION);
+    assertThat(bundle.getEntry()).hasSize(2);
+
+    BundleEntryComponent create = bundle.getEntry().get(0);
+    assertThat(create.getRequest().getMethod()).isEqualTo(HTTPVerb.POST);
+    assertThat(create.getRequest().getUrl()).isEqualTo("Location");
+    assertThat(create.getRequest().getIfNoneExist())
+        .isEqualTo("identifier=" + SERVICE_URL + '|' + newFacility.getId());
+
+    BundleEntryComponent update = bundle.getEntry().get(1);
+    assertThat(update.getRequest().getMethod()).isEqualTo(HTTPVerb.PUT);
+    assertThat(update.getRequest().getUrl()).isEqualTo("Location/12");
+    assertThat(update.getResource().getIdElement().getValue()).isEqualTo("Location/12");
+  }
+
+  @Test
+  public void shouldResolveParentsFromSearchResult() {
+    synchronizer.synchronize(Arrays.asList(existingLocation));
+
+    ArgumentCaptor<Function<UUID, String>> urls = ArgumentCaptor.forClass(Function.class);
+    verify(converter).convert(eq(existingLocation), urls.capture());
+    assertThat(urls.getValue().apply(existingFacility.getGeographicZone().getId()))
+        .isEqualTo(FHIR_URL + "3");
+    assertThat(urls.getValue().apply(UUID.randomUUID())).isNull();
+  }
+
+  @Test
+  public void shouldLoadAllPagesOfSearchResult() {
+    Bundle firstPage = new Bundle();
+    firstPage.addLink().setRelation(Bundle.LINK_NEXT).setUrl(FHIR_URL + "?page=2");
+    when(query.execute()).thenReturn(firstPage);
+    when(getPage.next(firstPage)).thenReturn(getPageTyped);
+    when(getPageTyped.execute()).thenReturn(searchResult);
+
+    synchronizer.synchronize(Arrays.asList(existingLocation));
+
+    assertThat(captureTransaction().getEntry().get(0).getRequest().getMethod())
+        .isEqualTo(HTTPVerb.PUT);
+  }
+
+  private Bundle captureTransaction() {
+    ArgumentCaptor<Bundle> bundle = ArgumentCaptor.forClass(Bundle.class);
+    verify(transaction).withBundle(bundle.capture());
+    verify(transactionTyped).execute();
+    return bundle.getValue();
+  }
+
+  private BundleEntryComponent entry(UUID openLmisId, String fhirId) {
+    Location location = new Location();
+    location.setId("Location/" + fhirId + "/_history/2");
+    location.addIdentifier().setSystem(SERVICE_URL).setValue(openLmisId.toString());
+
+    BundleEntryComponent entry = new BundleEntryComponent();
+    entry.setFullUrl(FHIR_URL + fhirId);
+    entry.setResource(location);
+
+    return entry;
+  }
+
+}
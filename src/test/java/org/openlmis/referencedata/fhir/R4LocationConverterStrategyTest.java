@@ -18,6 +18,7 @@ package org.openlmis.referencedata.fhir;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.openlmis.referencedata.fhir.FhirCoding.SITE;
 
@@ -156,6 +157,23 @@ public class R4LocationConverterStrategyTest {
         .hasMessageContaining(FhirMessageKeys.ERROR_NOT_FOUND_LOCATION_FOR_RESOURCE);
   }
 
+  @Test
+  public void shouldSetPartOfUsingGivenLocationUrls() {
+    UUID parentId = facility.getPartOf().getResourceId();
+
+    strategy.setPartOf(result, facility, id -> parentId.equals(id) ? FULL_URL : null);
+
+    assertThat(result.getPartOf().getReference()).isEqualTo(FULL_URL);
+    verifyZeroInteractions(client);
+  }
+
+  @Test
+  public void shouldThrowExceptionIfGivenLocationUrlsDoNotContainRelatedLocation() {
+    assertThatThrownBy(() -> strategy.setPartOf(result, facility, id -> null))
+        .isInstanceOf(ValidationMessageException.class)
+        .hasMessageContaining(FhirMessageKeys.ERROR_NOT_FOUND_LOCATION_FOR_RESOURCE);
+  }
+
   @Test
   public void shouldSetIdentifier() {
     strategy.setIdentifier(result, facility);
@@ -16,9 +16,14 @@
 package org.openlmis.referencedata.security;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
 import java.util.HashMap;
 import java.util.Map;
 import org.junit.Before;
@@ -88,4 +93,35 @@ public class CustomTokenServicesTest {
     this.customTokenServices.setRestTemplate(restTemplate);
     this.customTokenServices.loadAuthentication(ACCESS_TOKEN);
   }
+
+  @Test
+  public void shouldRetryInvalidTokenAndCacheResult() throws Exception {
+    Map responseAttributes = new HashMap();
+    responseAttributes.put("error", "no_active_token");
+    ResponseEntity<Map> response = new ResponseEntity<>(responseAttributes, HttpStatus.OK);
+
+    when(restTemplate.exchange(
+        anyString(), Matchers.any(HttpMethod.class), Matchers.any(HttpEntity.class),
+        Matchers.any(Class.class)
+    )).thenReturn(response);
+
+    CustomTokenServices cachingTokenServices = new CustomTokenServices(
+        INVALID_TOKEN_RETRY_LIMIT, 0,
+        new TokenCache(10, 60, 30, new SimpleMeterRegistry(), Clock.systemUTC()));
+    cachingTokenServices.setCheckTokenEndpointUrl(CLIENT_CHECK_TOKEN_ENDPOINT_URI);
+    cachingTokenServices.setRestTemplate(restTemplate);
+
+    for (int i = 0; i < 2; ++i) {
+      try {
+        cachingTokenServices.loadAuthentication(ACCESS_TOKEN);
+        fail("Expected InvalidTokenException");
+      } catch (InvalidTokenException ex) {
+        assertNotNull(ex.getMessage());
+      }
+    }
+
+    verify(restTemplate, times(INVALID_TOKEN_RETRY_LIMIT + 1)).exchange(
+        anyString(), Matchers.any(HttpMethod.class), Matchers.any(HttpEntity.class),
+        Matchers.any(Class.class));
+  }
 }
@@ -0,0 +1,172 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+public class TokenCacheTest {
+
+  private static final String ACCESS_TOKEN = "access-token-1234";
+  private static final long TIME_TO_LIVE_SECONDS = 60;
+  private static final long INVALID_TOKEN_TIME_TO_LIVE_SECONDS = 30;
+
+  private Clock clock = mock(Clock.class);
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private TokenCache tokenCache;
+
+  private AtomicInteger introspections = new AtomicInteger();
+  private OAuth2Authentication authentication = new OAuth2Authentication(
+      new OAuth2Request(null, "client-id", null, true, null, null, null, null, null), null);
+
+  @Before
+  public void setUp() {
+    setTime(0);
+    tokenCache = new TokenCache(100, TIME_TO_LIVE_SECONDS, INVALID_TOKEN_TIME_TO_LIVE_SECONDS,
+        meterRegistry, clock);
+  }
+
+  @Test
+  public void shouldIntrospectValidTokenOnceWithinTimeToLive() {
+    OAuth2Authentication first = tokenCache.get(ACCESS_TOKEN, validToken(authentication));
+    setTime(59_999);
+    OAuth2Authentication second = tokenCache.get(ACCESS_TOKEN, validToken(authentication));
+
+    assertThat(introspections.get()).isEqualTo(1);
+    assertThat(first).isNotSameAs(second);
+    assertThat(second.getOAuth2Request()).isEqualTo(authentication.getOAuth2Request());
+    assertThat(meterRegistry.counter("referencedata.tokenCache.hits").count()).isEqualTo(1);
+    assertThat(meterRegistry.counter("referencedata.tokenCache.misses").count()).isEqualTo(1);
+    assertThat(meterRegistry.timer("referencedata.tokenIntrospection").count()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldIntrospectValidTokenAgainAfterTimeToLive() {
+    tokenCache.get(ACCESS_TOKEN, validToken(authentication));
+    setTime(60_000);
+    tokenCache.get(ACCESS_TOKEN, validToken(authentication));
+
+    assertThat(introspections.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldNotKeepTokenAfterItExpires() {
+    OAuth2Authentication expiring = new TokenCache.ExpiringAuthentication(authentication, 1_000L);
+
+    tokenCache.get(ACCESS_TOKEN, validToken(expiring));
+    setTime(999);
+    tokenCache.get(ACCESS_TOKEN, validToken(expiring));
+    setTime(1_000);
+    tokenCache.get(ACCESS_TOKEN, validToken(expiring));
+
+    assertThat(introspections.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldCacheInvalidTokenWithBackoff() {
+    getInvalidToken();
+    setTime(999);
+    getInvalidToken();
+    assertThat(introspections.get()).isEqualTo(1);
+
+    setTime(1_000);
+    getInvalidToken();
+    assertThat(introspections.get()).isEqualTo(2);
+
+    // the token was invalid twice in a row, so it is cached for two seconds
+    setTime(2_999);
+    getInvalidToken();
+    assertThat(introspections.get()).isEqualTo(2);
+
+    setTime(3_000);
+    getInvalidToken();
+    assertThat(introspections.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldIntrospectTokenOnceForConcurrentRequests() throws Exception {
+    CountDownLatch introspectionStarted = new CountDownLatch(1);
+    CountDownLatch finishIntrospection = new CountDownLatch(1);
+    Function<String, OAuth2Authentication> slowIntrospection = token -> {
+      introspections.incrementAndGet();
+      introspectionStarted.countDown();
+      try {
+        finishIntrospection.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return authentication;
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<OAuth2Authentication> first =
+          executor.submit(() -> tokenCache.get(ACCESS_TOKEN, slowIntrospection));
+      introspectionStarted.await(5, TimeUnit.SECONDS);
+      Future<OAuth2Authentication> second =
+          executor.submit(() -> tokenCache.get(ACCESS_TOKEN, slowIntrospection));
+
+      finishIntrospection.countDown();
+
+      assertThat(first.get(5, TimeUnit.SECONDS)).isNotNull();
+      assertThat(second.get(5, TimeUnit.SECONDS)).isNotNull();
+      assertThat(introspections.get()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void getInvalidToken() {
+    try {
+      tokenCache.get(ACCESS_TOKEN, token -> {
+        introspections.incrementAndGet();
+        throw new InvalidTokenException(token);
+      });
+      fail("Expected InvalidTokenException");
+    } catch (InvalidTokenException ex) {
+      assertThat(ex.getMessage()).isEqualTo(ACCESS_TOKEN);
+    }
+  }
+
+  private Function<String, OAuth2Authentication> validToken(OAuth2Authentication result) {
+    return token -> {
+      introspections.incrementAndGet();
+      return result;
+    };
+  }
+
+  private void setTime(long millis) {
+    when(clock.millis()).thenReturn(millis);
+  }
+}
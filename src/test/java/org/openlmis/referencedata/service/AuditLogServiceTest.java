@@ -0,0 +1,291 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.service.AuditLogService.AuditLogPage;
+import org.openlmis.referencedata.service.AuditLogService.Snapshot;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+@SuppressWarnings("PMD.TooManyMethods")
+@RunWith(MockitoJUnitRunner.class)
+public class AuditLogServiceTest {
+
+  private static final String AUTHOR = "admin";
+  private static final String NAME = "name";
+  private static final String CODE = "code";
+  private static final String FACILITY = "Facility";
+  private static final String UPDATE = "UPDATE";
+  private static final String LOCAL_ID = "\"" + UUID.randomUUID() + "\"";
+  private static final long COMMIT_PK = 7L;
+  private static final LocalDateTime COMMIT_DATE = LocalDateTime.of(2016, 12, 17, 19, 39, 57,
+      621_000_000);
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Spy
+  private ObjectMapper objectMapper = new ObjectMapper();
+
+  @InjectMocks
+  private AuditLogService auditLogService;
+
+  @Test
+  public void shouldFindSnapshotsOfTypeByPageNumber() {
+    auditLogService.getChanges(Facility.class, null, null, null, null, 2, 10);
+
+    ArgumentCaptor<Object[]> params = ArgumentCaptor.forClass(Object[].class);
+    verify(jdbcTemplate).query(eq(AuditLogService.SELECT_SQL + AuditLogService.ORDER_BY),
+        params.capture(), any(RowMapper.class));
+
+    assertThat(params.getValue()).containsExactly(FACILITY, 10, 20L);
+  }
+
+  @Test
+  public void shouldFindSnapshotsMatchingAllFiltersAfterCursor() {
+    UUID id = UUID.randomUUID();
+
+    auditLogService.getChanges(Facility.class, id, AUTHOR, NAME, 100L, 2, 10);
+
+    ArgumentCaptor<Object[]> params = ArgumentCaptor.forClass(Object[].class);
+    verify(jdbcTemplate).query(eq(AuditLogService.SELECT_SQL
+            + AuditLogService.WITH_LOCAL_ID
+            + AuditLogService.WITH_AUTHOR
+            + AuditLogService.WITH_CHANGED_PROPERTY
+            + AuditLogService.BEFORE_CURSOR
+            + AuditLogService.ORDER_BY),
+        params.capture(), any(RowMapper.class));
+
+    assertThat(params.getValue()).containsExactly(FACILITY, "\"" + id + "\"", AUTHOR,
+        "[\"name\"]", 100L, 10, 0L);
+  }
+
+  @Test
+  public void shouldReturnCursorOfLastSnapshotIfPageIsFull() {
+    when(jdbcTemplate.query(anyString(), any(Object[].class), any(RowMapper.class)))
+        .thenReturn(Arrays.asList(snapshot(5, AuditLogService.TERMINAL, null, null, null),
+            snapshot(3, AuditLogService.INITIAL, null, null, null)));
+
+    AuditLogPage page = auditLogService.getChanges(Facility.class, null, null, null, null, 0, 2);
+
+    assertThat(page.getNextCursor()).isEqualTo(3L);
+  }
+
+  @Test
+  public void shouldNotReturnCursorIfPageIsNotFull() {
+    when(jdbcTemplate.query(anyString(), any(Object[].class), any(RowMapper.class)))
+        .thenReturn(Collections.singletonList(
+            snapshot(3, AuditLogService.INITIAL, null, null, null)));
+
+    AuditLogPage page = auditLogService.getChanges(Facility.class, null, null, null, null, 0, 2);
+
+    assertThat(page.getNextCursor()).isNull();
+  }
+
+  @Test
+  public void shouldRenderNewAndRemovedObjects() throws IOException {
+    JsonNode changes = render(Arrays.asList(
+        snapshot(2, AuditLogService.TERMINAL, null, null, null),
+        snapshot(1, AuditLogService.INITIAL, "{\"name\":\"A\"}", null, null)), null);
+
+    assertThat(changes).hasSize(2);
+    assertThat(changes.get(0).get("changeType").asText()).isEqualTo("ObjectRemoved");
+    assertThat(changes.get(1).get("changeType").asText()).isEqualTo("NewObject");
+    assertThat(changes.get(1).get("globalId").get("entity").asText()).isEqualTo(FACILITY);
+    assertThat(changes.get(1).get("globalId").get("cdoId").asText())
+        .isEqualTo(LOCAL_ID.replace("\"", ""));
+    assertThat(changes.get(1).get("commitMetadata").get("author").asText()).isEqualTo(AUTHOR);
+    assertThat(changes.get(1).get("commitMetadata").get("commitDate").asText())
+        .isEqualTo("2016-12-17T19:39:57.621");
+    assertThat(changes.get(1).has("property")).isFalse();
+  }
+
+  @Test
+  public void shouldRenderValueChangeForEachChangedProperty() throws IOException {
+    JsonNode changes = render(Collections.singletonList(
+        snapshot(2, UPDATE, "{\"name\":\"B\",\"code\":{\"value\":\"C2\"},\"active\":true}",
+            "{\"name\":\"A\",\"code\":{\"value\":\"C1\"}}", "[\"name\",\"code\",\"active\"]")),
+        null);
+
+    assertThat(changes).hasSize(3);
+    assertValueChange(changes.get(0), NAME, "\"A\"", "\"B\"");
+    assertValueChange(changes.get(1), CODE, "{\"value\":\"C1\"}", "{\"value\":\"C2\"}");
+    assertValueChange(changes.get(2), "active", "null", "true");
+  }
+
+  @Test
+  public void shouldRenderOnlyChangesOfGivenProperty() throws IOException {
+    JsonNode changes = render(Collections.singletonList(
+        snapshot(2, UPDATE, "{\"name\":\"B\",\"code\":\"C2\"}",
+            "{\"name\":\"A\",\"code\":\"C1\"}", "[\"name\",\"code\"]")), CODE);
+
+    assertThat(changes).hasSize(1);
+    assertValueChange(changes.get(0), CODE, "\"C1\"", "\"C2\"");
+  }
+
+  @Test
+  public void shouldRenderReferenceChangeForReferenceProperty() throws IOException {
+    String left = "{\"entity\":\"GeographicZone\",\"cdoId\":\"" + UUID.randomUUID() + "\"}";
+    String right = "{\"entity\":\"GeographicZone\",\"cdoId\":\"" + UUID.randomUUID() + "\"}";
+
+    JsonNode changes = render(Facility.class, Collections.singletonList(
+        snapshot(2, UPDATE, "{\"geographicZone\":" + right + "}",
+            "{\"geographicZone\":" + left + "}", "[\"geographicZone\"]")), null);
+
+    assertThat(changes).hasSize(1);
+    assertChange(changes.get(0), "ReferenceChange", "geographicZone");
+    assertThat(changes.get(0).get("left").toString()).isEqualTo(left);
+    assertThat(changes.get(0).get("right").toString()).isEqualTo(right);
+  }
+
+  @Test
+  public void shouldRenderSetChangeForSetProperty() throws IOException {
+    JsonNode changes = render(Facility.class, Collections.singletonList(
+        snapshot(2, UPDATE, "{\"supportedPrograms\":[\"B\",\"C\"]}",
+            "{\"supportedPrograms\":[\"A\",\"B\"]}", "[\"supportedPrograms\"]")), null);
+
+    assertThat(changes).hasSize(1);
+    assertChange(changes.get(0), "SetChange", "supportedPrograms");
+    assertThat(changes.get(0).get("elementChanges").toString()).isEqualTo("["
+        + "{\"elementChangeType\":\"ValueAdded\",\"value\":\"C\"},"
+        + "{\"elementChangeType\":\"ValueRemoved\",\"value\":\"A\"}]");
+  }
+
+  @Test
+  public void shouldNotRenderSetChangeIfOnlyOrderOfElementsChanged() throws IOException {
+    JsonNode changes = render(Facility.class, Collections.singletonList(
+        snapshot(2, UPDATE, "{\"supportedPrograms\":[\"B\",\"A\"]}",
+            "{\"supportedPrograms\":[\"A\",\"B\"]}", "[\"supportedPrograms\"]")), null);
+
+    assertThat(changes).isEmpty();
+  }
+
+  @Test
+  public void shouldRenderListChangeForListProperty() throws IOException {
+    JsonNode changes = render(Orderable.class, Collections.singletonList(
+        snapshot(2, UPDATE, "{\"programOrderables\":[\"A\",\"C\",\"D\"]}",
+            "{\"programOrderables\":[\"A\",\"B\"]}", "[\"programOrderables\"]")), null);
+
+    assertThat(changes).hasSize(1);
+    assertChange(changes.get(0), "ListChange", "programOrderables");
+    assertThat(changes.get(0).get("elementChanges").toString()).isEqualTo("["
+        + "{\"elementChangeType\":\"ElementValueChange\",\"index\":1,"
+        + "\"leftValue\":\"B\",\"rightValue\":\"C\"},"
+        + "{\"elementChangeType\":\"ValueAdded\",\"index\":2,\"value\":\"D\"}]");
+  }
+
+  @Test
+  public void shouldRenderMapChangeForMapProperty() throws IOException {
+    JsonNode changes = render(Orderable.class, Collections.singletonList(
+        snapshot(2, UPDATE, "{\"identifiers\":{\"a\":\"1\",\"b\":\"3\",\"d\":\"4\"}}",
+            "{\"identifiers\":{\"a\":\"1\",\"b\":\"2\",\"c\":\"3\"}}",
+            "[\"identifiers\"]")), null);
+
+    assertThat(changes).hasSize(1);
+    assertChange(changes.get(0), "MapChange", "identifiers");
+    assertThat(changes.get(0).get("entryChanges").toString()).isEqualTo("["
+        + "{\"entryChangeType\":\"EntryValueChange\",\"key\":\"b\","
+        + "\"leftValue\":\"2\",\"rightValue\":\"3\"},"
+        + "{\"entryChangeType\":\"EntryAdded\",\"key\":\"d\",\"value\":\"4\"},"
+        + "{\"entryChangeType\":\"EntryRemoved\",\"key\":\"c\",\"value\":\"3\"}]");
+  }
+
+  @Test
+  public void shouldRenderCommitProperties() throws IOException {
+    Map<String, String> properties = new LinkedHashMap<>();
+    properties.put("source", "upload");
+    properties.put("ticket", "42");
+
+    JsonNode changes = objectMapper.readTree(auditLogService.render(Facility.class,
+        Collections.singletonList(snapshot(1, AuditLogService.INITIAL, null, null, null)),
+        Collections.singletonMap(COMMIT_PK, properties), null));
+
+    assertThat(changes.get(0).get("commitMetadata").get("properties").toString())
+        .isEqualTo("[{\"key\":\"source\",\"value\":\"upload\"},"
+            + "{\"key\":\"ticket\",\"value\":\"42\"}]");
+  }
+
+  @Test
+  public void shouldFindPropertiesOfCommitsOfFoundSnapshots() {
+    when(jdbcTemplate.query(anyString(), any(Object[].class), any(RowMapper.class)))
+        .thenReturn(Arrays.asList(snapshot(5, AuditLogService.TERMINAL, null, null, null),
+            snapshot(3, AuditLogService.INITIAL, null, null, null)));
+
+    auditLogService.getChanges(Facility.class, null, null, null, null, 0, 2);
+
+    ArgumentCaptor<Object[]> params = ArgumentCaptor.forClass(Object[].class);
+    verify(jdbcTemplate).query(eq(String.format(AuditLogService.COMMIT_PROPERTIES_SQL, "?")),
+        params.capture(), any(RowCallbackHandler.class));
+
+    assertThat(params.getValue()).containsExactly(COMMIT_PK);
+  }
+
+  private JsonNode render(List<Snapshot> snapshots, String changedPropertyName)
+      throws IOException {
+    return render(Facility.class, snapshots, changedPropertyName);
+  }
+
+  private JsonNode render(Class<?> type, List<Snapshot> snapshots, String changedPropertyName)
+      throws IOException {
+    return objectMapper.readTree(auditLogService.render(type, snapshots,
+        Collections.emptyMap(), changedPropertyName));
+  }
+
+  private void assertValueChange(JsonNode change, String property, String left, String right) {
+    assertChange(change, "ValueChange", property);
+    assertThat(change.get("left").toString()).isEqualTo(left);
+    assertThat(change.get("right").toString()).isEqualTo(right);
+  }
+
+  private void assertChange(JsonNode change, String changeType, String property) {
+    assertThat(change.get("changeType").asText()).isEqualTo(changeType);
+    assertThat(change.get("property").asText()).isEqualTo(property);
+  }
+
+  private Snapshot snapshot(long id, String type, String state, String previousState,
+      String changedProperties) {
+    return new Snapshot(id, type, state, previousState, changedProperties, FACILITY, LOCAL_ID,
+        COMMIT_PK, AUTHOR, COMMIT_DATE, new BigDecimal("3.00"));
+  }
+}
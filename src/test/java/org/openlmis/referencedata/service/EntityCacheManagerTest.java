@@ -0,0 +1,229 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.GeographicLevel;
+import org.openlmis.referencedata.domain.ProcessingSchedule;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.testbuilder.GeographicLevelDataBuilder;
+import org.openlmis.referencedata.testbuilder.ProcessingScheduleDataBuilder;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@SuppressWarnings("PMD.TooManyMethods")
+@RunWith(MockitoJUnitRunner.class)
+public class EntityCacheManagerTest {
+
+  private static final String CACHE = EntityCacheManager.GEOGRAPHIC_LEVELS;
+  private static final String REDIS_KEY = EntityCacheManager.REDIS_KEY_PREFIX + CACHE;
+  private static final String GENERATION_KEY = REDIS_KEY + EntityCacheManager.GENERATION_SUFFIX;
+
+  @Mock
+  private StringRedisTemplate redisTemplate;
+
+  @Mock
+  private HashOperations<String, Object, Object> hashOperations;
+
+  @Mock
+  private ValueOperations<String, String> valueOperations;
+
+  @InjectMocks
+  private EntityCacheManager entityCacheManager;
+
+  private GeographicLevel level = new GeographicLevelDataBuilder().build();
+  private UUID id = level.getId();
+  private AtomicInteger loads = new AtomicInteger();
+
+  @Before
+  public void setUp() {
+    when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+    ReflectionTestUtils.setField(entityCacheManager, "redisTemplate", redisTemplate);
+    ReflectionTestUtils.setField(entityCacheManager, "objectMapper",
+        new ObjectMapper().findAndRegisterModules());
+    ReflectionTestUtils.setField(entityCacheManager, "meterRegistry", new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(entityCacheManager, "enabled", true);
+    ReflectionTestUtils.setField(entityCacheManager, "localMaximumSize", 100L);
+    ReflectionTestUtils.setField(entityCacheManager, "localTimeToLiveSeconds", 60L);
+    ReflectionTestUtils.setField(entityCacheManager, "redisTimeToLiveSeconds", 3600L);
+  }
+
+  @After
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void shouldAlwaysLoadValuesIfDisabled() {
+    ReflectionTestUtils.setField(entityCacheManager, "enabled", false);
+
+    get();
+    get();
+    entityCacheManager.evict(CACHE, id);
+
+    assertThat(loads.get()).isEqualTo(2);
+    verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+  }
+
+  @Test
+  public void shouldCacheLoadedValues() {
+    assertThat(get()).isEqualTo(level);
+    assertThat(get()).isEqualTo(level);
+
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectValuesOfDifferentType() {
+    get();
+
+    entityCacheManager.get(CACHE, id, Program.class, () -> null);
+  }
+
+  @Test
+  public void shouldKeepTimeZonesOfCachedDates() {
+    ReflectionTestUtils.setField(entityCacheManager, "objectMapper", new ObjectMapper()
+        .findAndRegisterModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+    ProcessingSchedule schedule = new ProcessingScheduleDataBuilder().build();
+    schedule.setModifiedDate(ZonedDateTime.of(2021, 3, 14, 15, 9, 26, 0, ZoneOffset.ofHours(5)));
+
+    ProcessingSchedule cached = entityCacheManager.get(EntityCacheManager.PROCESSING_SCHEDULES,
+        schedule.getId(), ProcessingSchedule.class, () -> schedule);
+
+    assertThat(cached.getModifiedDate()).isEqualTo(schedule.getModifiedDate());
+    assertThat(cached.getModifiedDate().getOffset()).isEqualTo(ZoneOffset.ofHours(5));
+  }
+
+  @Test
+  public void shouldEvictValueFromRedisAndAllInstances() {
+    get();
+    entityCacheManager.evict(CACHE, id);
+    get();
+
+    InOrder order = inOrder(valueOperations, hashOperations, redisTemplate);
+    order.verify(valueOperations).increment(GENERATION_KEY, 1);
+    order.verify(hashOperations).delete(REDIS_KEY, id.toString());
+    order.verify(redisTemplate).convertAndSend(EntityCacheManager.INVALIDATION_CHANNEL,
+        CACHE + "/" + id);
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldClearCacheInRedisAndAllInstances() {
+    get();
+    entityCacheManager.clear(CACHE);
+    get();
+
+    InOrder order = inOrder(valueOperations, redisTemplate);
+    order.verify(valueOperations).increment(GENERATION_KEY, 1);
+    order.verify(redisTemplate).delete(REDIS_KEY);
+    order.verify(redisTemplate).convertAndSend(EntityCacheManager.INVALIDATION_CHANNEL,
+        CACHE + "/" + EntityCacheManager.ALL);
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldEvictValueOnlyAfterTransactionCompletes() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    get();
+    entityCacheManager.evict(CACHE, id);
+    get();
+
+    assertThat(loads.get()).isEqualTo(1);
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    get();
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldEvictValueWhenOtherInstanceChangesIt() {
+    get();
+    entityCacheManager.onMessage(message(CACHE + "/" + id), null);
+    get();
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldClearCacheWhenOtherInstanceClearsIt() {
+    get();
+    entityCacheManager.onMessage(message(CACHE + "/" + EntityCacheManager.ALL), null);
+    get();
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldIgnoreInvalidationsOfUnknownCaches() {
+    get();
+    entityCacheManager.onMessage(message(EntityCacheManager.ROLES + "/" + id), null);
+    entityCacheManager.onMessage(message("invalid"), null);
+    get();
+
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  private GeographicLevel get() {
+    Supplier<GeographicLevel> loader = () -> {
+      loads.incrementAndGet();
+      return level;
+    };
+
+    return entityCacheManager.get(CACHE, id, GeographicLevel.class, loader);
+  }
+
+  private DefaultMessage message(String body) {
+    return new DefaultMessage(EntityCacheManager.INVALIDATION_CHANNEL.getBytes(UTF_8),
+        body.getBytes(UTF_8));
+  }
+}
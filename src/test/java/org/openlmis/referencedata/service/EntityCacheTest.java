@@ -0,0 +1,239 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.verification.VerificationMode;
+import org.openlmis.referencedata.domain.GeographicLevel;
+import org.openlmis.referencedata.testbuilder.GeographicLevelDataBuilder;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+@SuppressWarnings("PMD.TooManyMethods")
+public class EntityCacheTest {
+
+  private static final String NAME = "geographicLevels";
+  private static final String REDIS_KEY = "entityCache:" + NAME;
+  private static final String GENERATION_KEY = REDIS_KEY + ":generation";
+  private static final long REDIS_TIME_TO_LIVE_SECONDS = 3600;
+
+  private StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+
+  @SuppressWarnings("unchecked")
+  private HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+
+  @SuppressWarnings("unchecked")
+  private ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+
+  private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private AtomicInteger loads = new AtomicInteger();
+
+  private GeographicLevel level = new GeographicLevelDataBuilder().build();
+  private UUID id = level.getId();
+  private EntityCache<GeographicLevel> cache;
+
+  @Before
+  public void setUp() {
+    when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(redisTemplate.execute(eq(EntityCache.WRITE_SCRIPT), anyListOf(String.class),
+        anyVararg())).thenReturn(1L);
+    cache = createCache(100);
+  }
+
+  @Test
+  public void shouldLoadValueOnceAndKeepItLocally() throws Exception {
+    GeographicLevel first = cache.get(id, loader(level));
+    GeographicLevel second = cache.get(id, loader(level));
+
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(first).isEqualTo(level).isNotSameAs(level).isSameAs(second);
+    assertThat(first.getName()).isEqualTo(level.getName());
+    verifyWrittenToRedis(EntityCache.INITIAL_GENERATION);
+    assertThat(count(EntityCache.MISSES)).isEqualTo(1);
+    assertThat(meterRegistry.counter(EntityCache.HITS, EntityCache.CACHE_TAG, NAME,
+        "tier", "local").count()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldReturnValueFromRedisWithoutLoadingIt() throws Exception {
+    when(hashOperations.get(REDIS_KEY, id.toString()))
+        .thenReturn(objectMapper.writeValueAsString(level));
+
+    GeographicLevel cached = cache.get(id, loader(level));
+
+    assertThat(cached).isEqualTo(level);
+    assertThat(loads.get()).isEqualTo(0);
+    verifyWrittenToRedis(never());
+    assertThat(meterRegistry.counter(EntityCache.HITS, EntityCache.CACHE_TAG, NAME,
+        "tier", "redis").count()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldWriteValueToRedisOnlyInGenerationReadBeforeLoadingIt() throws Exception {
+    when(valueOperations.get(GENERATION_KEY)).thenReturn("5");
+
+    cache.get(id, () -> {
+      verify(valueOperations).get(GENERATION_KEY);
+      return loader(level).get();
+    });
+
+    verifyWrittenToRedis("5");
+  }
+
+  @Test
+  public void shouldNotCacheValueLocallyIfInvalidatedByOtherInstanceWhileLoading() {
+    when(redisTemplate.execute(eq(EntityCache.WRITE_SCRIPT), anyListOf(String.class),
+        anyVararg())).thenReturn(0L);
+
+    assertThat(cache.get(id, loader(level))).isEqualTo(level);
+    cache.get(id, loader(level));
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldKeepValuesLocallyIfGenerationCannotBeRead() {
+    when(valueOperations.get(GENERATION_KEY))
+        .thenThrow(new RedisConnectionFailureException("down"));
+
+    cache.get(id, loader(level));
+    cache.get(id, loader(level));
+
+    assertThat(loads.get()).isEqualTo(1);
+    verifyWrittenToRedis(never());
+  }
+
+  @Test
+  public void shouldNotCacheMissingValues() {
+    assertThat(cache.get(id, loader(null))).isNull();
+    assertThat(cache.get(id, loader(null))).isNull();
+
+    assertThat(loads.get()).isEqualTo(2);
+    verifyWrittenToRedis(never());
+  }
+
+  @Test
+  public void shouldLoadValueAgainAfterItIsEvicted() {
+    cache.get(id, loader(level));
+    cache.evictLocally(id);
+    cache.get(id, loader(level));
+
+    assertThat(loads.get()).isEqualTo(2);
+    assertThat(countEvictions("explicit")).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldLoadValuesAgainAfterCacheIsCleared() {
+    cache.get(id, loader(level));
+    cache.clearLocally();
+    cache.get(id, loader(level));
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldNotCacheValueLoadedBeforeInvalidation() {
+    GeographicLevel loaded = cache.get(id, () -> {
+      loads.incrementAndGet();
+      cache.evictLocally(id);
+      return level;
+    });
+    cache.get(id, loader(level));
+
+    assertThat(loaded).isEqualTo(level);
+    assertThat(loads.get()).isEqualTo(2);
+    verifyWrittenToRedis(times(1));
+  }
+
+  @Test
+  public void shouldKeepValuesLocallyIfRedisIsNotAvailable() {
+    when(hashOperations.get(REDIS_KEY, id.toString()))
+        .thenThrow(new RedisConnectionFailureException("down"));
+
+    GeographicLevel first = cache.get(id, loader(level));
+    GeographicLevel second = cache.get(id, loader(level));
+
+    assertThat(first).isEqualTo(level).isSameAs(second);
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldEvictValuesAboveMaximumSize() {
+    cache = createCache(1);
+    GeographicLevel other = new GeographicLevelDataBuilder().build();
+
+    cache.get(id, loader(level));
+    cache.get(other.getId(), loader(other));
+
+    assertThat(countEvictions("size")).isEqualTo(1);
+  }
+
+  private EntityCache<GeographicLevel> createCache(long localMaximumSize) {
+    return new EntityCache<>(NAME, GeographicLevel.class, REDIS_KEY, GENERATION_KEY,
+        REDIS_TIME_TO_LIVE_SECONDS, localMaximumSize, 60, redisTemplate, objectMapper,
+        meterRegistry);
+  }
+
+  private void verifyWrittenToRedis(String generation) throws JsonProcessingException {
+    verify(redisTemplate).execute(EntityCache.WRITE_SCRIPT,
+        Arrays.asList(GENERATION_KEY, REDIS_KEY), generation, id.toString(),
+        objectMapper.writeValueAsString(level), String.valueOf(REDIS_TIME_TO_LIVE_SECONDS));
+  }
+
+  private void verifyWrittenToRedis(VerificationMode mode) {
+    verify(redisTemplate, mode).execute(eq(EntityCache.WRITE_SCRIPT), anyListOf(String.class),
+        anyVararg());
+  }
+
+  private Supplier<GeographicLevel> loader(GeographicLevel value) {
+    return () -> {
+      loads.incrementAndGet();
+      return value;
+    };
+  }
+
+  private double count(String name) {
+    return meterRegistry.counter(name, EntityCache.CACHE_TAG, NAME).count();
+  }
+
+  private double countEvictions(String cause) {
+    return meterRegistry.counter(EntityCache.EVICTIONS, EntityCache.CACHE_TAG, NAME,
+        "cause", cause).count();
+  }
+}
@@ -65,9 +65,6 @@ public class FacilityServiceTest {
   @Mock
   private GeographicZoneRepository geographicZoneRepository;
 
-  @Mock
-  private GeographicZoneService geographicZoneService;
-
   @Mock
   private FacilityRepository facilityRepository;
 
@@ -83,8 +80,6 @@ public class FacilityServiceTest {
   private UUID facility1Id = UUID.randomUUID();
   private UUID facility2Id = UUID.randomUUID();
   private UUID parentId = UUID.randomUUID();
-  private UUID childId = UUID.randomUUID();
-  private UUID childOfChildId = UUID.randomUUID();
   private List<Facility> facilityList;
 
   @InjectMocks
@@ -233,9 +228,6 @@ public class FacilityServiceTest {
     final String code = "FAC1";
     final String name = "Facility";
 
-    when(geographicZoneService.getAllZonesInHierarchy(parentId))
-        .thenReturn(Sets.newHashSet(childId, childOfChildId));
-
     Map<String, String> extraData = new HashMap<>();
     extraData.put("type", "rural");
 
@@ -248,7 +240,7 @@ public class FacilityServiceTest {
     params.add("extraData", extraData);
 
     when(facilityRepository
-        .search(new FacilitySearchParams(params), of(parentId, childId, childOfChildId),
+        .search(new FacilitySearchParams(params), of(parentId),
             "{\"type\":\"rural\"}", pageable))
         .thenReturn(Pagination.getPage(Lists.newArrayList(facility2), pageable, 1));
 
@@ -260,17 +252,14 @@ public class FacilityServiceTest {
   }
 
   private void prepareForSearchWithRecurse(FacilitySearchParams params) {
-    when(geographicZoneService.getAllZonesInHierarchy(parentId))
-        .thenReturn(Sets.newHashSet(childId, childOfChildId));
-
     when(facilityRepository
-        .search(params, of(parentId, childId, childOfChildId), null, pageable))
+        .search(params, of(parentId), null, pageable))
         .thenReturn(Pagination.getPage(Lists.newArrayList(facility, facility2), pageable, 2));
   }
 
   private void verifyAfterSearchWithRecurse(List<Facility> actual, FacilitySearchParams params) {
     verify(facilityRepository)
-        .search(params, of(parentId, childId, childOfChildId), null, pageable);
+        .search(params, of(parentId), null, pageable);
 
     assertEquals(2, actual.size());
     assertThat(actual, hasItem(facility));
@@ -95,27 +95,25 @@ public class GeographicZoneServiceTest {
 
   @Test
   public void shouldRetrieveOneDescendantWhenParentHasOneChild() {
-    mockFindIdByParent(parentId, childId);
+    mockFindIdsOfDescendants(parentId, childId);
     assertGetAllZonesInHierarchy(parentId, childId);
   }
 
   @Test
   public void shouldRetrieveManyDescendantsWhenTheChildHasAChild() {
-    mockFindIdByParent(parentId, childId);
-    mockFindIdByParent(childId, childOfChildId);
-
+    mockFindIdsOfDescendants(parentId, childId, childOfChildId);
     assertGetAllZonesInHierarchy(parentId, childId, childOfChildId);
   }
 
   @Test
   public void shouldRetrieveManyDescendantsWhenParentHasManyChildren() {
-    mockFindIdByParent(parentId, childId, childOfChildId);
+    mockFindIdsOfDescendants(parentId, childId, childOfChildId);
     assertGetAllZonesInHierarchy(parentId, childId, childOfChildId);
   }
 
   @Test
   public void shouldNotRetrieveAnyDescendantsWhenParentHasNoChildren() {
-    mockFindIdByParent(parentId);
+    mockFindIdsOfDescendants(parentId);
     assertGetAllZonesInHierarchy(parentId);
   }
 
@@ -172,9 +170,9 @@ public class GeographicZoneServiceTest {
     assertEquals(geographicZones, actual.getContent());
   }
 
-  private void mockFindIdByParent(UUID parentId, UUID... children) {
-    when(geographicZoneRepository.findIdsByParent(parentId))
-        .thenReturn(Sets.newHashSet(children));
+  private void mockFindIdsOfDescendants(UUID parentId, UUID... descendants) {
+    when(geographicZoneRepository.findIdsOfDescendants(parentId))
+        .thenReturn(Sets.newHashSet(descendants));
   }
 
   private void assertGetAllZonesInHierarchy(UUID parentId, UUID... expected) {
@@ -22,11 +22,17 @@ import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Lists;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -34,17 +40,21 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.dto.OrderableDto;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.OrderableRepository;
 import org.openlmis.referencedata.repository.custom.OrderableRepositoryCustom.SearchParams;
+import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.web.QueryOrderableSearchParams;
 import org.slf4j.profiler.Profiler;
@@ -85,6 +95,9 @@ public class OrderableServiceTest {
   private MultiValueMap<String, Object> searchParams = new LinkedMultiValueMap<>();
   private ZonedDateTime modifiedDate = ZonedDateTime.now(ZoneId.of(GMT)).withNano(0);
 
+  @Spy
+  private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
   @InjectMocks
   private OrderableService orderableService = new OrderableService();
 
@@ -306,4 +319,30 @@ public class OrderableServiceTest {
     verify(orderableRepository).findLatestModifiedDateByIds(queryMap.getIds());
     assertEquals(orderable2.getLastUpdated(), lastUpdated);
   }
+
+  @Test
+  public void shouldExportOrderablesAsNewlineDelimitedJson() throws IOException {
+    Orderable first = new OrderableDataBuilder().build();
+    Orderable second = new OrderableDataBuilder().build();
+    Orderable third = new OrderableDataBuilder().build();
+    searchParams.add(CODE, "some-code");
+    QueryOrderableSearchParams queryMap = new QueryOrderableSearchParams(searchParams);
+
+    doAnswer(invocation -> {
+      Consumer<List<Orderable>> consumer = invocation.getArgument(3);
+      consumer.accept(Lists.newArrayList(first, second));
+      consumer.accept(Lists.newArrayList(third));
+      return null;
+    }).when(orderableRepository).forEachLatestBatch(eq(queryMap), anySetOf(UUID.class),
+        eq(OrderableService.EXPORT_BATCH_SIZE), any());
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    orderableService.exportOrderables(queryMap, outputStream);
+
+    String[] lines = outputStream.toString(StandardCharsets.UTF_8.name()).split("\n");
+    assertEquals(3, lines.length);
+    assertEquals(first.getId(), objectMapper.readValue(lines[0], OrderableDto.class).getId());
+    assertEquals(second.getId(), objectMapper.readValue(lines[1], OrderableDto.class).getId());
+    assertEquals(third.getId(), objectMapper.readValue(lines[2], OrderableDto.class).getId());
+  }
 }
@@ -0,0 +1,158 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.openlmis.referencedata.service.PermissionIndex.SELECT_USER_RIGHT_ASSIGNMENTS_SQL;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.dto.RightAssignmentDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PermissionIndexTest {
+
+  private static final String RIGHT_NAME = "RIGHT_NAME";
+
+  @Mock
+  private JdbcTemplate template;
+
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @InjectMocks
+  private PermissionIndex permissionIndex;
+
+  private UUID userId = UUID.randomUUID();
+  private UUID facilityId = UUID.randomUUID();
+  private UUID programId = UUID.randomUUID();
+
+  @Before
+  public void setUp() {
+    setTime(0);
+    ReflectionTestUtils.setField(permissionIndex, "timeToLiveSeconds", 60L);
+    permissionIndex.registerMetrics();
+
+    when(template.query(eq(SELECT_USER_RIGHT_ASSIGNMENTS_SQL), any(RowMapper.class), eq(userId)))
+        .thenReturn(Arrays.asList(
+            new RightAssignmentDto(userId, RIGHT_NAME, facilityId, programId),
+            new RightAssignmentDto(userId, "OTHER_RIGHT", null, null)));
+  }
+
+  @Test
+  public void shouldAnswerRightChecksFromOneQuery() {
+    assertThat(permissionIndex.userExists(userId)).isTrue();
+    assertThat(permissionIndex.hasRight(userId, RIGHT_NAME)).isTrue();
+    assertThat(permissionIndex.hasRight(userId, RIGHT_NAME, facilityId)).isTrue();
+    assertThat(permissionIndex.hasRight(userId, RIGHT_NAME, facilityId, programId)).isTrue();
+    assertThat(permissionIndex.hasRight(userId, "OTHER_RIGHT", facilityId)).isFalse();
+    assertThat(permissionIndex.hasRight(userId, "UNKNOWN_RIGHT")).isFalse();
+    assertThat(permissionIndex.getPermissionStrings(userId))
+        .containsOnly(RIGHT_NAME + "|" + facilityId + "|" + programId, "OTHER_RIGHT");
+
+    verifyLoaded(1);
+    assertThat(meterRegistry.counter("referencedata.permissionIndex.misses").count())
+        .isEqualTo(1);
+    assertThat(meterRegistry.counter("referencedata.permissionIndex.hits").count())
+        .isEqualTo(6);
+  }
+
+  @Test
+  public void shouldIndicateUserDoesNotExist() {
+    UUID missingUserId = UUID.randomUUID();
+    when(template.query(eq(SELECT_USER_RIGHT_ASSIGNMENTS_SQL), any(RowMapper.class),
+        eq(missingUserId))).thenReturn(Collections.emptyList());
+
+    assertThat(permissionIndex.userExists(missingUserId)).isFalse();
+    assertThat(permissionIndex.hasRight(missingUserId, RIGHT_NAME)).isFalse();
+  }
+
+  @Test
+  public void shouldIndicateUserWithoutRightAssignmentsExists() {
+    UUID otherUserId = UUID.randomUUID();
+    when(template.query(eq(SELECT_USER_RIGHT_ASSIGNMENTS_SQL), any(RowMapper.class),
+        eq(otherUserId)))
+        .thenReturn(Collections.singletonList(new RightAssignmentDto(otherUserId, null, null,
+            null)));
+
+    assertThat(permissionIndex.userExists(otherUserId)).isTrue();
+    assertThat(permissionIndex.getPermissionStrings(otherUserId)).isEmpty();
+  }
+
+  @Test
+  public void shouldReturnETagOfPermissionStrings() {
+    String etag = permissionIndex.getPermissionStringsETag(userId);
+
+    assertThat(etag).isEqualTo(
+        "\"" + permissionIndex.getPermissionStrings(userId).hashCode() + '"');
+    verifyLoaded(1);
+  }
+
+  @Test
+  public void shouldReloadUserAfterInvalidation() {
+    permissionIndex.hasRight(userId, RIGHT_NAME);
+
+    permissionIndex.invalidate(userId);
+    permissionIndex.hasRight(userId, RIGHT_NAME);
+    permissionIndex.invalidateAll();
+    permissionIndex.hasRight(userId, RIGHT_NAME);
+
+    verifyLoaded(3);
+    assertThat(permissionIndex.getGeneration()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldReloadUserAfterTimeToLive() {
+    permissionIndex.hasRight(userId, RIGHT_NAME);
+    setTime(59_999);
+    permissionIndex.hasRight(userId, RIGHT_NAME);
+    setTime(60_000);
+    permissionIndex.hasRight(userId, RIGHT_NAME);
+
+    verifyLoaded(2);
+  }
+
+  private void verifyLoaded(int times) {
+    verify(template, times(times))
+        .query(eq(SELECT_USER_RIGHT_ASSIGNMENTS_SQL), any(RowMapper.class), eq(userId));
+  }
+
+  private void setTime(long millis) {
+    ReflectionTestUtils.setField(permissionIndex, "clock",
+        Clock.fixed(Instant.ofEpochMilli(millis), ZoneId.of("UTC")));
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.when;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.FACILITIES;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.ORDERABLES;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.RIGHT_ASSIGNMENTS;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.SELECT_RESOURCE_VERSIONS_SQL;
+
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ResourceVersionRegistryTest {
+
+  @Mock
+  private JdbcTemplate template;
+
+  @InjectMocks
+  private ResourceVersionRegistry registry;
+
+  @Before
+  public void setUp() {
+    when(template.query(eq(SELECT_RESOURCE_VERSIONS_SQL), any(RowMapper.class)))
+        .thenReturn(Arrays.asList(
+            new Object[]{ORDERABLES, 12L, 2_000L},
+            new Object[]{RIGHT_ASSIGNMENTS, 5L, 3_000L},
+            new Object[]{FACILITIES, 7L, 1_000L}));
+  }
+
+  @Test
+  public void shouldReturnVersionOfResource() {
+    assertThat(registry.getVersion(ORDERABLES))
+        .isEqualTo(new ResourceVersion("W/\"12\"", 2_000L));
+  }
+
+  @Test
+  public void shouldCombineVersionsOfResources() {
+    assertThat(registry.getVersion(RIGHT_ASSIGNMENTS, FACILITIES))
+        .isEqualTo(new ResourceVersion("W/\"5-7\"", 3_000L));
+  }
+
+  @Test
+  public void shouldReturnNullIfResourceIsNotTracked() {
+    assertThat(registry.getVersion(ORDERABLES, "unknown")).isNull();
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import org.junit.Test;
+
+public class ResourceVersionTest {
+
+  private static final String ETAG = "W/\"3-12\"";
+  private static final long LAST_MODIFIED = 1_500_000_000_500L;
+
+  private ResourceVersion version = new ResourceVersion(ETAG, LAST_MODIFIED);
+
+  @Test
+  public void shouldMatchEntityTagWithWeakComparison() {
+    assertThat(version.isNotModified(ETAG, null)).isTrue();
+    assertThat(version.isNotModified("\"3-12\"", null)).isTrue();
+    assertThat(version.isNotModified("\"1\", W/\"3-12\"", null)).isTrue();
+    assertThat(version.isNotModified("*", null)).isTrue();
+  }
+
+  @Test
+  public void shouldNotMatchOtherEntityTags() {
+    assertThat(version.isNotModified("W/\"3-11\"", null)).isFalse();
+    assertThat(version.isNotModified("\"3\", \"12\"", null)).isFalse();
+  }
+
+  @Test
+  public void shouldIgnoreIfModifiedSinceIfEntityTagWasSent() {
+    assertThat(version.isNotModified("W/\"3-11\"", dateOf(LAST_MODIFIED + 60_000))).isFalse();
+  }
+
+  @Test
+  public void shouldCompareLastModifiedWithPrecisionOfSeconds() {
+    assertThat(version.isNotModified(null, dateOf(LAST_MODIFIED - 500))).isTrue();
+    assertThat(version.isNotModified(null, dateOf(LAST_MODIFIED + 60_000))).isTrue();
+    assertThat(version.isNotModified(null, dateOf(LAST_MODIFIED - 1_000))).isFalse();
+  }
+
+  @Test
+  public void shouldBeModifiedIfNoConditionWasSent() {
+    assertThat(version.isNotModified(null, null)).isFalse();
+    assertThat(version.isNotModified("", null)).isFalse();
+  }
+
+  private ZonedDateTime dateOf(long millis) {
+    return ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.of("GMT"));
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.junit.Test;
+
+public class RightAssignmentChangeTest {
+
+  @Test
+  public void shouldCreateSupervisoryNodeChangeWithRelatedNodes() {
+    UUID nodeId = UUID.randomUUID();
+    UUID childId = UUID.randomUUID();
+    UUID requisitionGroupId = UUID.randomUUID();
+
+    RightAssignmentChange change = RightAssignmentChange
+        .ofSupervisoryNode(nodeId, Arrays.asList(childId, null), requisitionGroupId);
+
+    assertThat(change.getSupervisoryNodeIds()).containsOnly(nodeId, childId);
+    assertThat(change.getRequisitionGroupIds()).containsOnly(requisitionGroupId);
+    assertThat(change.getRoleIds()).isEmpty();
+    assertThat(change.getFacilityIds()).isEmpty();
+  }
+
+  @Test
+  public void shouldCreateSupervisoryNodeChangeWithoutRequisitionGroup() {
+    RightAssignmentChange change = RightAssignmentChange
+        .ofSupervisoryNode(UUID.randomUUID(), Collections.emptyList(), null);
+
+    assertThat(change.getRequisitionGroupIds()).isEmpty();
+  }
+
+  @Test
+  public void equalsContract() {
+    EqualsVerifier
+        .forClass(RightAssignmentChange.class)
+        .verify();
+  }
+}
@@ -15,32 +15,45 @@
 
 package org.openlmis.referencedata.service;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.spy;
-import static org.mockito.Mockito.when;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
-import java.io.IOException;
-import java.io.InputStream;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
-import org.apache.commons.io.IOUtils;
+import java.util.concurrent.Future;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.openlmis.referencedata.dto.RightAssignmentDto;
-import org.springframework.core.io.Resource;
+import org.openlmis.referencedata.util.Resource2Db;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings("PMD.UnusedPrivateField")
 public class RightAssignmentServiceTest {
 
   private static final String RIGHT_NAME = "rightName";
@@ -48,6 +61,27 @@ public class RightAssignmentServiceTest {
   @Mock
   private JdbcTemplate jdbcTemplate;
 
+  @Mock
+  private Resource2Db resource2Db;
+
+  @Mock
+  private TaskExecutor rightAssignmentTaskExecutor;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @Mock
+  private PermissionIndex permissionIndex;
+
+  @Captor
+  private ArgumentCaptor<List<Object[]>> batchArgsCaptor;
+
+  @Captor
+  private ArgumentCaptor<Runnable> rebuildCaptor;
+
+  @Captor
+  private ArgumentCaptor<Iterator<Object[]>> rowsCaptor;
+
   @InjectMocks
   private RightAssignmentService rightAssignmentService;
 
@@ -63,8 +97,7 @@ public class RightAssignmentServiceTest {
   }
 
   @Test
-  public void convertForInsertShouldConvertDirectFulfillmentAndHomeFacilityRightAssignments()
-      throws IOException {
+  public void convertForInsertShouldConvertDirectFulfillmentAndHomeFacilityRightAssignments() {
     // given
     RightAssignmentDto expected = new RightAssignmentDto(
         userId,
@@ -75,7 +108,7 @@ public class RightAssignmentServiceTest {
 
     // when
     Set<RightAssignmentDto> actual = rightAssignmentService
-        .convertForInsert(Collections.singletonList(expected), null);
+        .convertForInsert(Collections.singletonList(expected), new SupervisionGraph());
 
     // then
     assertEquals(1, actual.size());
@@ -83,14 +116,8 @@ public class RightAssignmentServiceTest {
   }
 
   @Test
-  public void convertForInsertShouldConvertSupervisoryNodeRightAssignments()
-      throws IOException {
+  public void convertForInsertShouldConvertSupervisoryNodeRightAssignments() {
     // given
-    Resource resource = mock(Resource.class);
-    when(resource.getDescription()).thenReturn("description");
-    InputStream inputStream = spy(IOUtils.toInputStream("some data"));
-    when(resource.getInputStream()).thenReturn(inputStream);
-
     RightAssignmentDto rightAssignmentDto = new RightAssignmentDto(
         userId,
         RIGHT_NAME,
@@ -101,15 +128,18 @@ public class RightAssignmentServiceTest {
     UUID facility1Id = UUID.randomUUID();
     UUID facility2Id = UUID.randomUUID();
     List<UUID> facilityIds = Arrays.asList(facility1Id, facility2Id);
-    when(jdbcTemplate.queryForList(
-        any(String.class),
-        any(Class.class),
-        any(UUID.class),
-        any(UUID.class))).thenReturn(facilityIds);
-    
+
+    UUID childNodeId = UUID.randomUUID();
+    SupervisionGraph supervisionGraph = new SupervisionGraph();
+    supervisionGraph.addNode(supervisoryNodeId, null);
+    supervisionGraph.addNode(childNodeId, supervisoryNodeId);
+    supervisionGraph.addSupervisedFacility(supervisoryNodeId, programId, facility1Id);
+    supervisionGraph.addSupervisedFacility(childNodeId, programId, facility2Id);
+    supervisionGraph.addSupervisedFacility(childNodeId, UUID.randomUUID(), UUID.randomUUID());
+
     // when
     Set<RightAssignmentDto> actual = rightAssignmentService
-        .convertForInsert(Collections.singletonList(rightAssignmentDto), resource);
+        .convertForInsert(Collections.singletonList(rightAssignmentDto), supervisionGraph);
 
     // then
     assertEquals(2, actual.size());
@@ -120,4 +150,75 @@ public class RightAssignmentServiceTest {
       assertTrue(facilityIds.contains(current.getFacilityId()));
     }
   }
+
+  @Test
+  public void applyDifferenceShouldDeleteOnlyRemovedAndInsertOnlyAddedRightAssignments() {
+    // given
+    RightAssignmentDto unchanged = new RightAssignmentDto(userId, RIGHT_NAME, null, null);
+    RightAssignmentDto removed = new RightAssignmentDto(userId, RIGHT_NAME, UUID.randomUUID(),
+        programId);
+    RightAssignmentDto added = new RightAssignmentDto(userId, RIGHT_NAME, UUID.randomUUID(),
+        programId);
+
+    // when
+    rightAssignmentService.applyDifference(resource2Db,
+        Sets.newHashSet(unchanged, removed), Sets.newHashSet(unchanged, added));
+
+    // then
+    verify(jdbcTemplate)
+        .batchUpdate(eq(RightAssignmentService.DELETE_ONE_SQL), batchArgsCaptor.capture());
+    assertThat(batchArgsCaptor.getValue()).hasSize(1);
+    assertThat(batchArgsCaptor.getValue().get(0)).containsExactly(userId, RIGHT_NAME,
+        removed.getFacilityId(), programId);
+
+    verify(resource2Db).copyToDb(eq("referencedata.right_assignments"),
+        eq(Arrays.asList("id", "userid", "rightname", "facilityid", "programid")),
+        rowsCaptor.capture());
+    List<Object[]> copiedRows = Lists.newArrayList(rowsCaptor.getValue());
+    assertThat(copiedRows).hasSize(1);
+    assertThat(copiedRows.get(0)).contains(userId.toString(), RIGHT_NAME,
+        added.getFacilityId().toString(), programId.toString());
+  }
+
+  @Test
+  public void applyDifferenceShouldNotModifyTableIfNothingChanged() {
+    // given
+    RightAssignmentDto unchanged = new RightAssignmentDto(userId, RIGHT_NAME, null, null);
+
+    // when
+    rightAssignmentService.applyDifference(resource2Db,
+        Sets.newHashSet(unchanged), Sets.newHashSet(unchanged));
+
+    // then
+    verify(jdbcTemplate, never()).batchUpdate(any(String.class), anyListOf(Object[].class));
+    verifyZeroInteractions(resource2Db);
+  }
+
+  @Test
+  public void regenerateRightAssignmentsShouldCoalesceRequestsWhichArriveBeforeRebuildStarts() {
+    // when
+    Future<Void> first = rightAssignmentService.regenerateRightAssignments();
+    Future<Void> second = rightAssignmentService.regenerateRightAssignments();
+
+    // then
+    assertSame(first, second);
+    assertFalse(first.isDone());
+    verify(rightAssignmentTaskExecutor).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void regenerateRightAssignmentsShouldScheduleNewRebuildIfRebuildHasStarted() {
+    // given
+    Future<Void> first = rightAssignmentService.regenerateRightAssignments();
+    verify(rightAssignmentTaskExecutor).execute(rebuildCaptor.capture());
+
+    // when
+    rebuildCaptor.getValue().run();
+    Future<Void> second = rightAssignmentService.regenerateRightAssignments();
+
+    // then
+    assertTrue(first.isDone());
+    assertNotSame(first, second);
+    verify(rightAssignmentTaskExecutor, times(2)).execute(any(Runnable.class));
+  }
 }
@@ -16,7 +16,6 @@
 package org.openlmis.referencedata.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.openlmis.referencedata.testbuilder.OAuth2AuthenticationDataBuilder.API_KEY_PREFIX;
@@ -29,10 +28,8 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
-import org.openlmis.referencedata.domain.User;
+import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.UnauthorizedException;
-import org.openlmis.referencedata.repository.RightAssignmentRepository;
-import org.openlmis.referencedata.repository.UserRepository;
 import org.openlmis.referencedata.testbuilder.OAuth2AuthenticationDataBuilder;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -46,13 +43,7 @@ public class RightServiceTest {
   private static final String RIGHT_NAME = "RIGHT_NAME";
 
   @Mock
-  private UserRepository userRepository;
-
-  @Mock
-  private RightAssignmentRepository rightAssignmentRepository;
-
-  @Mock
-  private AuthenticationHelper authenticationHelper;
+  private PermissionIndex permissionIndex;
 
   @InjectMocks
   private RightService rightService;
@@ -61,7 +52,6 @@ public class RightServiceTest {
   private OAuth2Authentication trustedClient;
   private OAuth2Authentication userClient;
   private OAuth2Authentication apiKeyClient;
-  private User user;
   private UUID userId;
   
   @Before
@@ -69,11 +59,8 @@ public class RightServiceTest {
     securityContext = mock(SecurityContext.class);
     SecurityContextHolder.setContext(securityContext);
 
-    user = mock(User.class);
     userId = UUID.randomUUID();
-    when(user.getId()).thenReturn(userId);
-
-    when(authenticationHelper.getCurrentUser()).thenReturn(user);
+    when(permissionIndex.userExists(userId)).thenReturn(true);
 
     trustedClient = new OAuth2AuthenticationDataBuilder().buildServiceAuthentication();
     userClient = new OAuth2AuthenticationDataBuilder().withUserId(userId).buildUserAuthentication();
@@ -107,7 +94,7 @@ public class RightServiceTest {
   @Test
   public void checkAdminRightShouldAllowUserWhoHasRight() {
     when(securityContext.getAuthentication()).thenReturn(userClient);
-    when(rightAssignmentRepository.existsByUserIdAndRightName(user.getId(), RIGHT_NAME))
+    when(permissionIndex.hasRight(userId, RIGHT_NAME))
         .thenReturn(true);
 
     rightService.checkAdminRight(RIGHT_NAME);
@@ -116,15 +103,22 @@ public class RightServiceTest {
   @Test
   public void checkAdminRightShouldAllowRequesterWithSpecifiedUserId() {
     when(securityContext.getAuthentication()).thenReturn(userClient);
-    when(userRepository.existsById(any(UUID.class))).thenReturn(true);
 
-    rightService.checkAdminRight(RIGHT_NAME, true, user.getId());
+    rightService.checkAdminRight(RIGHT_NAME, true, userId);
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void checkAdminRightShouldThrowNotFoundExceptionIfUserDoesNotExist() {
+    when(securityContext.getAuthentication()).thenReturn(userClient);
+    when(permissionIndex.userExists(userId)).thenReturn(false);
+
+    rightService.checkAdminRight(RIGHT_NAME, true, userId);
   }
   
   @Test(expected = UnauthorizedException.class)
   public void checkAdminRightShouldThrowUnauthorizedExceptionForUserWhoDoesNotHaveRight() {
     when(securityContext.getAuthentication()).thenReturn(userClient);
-    when(rightAssignmentRepository.existsByUserIdAndRightName(user.getId(), RIGHT_NAME))
+    when(permissionIndex.hasRight(userId, RIGHT_NAME))
         .thenReturn(false);
 
     rightService.checkAdminRight(RIGHT_NAME);
@@ -154,7 +148,7 @@ public class RightServiceTest {
   @Test
   public void shouldReturnTrueIfUserHasRight() {
     when(securityContext.getAuthentication()).thenReturn(userClient);
-    when(rightAssignmentRepository.existsByUserIdAndRightName(user.getId(), RIGHT_NAME))
+    when(permissionIndex.hasRight(userId, RIGHT_NAME))
         .thenReturn(true);
 
     assertThat(rightService.hasRight(RIGHT_NAME)).isTrue();
@@ -163,7 +157,7 @@ public class RightServiceTest {
   @Test
   public void shouldReturnFalseIfUserHasNoRight() {
     when(securityContext.getAuthentication()).thenReturn(userClient);
-    when(rightAssignmentRepository.existsByUserIdAndRightName(user.getId(), RIGHT_NAME))
+    when(permissionIndex.hasRight(userId, RIGHT_NAME))
         .thenReturn(false);
 
     assertThat(rightService.hasRight(RIGHT_NAME)).isFalse();
@@ -0,0 +1,79 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Set;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SupervisionGraphTest {
+
+  private SupervisionGraph graph = new SupervisionGraph();
+
+  private UUID rootId = UUID.randomUUID();
+  private UUID childId = UUID.randomUUID();
+  private UUID grandChildId = UUID.randomUUID();
+  private UUID programId = UUID.randomUUID();
+  private UUID rootFacilityId = UUID.randomUUID();
+  private UUID childFacilityId = UUID.randomUUID();
+  private UUID grandChildFacilityId = UUID.randomUUID();
+
+  @Before
+  public void setUp() {
+    graph.addNode(rootId, null);
+    graph.addNode(childId, rootId);
+    graph.addNode(grandChildId, childId);
+
+    graph.addSupervisedFacility(rootId, programId, rootFacilityId);
+    graph.addSupervisedFacility(childId, programId, childFacilityId);
+    graph.addSupervisedFacility(grandChildId, programId, grandChildFacilityId);
+    graph.addSupervisedFacility(grandChildId, UUID.randomUUID(), UUID.randomUUID());
+  }
+
+  @Test
+  public void shouldReturnFacilitiesOfWholeSubtreeForProgram() {
+    assertThat(graph.getSupervisedFacilityIds(rootId, programId))
+        .containsOnly(rootFacilityId, childFacilityId, grandChildFacilityId);
+    assertThat(graph.getSupervisedFacilityIds(childId, programId))
+        .containsOnly(childFacilityId, grandChildFacilityId);
+  }
+
+  @Test
+  public void shouldReturnEmptySetForUnknownNodeOrProgram() {
+    assertThat(graph.getSupervisedFacilityIds(UUID.randomUUID(), programId)).isEmpty();
+    assertThat(graph.getSupervisedFacilityIds(rootId, UUID.randomUUID())).isEmpty();
+  }
+
+  @Test
+  public void shouldMemoizeExpandedNodes() {
+    Set<UUID> first = graph.getSupervisedFacilityIds(rootId, programId);
+    Set<UUID> second = graph.getSupervisedFacilityIds(rootId, programId);
+
+    assertThat(second).isSameAs(first);
+    assertThat(graph.getExpandedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldNotLoopForeverOnCycles() {
+    graph.addNode(rootId, grandChildId);
+
+    assertThat(graph.getSupervisedFacilityIds(childId, programId))
+        .containsOnly(rootFacilityId, childFacilityId, grandChildFacilityId);
+  }
+}
@@ -142,6 +142,9 @@ public class SupplyPartnerBuilderTest {
     when(programRepository.findById(program.getId())).thenReturn(Optional.of(program));
     when(supervisoryNodeRepository.findById(partnerNode.getId()))
         .thenReturn(Optional.of(partnerNode));
+    when(supervisoryNodeRepository
+        .findSupervisedFacilityIds(supervisoryNode.getId(), program.getId()))
+        .thenReturn(Sets.newHashSet(facility.getId()));
     when(facilityRepository.findAllById(Sets.newHashSet(facility.getId())))
         .thenReturn(Lists.newArrayList(facility));
     when(orderableRepository.findAllLatestByIds(
@@ -0,0 +1,78 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.UUID;
+import org.junit.Test;
+
+public class UserPermissionsTest {
+
+  private static final int RIGHT = 0;
+  private static final int OTHER_RIGHT = 1;
+  private static final int UNASSIGNED_RIGHT = 2;
+
+  private UUID facilityId = UUID.randomUUID();
+  private UUID programId = UUID.randomUUID();
+
+  private UserPermissions permissions = UserPermissions.of(Arrays.asList(
+      new Object[]{OTHER_RIGHT, null, null},
+      new Object[]{RIGHT, facilityId, programId},
+      new Object[]{RIGHT, UUID.randomUUID(), null}), 0);
+
+  @Test
+  public void shouldCheckRightRegardlessOfFacilityAndProgram() {
+    assertThat(permissions.hasRight(RIGHT)).isTrue();
+    assertThat(permissions.hasRight(OTHER_RIGHT)).isTrue();
+    assertThat(permissions.hasRight(UNASSIGNED_RIGHT)).isFalse();
+  }
+
+  @Test
+  public void shouldCheckRightAtFacilityRegardlessOfProgram() {
+    assertThat(permissions.hasRight(RIGHT, facilityId)).isTrue();
+    assertThat(permissions.hasRight(RIGHT, UUID.randomUUID())).isFalse();
+    assertThat(permissions.hasRight(OTHER_RIGHT, facilityId)).isFalse();
+  }
+
+  @Test
+  public void shouldCheckRightAtFacilityForProgram() {
+    assertThat(permissions.hasRight(RIGHT, facilityId, programId)).isTrue();
+    assertThat(permissions.hasRight(RIGHT, facilityId, UUID.randomUUID())).isFalse();
+    assertThat(permissions.hasRight(OTHER_RIGHT, facilityId, programId)).isFalse();
+  }
+
+  @Test
+  public void shouldReturnPermissionStrings() {
+    UserPermissions userPermissions = UserPermissions.of(Arrays.asList(
+        new Object[]{RIGHT, facilityId, programId},
+        new Object[]{RIGHT, facilityId, null},
+        new Object[]{OTHER_RIGHT, null, null}), 0);
+
+    assertThat(userPermissions.toPermissionStrings(id -> id == RIGHT ? "RIGHT" : "OTHER"))
+        .containsOnly("RIGHT|" + facilityId + "|" + programId, "RIGHT|" + facilityId, "OTHER");
+  }
+
+  @Test
+  public void shouldNotHaveAnyRightIfUserDoesNotExist() {
+    UserPermissions missingUser = UserPermissions.ofMissingUser(0);
+
+    assertThat(missingUser.userExists()).isFalse();
+    assertThat(missingUser.hasRight(RIGHT)).isFalse();
+    assertThat(missingUser.toPermissionStrings(id -> "RIGHT")).isEmpty();
+  }
+}
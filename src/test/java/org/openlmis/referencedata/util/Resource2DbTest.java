@@ -18,14 +18,20 @@ package org.openlmis.referencedata.util;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
 import java.util.Collections;
 import java.util.List;
 import org.apache.commons.io.IOUtils;
@@ -35,10 +41,15 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
 import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 @RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings("PMD.TooManyMethods")
 public class Resource2DbTest {
 
   @Mock
@@ -150,4 +161,76 @@ public class Resource2DbTest {
   public void insertToDbFromCsvWithNullResourceShouldThrowException() throws IOException {
     resource2Db.insertToDbFromCsv("test", null);
   }
+
+  @Test
+  public void copyToDbFromCsvShouldStreamRowsWithCopy() throws Exception {
+    // given
+    Resource resource = mock(Resource.class);
+    InputStream inputStream = spy(IOUtils.toInputStream("Col1,Col2\na,\n\"b\"\"c\",d"));
+    when(resource.getInputStream()).thenReturn(inputStream);
+
+    ByteArrayOutputStream copied = new ByteArrayOutputStream();
+    CopyIn copyIn = mockCopyIn(copied);
+
+    // when
+    long count = resource2Db.copyToDbFromCsv("sometable", resource);
+
+    // then
+    assertEquals(2, count);
+    assertEquals("\"a\",\n\"b\"\"c\",\"d\"\n",
+        new String(copied.toByteArray(), StandardCharsets.UTF_8));
+    verify(copyIn).endCopy();
+    verify(inputStream, times(1)).close();
+  }
+
+  @Test
+  public void copyToDbShouldCancelCopyIfRowCannotBeWritten() throws Exception {
+    // given
+    Resource resource = mock(Resource.class);
+    InputStream inputStream = spy(IOUtils.toInputStream("Col1,Col2\na,b\nc"));
+    when(resource.getInputStream()).thenReturn(inputStream);
+
+    CopyIn copyIn = mockCopyIn(new ByteArrayOutputStream());
+
+    // when
+    try {
+      resource2Db.copyToDbFromCsv("sometable", resource);
+    } catch (IllegalArgumentException ex) {
+      // then
+      verify(copyIn).cancelCopy();
+      verify(copyIn, times(0)).endCopy();
+      return;
+    }
+
+    throw new AssertionError("Expected IllegalArgumentException");
+  }
+
+  private CopyIn mockCopyIn(ByteArrayOutputStream copied) throws Exception {
+    CopyIn copyIn = mock(CopyIn.class);
+    when(copyIn.isActive()).thenReturn(true);
+    when(copyIn.endCopy()).thenAnswer(invocation -> {
+      when(copyIn.isActive()).thenReturn(false);
+      return 2L;
+    });
+    doAnswer(invocation -> {
+      copied.write(invocation.getArgument(0), invocation.getArgument(1),
+          invocation.getArgument(2));
+      return null;
+    }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+
+    CopyManager copyManager = mock(CopyManager.class);
+    when(copyManager.copyIn(eq("COPY sometable (Col1,Col2) FROM STDIN WITH (FORMAT csv)")))
+        .thenReturn(copyIn);
+
+    PGConnection pgConnection = mock(PGConnection.class);
+    when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+
+    Connection connection = mock(Connection.class);
+    when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+
+    when(template.execute(any(ConnectionCallback.class))).thenAnswer(invocation ->
+        ((ConnectionCallback<?>) invocation.getArgument(0)).doInConnection(connection));
+
+    return copyIn;
+  }
 }
@@ -0,0 +1,270 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.SYSTEM_NOTIFICATIONS;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.SystemNotification;
+import org.openlmis.referencedata.dto.SystemNotificationDto;
+import org.openlmis.referencedata.repository.SystemNotificationRepository;
+import org.openlmis.referencedata.repository.custom.SystemNotificationRepositoryCustom;
+import org.openlmis.referencedata.service.ObjectReferenceExpander;
+import org.openlmis.referencedata.service.ResourceVersion;
+import org.openlmis.referencedata.service.ResourceVersionRegistry;
+import org.openlmis.referencedata.testbuilder.SystemNotificationDataBuilder;
+import org.openlmis.referencedata.web.DisplayedSystemNotifications.Notifications;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+@SuppressWarnings("PMD.TooManyMethods")
+@RunWith(MockitoJUnitRunner.class)
+public class DisplayedSystemNotificationsTest {
+
+  private static final String SERVICE_URL = "http://localhost";
+  private static final String VERSION_1 = "W/\"1\"";
+  private static final String VERSION_2 = "W/\"2\"";
+  private static final String VERSION_3 = "W/\"3\"";
+
+  @Mock
+  private SystemNotificationRepository systemNotificationRepository;
+
+  @Mock
+  private ResourceVersionRegistry resourceVersionRegistry;
+
+  @Mock
+  private ObjectReferenceExpander objectReferenceExpander;
+
+  @Mock
+  private SseEmitter emitter;
+
+  @InjectMocks
+  private DisplayedSystemNotifications displayedSystemNotifications;
+
+  private SystemNotification notification = new SystemNotificationDataBuilder().build();
+  private SystemNotification otherNotification = new SystemNotificationDataBuilder().build();
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(displayedSystemNotifications, "objectMapper",
+        new ObjectMapper().findAndRegisterModules());
+    ReflectionTestUtils.setField(displayedSystemNotifications, "serviceUrl", SERVICE_URL);
+    setTime(0);
+
+    mockVersion(VERSION_1);
+    mockNotifications(notification);
+
+    displayedSystemNotifications = spy(displayedSystemNotifications);
+    doReturn(emitter).when(displayedSystemNotifications).createEmitter();
+  }
+
+  @Test
+  public void shouldReturnDisplayedNotificationsWithStrongEtag() {
+    Notifications notifications = displayedSystemNotifications.getNotifications(false);
+
+    assertThat(notifications.getContent())
+        .containsExactly(SystemNotificationDto.newInstance(notification, SERVICE_URL, true));
+    assertThat(notifications.getEtag()).startsWith("\"").endsWith("\"");
+    verify(objectReferenceExpander).expandDto(any(SystemNotificationDto.class),
+        eq(notification), eq(Collections.singleton(DisplayedSystemNotifications.AUTHOR)));
+  }
+
+  @Test
+  public void shouldReturnSameEtagForSameNotifications() {
+    String etag = displayedSystemNotifications.getNotifications(false).getEtag();
+    mockVersion(VERSION_2);
+
+    assertThat(displayedSystemNotifications.getNotifications(false).getEtag()).isEqualTo(etag);
+  }
+
+  @Test
+  public void shouldBuildSnapshotOnlyOnceForSameVersion() {
+    displayedSystemNotifications.getNotifications(false);
+    displayedSystemNotifications.getNotifications(true);
+
+    verifySearched(1);
+  }
+
+  @Test
+  public void shouldRebuildSnapshotWhenVersionChanges() {
+    displayedSystemNotifications.getNotifications(false);
+    mockVersion(VERSION_2);
+    displayedSystemNotifications.getNotifications(false);
+
+    verifySearched(2);
+  }
+
+  @Test
+  public void shouldNotKeepSnapshotIfVersionIsNotTracked() {
+    when(resourceVersionRegistry.getVersion(SYSTEM_NOTIFICATIONS)).thenReturn(null);
+
+    displayedSystemNotifications.getNotifications(false);
+    displayedSystemNotifications.getNotifications(false);
+
+    verifySearched(2);
+  }
+
+  @Test
+  public void shouldRebuildSnapshotWhenNotificationStarts() {
+    when(systemNotificationRepository.findNextStartDate(any(ZonedDateTime.class)))
+        .thenReturn(dateOf(1_000));
+
+    displayedSystemNotifications.getNotifications(false);
+    setTime(999);
+    displayedSystemNotifications.getNotifications(false);
+    verifySearched(1);
+
+    setTime(1_000);
+    displayedSystemNotifications.getNotifications(false);
+    verifySearched(2);
+  }
+
+  @Test
+  public void shouldRebuildSnapshotAfterNotificationExpires() {
+    when(systemNotificationRepository.findNextExpiryDate(any(ZonedDateTime.class)))
+        .thenReturn(dateOf(1_000));
+
+    displayedSystemNotifications.getNotifications(false);
+    setTime(1_000);
+    displayedSystemNotifications.getNotifications(false);
+    verifySearched(1);
+
+    setTime(1_001);
+    displayedSystemNotifications.getNotifications(false);
+    verifySearched(2);
+  }
+
+  @Test
+  public void shouldNotRefreshInBackgroundIfNotStarted() {
+    displayedSystemNotifications.refreshAfterTransaction();
+
+    verify(systemNotificationRepository, never()).search(
+        any(SystemNotificationRepositoryCustom.SearchParams.class), any(Pageable.class));
+  }
+
+  @Test
+  public void shouldSendCurrentNotificationsOnSubscribe() throws IOException {
+    SseEmitter subscribed = displayedSystemNotifications.subscribe(false);
+
+    assertThat(subscribed).isSameAs(emitter);
+    assertSent(1, displayedSystemNotifications.getNotifications(false));
+  }
+
+  @Test
+  public void shouldSendNotificationsOnlyWhenTheirEtagChanges() throws IOException {
+    displayedSystemNotifications.subscribe(false);
+    displayedSystemNotifications.refresh();
+
+    mockVersion(VERSION_2);
+    displayedSystemNotifications.refresh();
+    assertSent(1, displayedSystemNotifications.getNotifications(false));
+
+    mockNotifications(notification, otherNotification);
+    mockVersion(VERSION_3);
+    displayedSystemNotifications.refresh();
+    assertSent(2, displayedSystemNotifications.getNotifications(false));
+  }
+
+  @Test
+  public void shouldRemoveSubscriberIfSendingFails() throws IOException {
+    displayedSystemNotifications.subscribe(false);
+    displayedSystemNotifications.refresh();
+
+    IOException failure = new IOException("closed");
+    doThrow(failure).when(emitter).send(any(SseEventBuilder.class));
+    mockNotifications(notification, otherNotification);
+    mockVersion(VERSION_2);
+    displayedSystemNotifications.refresh();
+
+    verify(emitter).completeWithError(failure);
+
+    mockNotifications(otherNotification);
+    mockVersion(VERSION_3);
+    displayedSystemNotifications.refresh();
+
+    verify(emitter, times(2)).send(any(SseEventBuilder.class));
+  }
+
+  private void assertSent(int times, Notifications notifications) throws IOException {
+    ArgumentCaptor<SseEventBuilder> events = ArgumentCaptor.forClass(SseEventBuilder.class);
+    verify(emitter, times(times)).send(events.capture());
+
+    List<Object> data = events.getValue().build()
+        .stream()
+        .map(DataWithMediaType::getData)
+        .collect(Collectors.toList());
+
+    assertThat(data.get(0).toString())
+        .contains("event:" + DisplayedSystemNotifications.EVENT_NAME)
+        .contains("id:" + notifications.getEtag());
+    assertThat(data).contains(notifications.getContent());
+  }
+
+  private void mockNotifications(SystemNotification... notifications) {
+    when(systemNotificationRepository.search(
+        any(SystemNotificationRepositoryCustom.SearchParams.class), any(Pageable.class)))
+        .thenReturn(new PageImpl<>(Arrays.asList(notifications)));
+  }
+
+  private void verifySearched(int times) {
+    verify(systemNotificationRepository, times(times)).search(
+        any(SystemNotificationRepositoryCustom.SearchParams.class), any(Pageable.class));
+  }
+
+  private void mockVersion(String etag) {
+    when(resourceVersionRegistry.getVersion(SYSTEM_NOTIFICATIONS))
+        .thenReturn(new ResourceVersion(etag, 0));
+  }
+
+  private void setTime(long millis) {
+    ReflectionTestUtils.setField(displayedSystemNotifications, "clock",
+        Clock.fixed(Instant.ofEpochMilli(millis), ZoneId.of("UTC")));
+  }
+
+  private ZonedDateTime dateOf(long millis) {
+    return ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.of("UTC"));
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.openlmis.referencedata.domain.Orderable.COMMODITY_TYPE;
+import static org.openlmis.referencedata.domain.Orderable.TRADE_ITEM;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.ORDERABLES;
+import static org.openlmis.referencedata.service.ResourceVersionRegistry.ORDERABLE_FULFILLS;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.CommodityType;
+import org.openlmis.referencedata.domain.ContainerDispensable;
+import org.openlmis.referencedata.domain.Dispensable;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.TradeItem;
+import org.openlmis.referencedata.repository.CommodityTypeRepository;
+import org.openlmis.referencedata.repository.OrderableRepository;
+import org.openlmis.referencedata.repository.TradeItemRepository;
+import org.openlmis.referencedata.service.ResourceVersion;
+import org.openlmis.referencedata.service.ResourceVersionRegistry;
+import org.openlmis.referencedata.testbuilder.CommodityTypeDataBuilder;
+import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
+import org.openlmis.referencedata.testbuilder.TradeItemDataBuilder;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+@SuppressWarnings("PMD.TooManyMethods")
+@RunWith(MockitoJUnitRunner.class)
+public class OrderableFulfillGraphTest {
+
+  @Mock
+  private ResourceVersionRegistry resourceVersionRegistry;
+
+  @Mock
+  private OrderableRepository orderableRepository;
+
+  @Mock
+  private TradeItemRepository tradeItemRepository;
+
+  @Mock
+  private CommodityTypeRepository commodityTypeRepository;
+
+  @InjectMocks
+  private OrderableFulfillGraph graph;
+
+  private CommodityType commodityType = new CommodityTypeDataBuilder().build();
+  private CommodityType otherCommodityType = new CommodityTypeDataBuilder().build();
+  private TradeItem tradeItem = new TradeItemDataBuilder()
+      .withClassification(commodityType)
+      .build();
+
+  private Orderable tradeItemOrderable = new OrderableDataBuilder()
+      .withIdentifier(TRADE_ITEM, tradeItem.getId())
+      .build();
+
+  private Orderable commodityTypeOrderable = new OrderableDataBuilder()
+      .withIdentifier(COMMODITY_TYPE, commodityType.getId())
+      .build();
+
+  private Orderable otherDispensableOrderable = new OrderableDataBuilder()
+      .withIdentifier(COMMODITY_TYPE, commodityType.getId())
+      .withDispensable(Dispensable.createNew("other"))
+      .build();
+
+  private Orderable otherCommodityTypeOrderable = new OrderableDataBuilder()
+      .withIdentifier(COMMODITY_TYPE, otherCommodityType.getId())
+      .build();
+
+  private Orderable orderableWithoutIdentifiers = new OrderableDataBuilder().build();
+
+  @Before
+  public void setUp() {
+    when(resourceVersionRegistry.getVersion(ORDERABLES, ORDERABLE_FULFILLS))
+        .thenReturn(new ResourceVersion("W/\"1-1\"", 1_000L));
+    when(commodityTypeRepository.findAll())
+        .thenReturn(Lists.newArrayList(commodityType, otherCommodityType));
+    when(tradeItemRepository.findAll()).thenReturn(Lists.newArrayList(tradeItem));
+    when(orderableRepository.findAllLatest(any(Pageable.class)))
+        .thenReturn(new PageImpl<>(Lists.newArrayList(tradeItemOrderable,
+            commodityTypeOrderable, otherDispensableOrderable, otherCommodityTypeOrderable,
+            orderableWithoutIdentifiers)));
+  }
+
+  @Test
+  public void shouldCreateResourceForTradeItem() {
+    OrderableFulfill fulfill = graph
+        .getOrderableFulfills(Collections.singleton(tradeItemOrderable.getId()))
+        .get(tradeItemOrderable.getId());
+
+    assertThat(fulfill.getCanFulfillForMe()).isEmpty();
+    assertThat(fulfill.getCanBeFulfilledByMe()).containsExactly(commodityTypeOrderable.getId());
+  }
+
+  @Test
+  public void shouldCreateResourceForCommodityType() {
+    OrderableFulfill fulfill = graph
+        .getOrderableFulfills(Collections.singleton(commodityTypeOrderable.getId()))
+        .get(commodityTypeOrderable.getId());
+
+    assertThat(fulfill.getCanFulfillForMe()).containsExactly(tradeItemOrderable.getId());
+    assertThat(fulfill.getCanBeFulfilledByMe()).isEmpty();
+  }
+
+  @Test
+  public void shouldNotLinkOrderablesWithDifferentDispensables() {
+    OrderableFulfill fulfill = graph
+        .getOrderableFulfills(Collections.singleton(otherDispensableOrderable.getId()))
+        .get(otherDispensableOrderable.getId());
+
+    assertThat(fulfill.getCanFulfillForMe()).isEmpty();
+  }
+
+  @Test
+  public void shouldLinkOrderablesWithDispensablesDifferingOnlyInCase() {
+    Orderable upperCaseOrderable = new OrderableDataBuilder()
+        .withIdentifier(TRADE_ITEM, tradeItem.getId())
+        .withDispensable(Dispensable.createNew("EACH"))
+        .build();
+    Orderable lowerCaseOrderable = new OrderableDataBuilder()
+        .withIdentifier(COMMODITY_TYPE, commodityType.getId())
+        .withDispensable(Dispensable.createNew("each"))
+        .build();
+
+    assertLinked(upperCaseOrderable, lowerCaseOrderable);
+  }
+
+  @Test
+  public void shouldLinkOrderablesWithContainerDispensablesOfTheSameSizeCode() {
+    Dispensable dispensable = ContainerDispensable.createNew("10");
+    dispensable.getAttributes().put(Dispensable.KEY_DISPENSING_UNIT, "vial");
+
+    Orderable tradeItemContainerOrderable = new OrderableDataBuilder()
+        .withIdentifier(TRADE_ITEM, tradeItem.getId())
+        .withDispensable(dispensable)
+        .build();
+    Orderable commodityTypeContainerOrderable = new OrderableDataBuilder()
+        .withIdentifier(COMMODITY_TYPE, commodityType.getId())
+        .withDispensable(ContainerDispensable.createNew("10"))
+        .build();
+
+    assertLinked(tradeItemContainerOrderable, commodityTypeContainerOrderable);
+  }
+
+  @Test
+  public void shouldNotLinkCommodityTypesWhichCannotBeFulfilled() {
+    OrderableFulfill fulfill = graph
+        .getOrderableFulfills(Collections.singleton(otherCommodityTypeOrderable.getId()))
+        .get(otherCommodityTypeOrderable.getId());
+
+    assertThat(fulfill.getCanFulfillForMe()).isEmpty();
+    assertThat(fulfill.getCanBeFulfilledByMe()).isEmpty();
+  }
+
+  @Test
+  public void shouldReturnAllResourcesIfNoIdsAreGiven() {
+    Map<UUID, OrderableFulfill> fulfills = graph.getOrderableFulfills(Collections.emptySet());
+
+    assertThat(fulfills).containsOnlyKeys(tradeItemOrderable.getId(),
+        commodityTypeOrderable.getId(), otherDispensableOrderable.getId(),
+        otherCommodityTypeOrderable.getId());
+  }
+
+  @Test
+  public void shouldSkipUnknownOrderables() {
+    Map<UUID, OrderableFulfill> fulfills = graph.getOrderableFulfills(Sets.newHashSet(
+        UUID.randomUUID(), orderableWithoutIdentifiers.getId(), tradeItemOrderable.getId()));
+
+    assertThat(fulfills).containsOnlyKeys(tradeItemOrderable.getId());
+  }
+
+  @Test
+  public void shouldBuildGraphOnlyOnceForTheSameVersion() {
+    graph.getOrderableFulfills(Collections.emptySet());
+    graph.getOrderableFulfills(Collections.singleton(tradeItemOrderable.getId()));
+
+    verify(orderableRepository, times(1)).findAllLatest(any(Pageable.class));
+    verify(tradeItemRepository, times(1)).findAll();
+    verify(commodityTypeRepository, times(1)).findAll();
+  }
+
+  @Test
+  public void shouldRebuildGraphWhenVersionChanges() {
+    graph.getOrderableFulfills(Collections.emptySet());
+
+    when(resourceVersionRegistry.getVersion(ORDERABLES, ORDERABLE_FULFILLS))
+        .thenReturn(new ResourceVersion("W/\"1-2\"", 2_000L));
+    when(tradeItemRepository.findAll()).thenReturn(Collections.emptyList());
+
+    OrderableFulfill fulfill = graph
+        .getOrderableFulfills(Collections.singleton(tradeItemOrderable.getId()))
+        .get(tradeItemOrderable.getId());
+
+    assertThat(fulfill.getCanBeFulfilledByMe()).isEmpty();
+    verify(orderableRepository, times(2)).findAllLatest(any(Pageable.class));
+  }
+
+  @Test
+  public void shouldNotCacheGraphIfVersionIsNotTracked() {
+    when(resourceVersionRegistry.getVersion(ORDERABLES, ORDERABLE_FULFILLS)).thenReturn(null);
+
+    graph.getOrderableFulfills(Collections.emptySet());
+    graph.getOrderableFulfills(Collections.emptySet());
+
+    verify(orderableRepository, times(2)).findAllLatest(any(Pageable.class));
+  }
+
+  private void assertLinked(Orderable fulfilling, Orderable fulfilled) {
+    when(orderableRepository.findAllLatest(any(Pageable.class)))
+        .thenReturn(new PageImpl<>(Lists.newArrayList(fulfilling,
+            fulfilled)));
+
+    Map<UUID, OrderableFulfill> fulfills = graph.getOrderableFulfills(Collections.emptySet());
+
+    assertThat(fulfills.get(fulfilling.getId()).getCanBeFulfilledByMe())
+        .containsExactly(fulfilled.getId());
+    assertThat(fulfills.get(fulfilled.getId()).getCanFulfillForMe())
+        .containsExactly(fulfilling.getId());
+  }
+}
@@ -35,6 +35,7 @@ import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.dto.ProcessingPeriodDto;
 import org.openlmis.referencedata.repository.ProcessingPeriodRepository;
 import org.openlmis.referencedata.repository.ProcessingScheduleRepository;
+import org.openlmis.referencedata.service.EntityCacheManager;
 import org.openlmis.referencedata.service.RightService;
 import org.openlmis.referencedata.testbuilder.ProcessingPeriodDataBuilder;
 import org.openlmis.referencedata.testbuilder.ProcessingScheduleDataBuilder;
@@ -60,6 +61,9 @@ public class ProcessingPeriodControllerTest {
   @Mock
   private RequisitionGroupProgramSchedule requisitionGroupProgramSchedule;
 
+  @Mock
+  private EntityCacheManager entityCacheManager;
+
   @InjectMocks
   private ProcessingPeriodController controller = new ProcessingPeriodController();
 
@@ -94,6 +98,29 @@ public class ProcessingPeriodControllerTest {
 
     //then
     verify(periodRepository).save(periodToUpdate);
+    verify(entityCacheManager)
+        .evict(EntityCacheManager.PROCESSING_PERIODS, periodDto.getId());
     assertThat(updatedPeriodDto).isEqualTo(periodDto);
   }
+
+  @Test
+  public void shouldEvictProcessingPeriodCreatedWithExistingId() {
+    //when
+    mockUserHasRight(RightName.PROCESSING_SCHEDULES_MANAGE_RIGHT);
+    when(periodRepository.save(any(ProcessingPeriod.class)))
+        .thenAnswer(invocation -> invocation.getArguments()[0]);
+
+    periodDto = new ProcessingPeriodDto();
+    period.export(periodDto);
+    BindingResult result = mock(BindingResult.class);
+
+    //given
+    ProcessingPeriodDto createdPeriodDto = controller.createProcessingPeriod(periodDto, result);
+
+    //then
+    verify(periodRepository).save(ProcessingPeriod.newPeriod(periodDto));
+    verify(entityCacheManager)
+        .evict(EntityCacheManager.PROCESSING_PERIODS, periodDto.getId());
+    assertThat(createdPeriodDto).isEqualTo(periodDto);
+  }
 }
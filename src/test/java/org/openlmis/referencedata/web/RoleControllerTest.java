@@ -26,6 +26,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.junit.Test;
 import org.mockito.InjectMocks;
@@ -39,6 +41,8 @@ import org.openlmis.referencedata.repository.CountResource;
 import org.openlmis.referencedata.repository.RightRepository;
 import org.openlmis.referencedata.repository.RoleAssignmentRepository;
 import org.openlmis.referencedata.repository.RoleRepository;
+import org.openlmis.referencedata.service.EntityCacheManager;
+import org.openlmis.referencedata.service.RightAssignmentChange;
 import org.openlmis.referencedata.service.RightAssignmentService;
 import org.openlmis.referencedata.service.RightService;
 import org.openlmis.referencedata.testbuilder.RightDataBuilder;
@@ -64,6 +68,9 @@ public class RoleControllerTest {
   @Mock
   private RightAssignmentService rightAssignmentService;
 
+  @Mock
+  private EntityCacheManager entityCacheManager;
+
   @InjectMocks
   private RoleController controller = new RoleController();
 
@@ -95,6 +102,10 @@ public class RoleControllerTest {
 
     role1Dto = new RoleDto();
     role1.export(role1Dto);
+
+    when(entityCacheManager.get(any(String.class), any(UUID.class), any(Class.class),
+        any(Supplier.class)))
+        .thenAnswer(invocation -> ((Supplier<?>) invocation.getArguments()[3]).get());
   }
   
   private void preparePostOrPut() {
@@ -157,6 +168,7 @@ public class RoleControllerTest {
 
     //then
     verify(repository).save(role1);
+    verify(entityCacheManager).evict(EntityCacheManager.ROLES, role1.getId());
   }
 
   @Test
@@ -181,7 +193,8 @@ public class RoleControllerTest {
 
     //then
     verify(repository).saveAndFlush(updatedRole1);
-    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(rightAssignmentService)
+        .regenerateRightAssignments(RightAssignmentChange.ofRole(role1.getId()));
   }
 
   @Test
@@ -198,7 +211,8 @@ public class RoleControllerTest {
 
     //then
     verify(repository).saveAndFlush(updatedRole1);
-    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(rightAssignmentService)
+        .regenerateRightAssignments(RightAssignmentChange.ofRole(role1.getId()));
   }
 
   @Test
@@ -218,7 +232,8 @@ public class RoleControllerTest {
 
     //then
     verify(repository).saveAndFlush(updatedRole1);
-    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(rightAssignmentService)
+        .regenerateRightAssignments(RightAssignmentChange.ofRole(role1.getId()));
   }
 
   @Test
@@ -238,7 +253,8 @@ public class RoleControllerTest {
 
     //then
     verify(repository).saveAndFlush(updatedRole1);
-    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(rightAssignmentService)
+        .regenerateRightAssignments(RightAssignmentChange.ofRole(role1.getId()));
   }
 
   @Test
@@ -255,7 +271,8 @@ public class RoleControllerTest {
 
     //then
     verify(repository).saveAndFlush(updatedRole1);
-    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(rightAssignmentService)
+        .regenerateRightAssignments(RightAssignmentChange.ofRole(role1.getId()));
   }
 
   @Test
@@ -268,6 +285,7 @@ public class RoleControllerTest {
 
     //then
     verify(repository).deleteById(role1.getId());
+    verify(entityCacheManager).evict(EntityCacheManager.ROLES, role1.getId());
   }
 
   @Test(expected = NotFoundException.class)
@@ -57,6 +57,7 @@ import org.openlmis.referencedata.repository.RoleRepository;
 import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
 import org.openlmis.referencedata.repository.UserRepository;
 import org.openlmis.referencedata.repository.UserSearchParams;
+import org.openlmis.referencedata.service.PermissionIndex;
 import org.openlmis.referencedata.service.RightService;
 import org.openlmis.referencedata.service.UserService;
 import org.openlmis.referencedata.testbuilder.SupportedProgramDataBuilder;
@@ -106,6 +107,9 @@ public class UserControllerTest {
   @Mock
   private UserService userService;
 
+  @Mock
+  private PermissionIndex permissionIndex;
+
   @InjectMocks
   private UserController controller = new UserController();
 
@@ -321,6 +325,7 @@ public class UserControllerTest {
     //then
     assertThat(savedUserDto).isEqualToIgnoringGivenFields(user1Dto, IGNORED_FIELDS_ON_EQUAL_CHECK);
     verify(repository).save(user1);
+    verify(permissionIndex).invalidate(user1.getId());
   }
 
   @Test
@@ -447,6 +452,7 @@ public class UserControllerTest {
 
     //then
     verify(repository).deleteById(userId);
+    verify(permissionIndex).invalidate(userId);
   }
 
   @Test(expected = NotFoundException.class)
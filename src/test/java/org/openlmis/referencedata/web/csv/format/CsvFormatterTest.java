@@ -0,0 +1,90 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web.csv.format;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.referencedata.dto.BasicFacilityDto;
+import org.openlmis.referencedata.dto.CommodityTypeDto;
+import org.openlmis.referencedata.dto.IdealStockAmountCsvModel;
+import org.openlmis.referencedata.dto.IsaProcessingPeriodDto;
+import org.openlmis.referencedata.dto.ProcessingPeriodDto;
+import org.openlmis.referencedata.dto.ProcessingScheduleDto;
+import org.openlmis.referencedata.web.csv.model.ModelClass;
+import org.openlmis.referencedata.web.csv.processor.FormatCommodityType;
+import org.openlmis.referencedata.web.csv.processor.FormatProcessingPeriod;
+
+public class CsvFormatterTest {
+
+  private static final String HEADER =
+      "Facility Code,Commodity Type,Period,Ideal Stock Amount\r\n";
+
+  private CsvFormatter csvFormatter = new CsvFormatter();
+  private ModelClass<IdealStockAmountCsvModel> modelClass =
+      new ModelClass<>(IdealStockAmountCsvModel.class);
+  private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+  @Before
+  public void setUp() {
+    FormatCommodityType.SEPARATOR = "|";
+    FormatProcessingPeriod.SEPARATOR = "|";
+  }
+
+  @Test
+  public void shouldWriteStreamedRows() throws IOException {
+    csvFormatter.process(outputStream, modelClass, writer -> {
+      // the header is sent before any row is read
+      assertEquals(HEADER, outputStream.toString());
+
+      writer.accept(createRow("facility-1", 100));
+      writer.accept(createRow("facility-2", 200));
+    });
+
+    assertEquals(HEADER
+        + "facility-1,system|id,schedule|period,100\r\n"
+        + "facility-2,system|id,schedule|period,200\r\n",
+        new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void shouldWriteOnlyHeaderIfThereAreNoRows() throws IOException {
+    csvFormatter.process(outputStream, modelClass, writer -> { });
+
+    assertEquals(HEADER, outputStream.toString());
+  }
+
+  private IdealStockAmountCsvModel createRow(String facilityCode, Integer amount) {
+    BasicFacilityDto facility = new BasicFacilityDto();
+    facility.setCode(facilityCode);
+
+    CommodityTypeDto commodityType = new CommodityTypeDto();
+    commodityType.setClassificationSystem("system");
+    commodityType.setClassificationId("id");
+
+    ProcessingScheduleDto schedule = new ProcessingScheduleDto();
+    schedule.setCode("schedule");
+    ProcessingPeriodDto period = new IsaProcessingPeriodDto();
+    period.setName("period");
+    period.setProcessingSchedule(schedule);
+
+    return new IdealStockAmountCsvModel(facility, commodityType, period, amount);
+  }
+}
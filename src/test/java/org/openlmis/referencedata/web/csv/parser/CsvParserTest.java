@@ -0,0 +1,207 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web.csv.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.openlmis.referencedata.util.messagekeys.CsvUploadMessageKeys.ERROR_UPLOAD_RECORD_INVALID;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.persistence.EntityManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.IdealStockAmount;
+import org.openlmis.referencedata.dto.IdealStockAmountCsvModel;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.validate.CsvHeaderValidator;
+import org.openlmis.referencedata.web.csv.model.ModelClass;
+import org.openlmis.referencedata.web.csv.processor.ParseCommodityType;
+import org.openlmis.referencedata.web.csv.processor.ParseProcessingPeriod;
+import org.openlmis.referencedata.web.csv.recordhandler.RecordProcessor;
+import org.openlmis.referencedata.web.csv.recordhandler.RecordWriter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CsvParserTest {
+
+  private static final String HEADER =
+      "Facility Code, Commodity Type, Period, Ideal Stock Amount\n";
+  private static final int RECORDS = 50;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @Mock
+  private EntityManager entityManager;
+
+  @Mock
+  private CsvHeaderValidator headerValidator;
+
+  @InjectMocks
+  private CsvParser csvParser;
+
+  private ModelClass<IdealStockAmountCsvModel> modelClass =
+      new ModelClass<>(IdealStockAmountCsvModel.class);
+
+  private Queue<Integer> written = new ConcurrentLinkedQueue<>();
+  private RecordWriter<IdealStockAmount> writer = records ->
+      records.forEach(isa -> written.add(isa.getAmount()));
+
+  @Before
+  public void setUp() {
+    ParseCommodityType.SEPARATOR = "|";
+    ParseProcessingPeriod.SEPARATOR = "|";
+    ReflectionTestUtils.setField(csvParser, "chunkSize", 3);
+    ReflectionTestUtils.setField(csvParser, "poolSize", 4);
+
+    when(transactionManager.getTransaction(any(TransactionDefinition.class)))
+        .thenAnswer(invocation -> new SimpleTransactionStatus());
+  }
+
+  @Test
+  public void shouldWriteAllRecordsInOrderOfFile() throws IOException {
+    int count = csvParser.parse(csv(RECORDS), modelClass, headerValidator,
+        process(amount -> false), writer);
+
+    assertThat(count).isEqualTo(RECORDS);
+    assertThat(written).containsExactlyElementsOf(amounts(RECORDS));
+    verify(entityManager, atLeastOnce()).flush();
+    verify(entityManager, atLeastOnce()).clear();
+  }
+
+  @Test
+  public void shouldReportFailureOfFirstFailedChunk() throws IOException {
+    try {
+      // the later failure happens first, as earlier chunks are slower
+      csvParser.parse(csv(RECORDS), modelClass, headerValidator,
+          process(amount -> amount == 8 || amount == 40), writer);
+      fail("Expected failure of the import");
+    } catch (IllegalArgumentException ex) {
+      assertThat(ex.getMessage()).isEqualTo("8");
+    }
+
+    assertThat(written).doesNotContain(7, 8, 9);
+  }
+
+  @Test
+  public void shouldAttachFailuresOfOtherChunksToReportedFailure() throws IOException {
+    CountDownLatch laterChunkFailed = new CountDownLatch(1);
+
+    try {
+      csvParser.parse(csv(RECORDS), modelClass, headerValidator, records -> {
+        int amount = records.get(0).getAmount();
+        if (amount == 4) {
+          laterChunkFailed.countDown();
+          throw new IllegalArgumentException(String.valueOf(amount));
+        }
+        if (amount == 1) {
+          await(laterChunkFailed);
+          throw new IllegalArgumentException(String.valueOf(amount));
+        }
+        return process(value -> false).process(records);
+      }, writer);
+      fail("Expected failure of the import");
+    } catch (IllegalArgumentException ex) {
+      assertThat(ex.getMessage()).isEqualTo("1");
+      assertThat(ex.getSuppressed()).extracting(Throwable::getMessage).containsExactly("4");
+    }
+  }
+
+  @Test
+  public void shouldReportRowOfInvalidRecord() throws IOException {
+    String content = HEADER + amounts(RECORDS)
+        .stream()
+        .map(amount -> "facility, system|id, schedule|period, "
+            + (amount == 20 ? "invalid" : amount))
+        .collect(Collectors.joining("\n"));
+
+    try {
+      csvParser.parse(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)),
+          modelClass, headerValidator, process(amount -> false), writer);
+      fail("Expected failure of the import");
+    } catch (ValidationMessageException ex) {
+      assertThat(ex.asMessage().toString()).startsWith(ERROR_UPLOAD_RECORD_INVALID + ": 20, ");
+    }
+  }
+
+  private RecordProcessor<IdealStockAmountCsvModel, IdealStockAmount> process(
+      IntPredicate failing) {
+    return records -> records
+        .stream()
+        .map(record -> {
+          int amount = record.getAmount();
+          sleep(amount < 10 ? 50 : ThreadLocalRandom.current().nextInt(5));
+          if (failing.test(amount)) {
+            throw new IllegalArgumentException(String.valueOf(amount));
+          }
+          return new IdealStockAmount(null, null, null, amount);
+        })
+        .collect(Collectors.toList());
+  }
+
+  private InputStream csv(int records) {
+    String content = HEADER + amounts(records)
+        .stream()
+        .map(amount -> "facility, system|id, schedule|period, " + amount)
+        .collect(Collectors.joining("\n"));
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private List<Integer> amounts(int records) {
+    return IntStream.rangeClosed(1, records)
+        .boxed()
+        .collect(Collectors.toList());
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -15,14 +15,18 @@
 
 package org.openlmis.referencedata.web.csv.recordhandler;
 
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
@@ -36,6 +40,7 @@ import org.openlmis.referencedata.domain.ProcessingPeriod;
 import org.openlmis.referencedata.domain.ProcessingSchedule;
 import org.openlmis.referencedata.dto.BasicFacilityDto;
 import org.openlmis.referencedata.dto.CommodityTypeDto;
+import org.openlmis.referencedata.dto.DimensionStatisticsDto;
 import org.openlmis.referencedata.dto.IdealStockAmountCsvModel;
 import org.openlmis.referencedata.dto.ProcessingPeriodDto;
 import org.openlmis.referencedata.dto.ProcessingScheduleDto;
@@ -101,13 +106,16 @@ public class IdealStockAmountProcessorTest {
     when(service.search(anyListOf(IdealStockAmount.class)))
         .thenReturn(Collections.emptyList());
 
-    when(facilityRepository.findByCode(FACILITY_CODE)).thenReturn(Optional.of(facility));
-    when(processingScheduleRepository.findOneByCode(schedule.getCode()))
-        .thenReturn(Optional.of(schedule));
-    when(processingPeriodRepository.findOneByNameAndProcessingSchedule(PERIOD, schedule))
-        .thenReturn(Optional.of(processingPeriod));
-    when(commodityTypeRepository.findByClassificationIdAndClassificationSystem(ID, SYSTEM))
-        .thenReturn(Optional.of(commodityType));
+    when(facilityRepository.findByCodeIn(singleton(FACILITY_CODE)))
+        .thenReturn(singletonList(facility));
+    when(processingScheduleRepository.findByCodeIn(singleton(SCHEDULE)))
+        .thenReturn(singletonList(schedule));
+    when(processingPeriodRepository
+        .findByNameInAndProcessingScheduleIn(singleton(PERIOD), singleton(schedule)))
+        .thenReturn(singletonList(processingPeriod));
+    when(commodityTypeRepository
+        .findByClassificationIdInAndClassificationSystemIn(singleton(ID), singleton(SYSTEM)))
+        .thenReturn(singletonList(commodityType));
   }
 
   @Test
@@ -133,7 +141,8 @@ public class IdealStockAmountProcessorTest {
     idealStockAmountsValidator.validate(isa);
     when(service.search(anyListOf(IdealStockAmount.class)))
         .thenReturn(Collections.emptyList());
-    when(facilityRepository.findByCode(FACILITY_CODE)).thenReturn(Optional.empty());
+    when(facilityRepository.findByCodeIn(singleton(FACILITY_CODE)))
+        .thenReturn(Collections.emptyList());
 
     idealStockAmountProcessor.process(Collections.singletonList(isa));
   }
@@ -145,8 +154,8 @@ public class IdealStockAmountProcessorTest {
     idealStockAmountsValidator.validate(isa);
     when(service.search(anyListOf(IdealStockAmount.class)))
         .thenReturn(Collections.emptyList());
-    when(processingScheduleRepository.findOneByCode(schedule.getCode()))
-        .thenReturn(Optional.empty());
+    when(processingScheduleRepository.findByCodeIn(singleton(SCHEDULE)))
+        .thenReturn(Collections.emptyList());
 
     idealStockAmountProcessor.process(Collections.singletonList(isa));
   }
@@ -158,8 +167,9 @@ public class IdealStockAmountProcessorTest {
     idealStockAmountsValidator.validate(isa);
     when(service.search(anyListOf(IdealStockAmount.class)))
         .thenReturn(Collections.emptyList());
-    when(processingPeriodRepository.findOneByNameAndProcessingSchedule(PERIOD, schedule))
-        .thenReturn(Optional.empty());
+    when(processingPeriodRepository
+        .findByNameInAndProcessingScheduleIn(singleton(PERIOD), singleton(schedule)))
+        .thenReturn(Collections.emptyList());
 
     idealStockAmountProcessor.process(Collections.singletonList(isa));
   }
@@ -171,12 +181,49 @@ public class IdealStockAmountProcessorTest {
     idealStockAmountsValidator.validate(isa);
     when(service.search(anyListOf(IdealStockAmount.class)))
         .thenReturn(Collections.emptyList());
-    when(commodityTypeRepository.findByClassificationIdAndClassificationSystem(ID, SYSTEM))
-        .thenReturn(Optional.empty());
+    when(commodityTypeRepository
+        .findByClassificationIdInAndClassificationSystemIn(singleton(ID), singleton(SYSTEM)))
+        .thenReturn(Collections.emptyList());
 
     idealStockAmountProcessor.process(Collections.singletonList(isa));
   }
 
+  @Test
+  public void shouldFetchDimensionsOnceForAllChunks() {
+    IdealStockAmountDimensionResolver resolver = idealStockAmountProcessor.newDimensionResolver();
+
+    idealStockAmountProcessor.process(singletonList(createIsaDto()), resolver);
+    List<IdealStockAmount> result = idealStockAmountProcessor
+        .process(singletonList(createIsaDto()), resolver);
+
+    assertEquals(facility, result.get(0).getFacility());
+    assertEquals(processingPeriod, result.get(0).getProcessingPeriod());
+    assertEquals(commodityType, result.get(0).getCommodityType());
+
+    verify(facilityRepository).findByCodeIn(anyCollectionOf(String.class));
+    verify(processingScheduleRepository).findByCodeIn(anyCollectionOf(String.class));
+    verify(processingPeriodRepository).findByNameInAndProcessingScheduleIn(
+        anyCollectionOf(String.class), anyCollectionOf(ProcessingSchedule.class));
+    verify(commodityTypeRepository).findByClassificationIdInAndClassificationSystemIn(
+        anyCollectionOf(String.class), anyCollectionOf(String.class));
+
+    Map<String, DimensionStatisticsDto> statistics = resolver.getStatistics();
+    assertEquals(new DimensionStatisticsDto(2, 1, 1, 1), statistics.get("facilities"));
+    assertEquals(new DimensionStatisticsDto(2, 1, 1, 1), statistics.get("processingSchedules"));
+    assertEquals(new DimensionStatisticsDto(2, 1, 1, 1), statistics.get("processingPeriods"));
+    assertEquals(new DimensionStatisticsDto(2, 1, 1, 1), statistics.get("commodityTypes"));
+  }
+
+  @Test
+  public void shouldNotFetchDimensionsOfExistingObjects() {
+    when(service.search(anyListOf(IdealStockAmount.class)))
+        .thenReturn(Collections.singletonList(idealStockAmount));
+
+    processAndCheckIsa();
+
+    verify(facilityRepository, never()).findByCodeIn(anyCollectionOf(String.class));
+  }
+
   private IdealStockAmountCsvModel createIsaDto() {
     BasicFacilityDto facilityDto = new BasicFacilityDto();
     facilityDto.setCode(FACILITY_CODE);